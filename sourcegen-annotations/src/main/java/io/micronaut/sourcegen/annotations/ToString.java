@@ -25,6 +25,11 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
  * The ToString annotation on a bean should generate a toString method.
  * The method will be created in [BeanName]Object class as a static method:
  *      public static String [BeanName]Object.toString(BeanName object)
+ * The text can be written into an existing builder, with an optional limit of the nested beans depth:
+ *      public static void [BeanName]Object.appendTo(BeanName object, StringBuilder builder)
+ *      public static void [BeanName]Object.appendTo(BeanName object, StringBuilder builder, int depth)
+ * The nested beans annotated with ToString are written by their appendTo method,
+ * the text matches toString when the nested beans delegate their toString to the generated method.
  *
  * @author Elif Kurtay
  * @since 1.3
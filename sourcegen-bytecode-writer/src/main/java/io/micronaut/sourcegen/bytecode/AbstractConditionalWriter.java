@@ -200,11 +200,12 @@ public abstract class AbstractConditionalWriter {
                                                Label ifLabel, int op) {
         TypeDef leftType = left.type();
         TypeDef rightType = right.type();
-        if (leftType.isPrimitive()) {
+        // The floating point values and the right wrappers, that can be null, are compared by the idiom
+        if (leftType.isPrimitive() && rightType.isPrimitive() && !JavaIdioms.isFloatingPoint(leftType)) {
             pushEqualsReferentially(generatorAdapter, context, left, right.cast(leftType), ifLabel, op);
             return;
         }
-        if (rightType.isPrimitive()) {
+        if (rightType.isPrimitive() && !JavaIdioms.isFloatingPoint(rightType)) {
             pushEqualsReferentially(generatorAdapter, context, left.cast(rightType), right, ifLabel, op);
             return;
         }
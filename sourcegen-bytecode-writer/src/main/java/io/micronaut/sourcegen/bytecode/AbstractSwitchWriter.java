@@ -20,6 +20,12 @@ import io.micronaut.sourcegen.model.ExpressionDef;
 import io.micronaut.sourcegen.model.TypeDef;
 import org.objectweb.asm.commons.GeneratorAdapter;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
 /**
  * The abstract switch writer.
  *
@@ -48,4 +54,43 @@ public class AbstractSwitchWriter {
         throw new UnsupportedOperationException("Unrecognized constant for a switch key: " + constant);
     }
 
+    /**
+     * Collect the cases by the switch key sorted in the ascending order, the generated code must not depend on the hash iteration.
+     *
+     * @param cases The cases
+     * @param <T> The case type
+     * @return The sorted cases
+     */
+    protected static <T> SortedMap<Integer, T> toSwitchCases(Map<ExpressionDef.Constant, ? extends T> cases) {
+        SortedMap<Integer, T> result = new TreeMap<>();
+        for (Map.Entry<ExpressionDef.Constant, ? extends T> e : cases.entrySet()) {
+            if (result.put(toSwitchKey(e.getKey()), e.getValue()) != null) {
+                throw new IllegalStateException("Duplicate switch key: " + e.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Collect the string cases by the hash code sorted in the ascending order.
+     * Strings with colliding hash codes are sorted, the generated code doesn't depend on the order of the cases.
+     *
+     * @param cases The cases
+     * @param <T> The case type
+     * @return The sorted cases
+     */
+    protected static <T> SortedMap<Integer, List<Map.Entry<String, T>>> toStringSwitchCases(Map<ExpressionDef.Constant, ? extends T> cases) {
+        SortedMap<Integer, List<Map.Entry<String, T>>> result = new TreeMap<>();
+        for (Map.Entry<ExpressionDef.Constant, ? extends T> e : cases.entrySet()) {
+            if (!(e.getKey().value() instanceof String stringValue)) {
+                throw new IllegalStateException("Expected a switch string value got: " + e.getKey());
+            }
+            result.computeIfAbsent(stringValue.hashCode(), k -> new ArrayList<>()).add(Map.entry(stringValue, e.getValue()));
+        }
+        for (List<Map.Entry<String, T>> collisions : result.values()) {
+            collisions.sort(Map.Entry.comparingByKey());
+        }
+        return result;
+    }
+
 }
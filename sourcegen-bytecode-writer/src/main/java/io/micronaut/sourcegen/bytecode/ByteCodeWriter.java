@@ -25,8 +25,11 @@ import io.micronaut.sourcegen.model.EnumDef;
 import io.micronaut.sourcegen.model.ExpressionDef;
 import io.micronaut.sourcegen.model.FieldDef;
 import io.micronaut.sourcegen.model.InterfaceDef;
+import io.micronaut.sourcegen.model.JavaIdioms;
 import io.micronaut.sourcegen.model.MethodDef;
 import io.micronaut.sourcegen.model.ObjectDef;
+import io.micronaut.sourcegen.model.ObjectDefRewriter;
+import io.micronaut.sourcegen.model.ObjectDefValidator;
 import io.micronaut.sourcegen.model.ParameterDef;
 import io.micronaut.sourcegen.model.PropertyDef;
 import io.micronaut.sourcegen.model.RecordDef;
@@ -38,8 +41,10 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.TryCatchBlockSorter;
 import org.objectweb.asm.util.CheckClassAdapter;
 
 import javax.lang.model.element.Modifier;
@@ -52,15 +57,22 @@ import java.util.Optional;
 import java.util.Set;
 
 import static org.objectweb.asm.Opcodes.ACC_ABSTRACT;
+import static org.objectweb.asm.Opcodes.ACC_BRIDGE;
 import static org.objectweb.asm.Opcodes.ACC_ENUM;
 import static org.objectweb.asm.Opcodes.ACC_FINAL;
 import static org.objectweb.asm.Opcodes.ACC_INTERFACE;
+import static org.objectweb.asm.Opcodes.ACC_NATIVE;
 import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
 import static org.objectweb.asm.Opcodes.ACC_PROTECTED;
 import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
 import static org.objectweb.asm.Opcodes.ACC_RECORD;
 import static org.objectweb.asm.Opcodes.ACC_STATIC;
+import static org.objectweb.asm.Opcodes.ACC_STRICT;
+import static org.objectweb.asm.Opcodes.ACC_SYNCHRONIZED;
 import static org.objectweb.asm.Opcodes.ACC_SYNTHETIC;
+import static org.objectweb.asm.Opcodes.ACC_TRANSIENT;
+import static org.objectweb.asm.Opcodes.ACC_VARARGS;
+import static org.objectweb.asm.Opcodes.ACC_VOLATILE;
 import static org.objectweb.asm.Opcodes.V17;
 
 /**
@@ -141,7 +153,7 @@ public final class ByteCodeWriter {
      * @param fieldDef     The field definition
      */
     public void writeField(ClassVisitor classVisitor, ObjectDef objectDef, FieldDef fieldDef) {
-        int modifiersFlag = getModifiersFlag(fieldDef.getModifiers());
+        int modifiersFlag = getFieldModifiersFlag(fieldDef.getModifiers());
         if (fieldDef.isSynthetic()) {
             modifiersFlag |= ACC_SYNTHETIC;
         }
@@ -241,10 +253,11 @@ public final class ByteCodeWriter {
      * Write an interface.
      *
      * @param classVisitor The class visitor
-     * @param classDef     The class definition
+     * @param definition   The class definition
      * @param outerType     The outer type
      */
-    public void writeClass(ClassVisitor classVisitor, ClassDef classDef, @Nullable ClassTypeDef outerType) {
+    public void writeClass(ClassVisitor classVisitor, ClassDef definition, @Nullable ClassTypeDef outerType) {
+        ClassDef classDef = JavaIdioms.expandLazyFields(definition);
         ClassTypeDef typeDef = classDef.asTypeDef();
 
         int modifiersFlag = getModifiersFlag(classDef.getModifiers());
@@ -441,17 +454,31 @@ public final class ByteCodeWriter {
     public void writeMethod(ClassVisitor classVisitor, @Nullable ObjectDef objectDef, MethodDef methodDef) {
         String name = methodDef.getName();
         String methodDescriptor = TypeUtils.getMethodDescriptor(objectDef, methodDef);
-        int modifiersFlag = getModifiersFlag(methodDef.getModifiers());
+        int modifiersFlag = getMethodModifiersFlag(methodDef.getModifiers());
         if (methodDef.isSynthetic()) {
             modifiersFlag |= ACC_SYNTHETIC;
         }
-        GeneratorAdapter generatorAdapter = new GeneratorAdapter(classVisitor.visitMethod(
+        if (methodDef.isVarargs()) {
+            modifiersFlag |= ACC_VARARGS;
+        }
+        if (methodDef.isBridge()) {
+            modifiersFlag |= ACC_BRIDGE;
+        }
+        String signature = SignatureWriterUtils.getMethodSignature(objectDef, methodDef);
+        MethodVisitor methodVisitor = classVisitor.visitMethod(
             modifiersFlag,
             name,
             methodDescriptor,
-            SignatureWriterUtils.getMethodSignature(objectDef, methodDef),
+            signature,
             null
-        ), modifiersFlag, name, methodDescriptor);
+        );
+        // The statements of a compacted method are decoded on every access
+        List<StatementDef> statements = methodDef.getStatements();
+        if (countExceptionHandlers(statements) > 1) {
+            // The nested exception handlers need to be ordered before the outer ones
+            methodVisitor = new TryCatchBlockSorter(methodVisitor, modifiersFlag, name, methodDescriptor, signature, null);
+        }
+        GeneratorAdapter generatorAdapter = new GeneratorAdapter(methodVisitor, modifiersFlag, name, methodDescriptor);
         for (AnnotationDef annotation : methodDef.getAnnotations()) {
             generatorAdapter.visitAnnotation(TypeUtils.getType(annotation.getType(), null).getDescriptor(), true);
         }
@@ -484,7 +511,6 @@ public final class ByteCodeWriter {
             parameterIndex++;
         }
 
-        List<StatementDef> statements = methodDef.getStatements();
         if (methodDef.isConstructor()) {
             statements = adjustConstructorStatements(objectDef, statements);
         }
@@ -497,7 +523,7 @@ public final class ByteCodeWriter {
                 StatementWriter.of(statement).write(generatorAdapter, context, null);
             }
             StatementDef statementDef = statements.get(statements.size() - 1);
-            if (!hasReturnStatement(statementDef)) {
+            if (!ObjectDefValidator.isTerminating(statementDef)) {
                 if (methodDef.getReturnType().equals(TypeDef.VOID)) {
                     generatorAdapter.returnValue();
                 } else {
@@ -554,28 +580,23 @@ public final class ByteCodeWriter {
         return statements;
     }
 
-    private boolean hasReturnStatement(StatementDef statement) {
-        List<StatementDef> statements = statement.flatten();
-        if (statements.isEmpty()) {
-            return false;
-        }
-        StatementDef statementDef = statements.get(statements.size() - 1);
-        if (statementDef instanceof StatementDef.IfElse ifElse) {
-            return hasReturnStatement(ifElse.statement()) && hasReturnStatement(ifElse.elseStatement());
-        }
-        if (statementDef instanceof StatementDef.Try aTry) {
-            return hasReturnStatement(aTry.statement());
-        }
-        if (statementDef instanceof StatementDef.Synchronized aSynchronized) {
-            return hasReturnStatement(aSynchronized.statement());
-        }
-        if (statementDef instanceof StatementDef.Switch switchStatement) {
-            if (switchStatement.defaultCase() == null) {
-                return false;
+    private static int countExceptionHandlers(List<StatementDef> statements) {
+        int[] count = new int[1];
+        ObjectDefRewriter counter = new ObjectDefRewriter() {
+            @Override
+            protected StatementDef visitStatement(StatementDef statement) {
+                if (statement instanceof StatementDef.Try || statement instanceof StatementDef.Synchronized) {
+                    count[0]++;
+                } else if (statement instanceof StatementDef.TryWithResources tryWithResources) {
+                    count[0] += tryWithResources.resources().size();
+                }
+                return statement;
             }
-            return switchStatement.cases().values().stream().allMatch(this::hasReturnStatement);
+        };
+        for (StatementDef statement : statements) {
+            counter.rewriteStatement(statement);
         }
-        return statementDef instanceof StatementDef.Return || statementDef instanceof StatementDef.Throw;
+        return count[0];
     }
 
     private StatementDef superConstructorInvocation() {
@@ -609,6 +630,31 @@ public final class ByteCodeWriter {
         return access;
     }
 
+    private int getFieldModifiersFlag(Set<Modifier> modifiers) {
+        int access = getModifiersFlag(modifiers);
+        if (modifiers.contains(Modifier.VOLATILE)) {
+            access |= ACC_VOLATILE;
+        }
+        if (modifiers.contains(Modifier.TRANSIENT)) {
+            access |= ACC_TRANSIENT;
+        }
+        return access;
+    }
+
+    private int getMethodModifiersFlag(Set<Modifier> modifiers) {
+        int access = getModifiersFlag(modifiers);
+        if (modifiers.contains(Modifier.SYNCHRONIZED)) {
+            access |= ACC_SYNCHRONIZED;
+        }
+        if (modifiers.contains(Modifier.NATIVE)) {
+            access |= ACC_NATIVE;
+        }
+        if (modifiers.contains(Modifier.STRICTFP)) {
+            access |= ACC_STRICT;
+        }
+        return access;
+    }
+
     /**
      * Writes the bytecode of generated class.
      *
@@ -22,6 +22,8 @@ import io.micronaut.sourcegen.model.ObjectDef;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Type;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -31,18 +33,54 @@ import java.util.Map;
  * @param objectDef The current object definition
  * @param methodDef The current method definition.
  * @param locals    The locals
+ * @param loops     The enclosing loops, the innermost first
  * @since 1.5
  */
 @Internal
 public record MethodContext(@Nullable ObjectDef objectDef,
                             MethodDef methodDef,
-                            Map<String, LocalData> locals) {
+                            Map<String, LocalData> locals,
+                            Deque<LoopData> loops) {
 
     public MethodContext(@Nullable ObjectDef objectDef,
                          MethodDef methodDef) {
         this(objectDef, methodDef, new LinkedHashMap<>());
     }
 
+    public MethodContext(@Nullable ObjectDef objectDef,
+                         MethodDef methodDef,
+                         Map<String, LocalData> locals) {
+        this(objectDef, methodDef, locals, new ArrayDeque<>());
+    }
+
+    /**
+     * Find the loop of a continue.
+     *
+     * @param label The label or null for the innermost loop
+     * @return The loop data
+     */
+    public LoopData findLoop(@Nullable String label) {
+        for (LoopData loop : loops) {
+            if (loop.continueLabel() != null && (label == null || label.equals(loop.label()))) {
+                return loop;
+            }
+        }
+        throw new IllegalStateException(label == null ? "No loop found in method: " + methodDef.getName() : "No loop found with label: " + label);
+    }
+
+    /**
+     * Find the loop or the switch of a break, like in Java the break without a label leaves the innermost switch.
+     *
+     * @param label The label or null for the innermost loop or switch
+     * @return The loop data
+     */
+    public LoopData findBreakTarget(@Nullable String label) {
+        if (label == null && !loops.isEmpty()) {
+            return loops.peek();
+        }
+        return findLoop(label);
+    }
+
     /**
      * The local data.
      *
@@ -54,4 +92,15 @@ public record MethodContext(@Nullable ObjectDef objectDef,
     public record LocalData(String name, Type type, Label start, int index) {
     }
 
+    /**
+     * The loop data, a switch statement is a target of the break without a continue label.
+     *
+     * @param label         The label or null
+     * @param continueLabel The label of the next iteration or null for a switch
+     * @param breakLabel    The label after the loop
+     * @param finallyBlock  The finally block of the loop statement
+     */
+    public record LoopData(@Nullable String label, @Nullable Label continueLabel, Label breakLabel, @Nullable Runnable finallyBlock) {
+    }
+
 }
@@ -73,6 +73,10 @@ final class CastExpressionWriter implements ExpressionWriter {
     }
 
     private static boolean needsCast(TypeDef from, TypeDef to) {
+        if (from == to) {
+            // Most of the types are shared
+            return false;
+        }
         if (from.makeNullable().equals(to.makeNullable())) {
             return false;
         }
@@ -20,6 +20,7 @@ import io.micronaut.sourcegen.bytecode.MethodContext;
 import io.micronaut.sourcegen.model.ExpressionDef;
 import io.micronaut.sourcegen.model.TypeDef;
 import io.micronaut.sourcegen.model.VariableDef;
+import org.objectweb.asm.Type;
 import org.objectweb.asm.commons.GeneratorAdapter;
 
 /**
@@ -28,7 +29,7 @@ import org.objectweb.asm.commons.GeneratorAdapter;
  * @author Denis Stepano
  * @since 1.5
  */
-public sealed interface ExpressionWriter permits AbstractStatementAwareExpressionWriter, ArrayElementExpressionWriter, CastExpressionWriter, ConditionExpressionWriter, ConstantExpressionWriter, GetPropertyExpressionWriter, IfElseExpressionWriter, InstanceOfExpressionWriter, InvokeGetClassExpressionWriter, InvokeHashCodeMethodExpressionWriter, InvokeInstanceMethodExpressionWriter, InvokeStaticMethodExpressionWriter, MathBinaryExpressionWriter, MathUnaryExpressionWriter, NewArrayInitializedExpressionWriter, NewArrayOfSizeExpressionWriter, NewInstanceExpressionWriter, SwitchExpressionWriter, SwitchYieldCaseExpressionWriter, VariableExpressionWriter {
+public sealed interface ExpressionWriter permits AbstractStatementAwareExpressionWriter, ArrayElementExpressionWriter, ArrayLengthExpressionWriter, CastExpressionWriter, ConditionExpressionWriter, ConstantExpressionWriter, GetPropertyExpressionWriter, IfElseExpressionWriter, IncrementExpressionWriter, InstanceOfExpressionWriter, InvokeExactExpressionWriter, InvokeGetClassExpressionWriter, InvokeHashCodeMethodExpressionWriter, InvokeInstanceMethodExpressionWriter, InvokeStaticMethodExpressionWriter, MathBinaryExpressionWriter, MathUnaryExpressionWriter, MethodHandleConstantExpressionWriter, NewArrayInitializedExpressionWriter, NewArrayOfSizeExpressionWriter, NewInstanceExpressionWriter, SwitchExpressionWriter, SwitchYieldCaseExpressionWriter, VariableExpressionWriter {
 
     /**
      * Create a writer from an expression.
@@ -40,6 +41,9 @@ public sealed interface ExpressionWriter permits AbstractStatementAwareExpressio
         if (expressionDef instanceof ExpressionDef.ArrayElement arrayElement) {
             return new ArrayElementExpressionWriter(arrayElement);
         }
+        if (expressionDef instanceof ExpressionDef.ArrayLength arrayLength) {
+            return new ArrayLengthExpressionWriter(arrayLength);
+        }
         if (expressionDef instanceof ExpressionDef.InstanceOf instanceOf) {
             return new InstanceOfExpressionWriter(instanceOf);
         }
@@ -49,6 +53,9 @@ public sealed interface ExpressionWriter permits AbstractStatementAwareExpressio
         if (expressionDef instanceof ExpressionDef.MathBinaryOperation math) {
             return new MathBinaryExpressionWriter(math);
         }
+        if (expressionDef instanceof ExpressionDef.Increment increment) {
+            return new IncrementExpressionWriter(increment);
+        }
         if (expressionDef instanceof ExpressionDef.MathUnaryOperation math) {
             return new MathUnaryExpressionWriter(math);
         }
@@ -73,6 +80,12 @@ public sealed interface ExpressionWriter permits AbstractStatementAwareExpressio
         if (expressionDef instanceof ExpressionDef.InvokeStaticMethod invokeStaticMethod) {
             return new InvokeStaticMethodExpressionWriter(invokeStaticMethod);
         }
+        if (expressionDef instanceof ExpressionDef.InvokeExact invokeExact) {
+            return new InvokeExactExpressionWriter(invokeExact);
+        }
+        if (expressionDef instanceof ExpressionDef.MethodHandleConstant methodHandle) {
+            return new MethodHandleConstantExpressionWriter(methodHandle);
+        }
         if (expressionDef instanceof ExpressionDef.GetPropertyValue getPropertyValue) {
             return new GetPropertyExpressionWriter(getPropertyValue);
         }
@@ -113,6 +126,43 @@ public sealed interface ExpressionWriter permits AbstractStatementAwareExpressio
         ExpressionWriter.of(new ExpressionDef.Cast(expectedType, expressionDef)).write(generatorAdapter, context);
     }
 
+    /**
+     * Write the math operation of the variable value and the operand on the stack, the result is narrowed to the variable type.
+     *
+     * @param generatorAdapter The adapter
+     * @param opType           The operation
+     * @param type             The variable type
+     */
+    static void writeVariableMath(GeneratorAdapter generatorAdapter,
+                                  ExpressionDef.MathBinaryOperation.OpType opType,
+                                  Type type) {
+        generatorAdapter.math(getMathOp(opType), type);
+        if (type.getSort() == Type.BYTE || type.getSort() == Type.SHORT || type.getSort() == Type.CHAR) {
+            generatorAdapter.cast(Type.INT_TYPE, type);
+        }
+    }
+
+    /**
+     * @param opType The operation
+     * @return The {@link GeneratorAdapter} math operation
+     */
+    static int getMathOp(ExpressionDef.MathBinaryOperation.OpType opType) {
+        return switch (opType) {
+            case ADDITION -> GeneratorAdapter.ADD;
+            case SUBTRACTION -> GeneratorAdapter.SUB;
+            case MULTIPLICATION -> GeneratorAdapter.MUL;
+            case DIVISION -> GeneratorAdapter.DIV;
+            case MODULUS -> GeneratorAdapter.REM;
+
+            case BITWISE_AND -> GeneratorAdapter.AND;
+            case BITWISE_OR -> GeneratorAdapter.OR;
+            case BITWISE_XOR -> GeneratorAdapter.XOR;
+            case BITWISE_LEFT_SHIFT -> GeneratorAdapter.SHL;
+            case BITWISE_RIGHT_SHIFT -> GeneratorAdapter.SHR;
+            case BITWISE_UNSIGNED_RIGHT_SHIFT -> GeneratorAdapter.USHR;
+        };
+    }
+
     private static ExpressionDef adjustConstant(ExpressionDef expressionDef, TypeDef expectedType, ExpressionDef.Constant constant) {
         if (expectedType.isPrimitive()) {
             if (!constant.type().isPrimitive() && constant.value() != null && ReflectionUtils.getPrimitiveType(constant.value().getClass()).isPrimitive()) {
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.bytecode.expression;
+
+import io.micronaut.sourcegen.bytecode.MethodContext;
+import io.micronaut.sourcegen.bytecode.TypeUtils;
+import io.micronaut.sourcegen.model.ExpressionDef;
+import io.micronaut.sourcegen.model.TypeDef;
+import io.micronaut.sourcegen.model.VariableDef;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.ADDITION;
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.SUBTRACTION;
+
+final class IncrementExpressionWriter extends AbstractStatementAwareExpressionWriter implements ExpressionWriter {
+
+    private final ExpressionDef.Increment increment;
+
+    public IncrementExpressionWriter(ExpressionDef.Increment increment) {
+        this.increment = increment;
+    }
+
+    @Override
+    public void write(GeneratorAdapter generatorAdapter, MethodContext context) {
+        VariableDef variable = increment.variable();
+        Type type = TypeUtils.getType(variable.type(), context.objectDef());
+        boolean wide = type.getSize() == 2;
+        boolean dupBefore = !statement && increment.postfix();
+        boolean dupAfter = !statement && !increment.postfix();
+        if (variable instanceof VariableDef.Local local) {
+            MethodContext.LocalData localData = context.locals().get(local.name());
+            if (local.type().equals(TypeDef.Primitive.INT)) {
+                if (dupBefore) {
+                    generatorAdapter.loadLocal(localData.index(), localData.type());
+                }
+                generatorAdapter.iinc(localData.index(), increment.decrement() ? -1 : 1);
+                if (dupAfter) {
+                    generatorAdapter.loadLocal(localData.index(), localData.type());
+                }
+                return;
+            }
+            generatorAdapter.loadLocal(localData.index(), localData.type());
+            dupIf(generatorAdapter, dupBefore, wide);
+            writeIncrement(generatorAdapter, type);
+            dupIf(generatorAdapter, dupAfter, wide);
+            generatorAdapter.storeLocal(localData.index(), localData.type());
+        } else if (variable instanceof VariableDef.Field field) {
+            Type ownerType = TypeUtils.getType(field.instance().type(), context.objectDef());
+            ExpressionWriter.writeExpression(generatorAdapter, context, field.instance());
+            generatorAdapter.dup();
+            generatorAdapter.getField(ownerType, field.name(), type);
+            // The value is kept below the instance
+            dupX1If(generatorAdapter, dupBefore, wide);
+            writeIncrement(generatorAdapter, type);
+            dupX1If(generatorAdapter, dupAfter, wide);
+            generatorAdapter.putField(ownerType, field.name(), type);
+        } else if (variable instanceof VariableDef.StaticField field) {
+            Type ownerType = TypeUtils.getType(field.ownerType(), context.objectDef());
+            generatorAdapter.getStatic(ownerType, field.name(), type);
+            dupIf(generatorAdapter, dupBefore, wide);
+            writeIncrement(generatorAdapter, type);
+            dupIf(generatorAdapter, dupAfter, wide);
+            generatorAdapter.putStatic(ownerType, field.name(), type);
+        } else {
+            throw new IllegalStateException("Unsupported incremented variable: " + variable);
+        }
+    }
+
+    private void writeIncrement(GeneratorAdapter generatorAdapter, Type type) {
+        switch (type.getSort()) {
+            case Type.LONG -> generatorAdapter.push(1L);
+            case Type.FLOAT -> generatorAdapter.push(1f);
+            case Type.DOUBLE -> generatorAdapter.push(1d);
+            default -> generatorAdapter.push(1);
+        }
+        ExpressionWriter.writeVariableMath(generatorAdapter, increment.decrement() ? SUBTRACTION : ADDITION, type);
+    }
+
+    private static void dupIf(GeneratorAdapter generatorAdapter, boolean dup, boolean wide) {
+        if (!dup) {
+            return;
+        }
+        if (wide) {
+            generatorAdapter.dup2();
+        } else {
+            generatorAdapter.dup();
+        }
+    }
+
+    private static void dupX1If(GeneratorAdapter generatorAdapter, boolean dup, boolean wide) {
+        if (!dup) {
+            return;
+        }
+        if (wide) {
+            generatorAdapter.dup2X1();
+        } else {
+            generatorAdapter.dupX1();
+        }
+    }
+}
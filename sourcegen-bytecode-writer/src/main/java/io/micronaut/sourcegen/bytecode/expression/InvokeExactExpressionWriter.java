@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.bytecode.expression;
+
+import io.micronaut.sourcegen.bytecode.MethodContext;
+import io.micronaut.sourcegen.bytecode.TypeUtils;
+import io.micronaut.sourcegen.model.ExpressionDef;
+import io.micronaut.sourcegen.model.TypeDef;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.Method;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Iterator;
+
+final class InvokeExactExpressionWriter extends AbstractStatementAwareExpressionWriter implements ExpressionWriter {
+
+    private static final Type METHOD_HANDLE_TYPE = Type.getType(MethodHandle.class);
+
+    private final ExpressionDef.InvokeExact invokeExact;
+
+    public InvokeExactExpressionWriter(ExpressionDef.InvokeExact invokeExact) {
+        this.invokeExact = invokeExact;
+    }
+
+    @Override
+    public void write(GeneratorAdapter generatorAdapter, MethodContext context) {
+        ExpressionWriter.writeExpressionCheckCast(generatorAdapter, context, invokeExact.methodHandle(), invokeExact.methodHandle().type());
+        Iterator<TypeDef> iterator = invokeExact.parameterTypes().iterator();
+        for (ExpressionDef value : invokeExact.values()) {
+            ExpressionWriter.writeExpressionCheckCast(generatorAdapter, context, value, iterator.next());
+        }
+        // The signature polymorphic method is invoked with the descriptor of the call site
+        Type[] argumentTypes = invokeExact.parameterTypes().stream()
+            .map(parameterType -> TypeUtils.getType(parameterType, context.objectDef()))
+            .toArray(Type[]::new);
+        Type returnType = TypeUtils.getType(invokeExact.returnType(), context.objectDef());
+        generatorAdapter.invokeVirtual(METHOD_HANDLE_TYPE, new Method("invokeExact", returnType, argumentTypes));
+        popValueIfNeeded(generatorAdapter, invokeExact.returnType());
+    }
+}
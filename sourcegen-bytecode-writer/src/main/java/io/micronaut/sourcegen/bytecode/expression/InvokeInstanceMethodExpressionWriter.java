@@ -67,8 +67,10 @@ final class InvokeInstanceMethodExpressionWriter extends AbstractStatementAwareE
             } else if (invokeInstanceMethod.method().isConstructor()) {
                 generatorAdapter.invokeConstructor(methodOwnerType, method);
             } else if (classTypeDef.isInterface()) {
+                // Private interface methods of nestmates are also invoked by invokeinterface (JEP 181)
                 generatorAdapter.invokeInterface(methodOwnerType, method);
             } else {
+                // Private methods of nestmates are invoked directly, the NestHost/NestMembers attributes grant the access (JEP 181)
                 generatorAdapter.invokeVirtual(methodOwnerType, method);
             }
         } else if (instanceType instanceof TypeDef.Array) {
@@ -32,23 +32,6 @@ final class MathBinaryExpressionWriter implements ExpressionWriter {
     public void write(GeneratorAdapter generatorAdapter, MethodContext context) {
         ExpressionWriter.writeExpression(generatorAdapter, context, math.left());
         ExpressionWriter.writeExpression(generatorAdapter, context, math.right());
-        generatorAdapter.math(getMathOp(math.opType()), TypeUtils.getType(math.left().type(), context.objectDef()));
-    }
-
-    private static int getMathOp(ExpressionDef.MathBinaryOperation.OpType opType) {
-        return switch (opType) {
-            case ADDITION -> GeneratorAdapter.ADD;
-            case SUBTRACTION -> GeneratorAdapter.SUB;
-            case MULTIPLICATION -> GeneratorAdapter.MUL;
-            case DIVISION -> GeneratorAdapter.DIV;
-            case MODULUS -> GeneratorAdapter.REM;
-
-            case BITWISE_AND -> GeneratorAdapter.AND;
-            case BITWISE_OR -> GeneratorAdapter.OR;
-            case BITWISE_XOR -> GeneratorAdapter.XOR;
-            case BITWISE_LEFT_SHIFT -> GeneratorAdapter.SHL;
-            case BITWISE_RIGHT_SHIFT -> GeneratorAdapter.SHR;
-            case BITWISE_UNSIGNED_RIGHT_SHIFT -> GeneratorAdapter.USHR;
-        };
+        generatorAdapter.math(ExpressionWriter.getMathOp(math.opType()), TypeUtils.getType(math.left().type(), context.objectDef()));
     }
 }
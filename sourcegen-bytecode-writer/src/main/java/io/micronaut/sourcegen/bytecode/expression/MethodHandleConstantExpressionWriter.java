@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.bytecode.expression;
+
+import io.micronaut.sourcegen.bytecode.MethodContext;
+import io.micronaut.sourcegen.bytecode.TypeUtils;
+import io.micronaut.sourcegen.model.ExpressionDef;
+import io.micronaut.sourcegen.model.MethodDef;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+
+import static org.objectweb.asm.Opcodes.H_INVOKEINTERFACE;
+import static org.objectweb.asm.Opcodes.H_INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.H_INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.H_NEWINVOKESPECIAL;
+
+final class MethodHandleConstantExpressionWriter implements ExpressionWriter {
+    private final ExpressionDef.MethodHandleConstant methodHandle;
+
+    public MethodHandleConstantExpressionWriter(ExpressionDef.MethodHandleConstant methodHandle) {
+        this.methodHandle = methodHandle;
+    }
+
+    @Override
+    public void write(GeneratorAdapter generatorAdapter, MethodContext context) {
+        boolean isInterface = methodHandle.owner().isInterface();
+        int tag = switch (methodHandle.kind()) {
+            case STATIC -> H_INVOKESTATIC;
+            case VIRTUAL -> isInterface ? H_INVOKEINTERFACE : H_INVOKEVIRTUAL;
+            case CONSTRUCTOR -> H_NEWINVOKESPECIAL;
+        };
+        MethodDef methodDef = methodHandle.method();
+        Type owner = TypeUtils.getType(methodHandle.owner(), context.objectDef());
+        // The handle is resolved once by ldc of CONSTANT_MethodHandle
+        generatorAdapter.push(new Handle(
+            tag,
+            owner.getInternalName(),
+            methodDef.getName(),
+            TypeUtils.getMethodDescriptor(context.objectDef(), methodDef),
+            isInterface
+        ));
+    }
+}
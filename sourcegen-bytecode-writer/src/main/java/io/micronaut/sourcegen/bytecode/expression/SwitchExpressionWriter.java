@@ -26,8 +26,9 @@ import org.objectweb.asm.commons.GeneratorAdapter;
 import org.objectweb.asm.commons.Method;
 import org.objectweb.asm.commons.TableSwitchGenerator;
 
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.SortedMap;
 
 final class SwitchExpressionWriter extends AbstractSwitchWriter implements ExpressionWriter {
     private final ExpressionDef.Switch aSwitch;
@@ -50,8 +51,8 @@ final class SwitchExpressionWriter extends AbstractSwitchWriter implements Expre
     private static void writeSwitch(GeneratorAdapter generatorAdapter, MethodContext context, ExpressionDef.Switch aSwitch) {
         ExpressionDef expression = aSwitch.expression();
         pushSwitchExpression(generatorAdapter, context, expression);
-        Map<Integer, ExpressionDef> map = aSwitch.cases().entrySet().stream().map(e -> Map.entry(toSwitchKey(e.getKey()), e.getValue())).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        int[] keys = map.keySet().stream().mapToInt(x -> x).sorted().toArray();
+        SortedMap<Integer, ExpressionDef> map = toSwitchCases(aSwitch.cases());
+        int[] keys = map.keySet().stream().mapToInt(x -> x).toArray();
         generatorAdapter.tableSwitch(keys, new TableSwitchGenerator() {
             @Override
             public void generateCase(int key, Label end) {
@@ -80,26 +81,29 @@ final class SwitchExpressionWriter extends AbstractSwitchWriter implements Expre
             Method.getMethod(ReflectionUtils.getRequiredMethod(String.class, "hashCode"))
         );
 
-        Map<Integer, Map.Entry<ExpressionDef.Constant, ? extends ExpressionDef>> map = aSwitch.cases().entrySet().stream()
-            .map(e -> Map.entry(toSwitchKey(e.getKey()), Map.entry(e.getKey(), e.getValue())))
-            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        int[] keys = map.keySet().stream().mapToInt(x -> x).sorted().toArray();
+        SortedMap<Integer, List<Map.Entry<String, ExpressionDef>>> map = toStringSwitchCases(aSwitch.cases());
+        int[] keys = map.keySet().stream().mapToInt(x -> x).toArray();
         Label defaultEnd = new Label();
         Label finalEnd = new Label();
         generatorAdapter.tableSwitch(keys, new TableSwitchGenerator() {
             @Override
             public void generateCase(int key, Label end) {
-                Map.Entry<ExpressionDef.Constant, ? extends ExpressionDef> e = map.get(key);
-                if (!(e.getKey().value() instanceof String stringValue)) {
-                    throw new IllegalStateException("Expected a switch string value got " + e.getKey());
+                List<Map.Entry<String, ExpressionDef>> entries = map.get(key);
+                for (int i = 0; i < entries.size(); i++) {
+                    Map.Entry<String, ExpressionDef> e = entries.get(i);
+                    // Strings with the same hash code are compared one after another
+                    Label nextCase = i == entries.size() - 1 ? defaultEnd : new Label();
+                    generatorAdapter.loadLocal(switchValueLocal, stringType);
+                    generatorAdapter.push(e.getKey());
+                    generatorAdapter.invokeVirtual(stringType, Method.getMethod(ReflectionUtils.getRequiredMethod(String.class, "equals", Object.class)));
+                    generatorAdapter.push(true);
+                    generatorAdapter.ifCmp(Type.BOOLEAN_TYPE, GeneratorAdapter.NE, nextCase);
+                    ExpressionWriter.writeExpressionCheckCast(generatorAdapter, context, e.getValue(), aSwitch.type());
+                    generatorAdapter.goTo(finalEnd);
+                    if (nextCase != defaultEnd) {
+                        generatorAdapter.visitLabel(nextCase);
+                    }
                 }
-                generatorAdapter.loadLocal(switchValueLocal, stringType);
-                generatorAdapter.push(stringValue);
-                generatorAdapter.invokeVirtual(stringType, Method.getMethod(ReflectionUtils.getRequiredMethod(String.class, "equals", Object.class)));
-                generatorAdapter.push(true);
-                generatorAdapter.ifCmp(Type.BOOLEAN_TYPE, GeneratorAdapter.NE, defaultEnd);
-                ExpressionWriter.writeExpressionCheckCast(generatorAdapter, context, e.getValue(), aSwitch.type());
-                generatorAdapter.goTo(finalEnd);
             }
 
             @Override
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.bytecode.statement;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.sourcegen.bytecode.MethodContext;
+import io.micronaut.sourcegen.bytecode.TypeUtils;
+import io.micronaut.sourcegen.bytecode.expression.ExpressionWriter;
+import io.micronaut.sourcegen.model.ExpressionDef;
+import io.micronaut.sourcegen.model.StatementDef;
+import io.micronaut.sourcegen.model.TypeDef;
+import io.micronaut.sourcegen.model.VariableDef;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+
+final class CompoundAssignStatementWriter implements StatementWriter {
+
+    private final StatementDef.CompoundAssign compoundAssign;
+
+    public CompoundAssignStatementWriter(StatementDef.CompoundAssign compoundAssign) {
+        this.compoundAssign = compoundAssign;
+    }
+
+    @Override
+    public void write(GeneratorAdapter generatorAdapter, MethodContext context, Runnable finallyBlock) {
+        VariableDef variable = compoundAssign.variable();
+        Type type = TypeUtils.getType(variable.type(), context.objectDef());
+        if (variable instanceof VariableDef.Local local) {
+            MethodContext.LocalData localData = context.locals().get(local.name());
+            Integer increment = findIncrement(local);
+            if (increment != null) {
+                generatorAdapter.iinc(localData.index(), increment);
+                return;
+            }
+            generatorAdapter.loadLocal(localData.index(), localData.type());
+            writeOperation(generatorAdapter, context, type);
+            generatorAdapter.storeLocal(localData.index(), localData.type());
+        } else if (variable instanceof VariableDef.Field field) {
+            Type ownerType = TypeUtils.getType(field.instance().type(), context.objectDef());
+            ExpressionWriter.writeExpression(generatorAdapter, context, field.instance());
+            generatorAdapter.dup();
+            generatorAdapter.getField(ownerType, field.name(), type);
+            writeOperation(generatorAdapter, context, type);
+            generatorAdapter.putField(ownerType, field.name(), type);
+        } else if (variable instanceof VariableDef.StaticField field) {
+            Type ownerType = TypeUtils.getType(field.ownerType(), context.objectDef());
+            generatorAdapter.getStatic(ownerType, field.name(), type);
+            writeOperation(generatorAdapter, context, type);
+            generatorAdapter.putStatic(ownerType, field.name(), type);
+        } else {
+            throw new IllegalStateException("Unsupported compound assigned variable: " + variable);
+        }
+    }
+
+    private void writeOperation(GeneratorAdapter generatorAdapter, MethodContext context, Type type) {
+        ExpressionDef.MathBinaryOperation.OpType opType = compoundAssign.opType();
+        boolean shift = opType == ExpressionDef.MathBinaryOperation.OpType.BITWISE_LEFT_SHIFT
+            || opType == ExpressionDef.MathBinaryOperation.OpType.BITWISE_RIGHT_SHIFT
+            || opType == ExpressionDef.MathBinaryOperation.OpType.BITWISE_UNSIGNED_RIGHT_SHIFT;
+        ExpressionDef expression = compoundAssign.expression();
+        TypeDef operandType = compoundAssign.variable().type();
+        if (shift) {
+            // The shift distance is always an int, skip the cast to the variable type
+            if (expression instanceof ExpressionDef.Cast cast && cast.type().equals(operandType)) {
+                expression = cast.expressionDef();
+            }
+            operandType = TypeDef.Primitive.INT;
+        }
+        ExpressionWriter.writeExpressionCheckCast(generatorAdapter, context, expression, operandType);
+        ExpressionWriter.writeVariableMath(generatorAdapter, opType, type);
+    }
+
+    /**
+     * @param local The local
+     * @return The amount if the int local is updated by a constant that fits `iinc`
+     */
+    @Nullable
+    private Integer findIncrement(VariableDef.Local local) {
+        ExpressionDef.MathBinaryOperation.OpType opType = compoundAssign.opType();
+        if (!local.type().equals(TypeDef.Primitive.INT)
+            || opType != ExpressionDef.MathBinaryOperation.OpType.ADDITION && opType != ExpressionDef.MathBinaryOperation.OpType.SUBTRACTION
+            || !(compoundAssign.expression() instanceof ExpressionDef.Constant constant)
+            || !(constant.value() instanceof Integer value)) {
+            return null;
+        }
+        int increment = opType == ExpressionDef.MathBinaryOperation.OpType.ADDITION ? value : -value;
+        if (increment < Short.MIN_VALUE || increment > Short.MAX_VALUE) {
+            return null;
+        }
+        return increment;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.bytecode.statement;
+
+import io.micronaut.core.annotation.Nullable;
+
+/**
+ * The finally block of a statement followed by the finally block of the enclosing statement.
+ * A return runs the whole chain, a jump to a loop runs the blocks up to the finally block of the loop.
+ *
+ * @param block The finally block of the statement
+ * @param outer The finally block of the enclosing statement
+ * @since 1.5
+ */
+record FinallyBlock(Runnable block, @Nullable Runnable outer) implements Runnable {
+
+    @Override
+    public void run() {
+        block.run();
+        if (outer != null) {
+            outer.run();
+        }
+    }
+
+    /**
+     * Run the finally blocks until the finally block of the jump target is reached.
+     *
+     * @param finallyBlock The finally block of the jump
+     * @param target       The finally block of the target
+     */
+    static void runUntil(@Nullable Runnable finallyBlock, @Nullable Runnable target) {
+        Runnable current = finallyBlock;
+        while (current != target) {
+            if (!(current instanceof FinallyBlock chained)) {
+                throw new IllegalStateException("The finally block of the jump doesn't enclose the target");
+            }
+            chained.block().run();
+            current = chained.outer();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.bytecode.statement;
+
+import io.micronaut.sourcegen.bytecode.MethodContext;
+import io.micronaut.sourcegen.model.ClassTypeDef;
+import io.micronaut.sourcegen.model.ExpressionDef;
+import io.micronaut.sourcegen.model.StatementDef;
+import io.micronaut.sourcegen.model.TypeDef;
+import io.micronaut.sourcegen.model.VariableDef;
+import org.objectweb.asm.commons.GeneratorAdapter;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The for-each loop is lowered to an indexed loop over an array or a list of a {@link RandomAccess} type
+ * and to an iterator loop otherwise. Like javac, the loop statement is written once, a list that isn't
+ * known to be {@link RandomAccess} is iterated.
+ */
+final class ForEachLoopStatementWriter implements StatementWriter {
+    private static final ClassTypeDef ITERABLE = ClassTypeDef.of(Iterable.class);
+    private static final ClassTypeDef ITERATOR = ClassTypeDef.of(Iterator.class);
+
+    private final StatementDef.ForEach forEach;
+    private final boolean scoped;
+
+    public ForEachLoopStatementWriter(StatementDef.ForEach forEach) {
+        this(forEach, false);
+    }
+
+    private ForEachLoopStatementWriter(StatementDef.ForEach forEach, boolean scoped) {
+        this.forEach = forEach;
+        this.scoped = scoped;
+    }
+
+    @Override
+    public void write(GeneratorAdapter generatorAdapter, MethodContext context, Runnable finallyBlock) {
+        if (!scoped) {
+            // The hidden locals are only visible in the loop
+            new ForEachLoopStatementWriter(forEach, true).writeScoped(generatorAdapter, context, finallyBlock);
+            return;
+        }
+        TypeDef iterableType = forEach.iterable().type();
+        String name = forEach.variable().name();
+        StatementDef loop;
+        if (iterableType instanceof TypeDef.Array arrayType) {
+            VariableDef.Local array = new VariableDef.Local("$" + name + "$array", arrayType);
+            StatementWriter.of(array.defineAndAssign(forEach.iterable())).write(generatorAdapter, context, finallyBlock);
+            VariableDef.Local length = new VariableDef.Local("$" + name + "$length", TypeDef.Primitive.INT);
+            StatementWriter.of(length.defineAndAssign(array.arrayLength())).write(generatorAdapter, context, finallyBlock);
+            loop = indexedLoop(array.arrayElement(indexOf(name)), length);
+        } else if (isAssignable(iterableType, List.class) && isAssignable(iterableType, RandomAccess.class)) {
+            VariableDef.Local list = new VariableDef.Local("$" + name + "$list", iterableType);
+            StatementWriter.of(list.defineAndAssign(forEach.iterable())).write(generatorAdapter, context, finallyBlock);
+            loop = indexedLoop(
+                list.invoke("get", TypeDef.OBJECT, indexOf(name)),
+                list.invoke("size", TypeDef.Primitive.INT)
+            );
+        } else {
+            VariableDef.Local iterable = new VariableDef.Local("$" + name + "$iterable", ITERABLE);
+            StatementWriter.of(iterable.defineAndAssign(forEach.iterable())).write(generatorAdapter, context, finallyBlock);
+            loop = iteratorLoop(iterable);
+        }
+        StatementWriter.of(loop).write(generatorAdapter, context, finallyBlock);
+    }
+
+    private VariableDef.Local indexOf(String name) {
+        return new VariableDef.Local("$" + name + "$index", TypeDef.Primitive.INT);
+    }
+
+    private StatementDef indexedLoop(ExpressionDef element, ExpressionDef size) {
+        VariableDef.Local index = indexOf(forEach.variable().name());
+        return new StatementDef.For(
+            index.defineAndAssign(TypeDef.Primitive.INT.constant(0)),
+            index.compare(ExpressionDef.ComparisonOperation.OpType.LESS_THAN, size),
+            index.increment(),
+            StatementDef.multi(
+                forEach.variable().defineAndAssign(element),
+                forEach.statement()
+            ),
+            forEach.label()
+        );
+    }
+
+    private StatementDef iteratorLoop(VariableDef.Local iterable) {
+        VariableDef.Local iterator = new VariableDef.Local("$" + forEach.variable().name() + "$iterator", ITERATOR);
+        return new StatementDef.For(
+            iterator.defineAndAssign(iterable.invoke("iterator", ITERATOR)),
+            iterator.invoke("hasNext", TypeDef.Primitive.BOOLEAN),
+            null,
+            StatementDef.multi(
+                forEach.variable().defineAndAssign(iterator.invoke("next", TypeDef.OBJECT)),
+                forEach.statement()
+            ),
+            forEach.label()
+        );
+    }
+
+    private static boolean isAssignable(TypeDef typeDef, Class<?> type) {
+        if (typeDef instanceof ClassTypeDef.Parameterized parameterized) {
+            return isAssignable(parameterized.rawType(), type);
+        }
+        if (typeDef instanceof ClassTypeDef.JavaClass javaClass) {
+            return type.isAssignableFrom(javaClass.type());
+        }
+        if (typeDef instanceof ClassTypeDef.ClassElementType classElementType) {
+            return classElementType.classElement().isAssignable(type);
+        }
+        return false;
+    }
+}
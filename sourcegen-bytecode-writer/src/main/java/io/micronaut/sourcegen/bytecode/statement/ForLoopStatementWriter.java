@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.bytecode.statement;
+
+import io.micronaut.sourcegen.bytecode.AbstractConditionalWriter;
+import io.micronaut.sourcegen.bytecode.MethodContext;
+import io.micronaut.sourcegen.model.ObjectDefValidator;
+import io.micronaut.sourcegen.model.StatementDef;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.commons.GeneratorAdapter;
+
+final class ForLoopStatementWriter extends AbstractConditionalWriter implements StatementWriter {
+    private final StatementDef.For aFor;
+    private final boolean scoped;
+
+    public ForLoopStatementWriter(StatementDef.For aFor) {
+        this(aFor, false);
+    }
+
+    private ForLoopStatementWriter(StatementDef.For aFor, boolean scoped) {
+        this.aFor = aFor;
+        this.scoped = scoped;
+    }
+
+    @Override
+    public void write(GeneratorAdapter generatorAdapter, MethodContext context, Runnable finallyBlock) {
+        if (!scoped) {
+            // The locals of the initialization are only visible in the loop
+            new ForLoopStatementWriter(aFor, true).writeScoped(generatorAdapter, context, finallyBlock);
+            return;
+        }
+        if (aFor.initialization() != null) {
+            StatementWriter.of(aFor.initialization()).write(generatorAdapter, context, finallyBlock);
+        }
+        Label forLoop = new Label();
+        Label update = new Label();
+        Label end = new Label();
+        generatorAdapter.visitLabel(forLoop);
+        if (aFor.condition() != null && !ObjectDefValidator.isConstantTrue(aFor.condition())) {
+            pushElseConditionalExpression(generatorAdapter, context, aFor.condition(), end);
+        }
+        context.loops().push(new MethodContext.LoopData(aFor.label(), update, end, finallyBlock));
+        StatementWriter.of(aFor.statement()).writeScoped(generatorAdapter, context, finallyBlock);
+        context.loops().pop();
+        generatorAdapter.visitLabel(update);
+        if (aFor.update() != null) {
+            StatementWriter.of(aFor.update()).writeScoped(generatorAdapter, context, finallyBlock);
+        }
+        generatorAdapter.goTo(forLoop);
+        generatorAdapter.visitLabel(end);
+    }
+}
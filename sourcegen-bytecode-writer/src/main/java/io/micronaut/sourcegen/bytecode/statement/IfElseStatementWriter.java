@@ -34,8 +34,12 @@ final class IfElseStatementWriter extends AbstractConditionalWriter implements S
         pushElseConditionalExpression(generatorAdapter, context, ifStatement.condition(), elseLabel);
         Label end = new Label();
         StatementWriter.of(ifStatement.statement()).writeScoped(generatorAdapter, context, finallyBlock);
-        generatorAdapter.visitLabel(end);
+        if (!StatementWriter.isAbrupt(ifStatement.statement())) {
+            // Skip the else statement if the statement completes normally
+            generatorAdapter.goTo(end);
+        }
         generatorAdapter.visitLabel(elseLabel);
         StatementWriter.of(ifStatement.elseStatement()).writeScoped(generatorAdapter, context, finallyBlock);
+        generatorAdapter.visitLabel(end);
     }
 }
@@ -23,6 +23,7 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.commons.GeneratorAdapter;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -31,7 +32,7 @@ import java.util.Map;
  * @author Denis Stepanov
  * @since 1.5
  */
-public sealed interface StatementWriter permits DefineAndAssignStatementWriter, AssignVariableStatementWriter, ExpressionAsStatementWriter, IfElseStatementWriter, IfStatementWriter, MultiStatementWriter, PutStaticFieldStatementWriter, PutStaticStatementWriter, ReturnStatementWriter, SwitchStatementWriter, SynchronizedStatementWriter, ThrowStatementWriter, TryCatchStatementWriter, WhileLoopStatementWriter {
+public sealed interface StatementWriter permits DefineAndAssignStatementWriter, AssignVariableStatementWriter, CompoundAssignStatementWriter, ExpressionAsStatementWriter, IfElseStatementWriter, IfStatementWriter, MultiStatementWriter, PutStaticFieldStatementWriter, PutStaticStatementWriter, ReturnStatementWriter, SwitchStatementWriter, SynchronizedStatementWriter, ThrowStatementWriter, TryCatchStatementWriter, TryWithResourcesStatementWriter, WhileLoopStatementWriter, ForLoopStatementWriter, ForEachLoopStatementWriter, BreakStatementWriter, ContinueStatementWriter {
 
     /**
      * Create a writer from the statement.
@@ -55,6 +56,18 @@ public sealed interface StatementWriter permits DefineAndAssignStatementWriter,
         if (statementDef instanceof StatementDef.While aWhile) {
             return new WhileLoopStatementWriter(aWhile);
         }
+        if (statementDef instanceof StatementDef.For aFor) {
+            return new ForLoopStatementWriter(aFor);
+        }
+        if (statementDef instanceof StatementDef.ForEach forEach) {
+            return new ForEachLoopStatementWriter(forEach);
+        }
+        if (statementDef instanceof StatementDef.Break aBreak) {
+            return new BreakStatementWriter(aBreak);
+        }
+        if (statementDef instanceof StatementDef.Continue aContinue) {
+            return new ContinueStatementWriter(aContinue);
+        }
         if (statementDef instanceof StatementDef.Throw aThrow) {
             return new ThrowStatementWriter(aThrow);
         }
@@ -73,9 +86,15 @@ public sealed interface StatementWriter permits DefineAndAssignStatementWriter,
         if (statementDef instanceof StatementDef.DefineAndAssign assign) {
             return new DefineAndAssignStatementWriter(assign);
         }
+        if (statementDef instanceof StatementDef.CompoundAssign compoundAssign) {
+            return new CompoundAssignStatementWriter(compoundAssign);
+        }
         if (statementDef instanceof StatementDef.Try aTry) {
             return new TryCatchStatementWriter(aTry);
         }
+        if (statementDef instanceof StatementDef.TryWithResources tryWithResources) {
+            return new TryWithResourcesStatementWriter(tryWithResources);
+        }
         if (statementDef instanceof StatementDef.Synchronized aSynchronized) {
             return new SynchronizedStatementWriter(aSynchronized);
         }
@@ -85,6 +104,27 @@ public sealed interface StatementWriter permits DefineAndAssignStatementWriter,
         throw new UnsupportedOperationException("Unrecognized statement: " + statementDef);
     }
 
+    /**
+     * Is the statement ending with a return, a throw, a break or a continue, the following code isn't reachable.
+     *
+     * @param statement The statement
+     * @return true if the statement doesn't complete normally
+     */
+    static boolean isAbrupt(StatementDef statement) {
+        List<StatementDef> statements = statement.flatten();
+        if (statements.isEmpty()) {
+            return false;
+        }
+        StatementDef last = statements.get(statements.size() - 1);
+        if (last instanceof StatementDef.TryWithResources tryWithResources) {
+            return isAbrupt(tryWithResources.statement());
+        }
+        return last instanceof StatementDef.Return
+            || last instanceof StatementDef.Throw
+            || last instanceof StatementDef.Break
+            || last instanceof StatementDef.Continue;
+    }
+
     /**
      * Write the statement.
      *
@@ -108,7 +148,7 @@ public sealed interface StatementWriter permits DefineAndAssignStatementWriter,
                              @Nullable Runnable finallyBlock) {
         Map<String, MethodContext.LocalData> oldLocals = context.locals();
         Map<String, MethodContext.LocalData> newLocals = new LinkedHashMap<>(oldLocals);
-        MethodContext newContext = new MethodContext(context.objectDef(), context.methodDef(), newLocals);
+        MethodContext newContext = new MethodContext(context.objectDef(), context.methodDef(), newLocals, context.loops());
         write(generatorAdapter, newContext, finallyBlock);
         oldLocals.keySet().forEach(newLocals::remove); // Remove locals not created in the scope
         Label endMethod = new Label();
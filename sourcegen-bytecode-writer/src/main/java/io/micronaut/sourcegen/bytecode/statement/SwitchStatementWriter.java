@@ -33,7 +33,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.SortedMap;
 
 final class SwitchStatementWriter extends AbstractSwitchWriter implements StatementWriter {
     private final StatementDef.Switch aSwitch;
@@ -45,20 +45,23 @@ final class SwitchStatementWriter extends AbstractSwitchWriter implements Statem
     @Override
     public void write(GeneratorAdapter generatorAdapter, MethodContext context, Runnable finallyBlock) {
         boolean isStringSwitch = aSwitch.expression().type() instanceof ClassTypeDef classTypeDef && classTypeDef.getName().equals(String.class.getName());
+        // The break without a label leaves the switch
+        Label end = generatorAdapter.newLabel();
+        context.loops().push(new MethodContext.LoopData(null, null, end, finallyBlock));
         if (isStringSwitch) {
-            writeStringSwitch(generatorAdapter, context, finallyBlock, aSwitch);
+            writeStringSwitch(generatorAdapter, context, finallyBlock, aSwitch, end);
         } else {
-            writeSwitch(generatorAdapter, context, finallyBlock, aSwitch);
+            writeSwitch(generatorAdapter, context, finallyBlock, aSwitch, end);
         }
+        context.loops().pop();
     }
 
-    private void writeSwitch(GeneratorAdapter generatorAdapter, MethodContext context, Runnable finallyBlock, StatementDef.Switch aSwitch) {
+    private void writeSwitch(GeneratorAdapter generatorAdapter, MethodContext context, Runnable finallyBlock, StatementDef.Switch aSwitch, Label end) {
         pushSwitchExpression(generatorAdapter, context, aSwitch.expression());
-        Map<Integer, StatementDef> map = aSwitch.cases().entrySet().stream().map(e -> Map.entry(toSwitchKey(e.getKey()), e.getValue())).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        tableSwitch(generatorAdapter, context, map, aSwitch.defaultCase(), finallyBlock);
+        tableSwitch(generatorAdapter, context, toSwitchCases(aSwitch.cases()), aSwitch.defaultCase(), finallyBlock, end);
     }
 
-    private void writeStringSwitch(GeneratorAdapter generatorAdapter, MethodContext context, Runnable finallyBlock, StatementDef.Switch aSwitch) {
+    private void writeStringSwitch(GeneratorAdapter generatorAdapter, MethodContext context, Runnable finallyBlock, StatementDef.Switch aSwitch, Label finalEnd) {
         ExpressionDef expression = aSwitch.expression();
 
         ExpressionWriter.writeExpression(generatorAdapter, context, expression);
@@ -72,28 +75,28 @@ final class SwitchStatementWriter extends AbstractSwitchWriter implements Statem
             Method.getMethod(ReflectionUtils.getRequiredMethod(String.class, "hashCode"))
         );
 
-        Map<Integer, Map.Entry<ExpressionDef.Constant, StatementDef>> map = aSwitch.cases().entrySet().stream()
-            .map(e -> Map.entry(toSwitchKey(e.getKey()), Map.entry(e.getKey(), e.getValue())))
-            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        int[] keys = map.keySet().stream().mapToInt(x -> x).sorted().toArray();
+        SortedMap<Integer, List<Map.Entry<String, StatementDef>>> map = toStringSwitchCases(aSwitch.cases());
+        int[] keys = map.keySet().stream().mapToInt(x -> x).toArray();
         Label defaultEnd = new Label();
-        Label finalEnd = new Label();
         generatorAdapter.tableSwitch(keys, new TableSwitchGenerator() {
             @Override
             public void generateCase(int key, Label end) {
-                Map.Entry<ExpressionDef.Constant, StatementDef> e = map.get(key);
-                ExpressionDef.Constant constant = e.getKey();
-                if (!(constant.value() instanceof String stringValue)) {
-                    throw new IllegalStateException("Expected a string value got: " + constant);
+                List<Map.Entry<String, StatementDef>> entries = map.get(key);
+                for (int i = 0; i < entries.size(); i++) {
+                    Map.Entry<String, StatementDef> e = entries.get(i);
+                    // Strings with the same hash code are compared one after another
+                    Label nextCase = i == entries.size() - 1 ? defaultEnd : new Label();
+                    generatorAdapter.loadLocal(switchValueLocal, stringType);
+                    generatorAdapter.push(e.getKey());
+                    generatorAdapter.invokeVirtual(stringType, Method.getMethod(ReflectionUtils.getRequiredMethod(String.class, "equals", Object.class)));
+                    generatorAdapter.push(true);
+                    generatorAdapter.ifCmp(Type.BOOLEAN_TYPE, GeneratorAdapter.NE, nextCase);
+                    StatementWriter.of(e.getValue()).writeScoped(generatorAdapter, context, finallyBlock);
+                    generatorAdapter.goTo(finalEnd);
+                    if (nextCase != defaultEnd) {
+                        generatorAdapter.visitLabel(nextCase);
+                    }
                 }
-
-                generatorAdapter.loadLocal(switchValueLocal, stringType);
-                generatorAdapter.push(stringValue);
-                generatorAdapter.invokeVirtual(stringType, Method.getMethod(ReflectionUtils.getRequiredMethod(String.class, "equals", Object.class)));
-                generatorAdapter.push(true);
-                generatorAdapter.ifCmp(Type.BOOLEAN_TYPE, GeneratorAdapter.NE, defaultEnd);
-                StatementWriter.of(e.getValue()).writeScoped(generatorAdapter, context, finallyBlock);
-                generatorAdapter.goTo(finalEnd);
             }
 
             @Override
@@ -113,7 +116,8 @@ final class SwitchStatementWriter extends AbstractSwitchWriter implements Statem
                              final MethodContext context,
                              final Map<Integer, StatementDef> cases,
                              @Nullable final StatementDef defaultCase,
-                             @Nullable Runnable finallyBlock) {
+                             @Nullable Runnable finallyBlock,
+                             Label endLabel) {
         final int[] keys = cases.keySet().stream().sorted().mapToInt(i -> i).toArray();
         float density;
         if (keys.length == 0) {
@@ -121,7 +125,7 @@ final class SwitchStatementWriter extends AbstractSwitchWriter implements Statem
         } else {
             density = (float) keys.length / (keys[keys.length - 1] - keys[0] + 1);
         }
-        tableSwitch(generatorAdapter, context, keys, cases, defaultCase, finallyBlock, density >= 0.5f);
+        tableSwitch(generatorAdapter, context, keys, cases, defaultCase, finallyBlock, endLabel, density >= 0.5f);
     }
 
     private void tableSwitch(final GeneratorAdapter generatorAdapter,
@@ -130,9 +134,9 @@ final class SwitchStatementWriter extends AbstractSwitchWriter implements Statem
                              final Map<Integer, StatementDef> cases,
                              @Nullable final StatementDef defaultCase,
                              @Nullable Runnable finallyBlock,
+                             Label endLabel,
                              final boolean useTable) {
         Label defaultLabel = generatorAdapter.newLabel();
-        Label endLabel = generatorAdapter.newLabel();
         if (keys.length > 0) {
             int numKeys = keys.length;
             if (useTable) {
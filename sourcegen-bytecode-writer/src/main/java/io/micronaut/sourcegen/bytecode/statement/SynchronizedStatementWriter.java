@@ -22,8 +22,15 @@ import io.micronaut.sourcegen.model.StatementDef;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.Method;
+
+import java.util.concurrent.locks.Lock;
 
 final class SynchronizedStatementWriter implements StatementWriter {
+    private static final Type LOCK_TYPE = Type.getType(Lock.class);
+    private static final Method LOCK_METHOD = Method.getMethod("void lock()");
+    private static final Method UNLOCK_METHOD = Method.getMethod("void unlock()");
+
     private final StatementDef.Synchronized aSynchronized;
 
     public SynchronizedStatementWriter(StatementDef.Synchronized aSynchronized) {
@@ -32,6 +39,10 @@ final class SynchronizedStatementWriter implements StatementWriter {
 
     @Override
     public void write(GeneratorAdapter generatorAdapter, MethodContext context, Runnable finallyBlock) {
+        if (aSynchronized.useLock()) {
+            writeWithLock(generatorAdapter, context, finallyBlock);
+            return;
+        }
         Label end = new Label();
         Label synchronizedStart = new Label();
         Label synchronizedEnd = new Label();
@@ -49,13 +60,10 @@ final class SynchronizedStatementWriter implements StatementWriter {
 
         generatorAdapter.visitLabel(synchronizedStart);
 
-        StatementWriter.of(aSynchronized.statement()).writeScoped(generatorAdapter, context, () -> {
+        StatementWriter.of(aSynchronized.statement()).writeScoped(generatorAdapter, context, new FinallyBlock(() -> {
             generatorAdapter.loadLocal(monitorLocal);
             generatorAdapter.monitorExit();
-            if (finallyBlock != null) {
-                finallyBlock.run();
-            }
-        });
+        }, finallyBlock));
 
         generatorAdapter.loadLocal(monitorLocal);
         generatorAdapter.monitorExit();
@@ -79,4 +87,58 @@ final class SynchronizedStatementWriter implements StatementWriter {
         generatorAdapter.visitLabel(end);
     }
 
+    private void writeWithLock(GeneratorAdapter generatorAdapter, MethodContext context, Runnable finallyBlock) {
+        Label end = new Label();
+        Label lockStart = new Label();
+        Label lockEnd = new Label();
+        Label lockException = new Label();
+        Label rethrow = new Label();
+        generatorAdapter.visitTryCatchBlock(lockStart, lockEnd, lockException, null);
+
+        ExpressionWriter.writeExpressionCheckCast(generatorAdapter, context, aSynchronized.monitor(), aSynchronized.monitor().type());
+        generatorAdapter.dup();
+        int lockLocal = generatorAdapter.newLocal(LOCK_TYPE);
+        generatorAdapter.storeLocal(lockLocal);
+        generatorAdapter.invokeInterface(LOCK_TYPE, LOCK_METHOD);
+        // The early exits are inside the protected range, the flag is cleared before they unlock
+        // so that the handler doesn't unlock again if the unlock throws
+        int lockedLocal = generatorAdapter.newLocal(Type.BOOLEAN_TYPE);
+        generatorAdapter.push(true);
+        generatorAdapter.storeLocal(lockedLocal);
+
+        generatorAdapter.visitLabel(lockStart);
+
+        StatementWriter.of(aSynchronized.statement()).writeScoped(generatorAdapter, context, new FinallyBlock(() -> {
+            generatorAdapter.push(false);
+            generatorAdapter.storeLocal(lockedLocal);
+            unlock(generatorAdapter, lockLocal);
+        }, finallyBlock));
+
+        // The normal path unlock is outside the protected range
+        generatorAdapter.visitLabel(lockEnd);
+        unlock(generatorAdapter, lockLocal);
+        generatorAdapter.goTo(end);
+
+        generatorAdapter.visitLabel(lockException);
+        // Unlock before the exception is rethrown
+        Type throwableType = Type.getType(Throwable.class);
+        int exceptionLocal = generatorAdapter.newLocal(throwableType);
+        generatorAdapter.storeLocal(exceptionLocal);
+
+        generatorAdapter.loadLocal(lockedLocal);
+        generatorAdapter.ifZCmp(GeneratorAdapter.EQ, rethrow);
+        unlock(generatorAdapter, lockLocal);
+
+        generatorAdapter.visitLabel(rethrow);
+        generatorAdapter.loadLocal(exceptionLocal, throwableType);
+        generatorAdapter.throwException();
+
+        generatorAdapter.visitLabel(end);
+    }
+
+    private static void unlock(GeneratorAdapter generatorAdapter, int lockLocal) {
+        generatorAdapter.loadLocal(lockLocal, LOCK_TYPE);
+        generatorAdapter.invokeInterface(LOCK_TYPE, UNLOCK_METHOD);
+    }
+
 }
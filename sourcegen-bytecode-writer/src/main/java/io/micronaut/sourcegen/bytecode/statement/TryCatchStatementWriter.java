@@ -82,10 +82,17 @@ public final class TryCatchStatementWriter implements StatementWriter {
 
         generatorAdapter.visitLabel(tryStart);
 
-        Runnable thisFinallyBlock = aTry.finallyStatement() == null ? null : () -> StatementWriter.of(aTry.finallyStatement()).writeScoped(generatorAdapter, context, finallyBlock);
+        Runnable thisFinallyBlock = aTry.finallyStatement() == null ? finallyBlock : new FinallyBlock(
+            () -> StatementWriter.of(aTry.finallyStatement()).writeScoped(generatorAdapter, context, finallyBlock),
+            finallyBlock
+        );
         StatementWriter.of(aTry.statement()).writeScoped(generatorAdapter, context, thisFinallyBlock);
 
         generatorAdapter.visitLabel(tryEnd);
+        if (aTry.finallyStatement() != null && !StatementWriter.isAbrupt(aTry.statement())) {
+            // The statement completed normally
+            StatementWriter.of(aTry.finallyStatement()).writeScoped(generatorAdapter, context, finallyBlock);
+        }
         generatorAdapter.goTo(end);
 
         for (CatchBlock catchBlock : exceptionHandlers) {
@@ -107,7 +114,7 @@ public final class TryCatchStatementWriter implements StatementWriter {
             }
 
             if (aTry.finallyStatement() != null) {
-                StatementWriter.of(aTry.finallyStatement()).writeScoped(generatorAdapter, context, thisFinallyBlock);
+                StatementWriter.of(aTry.finallyStatement()).writeScoped(generatorAdapter, context, finallyBlock);
             }
 
             generatorAdapter.goTo(end);
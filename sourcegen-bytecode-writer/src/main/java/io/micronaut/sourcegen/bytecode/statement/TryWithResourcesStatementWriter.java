@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.bytecode.statement;
+
+import io.micronaut.sourcegen.bytecode.MethodContext;
+import io.micronaut.sourcegen.model.ExpressionDef;
+import io.micronaut.sourcegen.model.StatementDef;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.Method;
+
+import java.util.List;
+
+/**
+ * The try-with-resources statement, the lowering follows javac.
+ * Every resource is closed after the statement completes normally or abruptly,
+ * if the statement fails the exception of the close is added as suppressed.
+ *
+ * @since 1.5
+ */
+final class TryWithResourcesStatementWriter implements StatementWriter {
+    private static final Type AUTO_CLOSEABLE_TYPE = Type.getType(AutoCloseable.class);
+    private static final Type THROWABLE_TYPE = Type.getType(Throwable.class);
+    private static final Method CLOSE_METHOD = Method.getMethod("void close()");
+    private static final Method ADD_SUPPRESSED_METHOD = Method.getMethod("void addSuppressed(java.lang.Throwable)");
+
+    private final StatementDef.TryWithResources tryWithResources;
+    private final boolean scoped;
+
+    public TryWithResourcesStatementWriter(StatementDef.TryWithResources tryWithResources) {
+        this(tryWithResources, false);
+    }
+
+    private TryWithResourcesStatementWriter(StatementDef.TryWithResources tryWithResources, boolean scoped) {
+        this.tryWithResources = tryWithResources;
+        this.scoped = scoped;
+    }
+
+    @Override
+    public void write(GeneratorAdapter generatorAdapter, MethodContext context, Runnable finallyBlock) {
+        if (!scoped) {
+            // The resources are only visible in the statement
+            new TryWithResourcesStatementWriter(tryWithResources, true).writeScoped(generatorAdapter, context, finallyBlock);
+            return;
+        }
+        List<StatementDef.DefineAndAssign> resources = tryWithResources.resources();
+        StatementDef.DefineAndAssign resource = resources.get(0);
+        // The following resources are nested, the resources are closed in the reverse order
+        StatementDef statement = resources.size() == 1 ? tryWithResources.statement()
+            : new StatementDef.TryWithResources(resources.subList(1, resources.size()), tryWithResources.statement());
+        // The resource created by the constructor cannot be null
+        boolean nullable = !(resource.expression() instanceof ExpressionDef.NewInstance);
+
+        StatementWriter.of(resource).write(generatorAdapter, context, finallyBlock);
+        MethodContext.LocalData local = context.locals().get(resource.variable().name());
+
+        Label end = new Label();
+        Label tryStart = new Label();
+        Label tryEnd = new Label();
+        Label exceptionHandler = new Label();
+        generatorAdapter.visitTryCatchBlock(tryStart, tryEnd, exceptionHandler, THROWABLE_TYPE.getInternalName());
+
+        generatorAdapter.visitLabel(tryStart);
+        StatementWriter.of(statement).writeScoped(generatorAdapter, context, new FinallyBlock(() -> {
+            // The resource is cleared before the close, the exception handler shouldn't close it again if the close fails
+            generatorAdapter.loadLocal(local.index(), local.type());
+            generatorAdapter.push((Type) null);
+            generatorAdapter.storeLocal(local.index(), local.type());
+            closeResource(generatorAdapter, true);
+        }, finallyBlock));
+        generatorAdapter.visitLabel(tryEnd);
+
+        if (!StatementWriter.isAbrupt(statement)) {
+            generatorAdapter.loadLocal(local.index(), local.type());
+            closeResource(generatorAdapter, nullable);
+            generatorAdapter.goTo(end);
+        }
+
+        generatorAdapter.visitLabel(exceptionHandler);
+        int exceptionLocal = generatorAdapter.newLocal(THROWABLE_TYPE);
+        generatorAdapter.storeLocal(exceptionLocal, THROWABLE_TYPE);
+
+        Label rethrow = new Label();
+        generatorAdapter.loadLocal(local.index(), local.type());
+        generatorAdapter.ifNull(rethrow);
+
+        Label closeStart = new Label();
+        Label closeEnd = new Label();
+        Label suppressedHandler = new Label();
+        generatorAdapter.visitTryCatchBlock(closeStart, closeEnd, suppressedHandler, THROWABLE_TYPE.getInternalName());
+        generatorAdapter.visitLabel(closeStart);
+        generatorAdapter.loadLocal(local.index(), local.type());
+        closeResource(generatorAdapter, false);
+        generatorAdapter.visitLabel(closeEnd);
+        generatorAdapter.goTo(rethrow);
+
+        generatorAdapter.visitLabel(suppressedHandler);
+        int suppressedLocal = generatorAdapter.newLocal(THROWABLE_TYPE);
+        generatorAdapter.storeLocal(suppressedLocal, THROWABLE_TYPE);
+        generatorAdapter.loadLocal(exceptionLocal, THROWABLE_TYPE);
+        generatorAdapter.loadLocal(suppressedLocal, THROWABLE_TYPE);
+        generatorAdapter.invokeVirtual(THROWABLE_TYPE, ADD_SUPPRESSED_METHOD);
+
+        generatorAdapter.visitLabel(rethrow);
+        generatorAdapter.loadLocal(exceptionLocal, THROWABLE_TYPE);
+        generatorAdapter.throwException();
+
+        generatorAdapter.visitLabel(end);
+    }
+
+    /**
+     * Close the resource on the stack, any resource is closed by the interface method.
+     */
+    private static void closeResource(GeneratorAdapter generatorAdapter, boolean nullable) {
+        if (!nullable) {
+            generatorAdapter.invokeInterface(AUTO_CLOSEABLE_TYPE, CLOSE_METHOD);
+            return;
+        }
+        Label isNull = new Label();
+        Label closed = new Label();
+        generatorAdapter.dup();
+        generatorAdapter.ifNull(isNull);
+        generatorAdapter.invokeInterface(AUTO_CLOSEABLE_TYPE, CLOSE_METHOD);
+        generatorAdapter.goTo(closed);
+        generatorAdapter.visitLabel(isNull);
+        generatorAdapter.pop();
+        generatorAdapter.visitLabel(closed);
+    }
+}
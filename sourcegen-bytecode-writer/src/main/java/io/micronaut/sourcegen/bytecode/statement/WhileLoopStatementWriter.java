@@ -17,6 +17,7 @@ package io.micronaut.sourcegen.bytecode.statement;
 
 import io.micronaut.sourcegen.bytecode.MethodContext;
 import io.micronaut.sourcegen.bytecode.expression.ExpressionWriter;
+import io.micronaut.sourcegen.model.ObjectDefValidator;
 import io.micronaut.sourcegen.model.StatementDef;
 import io.micronaut.sourcegen.model.TypeDef;
 import org.objectweb.asm.Label;
@@ -35,10 +36,14 @@ final class WhileLoopStatementWriter implements StatementWriter {
         Label whileLoop = new Label();
         Label end = new Label();
         generatorAdapter.visitLabel(whileLoop);
-        ExpressionWriter.writeExpressionCheckCast(generatorAdapter, context, aWhile.expression(), TypeDef.Primitive.BOOLEAN);
-        generatorAdapter.push(true);
-        generatorAdapter.ifCmp(Type.BOOLEAN_TYPE, GeneratorAdapter.NE, end);
+        if (!ObjectDefValidator.isConstantTrue(aWhile.expression())) {
+            ExpressionWriter.writeExpressionCheckCast(generatorAdapter, context, aWhile.expression(), TypeDef.Primitive.BOOLEAN);
+            generatorAdapter.push(true);
+            generatorAdapter.ifCmp(Type.BOOLEAN_TYPE, GeneratorAdapter.NE, end);
+        }
+        context.loops().push(new MethodContext.LoopData(null, whileLoop, end, finallyBlock));
         StatementWriter.of(aWhile.statement()).writeScoped(generatorAdapter, context, finallyBlock);
+        context.loops().pop();
         generatorAdapter.goTo(whileLoop);
         generatorAdapter.visitLabel(end);
     }
@@ -4,6 +4,7 @@ import io.micronaut.context.BeanResolutionContext;
 import io.micronaut.core.reflect.ReflectionUtils;
 import io.micronaut.inject.visitor.VisitorContext;
 import io.micronaut.sourcegen.custom.visitor.innerTypes.GenerateInnerTypeInEnumVisitor;
+import io.micronaut.sourcegen.model.AnnotationDef;
 import io.micronaut.sourcegen.model.ClassDef;
 import io.micronaut.sourcegen.model.ClassTypeDef;
 import io.micronaut.sourcegen.model.EnumDef;
@@ -17,7 +18,12 @@ import io.micronaut.sourcegen.model.TypeDef;
 import io.micronaut.sourcegen.model.VariableDef;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.util.CheckClassAdapter;
 import org.objectweb.asm.util.TraceClassVisitor;
 
@@ -26,8 +32,14 @@ import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static io.micronaut.sourcegen.bytecode.DecompilerUtils.decompileToJava;
 import static io.micronaut.sourcegen.model.ExpressionDef.ComparisonOperation.OpType.EQUAL_TO;
@@ -48,7 +60,12 @@ import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpT
 import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.MULTIPLICATION;
 import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.SUBTRACTION;
 import static io.micronaut.sourcegen.model.ExpressionDef.MathUnaryOperation.OpType.NEGATE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ByteCodeWriterTest {
 
@@ -1030,8 +1047,10 @@ public class example/Example {
    L0
     NEW java/lang/StringBuilder
     DUP
+    BIPUSH 48
+    INVOKESPECIAL java/lang/StringBuilder.<init> (I)V
     ALOAD 1
-    INVOKESPECIAL java/lang/StringBuilder.<init> (Ljava/lang/String;)V
+    INVOKEVIRTUAL java/lang/StringBuilder.append (Ljava/lang/String;)Ljava/lang/StringBuilder;
     ALOAD 2
     INVOKEVIRTUAL java/lang/StringBuilder.append (Ljava/lang/Object;)Ljava/lang/StringBuilder;
     ALOAD 3
@@ -1053,12 +1072,50 @@ import java.util.Arrays;
 
 public class Example {
    String myMethod(String arg1, Object arg2, String[] arg3) {
-      return arg1 + arg2 + Arrays.toString(arg3);
+      return new StringBuilder(48).append(arg1).append(arg2).append(Arrays.toString(arg3)).toString();
    }
 }
 """, decompileToJava(bytes));
     }
 
+    @Test
+    void concatStringsPresizedWithTypedAppends() throws Exception {
+        ClassDef def = ClassDef.builder("example.Concat")
+            .addModifiers(Modifier.PUBLIC)
+            .addMethod(MethodDef.builder("describe")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameters(long.class, char.class, byte.class)
+                .returns(String.class)
+                .build((aThis, methodParameters) -> JavaIdioms.concatStrings(
+                    ExpressionDef.constant("a="),
+                    methodParameters.get(0),
+                    ExpressionDef.constant(", b="),
+                    methodParameters.get(1),
+                    methodParameters.get(2),
+                    ExpressionDef.constant("]")
+                ).returning()))
+            .build();
+
+        StringWriter bytecodeWriter = new StringWriter();
+        byte[] bytes = generateFile(def, bytecodeWriter);
+
+        String bytecode = bytecodeWriter.toString();
+        assertTrue(bytecode.contains("BIPUSH 32\n    INVOKESPECIAL java/lang/StringBuilder.<init> (I)V"));
+        assertTrue(bytecode.contains("INVOKEVIRTUAL java/lang/StringBuilder.append (J)Ljava/lang/StringBuilder;"));
+        assertTrue(bytecode.contains("INVOKEVIRTUAL java/lang/StringBuilder.append (C)Ljava/lang/StringBuilder;"));
+        assertTrue(bytecode.contains("INVOKEVIRTUAL java/lang/StringBuilder.append (I)Ljava/lang/StringBuilder;"));
+        assertFalse(bytecode.contains("INVOKEVIRTUAL java/lang/StringBuilder.append (Ljava/lang/Object;)Ljava/lang/StringBuilder;"));
+
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define(byte[] b) {
+                return defineClass("example.Concat", b, 0, b.length);
+            }
+        };
+        Class<?> type = classLoader.define(bytes);
+        assertEquals("a=" + Long.MAX_VALUE + ", b=x-1]", type.getMethod("describe", long.class, char.class, byte.class)
+            .invoke(null, Long.MAX_VALUE, 'x', (byte) -1));
+    }
+
     @Test
     void toStringTest() {
         ClassDef def = ClassDef.builder("example.Example")
@@ -3082,6 +3139,1069 @@ class Test {
 """, decompileToJava(bytes));
     }
 
+    @Test
+    void testAccessFlags() {
+        ClassDef classDef = ClassDef.builder("example.Test")
+            .addSuperinterface(TypeDef.parameterized(Comparable.class, String.class))
+            .addField(FieldDef.builder("counter", int.class).addModifiers(Modifier.PRIVATE, Modifier.VOLATILE).build())
+            .addField(FieldDef.builder("cache", String.class).addModifiers(Modifier.PRIVATE, Modifier.TRANSIENT).build())
+            .addMethod(MethodDef.builder("compareTo")
+                .addModifiers(Modifier.PUBLIC, Modifier.SYNCHRONIZED)
+                .addParameter("other", String.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> TypeDef.Primitive.INT.constant(0).returning()))
+            .addMethod(MethodDef.builder("compareTo")
+                .addModifiers(Modifier.PUBLIC)
+                .synthetic()
+                .bridge()
+                .addParameter("other", Object.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> aThis.invoke("compareTo", TypeDef.Primitive.INT, methodParameters.get(0).cast(String.class)).returning()))
+            .addMethod(MethodDef.builder("sum")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.STRICTFP)
+                .addParameter("values", TypeDef.Primitive.INT.array())
+                .varargs()
+                .returns(int.class)
+                .buildStatic(methodParameters -> TypeDef.Primitive.INT.constant(0).returning()))
+            .addMethod(MethodDef.builder("nativeMethod")
+                .addModifiers(Modifier.PUBLIC, Modifier.NATIVE)
+                .returns(TypeDef.VOID)
+                .build())
+            .build();
+
+        byte[] bytes = generateFile(classDef, new StringWriter());
+
+        Map<String, Integer> access = new HashMap<>();
+        new ClassReader(bytes).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public FieldVisitor visitField(int flags, String name, String descriptor, String signature, Object value) {
+                access.put(name, flags);
+                return null;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int flags, String name, String descriptor, String signature, String[] exceptions) {
+                access.put(name + descriptor, flags);
+                return null;
+            }
+        }, 0);
+
+        assertEquals(Opcodes.ACC_PRIVATE | Opcodes.ACC_VOLATILE, access.get("counter"));
+        assertEquals(Opcodes.ACC_PRIVATE | Opcodes.ACC_TRANSIENT, access.get("cache"));
+        assertEquals(Opcodes.ACC_PUBLIC | Opcodes.ACC_SYNCHRONIZED, access.get("compareTo(Ljava/lang/String;)I"));
+        assertEquals(Opcodes.ACC_PUBLIC | Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE, access.get("compareTo(Ljava/lang/Object;)I"));
+        assertEquals(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_STRICT | Opcodes.ACC_VARARGS, access.get("sum([I)I"));
+        assertEquals(Opcodes.ACC_PUBLIC | Opcodes.ACC_NATIVE, access.get("nativeMethod()V"));
+    }
+
+    @Test
+    void testVarargsRequiresArray() {
+        Assertions.assertThrows(IllegalStateException.class, () -> MethodDef.builder("sum")
+            .addParameter("value", int.class)
+            .varargs()
+            .build());
+    }
+
+    @Test
+    void testDeterministicOutput() {
+        // The same cases inserted in different orders
+        byte[] first = generateFile(deterministicClassDef(List.of("Aa", "BB", "C")), new StringWriter());
+        byte[] second = generateFile(deterministicClassDef(List.of("C", "BB", "Aa")), new StringWriter());
+        byte[] third = generateFile(deterministicClassDef(List.of("BB", "C", "Aa")), new StringWriter());
+
+        Assertions.assertArrayEquals(first, second);
+        Assertions.assertArrayEquals(first, third);
+    }
+
+    @Test
+    void testStringSwitchWithHashCollision() throws Exception {
+        // "Aa" and "BB" have the same hash code
+        Assertions.assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        byte[] bytes = generateFile(deterministicClassDef(List.of("Aa", "BB", "C")), new StringWriter());
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define(byte[] b) {
+                return defineClass("example.Deterministic", b, 0, b.length);
+            }
+        };
+        Class<?> type = classLoader.define(bytes);
+        java.lang.reflect.Method statementSwitch = type.getMethod("statementSwitch", String.class);
+        java.lang.reflect.Method expressionSwitch = type.getMethod("expressionSwitch", String.class);
+
+        assertEquals(1, statementSwitch.invoke(null, "Aa"));
+        assertEquals(2, statementSwitch.invoke(null, "BB"));
+        assertEquals(3, statementSwitch.invoke(null, "C"));
+        assertEquals(0, statementSwitch.invoke(null, "D"));
+        assertEquals(1, expressionSwitch.invoke(null, "Aa"));
+        assertEquals(2, expressionSwitch.invoke(null, "BB"));
+        assertEquals(3, expressionSwitch.invoke(null, "C"));
+        assertEquals(0, expressionSwitch.invoke(null, "D"));
+    }
+
+    @Test
+    void testLoops() throws Exception {
+        VariableDef.Local sum = new VariableDef.Local("sum", TypeDef.Primitive.INT);
+        VariableDef.Local i = new VariableDef.Local("i", TypeDef.Primitive.INT);
+        ClassDef classDef = ClassDef.builder("example.Loops")
+            .addModifiers(Modifier.PUBLIC)
+            .addMethod(MethodDef.builder("sumList")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("values", TypeDef.parameterized(List.class, Integer.class))
+                .returns(int.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    sum.defineAndAssign(TypeDef.Primitive.INT.constant(0)),
+                    methodParameters.get(0).forEach("value", ClassTypeDef.of(Integer.class), value -> StatementDef.multi(
+                        value.cast(int.class).compare(LESS_THAN, TypeDef.Primitive.INT.constant(0)).doIf(new StatementDef.Continue()),
+                        value.cast(int.class).compare(GREATER_THAN, TypeDef.Primitive.INT.constant(100)).doIf(new StatementDef.Break()),
+                        sum.assign(sum.math(ADDITION, value.cast(int.class)))
+                    )),
+                    sum.returning()
+                )))
+            .addMethod(MethodDef.builder("sumArrayList")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("values", TypeDef.parameterized(ArrayList.class, Integer.class))
+                .returns(int.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    sum.defineAndAssign(TypeDef.Primitive.INT.constant(0)),
+                    methodParameters.get(0).forEach("value", ClassTypeDef.of(Integer.class), value ->
+                        sum.assign(sum.math(ADDITION, value.cast(int.class)))
+                    ),
+                    sum.returning()
+                )))
+            .addMethod(MethodDef.builder("sumArray")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("values", int[].class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    sum.defineAndAssign(TypeDef.Primitive.INT.constant(0)),
+                    methodParameters.get(0).forEach("value", TypeDef.Primitive.INT, value -> StatementDef.multi(
+                        sum.assign(sum.math(ADDITION, value)),
+                        new StatementDef.Break("first")
+                    )).labeled("first"),
+                    methodParameters.get(0).forEach("value", TypeDef.Primitive.INT, value ->
+                        sum.assign(sum.math(ADDITION, value))
+                    ),
+                    sum.returning()
+                )))
+            .addMethod(MethodDef.builder("count")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("values", Iterable.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    sum.defineAndAssign(TypeDef.Primitive.INT.constant(0)),
+                    methodParameters.get(0).forEach("value", TypeDef.OBJECT, value -> new StatementDef.For(
+                        i.defineAndAssign(TypeDef.Primitive.INT.constant(0)),
+                        i.compare(LESS_THAN, TypeDef.Primitive.INT.constant(10)),
+                        i.assign(i.math(ADDITION, TypeDef.Primitive.INT.constant(1))),
+                        StatementDef.multi(
+                            i.compare(EQUAL_TO, TypeDef.Primitive.INT.constant(3)).doIf(new StatementDef.Continue("outer")),
+                            sum.assign(sum.math(ADDITION, TypeDef.Primitive.INT.constant(1)))
+                        )
+                    )).labeled("outer"),
+                    sum.returning()
+                )))
+            .build();
+
+        StringWriter output = new StringWriter();
+        byte[] bytes = generateFile(classDef, output);
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define(byte[] b) {
+                return defineClass("example.Loops", b, 0, b.length);
+            }
+        };
+        Class<?> type = classLoader.define(bytes);
+        java.lang.reflect.Method sumList = type.getMethod("sumList", List.class);
+        java.lang.reflect.Method sumArrayList = type.getMethod("sumArrayList", ArrayList.class);
+        java.lang.reflect.Method sumArray = type.getMethod("sumArray", int[].class);
+        java.lang.reflect.Method count = type.getMethod("count", Iterable.class);
+
+        // The indexed loop of a random access list type and the iterator loop otherwise, the loop statement is written once
+        assertTrue(output.toString().contains("INVOKEVIRTUAL java/util/ArrayList.get (I)Ljava/lang/Object;"));
+        assertFalse(output.toString().contains("INSTANCEOF java/util/RandomAccess"));
+        assertEquals(6, sumList.invoke(null, new ArrayList<>(List.of(1, -5, 2, 3, 200, 7))));
+        assertEquals(6, sumList.invoke(null, new LinkedList<>(List.of(1, -5, 2, 3, 200, 7))));
+        assertEquals(6, sumArrayList.invoke(null, new ArrayList<>(List.of(1, 2, 3))));
+        assertEquals(7, sumArray.invoke(null, new int[]{1, 2, 3}));
+        assertEquals(0, sumArray.invoke(null, new int[0]));
+        assertEquals(6, count.invoke(null, Set.of("a", "b")));
+    }
+
+    @Test
+    void testInfiniteLoopsAndSwitchBreaks() throws Exception {
+        VariableDef.Local sum = new VariableDef.Local("sum", TypeDef.Primitive.INT);
+        VariableDef.Local i = new VariableDef.Local("i", TypeDef.Primitive.INT);
+        ClassDef classDef = ClassDef.builder("example.Infinite")
+            .addModifiers(Modifier.PUBLIC)
+            .addMethod(MethodDef.builder("firstAbove")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("limit", int.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    i.defineAndAssign(TypeDef.Primitive.INT.constant(0)),
+                    new StatementDef.While(ExpressionDef.trueValue(), StatementDef.multi(
+                        i.compare(GREATER_THAN, methodParameters.get(0)).doIf(i.returning()),
+                        i.increment()
+                    ))
+                )))
+            .addMethod(MethodDef.builder("sumNonZero")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("values", int[].class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    sum.defineAndAssign(TypeDef.Primitive.INT.constant(0)),
+                    methodParameters.get(0).forEach("value", TypeDef.Primitive.INT, value -> StatementDef.multi(
+                        value.asStatementSwitch(TypeDef.Primitive.INT, Map.of(
+                            TypeDef.Primitive.INT.constant(0), new StatementDef.Break()
+                        )),
+                        sum.assign(sum.math(ADDITION, value))
+                    )),
+                    sum.returning()
+                )))
+            .build();
+
+        byte[] bytes = generateFile(classDef, new StringWriter());
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define(byte[] b) {
+                return defineClass("example.Infinite", b, 0, b.length);
+            }
+        };
+        Class<?> type = classLoader.define(bytes);
+        java.lang.reflect.Method firstAbove = type.getMethod("firstAbove", int.class);
+        java.lang.reflect.Method sumNonZero = type.getMethod("sumNonZero", int[].class);
+
+        // The infinite loop ends the method without a return statement
+        assertEquals(6, firstAbove.invoke(null, 5));
+        // The break without a label leaves the switch, not the loop
+        assertEquals(3, sumNonZero.invoke(null, new int[]{1, 0, 2}));
+    }
+
+    @Test
+    void testIfElseCompletesNormally() throws Exception {
+        VariableDef.Local result = new VariableDef.Local("result", TypeDef.Primitive.INT);
+        ClassDef classDef = ClassDef.builder("example.Branches")
+            .addModifiers(Modifier.PUBLIC)
+            .addMethod(MethodDef.builder("sign")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("value", int.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    result.defineAndAssign(TypeDef.Primitive.INT.constant(0)),
+                    methodParameters.get(0).compare(GREATER_THAN, TypeDef.Primitive.INT.constant(0)).doIfElse(
+                        result.assign(TypeDef.Primitive.INT.constant(1)),
+                        result.assign(TypeDef.Primitive.INT.constant(-1))
+                    ),
+                    result.returning()
+                )))
+            .build();
+
+        byte[] bytes = generateFile(classDef, new StringWriter());
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define(byte[] b) {
+                return defineClass("example.Branches", b, 0, b.length);
+            }
+        };
+        Class<?> type = classLoader.define(bytes);
+        java.lang.reflect.Method sign = type.getMethod("sign", int.class);
+
+        // The else statement isn't executed after the if statement completes normally
+        assertEquals(1, sign.invoke(null, 5));
+        assertEquals(-1, sign.invoke(null, -5));
+    }
+
+    @Test
+    void testJumpsRunFinallyBlocks() throws Exception {
+        java.lang.reflect.Method accept = java.util.function.Consumer.class.getMethod("accept", Object.class);
+        ClassDef classDef = ClassDef.builder("example.Jumps")
+            .addModifiers(Modifier.PUBLIC)
+            .addMethod(MethodDef.builder("tryFinally")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("values", int[].class)
+                .addParameter("events", java.util.function.Consumer.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).forEach("value", TypeDef.Primitive.INT, value ->
+                    StatementDef.doTry(
+                        StatementDef.multi(
+                            value.compare(EQUAL_TO, TypeDef.Primitive.INT.constant(0)).doIf(new StatementDef.Continue()),
+                            value.compare(LESS_THAN, TypeDef.Primitive.INT.constant(0)).doIf(new StatementDef.Break()),
+                            methodParameters.get(1).invoke(accept, ExpressionDef.constant("body"))
+                        )
+                    ).doFinally(methodParameters.get(1).invoke(accept, ExpressionDef.constant("finally")))
+                )))
+            .addMethod(MethodDef.builder("locked")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("values", int[].class)
+                .addParameter("lock", java.util.concurrent.locks.Lock.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    methodParameters.get(0).forEach("value", TypeDef.Primitive.INT, value ->
+                        StatementDef.Synchronized.withLock(
+                            methodParameters.get(1),
+                            value.compare(LESS_THAN, TypeDef.Primitive.INT.constant(0)).doIf(new StatementDef.Break())
+                        )
+                    ),
+                    TypeDef.Primitive.INT.constant(1).returning()
+                )))
+            .addMethod(MethodDef.builder("nested")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("events", java.util.function.Consumer.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> StatementDef.doTry(
+                    StatementDef.doTry(
+                        TypeDef.Primitive.INT.constant(1).returning()
+                    ).doFinally(methodParameters.get(0).invoke(accept, ExpressionDef.constant("inner")))
+                ).doFinally(methodParameters.get(0).invoke(accept, ExpressionDef.constant("outer")))))
+            .build();
+
+        byte[] bytes = generateFile(classDef, new StringWriter());
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define(byte[] b) {
+                return defineClass("example.Jumps", b, 0, b.length);
+            }
+        };
+        Class<?> type = classLoader.define(bytes);
+        java.lang.reflect.Method tryFinally = type.getMethod("tryFinally", int[].class, java.util.function.Consumer.class);
+        java.lang.reflect.Method locked = type.getMethod("locked", int[].class, java.util.concurrent.locks.Lock.class);
+        java.lang.reflect.Method nested = type.getMethod("nested", java.util.function.Consumer.class);
+
+        // The continue and the break run the finally statement
+        List<Object> events = new ArrayList<>();
+        tryFinally.invoke(null, new int[]{0, -1, 2}, (java.util.function.Consumer<Object>) events::add);
+        assertEquals(List.of("finally", "finally"), events);
+
+        // The break releases the lock
+        java.util.concurrent.locks.ReentrantLock lock = new java.util.concurrent.locks.ReentrantLock();
+        assertEquals(1, locked.invoke(null, new int[]{1, -1, 2}, lock));
+        assertFalse(lock.isLocked());
+
+        // The return runs the enclosing finally statements
+        events.clear();
+        assertEquals(1, nested.invoke(null, (java.util.function.Consumer<Object>) events::add));
+        assertEquals(List.of("inner", "outer"), events);
+    }
+
+    @Test
+    void testFinallyRunsOnNormalCompletion() throws Exception {
+        java.lang.reflect.Method accept = java.util.function.Consumer.class.getMethod("accept", Object.class);
+        ClassDef classDef = ClassDef.builder("example.Completions")
+            .addModifiers(Modifier.PUBLIC)
+            .addMethod(MethodDef.builder("run")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("fail", boolean.class)
+                .addParameter("events", java.util.function.Consumer.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    StatementDef.doTry(
+                        StatementDef.multi(
+                            methodParameters.get(1).invoke(accept, ExpressionDef.constant("body")),
+                            methodParameters.get(0).isTrue().doIf(
+                                ClassTypeDef.of(IllegalStateException.class).instantiate().doThrow()
+                            )
+                        )
+                    ).doCatch(IllegalStateException.class, exception ->
+                        methodParameters.get(1).invoke(accept, ExpressionDef.constant("catch"))
+                    ).doFinally(methodParameters.get(1).invoke(accept, ExpressionDef.constant("finally"))),
+                    methodParameters.get(1).invoke(accept, ExpressionDef.constant("after"))
+                )))
+            .build();
+
+        byte[] bytes = generateFile(classDef, new StringWriter());
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define(byte[] b) {
+                return defineClass("example.Completions", b, 0, b.length);
+            }
+        };
+        Class<?> type = classLoader.define(bytes);
+        java.lang.reflect.Method run = type.getMethod("run", boolean.class, java.util.function.Consumer.class);
+
+        // The finally statement runs when the try statement completes normally, not only after a jump or an exception
+        List<Object> events = new ArrayList<>();
+        run.invoke(null, false, (java.util.function.Consumer<Object>) events::add);
+        assertEquals(List.of("body", "finally", "after"), events);
+
+        events.clear();
+        run.invoke(null, true, (java.util.function.Consumer<Object>) events::add);
+        assertEquals(List.of("body", "catch", "finally", "after"), events);
+    }
+
+    @Test
+    void testIncrements() throws Exception {
+        VariableDef.Local i = new VariableDef.Local("i", TypeDef.Primitive.INT);
+        VariableDef.Local l = new VariableDef.Local("l", TypeDef.Primitive.LONG);
+        VariableDef.Local b = new VariableDef.Local("b", TypeDef.Primitive.BYTE);
+        VariableDef.Local result = new VariableDef.Local("result", TypeDef.Primitive.INT);
+        VariableDef.Local longResult = new VariableDef.Local("longResult", TypeDef.Primitive.LONG);
+        FieldDef countField = FieldDef.builder("count", int.class).build();
+        FieldDef totalField = FieldDef.builder("total", long.class).build();
+        FieldDef createdField = FieldDef.builder("created", int.class).addModifiers(Modifier.STATIC).build();
+        ClassTypeDef countersType = ClassTypeDef.of("example.Counters");
+        VariableDef.StaticField created = countersType.getStaticField(createdField);
+        ClassDef classDef = ClassDef.builder("example.Counters")
+            .addModifiers(Modifier.PUBLIC)
+            .addField(countField)
+            .addField(totalField)
+            .addField(createdField)
+            .addMethod(MethodDef.builder("postIncrement")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("value", int.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    i.defineAndAssign(methodParameters.get(0)),
+                    result.defineAndAssign(i.postIncrement()),
+                    result.math(ADDITION, i.math(MULTIPLICATION, TypeDef.Primitive.INT.constant(100))).returning()
+                )))
+            .addMethod(MethodDef.builder("preDecrement")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("value", long.class)
+                .returns(long.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    l.defineAndAssign(methodParameters.get(0)),
+                    longResult.defineAndAssign(l.decrement()),
+                    longResult.math(ADDITION, l.math(MULTIPLICATION, TypeDef.Primitive.LONG.constant(100L))).returning()
+                )))
+            .addMethod(MethodDef.builder("compound")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("value", int.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    i.defineAndAssign(methodParameters.get(0)),
+                    i.compoundAssign(ADDITION, TypeDef.Primitive.INT.constant(1000)),
+                    i.compoundAssign(SUBTRACTION, TypeDef.Primitive.INT.constant(6)),
+                    i.increment(),
+                    i.compoundAssign(MULTIPLICATION, TypeDef.Primitive.INT.constant(2)),
+                    i.compoundAssign(BITWISE_LEFT_SHIFT, TypeDef.Primitive.INT.constant(1)),
+                    i.returning()
+                )))
+            .addMethod(MethodDef.builder("narrow")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("value", byte.class)
+                .returns(byte.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    b.defineAndAssign(methodParameters.get(0)),
+                    b.compoundAssign(ADDITION, TypeDef.Primitive.INT.constant(1)),
+                    b.postIncrement(),
+                    b.returning()
+                )))
+            .addMethod(MethodDef.builder("shift")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("value", long.class)
+                .returns(long.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    l.defineAndAssign(methodParameters.get(0)),
+                    l.compoundAssign(BITWISE_LEFT_SHIFT, TypeDef.Primitive.INT.constant(40)),
+                    l.returning()
+                )))
+            .addMethod(MethodDef.builder("next")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> aThis.field(countField).postIncrement().returning()))
+            .addMethod(MethodDef.builder("add")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter("value", long.class)
+                .returns(long.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    aThis.field(totalField).compoundAssign(ADDITION, methodParameters.get(0)),
+                    aThis.field(countField).increment(),
+                    aThis.field(totalField).increment().returning()
+                )))
+            .addMethod(MethodDef.builder("create")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    created.compoundAssign(ADDITION, TypeDef.Primitive.INT.constant(2)),
+                    created.postDecrement().returning()
+                )))
+            .build();
+
+        StringWriter output = new StringWriter();
+        byte[] bytes = generateFile(classDef, output);
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define(byte[] b) {
+                return defineClass("example.Counters", b, 0, b.length);
+            }
+        };
+        Class<?> type = classLoader.define(bytes);
+        Object counters = type.getConstructor().newInstance();
+
+        // The int locals are updated in place
+        assertTrue(output.toString().contains("IINC"));
+        assertEquals(201, type.getMethod("postIncrement", int.class).invoke(null, 1));
+        assertEquals(202L, type.getMethod("preDecrement", long.class).invoke(null, 3L));
+        assertEquals(3980, type.getMethod("compound", int.class).invoke(null, 0));
+        assertEquals((byte) -128, type.getMethod("narrow", byte.class).invoke(null, (byte) 126));
+        assertEquals(1L << 40, type.getMethod("shift", long.class).invoke(null, 1L));
+        assertEquals(0, type.getMethod("next").invoke(counters));
+        assertEquals(1, type.getMethod("next").invoke(counters));
+        assertEquals(6L, type.getMethod("add", long.class).invoke(counters, 5L));
+        assertEquals(3, type.getMethod("next").invoke(counters));
+        assertEquals(2, type.getMethod("create").invoke(null));
+        assertEquals(3, type.getMethod("create").invoke(null));
+    }
+
+    @Test
+    void testTryWithResources() throws Exception {
+        ClassTypeDef closeableType = ClassTypeDef.of(AutoCloseable.class);
+        ClassDef classDef = ClassDef.builder("example.Resources")
+            .addModifiers(Modifier.PUBLIC)
+            .addMethod(MethodDef.builder("run")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("first", AutoCloseable.class)
+                .addParameter("second", AutoCloseable.class)
+                .addParameter("body", Runnable.class)
+                .build((aThis, methodParameters) -> new StatementDef.TryWithResources(
+                    List.of(
+                        new VariableDef.Local("a", closeableType).defineAndAssign(methodParameters.get(0)),
+                        new VariableDef.Local("b", closeableType).defineAndAssign(methodParameters.get(1))
+                    ),
+                    methodParameters.get(2).invoke("run", TypeDef.VOID)
+                )))
+            .addMethod(MethodDef.builder("read")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("resource", AutoCloseable.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).tryWithResource("r", r ->
+                    TypeDef.Primitive.INT.constant(42).returning()
+                )))
+            .build();
+
+        byte[] bytes = generateFile(classDef, new StringWriter());
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define(byte[] b) {
+                return defineClass("example.Resources", b, 0, b.length);
+            }
+        };
+        Class<?> type = classLoader.define(bytes);
+        java.lang.reflect.Method run = type.getMethod("run", AutoCloseable.class, AutoCloseable.class, Runnable.class);
+        java.lang.reflect.Method read = type.getMethod("read", AutoCloseable.class);
+
+        // The resources are closed in the reverse order
+        List<String> events = new ArrayList<>();
+        run.invoke(null, (AutoCloseable) () -> events.add("close a"), (AutoCloseable) () -> events.add("close b"), (Runnable) () -> events.add("body"));
+        assertEquals(List.of("body", "close b", "close a"), events);
+
+        // The failure of the close is suppressed by the failure of the statement
+        events.clear();
+        AutoCloseable failing = () -> {
+            throw new IllegalStateException("close");
+        };
+        java.lang.reflect.InvocationTargetException e = assertThrows(java.lang.reflect.InvocationTargetException.class, () ->
+            run.invoke(null, (AutoCloseable) () -> events.add("close a"), failing, (Runnable) () -> {
+                throw new IllegalArgumentException("body");
+            }));
+        assertEquals("body", e.getCause().getMessage());
+        assertEquals("close", e.getCause().getSuppressed()[0].getMessage());
+        assertEquals(List.of("close a"), events);
+
+        // The null resource isn't closed
+        events.clear();
+        run.invoke(null, null, null, (Runnable) () -> events.add("body"));
+        assertEquals(List.of("body"), events);
+
+        // The resource is closed before returning and only once if the close fails
+        events.clear();
+        assertEquals(42, read.invoke(null, (AutoCloseable) () -> events.add("close")));
+        assertEquals(List.of("close"), events);
+        events.clear();
+        e = assertThrows(java.lang.reflect.InvocationTargetException.class, () ->
+            read.invoke(null, (AutoCloseable) () -> {
+                events.add("close");
+                throw new IllegalStateException("close");
+            }));
+        assertEquals("close", e.getCause().getMessage());
+        assertEquals(List.of("close"), events);
+    }
+
+    @Test
+    void testLockUnlockedOnce() throws Exception {
+        ClassDef classDef = ClassDef.builder("example.Locking")
+            .addModifiers(Modifier.PUBLIC)
+            .addMethod(MethodDef.builder("run")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("lock", java.util.concurrent.locks.Lock.class)
+                .addParameter("body", Runnable.class)
+                .build((aThis, methodParameters) -> StatementDef.Synchronized.withLock(
+                    methodParameters.get(0),
+                    methodParameters.get(1).invoke("run", TypeDef.VOID)
+                )))
+            .addMethod(MethodDef.builder("read")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("lock", java.util.concurrent.locks.Lock.class)
+                .addParameter("body", Runnable.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> StatementDef.Synchronized.withLock(
+                    methodParameters.get(0),
+                    StatementDef.multi(
+                        methodParameters.get(1).invoke("run", TypeDef.VOID),
+                        TypeDef.Primitive.INT.constant(42).returning()
+                    )
+                )))
+            .build();
+
+        byte[] bytes = generateFile(classDef, new StringWriter());
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define(byte[] b) {
+                return defineClass("example.Locking", b, 0, b.length);
+            }
+        };
+        Class<?> type = classLoader.define(bytes);
+        java.lang.reflect.Method run = type.getMethod("run", java.util.concurrent.locks.Lock.class, Runnable.class);
+        java.lang.reflect.Method read = type.getMethod("read", java.util.concurrent.locks.Lock.class, Runnable.class);
+
+        List<String> events = new ArrayList<>();
+        java.util.concurrent.locks.Lock failingUnlock = new java.util.concurrent.locks.ReentrantLock() {
+            @Override
+            public void unlock() {
+                events.add("unlock");
+                super.unlock();
+                throw new IllegalStateException("unlock");
+            }
+        };
+        Runnable body = () -> events.add("body");
+
+        // The failure of the unlock isn't handled by unlocking again
+        java.lang.reflect.InvocationTargetException e = assertThrows(java.lang.reflect.InvocationTargetException.class, () ->
+            run.invoke(null, failingUnlock, body));
+        assertEquals("unlock", e.getCause().getMessage());
+        assertEquals(List.of("body", "unlock"), events);
+
+        // The same for the early exit
+        events.clear();
+        e = assertThrows(java.lang.reflect.InvocationTargetException.class, () ->
+            read.invoke(null, failingUnlock, body));
+        assertEquals("unlock", e.getCause().getMessage());
+        assertEquals(List.of("body", "unlock"), events);
+
+        // The failure of the statement unlocks once
+        events.clear();
+        java.util.concurrent.locks.Lock lock = new java.util.concurrent.locks.ReentrantLock() {
+            @Override
+            public void unlock() {
+                events.add("unlock");
+                super.unlock();
+            }
+        };
+        e = assertThrows(java.lang.reflect.InvocationTargetException.class, () ->
+            read.invoke(null, lock, (Runnable) () -> {
+                throw new IllegalArgumentException("body");
+            }));
+        assertEquals("body", e.getCause().getMessage());
+        assertEquals(List.of("unlock"), events);
+
+        events.clear();
+        assertEquals(42, read.invoke(null, lock, body));
+        assertEquals(List.of("body", "unlock"), events);
+    }
+
+    @Test
+    void testArrayOperations() throws Exception {
+        TypeDef.Array intArray = TypeDef.Primitive.INT.array();
+        TypeDef.Array stringArray = TypeDef.STRING.array();
+        VariableDef.Local copy = new VariableDef.Local("copy", intArray);
+        ClassDef classDef = ClassDef.builder("example.Arrays")
+            .addModifiers(Modifier.PUBLIC)
+            .addMethod(MethodDef.builder("length")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("values", int[].class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).arrayLength().returning()))
+            .addMethod(MethodDef.builder("grow")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("values", int[].class)
+                .returns(int[].class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    copy.defineAndAssign(methodParameters.get(0).arrayCopyOf(
+                        methodParameters.get(0).arrayLength().math(MULTIPLICATION, TypeDef.Primitive.INT.constant(2))
+                    )),
+                    methodParameters.get(0).arrayCopy(
+                        TypeDef.Primitive.INT.constant(0),
+                        copy,
+                        methodParameters.get(0).arrayLength(),
+                        methodParameters.get(0).arrayLength()
+                    ),
+                    copy.returning()
+                )))
+            .addMethod(MethodDef.builder("filled")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("values", String[].class)
+                .returns(String[].class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).arrayClone().newLocal("clone", clone -> StatementDef.multi(
+                    clone.arrayFill(ExpressionDef.constant("x")),
+                    clone.returning()
+                ))))
+            .addMethod(MethodDef.builder("truncate")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("values", String[].class)
+                .returns(String[].class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).arrayCopyOf(TypeDef.Primitive.INT.constant(1)).returning()))
+            .build();
+
+        StringWriter output = new StringWriter();
+        byte[] bytes = generateFile(classDef, output);
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define(byte[] b) {
+                return defineClass("example.Arrays", b, 0, b.length);
+            }
+        };
+        Class<?> type = classLoader.define(bytes);
+
+        assertTrue(output.toString().contains("ARRAYLENGTH"));
+        assertTrue(output.toString().contains("INVOKESTATIC java/lang/System.arraycopy (Ljava/lang/Object;ILjava/lang/Object;II)V"));
+        assertEquals(3, type.getMethod("length", int[].class).invoke(null, (Object) new int[3]));
+        assertArrayEquals(new int[]{1, 2, 1, 2}, (int[]) type.getMethod("grow", int[].class).invoke(null, (Object) new int[]{1, 2}));
+        String[] values = {"a", "b"};
+        assertArrayEquals(new String[]{"x", "x"}, (String[]) type.getMethod("filled", String[].class).invoke(null, (Object) values));
+        assertArrayEquals(new String[]{"a", "b"}, values);
+        assertArrayEquals(new String[]{"a"}, (String[]) type.getMethod("truncate", String[].class).invoke(null, (Object) values));
+    }
+
+    @Test
+    void testMethodHandles() throws Exception {
+        ClassTypeDef handlesType = ClassTypeDef.of("example.Handles");
+        MethodDef twice = MethodDef.builder("twice")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter("value", int.class)
+            .returns(int.class)
+            .build((aThis, methodParameters) -> methodParameters.get(0).math(MULTIPLICATION, TypeDef.Primitive.INT.constant(2)).returning());
+        MethodDef size = MethodDef.builder("size").returns(int.class).build();
+        MethodDef newBuilder = MethodDef.constructor().addParameter("value", String.class).build();
+        ClassDef classDef = ClassDef.builder(handlesType.getName())
+            .addModifiers(Modifier.PUBLIC)
+            .addMethod(twice)
+            .addMethod(MethodDef.builder("callTwice")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("value", int.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> handlesType.methodHandle(twice).invokeExact(methodParameters.get(0)).returning()))
+            .addMethod(MethodDef.builder("size")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("value", List.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> ClassTypeDef.of(Collection.class).methodHandle(size).invokeExact(methodParameters.get(0)).returning()))
+            .addMethod(MethodDef.builder("copy")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("value", String.class)
+                .returns(String.class)
+                .build((aThis, methodParameters) -> ClassTypeDef.of(StringBuilder.class).methodHandle(newBuilder)
+                    .invokeExact(methodParameters.get(0))
+                    .invoke("toString", TypeDef.STRING)
+                    .returning()))
+            .build();
+
+        StringWriter output = new StringWriter();
+        byte[] bytes = generateFile(classDef, output);
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define(byte[] b) {
+                return defineClass("example.Handles", b, 0, b.length);
+            }
+        };
+        Class<?> type = classLoader.define(bytes);
+
+        assertTrue(output.toString().contains("INVOKEVIRTUAL java/lang/invoke/MethodHandle.invokeExact (I)I"));
+        assertTrue(output.toString().contains("INVOKEVIRTUAL java/lang/invoke/MethodHandle.invokeExact (Ljava/util/Collection;)I"));
+        assertEquals(42, type.getMethod("callTwice", int.class).invoke(null, 21));
+        assertEquals(2, type.getMethod("size", List.class).invoke(null, List.of(1, 2)));
+        assertEquals("abc", type.getMethod("copy", String.class).invoke(null, "abc"));
+    }
+
+    @Test
+    void testLazyField() throws Exception {
+        FieldDef greeting = FieldDef.builder("greeting", String.class)
+            .addModifiers(Modifier.PUBLIC)
+            .lazy(ExpressionDef.constant("hello").invoke("concat", TypeDef.STRING, ExpressionDef.constant("!")))
+            .build();
+        ClassDef classDef = ClassDef.builder("example.Lazy")
+            .addModifiers(Modifier.PUBLIC)
+            .addField(greeting)
+            .addMethod(MethodDef.builder("twice")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(String.class)
+                .build((aThis, methodParameters) -> aThis.invoke(greeting.getLazyAccessor())
+                    .invoke("concat", TypeDef.STRING, aThis.invoke(greeting.getLazyAccessor()))
+                    .returning()))
+            .build();
+
+        StringWriter output = new StringWriter();
+        byte[] bytes = generateFile(classDef, output);
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define(byte[] b) {
+                return defineClass("example.Lazy", b, 0, b.length);
+            }
+        };
+        Class<?> type = classLoader.define(bytes);
+        Object instance = type.getConstructor().newInstance();
+
+        assertTrue(output.toString().contains("private volatile Ljava/lang/Object; greeting"));
+        assertTrue(output.toString().contains("private final Ljava/lang/Object; lazyLock"));
+        assertTrue(output.toString().contains("MONITORENTER"));
+        Object value = type.getMethod("getGreeting").invoke(instance);
+        assertEquals("hello!", value);
+        assertSame(value, type.getMethod("getGreeting").invoke(instance));
+        assertEquals("hello!hello!", type.getMethod("twice").invoke(instance));
+    }
+
+    @Test
+    void testLazyFieldInitializedToNull() throws Exception {
+        FieldDef supplier = FieldDef.builder("supplier", java.util.function.Supplier.class)
+            .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+            .build();
+        FieldDef value = FieldDef.builder("value", String.class)
+            .addModifiers(Modifier.PUBLIC)
+            .lazy(new VariableDef.This().field(supplier).invoke("get", TypeDef.OBJECT).cast(String.class))
+            .build();
+        // The name of the lock is taken
+        FieldDef lazyLock = FieldDef.builder("lazyLock", int.class)
+            .addModifiers(Modifier.PUBLIC)
+            .build();
+        ClassDef classDef = ClassDef.builder("example.LazyNull")
+            .addModifiers(Modifier.PUBLIC)
+            .addField(supplier)
+            .addField(lazyLock)
+            .addField(value)
+            .addMethod(MethodDef.constructor()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter("supplier", java.util.function.Supplier.class)
+                .build((aThis, methodParameters) -> aThis.field(supplier).put(methodParameters.get(0))))
+            .build();
+
+        StringWriter output = new StringWriter();
+        byte[] bytes = generateFile(classDef, output);
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define(byte[] b) {
+                return defineClass("example.LazyNull", b, 0, b.length);
+            }
+        };
+        Class<?> type = classLoader.define(bytes);
+        List<String> evaluations = new ArrayList<>();
+        Object instance = type.getConstructor(java.util.function.Supplier.class).newInstance((java.util.function.Supplier<String>) () -> {
+            evaluations.add("get");
+            return null;
+        });
+
+        // The null value is cached
+        assertTrue(output.toString().contains("private final Ljava/lang/Object; lazyLock1"));
+        assertEquals(null, type.getMethod("getValue").invoke(instance));
+        assertEquals(null, type.getMethod("getValue").invoke(instance));
+        assertEquals(List.of("get"), evaluations);
+    }
+
+    @Test
+    void testLazyStaticField() throws Exception {
+        ClassTypeDef holdersType = ClassTypeDef.of("example.Holders");
+        FieldDef registry = FieldDef.builder("registry", String.class)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .lazy(ExpressionDef.constant("reg").invoke("concat", TypeDef.STRING, ExpressionDef.constant("istry")))
+            .build();
+        FieldDef other = FieldDef.builder("other", String.class)
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .lazy(holdersType.getStaticField(registry).invoke("concat", TypeDef.STRING, ExpressionDef.constant("!")))
+            .build();
+        ClassDef classDef = JavaIdioms.expandLazyFields(ClassDef.builder(holdersType.getName())
+            .addModifiers(Modifier.PUBLIC)
+            .addField(registry)
+            .addField(other)
+            .addMethod(MethodDef.builder("read")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(String.class)
+                .build((aThis, methodParameters) -> holdersType.getStaticField(registry).returning()))
+            .build());
+
+        Map<String, byte[]> classes = new HashMap<>();
+        StringWriter output = new StringWriter();
+        classes.put(classDef.getName(), generateFile(classDef, output));
+        for (ObjectDef innerType : classDef.getInnerTypes()) {
+            classes.put(innerType.getName(), new ByteCodeWriter(true, true).write(innerType, classDef.asTypeDef()));
+        }
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = classes.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        Class<?> type = classLoader.loadClass("example.Holders");
+
+        assertEquals(Set.of("example.Holders", "example.Holders$RegistryHolder", "example.Holders$OtherHolder"), classes.keySet());
+        assertTrue(output.toString().contains("GETSTATIC example/Holders$RegistryHolder.INSTANCE : Ljava/lang/String;"));
+        assertFalse(output.toString().contains("<clinit>"));
+        assertEquals("registry", type.getMethod("read").invoke(null));
+        assertEquals("registry!", type.getMethod("getOther").invoke(null));
+    }
+
+    @Test
+    void testLazyFieldReadsUseAccessors() throws Exception {
+        ClassTypeDef readsType = ClassTypeDef.of("example.LazyReads");
+        FieldDef greeting = FieldDef.builder("greeting", String.class)
+            .addModifiers(Modifier.PRIVATE)
+            .lazy(ExpressionDef.constant("hello"))
+            .build();
+        FieldDef registry = FieldDef.builder("registry", String.class)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .lazy(ExpressionDef.constant("registry"))
+            .build();
+        ClassDef classDef = JavaIdioms.expandLazyFields(ClassDef.builder(readsType.getName())
+            .addModifiers(Modifier.PUBLIC)
+            .addField(greeting)
+            .addField(registry)
+            .addMethod(MethodDef.builder("read")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(String.class)
+                .build((aThis, methodParameters) -> aThis.field(greeting)
+                    .invoke("concat", TypeDef.STRING, readsType.getStaticField(registry))
+                    .returning()))
+            // The name of the holder is taken
+            .addInnerType(ClassDef.builder("RegistryHolder").build())
+            .build());
+
+        Map<String, byte[]> classes = new HashMap<>();
+        StringWriter output = new StringWriter();
+        classes.put(classDef.getName(), generateFile(classDef, output));
+        for (ObjectDef innerType : classDef.getInnerTypes()) {
+            classes.put(innerType.getName(), new ByteCodeWriter(true, true).write(innerType, classDef.asTypeDef()));
+        }
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = classes.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+        Class<?> type = classLoader.loadClass("example.LazyReads");
+
+        assertEquals(Set.of("example.LazyReads", "example.LazyReads$RegistryHolder", "example.LazyReads$RegistryHolder1"), classes.keySet());
+        assertTrue(output.toString().contains("INVOKEVIRTUAL example/LazyReads.getGreeting ()Ljava/lang/String;"));
+        assertEquals("helloregistry", type.getMethod("read").invoke(type.getConstructor().newInstance()));
+    }
+
+    @Test
+    void testLazyFieldConflicts() {
+        FieldDef greeting = FieldDef.builder("greeting", String.class)
+            .lazy(ExpressionDef.constant("hello"))
+            .build();
+        ClassDef assigned = ClassDef.builder("example.LazyAssigned")
+            .addField(greeting)
+            .addMethod(MethodDef.builder("reset")
+                .build((aThis, methodParameters) -> aThis.field(greeting).put(ExpressionDef.constant("bye"))))
+            .build();
+        ClassDef accessor = ClassDef.builder("example.LazyAccessor")
+            .addField(greeting)
+            .addMethod(MethodDef.builder("getGreeting")
+                .returns(String.class)
+                .build((aThis, methodParameters) -> ExpressionDef.constant("bye").returning()))
+            .build();
+
+        assertThrows(IllegalStateException.class, () -> JavaIdioms.expandLazyFields(assigned).getMethods().forEach(MethodDef::getStatements));
+        assertThrows(IllegalStateException.class, () -> JavaIdioms.expandLazyFields(accessor));
+    }
+
+    @Test
+    void testPrimitiveEqualsHashCodeAndCompare() throws Exception {
+        ClassDef classDef = ClassDef.builder("example.Comparisons")
+            .addModifiers(Modifier.PUBLIC)
+            .addMethod(MethodDef.builder("equalDoubles")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameters(double.class, double.class)
+                .returns(boolean.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).equalsStructurally(methodParameters.get(1)).returning()))
+            .addMethod(MethodDef.builder("equalFloatWrappers")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameters(Float.class, Float.class)
+                .returns(boolean.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).equalsStructurally(methodParameters.get(1)).returning()))
+            .addMethod(MethodDef.builder("equalIntAndWrapper")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameters(int.class, Integer.class)
+                .returns(boolean.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).equalsStructurally(methodParameters.get(1)).returning()))
+            .addMethod(MethodDef.builder("equalWrapperAndInt")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameters(Integer.class, int.class)
+                .returns(boolean.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).equalsStructurally(methodParameters.get(1)).returning()))
+            .addMethod(MethodDef.builder("compareIntegers")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameters(Integer.class, int.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).invokeCompareTo(methodParameters.get(1)).returning()))
+            .addMethod(MethodDef.builder("compareStrings")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameters(String.class, String.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).invokeCompareTo(methodParameters.get(1)).returning()))
+            .addMethod(MethodDef.builder("hashLong")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameters(Long.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).invokeHashCode().returning()))
+            .build();
+
+        StringWriter output = new StringWriter();
+        byte[] bytes = generateFile(classDef, output);
+        var classLoader = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define(byte[] b) {
+                return defineClass("example.Comparisons", b, 0, b.length);
+            }
+        };
+        Class<?> type = classLoader.define(bytes);
+
+        assertTrue(output.toString().contains("INVOKESTATIC java/lang/Double.compare (DD)I"));
+        assertTrue(output.toString().contains("INVOKESTATIC java/lang/Long.hashCode (J)I"));
+        assertTrue(output.toString().contains("INVOKEVIRTUAL java/lang/Float.equals (Ljava/lang/Object;)Z"));
+        assertTrue(output.toString().contains("INVOKEVIRTUAL java/lang/Integer.equals (Ljava/lang/Object;)Z"));
+        java.lang.reflect.Method equalDoubles = type.getMethod("equalDoubles", double.class, double.class);
+        assertEquals(true, equalDoubles.invoke(null, Double.NaN, Double.NaN));
+        assertEquals(false, equalDoubles.invoke(null, 0.0d, -0.0d));
+        assertEquals(true, equalDoubles.invoke(null, 1.5d, 1.5d));
+        java.lang.reflect.Method equalFloatWrappers = type.getMethod("equalFloatWrappers", Float.class, Float.class);
+        assertEquals(true, equalFloatWrappers.invoke(null, Float.NaN, Float.NaN));
+        assertEquals(false, equalFloatWrappers.invoke(null, 1.0f, null));
+        java.lang.reflect.Method equalIntAndWrapper = type.getMethod("equalIntAndWrapper", int.class, Integer.class);
+        assertEquals(true, equalIntAndWrapper.invoke(null, 3, 3));
+        assertEquals(false, equalIntAndWrapper.invoke(null, 3, null));
+        assertEquals(true, type.getMethod("equalWrapperAndInt", Integer.class, int.class).invoke(null, 3, 3));
+        assertEquals(-1, type.getMethod("compareIntegers", Integer.class, int.class).invoke(null, 1, 2));
+        assertEquals(0, type.getMethod("compareStrings", String.class, String.class).invoke(null, "a", "a"));
+        assertEquals(Long.hashCode(5L), type.getMethod("hashLong", Long.class).invoke(null, 5L));
+        assertEquals(0, type.getMethod("hashLong", Long.class).invoke(null, (Object) null));
+    }
+
+    private static ClassDef deterministicClassDef(List<String> order) {
+        Map<String, Integer> values = Map.of("Aa", 1, "BB", 2, "C", 3);
+        Map<ExpressionDef.Constant, StatementDef> statementCases = new LinkedHashMap<>();
+        Map<ExpressionDef.Constant, ExpressionDef> expressionCases = new LinkedHashMap<>();
+        for (String value : order) {
+            statementCases.put(ExpressionDef.constant(value), TypeDef.Primitive.INT.constant(values.get(value)).returning());
+            expressionCases.put(ExpressionDef.constant(value), TypeDef.Primitive.INT.constant(values.get(value)));
+        }
+        return ClassDef.builder("example.Deterministic")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(AnnotationDef.builder(Deprecated.class)
+                .addMember("since", "1.0")
+                .addMember("forRemoval", true)
+                .build())
+            .addMethod(MethodDef.builder("statementSwitch")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("value", String.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).asStatementSwitch(
+                    TypeDef.STRING,
+                    statementCases,
+                    TypeDef.Primitive.INT.constant(0).returning()
+                )))
+            .addMethod(MethodDef.builder("expressionSwitch")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("value", String.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).asExpressionSwitch(
+                    TypeDef.Primitive.INT,
+                    expressionCases,
+                    TypeDef.Primitive.INT.constant(0)
+                ).returning()))
+            .build();
+    }
+
     private String toBytecode(ObjectDef objectDef) {
         StringWriter stringWriter = new StringWriter();
         generateFile(objectDef, stringWriter);
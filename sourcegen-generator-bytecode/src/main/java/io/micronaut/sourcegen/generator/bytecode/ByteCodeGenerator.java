@@ -21,12 +21,18 @@ import io.micronaut.inject.processing.ProcessingException;
 import io.micronaut.inject.visitor.VisitorContext;
 import io.micronaut.sourcegen.bytecode.ByteCodeWriter;
 import io.micronaut.sourcegen.generator.SourceGenerator;
+import io.micronaut.sourcegen.generator.SourceGenerators;
+import io.micronaut.sourcegen.model.ClassDef;
 import io.micronaut.sourcegen.model.ClassTypeDef;
+import io.micronaut.sourcegen.model.JavaIdioms;
 import io.micronaut.sourcegen.model.ObjectDef;
+import io.micronaut.sourcegen.model.ObjectDefValidator;
 
 import java.io.OutputStream;
 import java.io.Writer;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Generates the classes directly by writing the bytecode.
@@ -50,6 +56,7 @@ public final class ByteCodeGenerator implements SourceGenerator {
 
     @Override
     public void write(ObjectDef objectDef, VisitorContext context, Element... originatingElements) {
+        objectDef = SourceGenerators.applyPasses(objectDef);
         LinkedList<InnerDef> innerTypes = new LinkedList<>();
         write(objectDef, null, context, innerTypes, originatingElements);
         while (!innerTypes.isEmpty()) {
@@ -63,6 +70,17 @@ public final class ByteCodeGenerator implements SourceGenerator {
                        VisitorContext context,
                        LinkedList<InnerDef> innerTypes,
                        Element[] originatingElements) {
+        boolean expanded = false;
+        if (objectDef instanceof ClassDef classDef) {
+            // The holders of the lazy static fields are written as the inner types
+            objectDef = JavaIdioms.expandLazyFields(classDef);
+            expanded = objectDef != classDef;
+        }
+        if (outerType == null || expanded) {
+            // The model validation replaces the expensive bytecode check, the validation includes the inner types,
+            // an inner type is validated again only when the expansion changed it
+            validate(objectDef, originatingElements);
+        }
         String className = objectDef.getName();
         try (OutputStream os = context.visitClass(className, originatingElements)) {
             os.write(BYTE_CODE_WRITER.write(objectDef, outerType));
@@ -71,7 +89,16 @@ public final class ByteCodeGenerator implements SourceGenerator {
             }
         } catch (Exception e) {
             Element element = originatingElements.length > 0 ? originatingElements[0] : null;
-            throw new ProcessingException(element, "Failed to generate '" + className + "': " + e.getMessage(), e);
+            throw SourceGenerators.writeFailure(element, objectDef, e);
+        }
+    }
+
+    private static void validate(ObjectDef objectDef, Element[] originatingElements) {
+        List<ObjectDefValidator.Problem> problems = ObjectDefValidator.validate(objectDef);
+        if (!problems.isEmpty()) {
+            Element element = originatingElements.length > 0 ? originatingElements[0] : null;
+            throw new ProcessingException(element, "Invalid definition of '" + objectDef.getName() + "': "
+                + problems.stream().map(ObjectDefValidator.Problem::toString).collect(Collectors.joining(", ")));
         }
     }
 
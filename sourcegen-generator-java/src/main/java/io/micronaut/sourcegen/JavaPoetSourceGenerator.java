@@ -45,6 +45,7 @@ import io.micronaut.sourcegen.model.InterfaceDef;
 import io.micronaut.sourcegen.model.JavaIdioms;
 import io.micronaut.sourcegen.model.MethodDef;
 import io.micronaut.sourcegen.model.ObjectDef;
+import io.micronaut.sourcegen.model.ObjectDefRewriter;
 import io.micronaut.sourcegen.model.PropertyDef;
 import io.micronaut.sourcegen.model.RecordDef;
 import io.micronaut.sourcegen.model.StatementDef;
@@ -56,10 +57,12 @@ import java.io.IOException;
 import java.io.Writer;
 import java.lang.reflect.Array;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.IntStream;
 
 import static io.micronaut.sourcegen.javapoet.TypeSpec.anonymousClassBuilder;
@@ -73,6 +76,9 @@ import static io.micronaut.sourcegen.javapoet.TypeSpec.anonymousClassBuilder;
 @Internal
 public sealed class JavaPoetSourceGenerator implements SourceGenerator permits GroovyPoetSourceGenerator {
 
+    private static final String EXCEPTION_VARIABLE = "exception";
+    private static final String LOCK_VARIABLE = "lock";
+
     @Override
     public VisitorContext.Language getLanguage() {
         return VisitorContext.Language.JAVA;
@@ -200,7 +206,9 @@ public sealed class JavaPoetSourceGenerator implements SourceGenerator permits G
         javaFile.writeTo(writer);
     }
 
-    private TypeSpec.Builder getClassBuilder(ClassDef classDef) {
+    private TypeSpec.Builder getClassBuilder(ClassDef definition) {
+        // The method handle constants cannot be written in the source code
+        ClassDef classDef = JavaIdioms.hoistMethodHandles(JavaIdioms.expandLazyFields(definition));
         TypeSpec.Builder classBuilder = TypeSpec.classBuilder(classDef.getSimpleName());
         classBuilder.addModifiers(classDef.getModifiersArray());
         classDef.getTypeVariables().stream().map(t -> asTypeVariable(t, classDef)).forEach(classBuilder::addTypeVariable);
@@ -218,6 +226,13 @@ public sealed class JavaPoetSourceGenerator implements SourceGenerator permits G
 
         buildFields(classDef, classBuilder);
 
+        if (classDef.getStaticInitializer() != null) {
+            MethodDef staticInitializer = MethodDef.builder("<clinit>")
+                .addModifiers(Modifier.STATIC)
+                .build();
+            classBuilder.addStaticBlock(renderStatementCodeBlock(classDef, staticInitializer, classDef.getStaticInitializer()));
+        }
+
         addInnerTypes(classDef.getInnerTypes(), classBuilder, false);
 
         for (MethodDef method : classDef.getMethods()) {
@@ -365,7 +380,8 @@ public sealed class JavaPoetSourceGenerator implements SourceGenerator permits G
                         param.getModifiersArray()
                     ).addAnnotations(param.getAnnotations().stream().map(this::asAnnotationSpec).toList()).build())
                     .toList()
-            );
+            )
+            .varargs(method.isVarargs());
         if (!methodName.equals(MethodSpec.CONSTRUCTOR)) {
             methodBuilder.returns(asType(method.getReturnType(), objectDef));
         }
@@ -535,8 +551,12 @@ public sealed class JavaPoetSourceGenerator implements SourceGenerator permits G
         }
         if (statementDef instanceof StatementDef.PutStaticField putStaticField) {
             VariableDef.StaticField field = putStaticField.field();
+            // A final field can only be assigned by its simple name in the static initializer
+            CodeBlock target = objectDef != null && field.ownerType().equals(objectDef.asTypeDef())
+                ? CodeBlock.of("$L", field.name())
+                : CodeBlock.of("$T.$L", asType(field.ownerType(), objectDef), field.name());
             return CodeBlock.concat(
-                CodeBlock.of("$T.$L", asType(field.type(), objectDef), field.name()),
+                target,
                 CodeBlock.of(" = "),
                 renderExpression(objectDef, methodDef, putStaticField.expression())
             );
@@ -548,6 +568,13 @@ public sealed class JavaPoetSourceGenerator implements SourceGenerator permits G
                 renderExpression(objectDef, methodDef, assign.expression())
             );
         }
+        if (statementDef instanceof StatementDef.CompoundAssign compoundAssign) {
+            return CodeBlock.concat(
+                renderExpression(objectDef, methodDef, compoundAssign.variable()),
+                CodeBlock.of(getMathOp(compoundAssign.opType()).stripTrailing() + "= "),
+                renderExpression(objectDef, methodDef, compoundAssign.expression())
+            );
+        }
         if (statementDef instanceof ExpressionDef expressionDef) {
             return renderExpression(objectDef, methodDef, expressionDef);
         }
@@ -626,12 +653,199 @@ public sealed class JavaPoetSourceGenerator implements SourceGenerator permits G
             builder.add("}\n");
             return builder.build();
         }
+        if (statementDef instanceof StatementDef.For aFor) {
+            return renderFor(objectDef, methodDef, aFor);
+        }
+        if (statementDef instanceof StatementDef.ForEach forEach) {
+            CodeBlock.Builder builder = CodeBlock.builder();
+            if (forEach.label() != null) {
+                builder.add("$L: ", forEach.label());
+            }
+            builder.add("for ($T $L : ", asType(forEach.variable().type(), objectDef), forEach.variable().name());
+            builder.add(renderExpression(objectDef, methodDef, forEach.iterable()));
+            builder.add(") {\n");
+            builder.indent();
+            builder.add(renderStatementCodeBlock(objectDef, methodDef, forEach.statement()));
+            builder.unindent();
+            builder.add("}\n");
+            return builder.build();
+        }
+        if (statementDef instanceof StatementDef.Break aBreak) {
+            return aBreak.label() == null ? CodeBlock.builder().addStatement("break").build() : CodeBlock.builder().addStatement("break $L", aBreak.label()).build();
+        }
+        if (statementDef instanceof StatementDef.Continue aContinue) {
+            return aContinue.label() == null ? CodeBlock.builder().addStatement("continue").build() : CodeBlock.builder().addStatement("continue $L", aContinue.label()).build();
+        }
+        if (statementDef instanceof StatementDef.Synchronized aSynchronized) {
+            CodeBlock monitor = renderExpression(objectDef, methodDef, aSynchronized.monitor());
+            CodeBlock statement = renderStatementCodeBlock(objectDef, methodDef, aSynchronized.statement());
+            CodeBlock.Builder builder = CodeBlock.builder();
+            if (!aSynchronized.useLock()) {
+                builder.add("synchronized ($L) {\n", monitor);
+                builder.indent();
+                builder.add(statement);
+                builder.unindent();
+                builder.add("}\n");
+                return builder.build();
+            }
+            ExpressionDef lockExpression = aSynchronized.monitor();
+            boolean lockLocal = !(lockExpression instanceof VariableDef.Local
+                || lockExpression instanceof VariableDef.MethodParameter
+                || lockExpression instanceof VariableDef.This);
+            if (lockLocal) {
+                // The lock expression is evaluated once, like in the bytecode
+                String lockName = uniqueLocalName(methodDef, LOCK_VARIABLE);
+                builder.add("{\n");
+                builder.indent();
+                builder.addStatement("$T $L = $L", asType(aSynchronized.monitor().type(), objectDef), lockName, monitor);
+                monitor = CodeBlock.of("$L", lockName);
+            }
+            builder.addStatement("$L.lock()", monitor);
+            builder.add("try {\n");
+            builder.indent();
+            builder.add(statement);
+            builder.unindent();
+            builder.add("} finally {\n");
+            builder.indent();
+            builder.addStatement("$L.unlock()", monitor);
+            builder.unindent();
+            builder.add("}\n");
+            if (lockLocal) {
+                builder.unindent();
+                builder.add("}\n");
+            }
+            return builder.build();
+        }
+        if (statementDef instanceof ExpressionDef.InvokeExact invokeExact && !invokeExact.returnType().equals(TypeDef.VOID)) {
+            // The cast expression isn't a statement, the result is assigned to keep the call site type
+            return CodeBlock.builder()
+                .add("{\n")
+                .indent()
+                .addStatement("$T $L = $L", asType(invokeExact.returnType(), objectDef), "$ignored", renderExpression(objectDef, methodDef, invokeExact))
+                .unindent()
+                .add("}\n")
+                .build();
+        }
+        if (statementDef instanceof StatementDef.Try aTry) {
+            CodeBlock.Builder builder = CodeBlock.builder();
+            builder.add("try {\n");
+            builder.indent();
+            builder.add(renderStatementCodeBlock(objectDef, methodDef, aTry.statement()));
+            builder.unindent();
+            for (StatementDef.Try.Catch aCatch : aTry.catches()) {
+                // The exception variable isn't named in the model, it's always the nearest catch parameter
+                builder.add("} catch ($T $L) {\n", asType(aCatch.exception(), objectDef), EXCEPTION_VARIABLE);
+                builder.indent();
+                builder.add(renderStatementCodeBlock(objectDef, methodDef, aCatch.statement()));
+                builder.unindent();
+            }
+            if (aTry.finallyStatement() != null) {
+                builder.add("} finally {\n");
+                builder.indent();
+                builder.add(renderStatementCodeBlock(objectDef, methodDef, aTry.finallyStatement()));
+                builder.unindent();
+            }
+            builder.add("}\n");
+            return builder.build();
+        }
+        if (statementDef instanceof StatementDef.TryWithResources tryWithResources) {
+            CodeBlock.Builder builder = CodeBlock.builder();
+            builder.add("try (");
+            for (Iterator<StatementDef.DefineAndAssign> iterator = tryWithResources.resources().iterator(); iterator.hasNext(); ) {
+                builder.add(renderStatement(objectDef, methodDef, iterator.next()));
+                if (iterator.hasNext()) {
+                    builder.add("; ");
+                }
+            }
+            builder.add(") {\n");
+            builder.indent();
+            builder.add(renderStatementCodeBlock(objectDef, methodDef, tryWithResources.statement()));
+            builder.unindent();
+            builder.add("}\n");
+            return builder.build();
+        }
         return CodeBlock.builder()
             .addStatement(
                 renderStatement(objectDef, methodDef, statementDef)
             ).build();
     }
 
+    private CodeBlock renderFor(@Nullable ObjectDef objectDef, MethodDef methodDef, StatementDef.For aFor) {
+        CodeBlock.Builder builder = CodeBlock.builder();
+        CodeBlock initialization = CodeBlock.of("");
+        boolean block = false;
+        if (aFor.initialization() != null) {
+            List<StatementDef> statements = aFor.initialization().flatten();
+            if (isForClause(statements, true)) {
+                initialization = renderForClause(objectDef, methodDef, statements);
+            } else {
+                // The initialization cannot be written in the clause, the block keeps the locals in the loop scope
+                block = true;
+                builder.add("{\n");
+                builder.indent();
+                builder.add(renderStatementCodeBlock(objectDef, methodDef, aFor.initialization()));
+            }
+        }
+        if (aFor.label() != null) {
+            builder.add("$L: ", aFor.label());
+        }
+        builder.add("for (");
+        builder.add(initialization);
+        builder.add("; ");
+        if (aFor.condition() != null) {
+            builder.add(renderExpression(objectDef, methodDef, aFor.condition()));
+        }
+        builder.add(";");
+        if (aFor.update() != null) {
+            List<StatementDef> statements = aFor.update().flatten();
+            if (!isForClause(statements, false)) {
+                throw new IllegalStateException("The update of the for loop can only contain assignments and invocations: " + aFor.update());
+            }
+            builder.add(" ");
+            builder.add(renderForClause(objectDef, methodDef, statements));
+        }
+        builder.add(") {\n");
+        builder.indent();
+        builder.add(renderStatementCodeBlock(objectDef, methodDef, aFor.statement()));
+        builder.unindent();
+        builder.add("}\n");
+        if (block) {
+            builder.unindent();
+            builder.add("}\n");
+        }
+        return builder.build();
+    }
+
+    private static boolean isForClause(List<StatementDef> statements, boolean initialization) {
+        if (initialization && statements.stream().allMatch(StatementDef.DefineAndAssign.class::isInstance)) {
+            // The declarations of one type
+            return statements.stream().map(statement -> ((StatementDef.DefineAndAssign) statement).variable().type()).distinct().count() == 1;
+        }
+        return statements.stream().allMatch(statement -> statement instanceof StatementDef.Assign
+            || statement instanceof StatementDef.CompoundAssign
+            || statement instanceof StatementDef.PutField
+            || statement instanceof StatementDef.PutStaticField
+            || statement instanceof ExpressionDef);
+    }
+
+    private CodeBlock renderForClause(@Nullable ObjectDef objectDef, MethodDef methodDef, List<StatementDef> statements) {
+        CodeBlock.Builder builder = CodeBlock.builder();
+        for (int i = 0; i < statements.size(); i++) {
+            StatementDef statement = statements.get(i);
+            if (i > 0) {
+                builder.add(", ");
+                if (statement instanceof StatementDef.DefineAndAssign assign) {
+                    // The type is only declared once
+                    builder.add("$L = ", assign.variable().name());
+                    builder.add(renderExpression(objectDef, methodDef, assign.expression()));
+                    continue;
+                }
+            }
+            builder.add(renderStatement(objectDef, methodDef, statement));
+        }
+        return builder.build();
+    }
+
     private CodeBlock renderExpression(@Nullable ObjectDef objectDef, MethodDef methodDef, ExpressionDef expressionDef) {
         if (expressionDef instanceof ExpressionDef.ConditionExpressionDef conditionExpressionDef) {
             return renderCondition(objectDef, methodDef, conditionExpressionDef);
@@ -683,8 +897,13 @@ public sealed class JavaPoetSourceGenerator implements SourceGenerator permits G
         }
         if (expressionDef instanceof ExpressionDef.InvokeInstanceMethod invokeInstanceMethod) {
             MethodDef callMethod = invokeInstanceMethod.method();
+            CodeBlock instance = renderExpression(objectDef, methodDef, invokeInstanceMethod.instance());
+            if (invokeInstanceMethod.instance() instanceof ExpressionDef.Cast cast && !cast.type().equals(cast.expressionDef().type())) {
+                // The method is invoked on the cast value
+                instance = addParentheses(instance);
+            }
             return CodeBlock.concat(
-                CodeBlock.of(renderExpression(objectDef, methodDef, invokeInstanceMethod.instance())
+                CodeBlock.of(instance
                     + (callMethod.isConstructor() ? "" : "." + callMethod.getName())
                     + "("),
                 invokeInstanceMethod.values()
@@ -710,10 +929,15 @@ public sealed class JavaPoetSourceGenerator implements SourceGenerator permits G
         if (expressionDef instanceof ExpressionDef.MathBinaryOperation mathOperation) {
             return CodeBlock.concat(
                 renderExpressionWithParentheses(objectDef, methodDef, mathOperation.left()),
-                CodeBlock.of(getMathOp(mathOperation)),
+                CodeBlock.of(getMathOp(mathOperation.opType())),
                 renderExpressionWithParentheses(objectDef, methodDef, mathOperation.right())
             );
         }
+        if (expressionDef instanceof ExpressionDef.Increment increment) {
+            String operator = increment.decrement() ? "--" : "++";
+            CodeBlock variable = renderExpression(objectDef, methodDef, increment.variable());
+            return increment.postfix() ? CodeBlock.concat(variable, CodeBlock.of(operator)) : CodeBlock.concat(CodeBlock.of(operator), variable);
+        }
         if (expressionDef instanceof ExpressionDef.MathUnaryOperation mathOperation) {
             return CodeBlock.concat(
                 CodeBlock.of(getMathOp(mathOperation)),
@@ -791,11 +1015,39 @@ public sealed class JavaPoetSourceGenerator implements SourceGenerator permits G
         if (expressionDef instanceof ExpressionDef.InvokeHashCodeMethod invokeHashCodeMethod) {
             return renderExpression(objectDef, methodDef, JavaIdioms.hashCode(invokeHashCodeMethod));
         }
+        if (expressionDef instanceof ExpressionDef.MethodHandleConstant methodHandle) {
+            return renderExpression(objectDef, methodDef, JavaIdioms.lookupMethodHandle(methodHandle));
+        }
+        if (expressionDef instanceof ExpressionDef.InvokeExact invokeExact) {
+            CodeBlock.Builder builder = CodeBlock.builder();
+            boolean cast = !invokeExact.returnType().equals(TypeDef.VOID);
+            if (cast) {
+                // The cast of the result is a part of the call site type, the parentheses keep it when the result is dereferenced
+                builder.add("(($T) ", asType(invokeExact.returnType(), objectDef));
+            }
+            builder.add(renderExpressionWithParentheses(objectDef, methodDef, invokeExact.methodHandle()));
+            builder.add(".invokeExact(");
+            Iterator<TypeDef> parameterTypes = invokeExact.parameterTypes().iterator();
+            for (Iterator<? extends ExpressionDef> iterator = invokeExact.values().iterator(); iterator.hasNext(); ) {
+                builder.add(renderExpression(objectDef, methodDef, iterator.next().cast(parameterTypes.next())));
+                if (iterator.hasNext()) {
+                    builder.add(", ");
+                }
+            }
+            builder.add(cast ? "))" : ")");
+            return builder.build();
+        }
+        if (expressionDef instanceof ExpressionDef.ArrayLength arrayLength) {
+            return CodeBlock.concat(
+                renderExpression(objectDef, methodDef, arrayLength.expression()),
+                CodeBlock.of(".length")
+            );
+        }
         throw new IllegalStateException("Unrecognized expression: " + expressionDef);
     }
 
-    private static String getMathOp(ExpressionDef.MathBinaryOperation mathOperation) {
-        return switch (mathOperation.opType()) {
+    private static String getMathOp(ExpressionDef.MathBinaryOperation.OpType opType) {
+        return switch (opType) {
             case ADDITION -> " + ";
             case SUBTRACTION -> " - ";
             case MULTIPLICATION -> " * ";
@@ -879,7 +1131,7 @@ public sealed class JavaPoetSourceGenerator implements SourceGenerator permits G
             TypeDef leftType = left.type();
             ExpressionDef right = equalsStructurally.other();
             TypeDef rightType = right.type();
-            if (leftType.isPrimitive() || rightType.isPrimitive()) {
+            if (isComparedReferentially(leftType, rightType)) {
                 return renderEqualsReferentially(objectDef, methodDef, left, right);
             }
             return renderExpressionWithParentheses(objectDef, methodDef, JavaIdioms.equalsStructurally(equalsStructurally));
@@ -889,8 +1141,8 @@ public sealed class JavaPoetSourceGenerator implements SourceGenerator permits G
             TypeDef leftType = left.type();
             ExpressionDef right = notEqualsStructurally.other();
             TypeDef rightType = right.type();
-            if (leftType.isPrimitive() || rightType.isPrimitive()) {
-                return renderEqualsReferentially(objectDef, methodDef, left, right);
+            if (isComparedReferentially(leftType, rightType)) {
+                return renderNotEqualsReferentially(objectDef, methodDef, left, right);
             }
             return renderExpressionWithParentheses(objectDef, methodDef, JavaIdioms.equalsStructurally(notEqualsStructurally.instance(), notEqualsStructurally.other()).isFalse());
         }
@@ -918,6 +1170,12 @@ public sealed class JavaPoetSourceGenerator implements SourceGenerator permits G
         };
     }
 
+    private static boolean isComparedReferentially(TypeDef leftType, TypeDef rightType) {
+        // The floating point values are compared by the idiom
+        return leftType.isPrimitive() && !JavaIdioms.isFloatingPoint(leftType)
+            || rightType.isPrimitive() && !JavaIdioms.isFloatingPoint(rightType);
+    }
+
     private CodeBlock renderEqualsReferentially(ObjectDef objectDef, MethodDef methodDef, ExpressionDef left, ExpressionDef right) {
         return CodeBlock.builder()
             .add(renderExpressionWithParentheses(objectDef, methodDef, left))
@@ -953,6 +1211,9 @@ public sealed class JavaPoetSourceGenerator implements SourceGenerator permits G
         if (value == null) {
             return CodeBlock.of("null");
         }
+        if (value instanceof TypeDef typeDef) {
+            return CodeBlock.of("$T.class", asType(typeDef, null));
+        }
         if (type instanceof ClassTypeDef classTypeDef && classTypeDef.isEnum()) {
             return renderExpression(
                 null,
@@ -1003,6 +1264,47 @@ public sealed class JavaPoetSourceGenerator implements SourceGenerator permits G
         throw new IllegalStateException("Unrecognized expression: " + constant);
     }
 
+    /**
+     * Find a local name that doesn't clash with the parameters or with the locals of the method.
+     *
+     * @param methodDef The method
+     * @param name      The preferred name
+     * @return The local name
+     */
+    private static String uniqueLocalName(@Nullable MethodDef methodDef, String name) {
+        Set<String> taken = new HashSet<>();
+        if (methodDef != null) {
+            methodDef.getParameters().forEach(parameterDef -> taken.add(parameterDef.getName()));
+            ObjectDefRewriter localsCollector = new ObjectDefRewriter() {
+                @Override
+                protected ExpressionDef visitExpression(ExpressionDef expression) {
+                    if (expression instanceof VariableDef.Local local) {
+                        taken.add(local.name());
+                    }
+                    return expression;
+                }
+
+                @Override
+                protected StatementDef visitStatement(StatementDef statement) {
+                    if (statement instanceof StatementDef.DefineAndAssign defineAndAssign) {
+                        taken.add(defineAndAssign.variable().name());
+                    } else if (statement instanceof StatementDef.ForEach forEach) {
+                        taken.add(forEach.variable().name());
+                    } else if (statement instanceof StatementDef.TryWithResources tryWithResources) {
+                        tryWithResources.resources().forEach(resource -> taken.add(resource.variable().name()));
+                    }
+                    return statement;
+                }
+            };
+            methodDef.getStatements().forEach(localsCollector::rewriteStatement);
+        }
+        String unique = name;
+        for (int i = 1; taken.contains(unique); i++) {
+            unique = name + i;
+        }
+        return unique;
+    }
+
     private CodeBlock renderVariable(@Nullable ObjectDef objectDef, @Nullable MethodDef methodDef, VariableDef variableDef) {
         if (variableDef instanceof VariableDef.Local localVariableDef) {
             return CodeBlock.of(localVariableDef.name());
@@ -1046,6 +1348,9 @@ public sealed class JavaPoetSourceGenerator implements SourceGenerator permits G
             }
             return CodeBlock.of("super");
         }
+        if (variableDef instanceof VariableDef.ExceptionVar) {
+            return CodeBlock.of("$L", EXCEPTION_VARIABLE);
+        }
         throw new IllegalStateException("Unrecognized variable: " + variableDef);
     }
 
@@ -35,6 +35,7 @@ import io.micronaut.sourcegen.model.StatementDef.PutField
 import java.io.IOException
 import java.io.Writer
 import java.lang.reflect.Array
+import java.util.EnumSet
 import java.util.function.Consumer
 import javax.lang.model.element.Modifier
 import kotlin.reflect.KClass
@@ -158,7 +159,8 @@ class KotlinPoetSourceGenerator : SourceGenerator {
             .writeTo(writer)
     }
 
-    private fun getClassBuilder(classDef: ClassDef): TypeSpec.Builder {
+    private fun getClassBuilder(definition: ClassDef): TypeSpec.Builder {
+        val classDef = JavaIdioms.expandLazyFields(definition)
         val classBuilder = TypeSpec.classBuilder(classDef.simpleName)
         classBuilder.addModifiers(asKModifiers(classDef.modifiers))
         classDef.typeVariables.stream().map { tv: TypeDef.TypeVariable -> asTypeVariable(tv, classDef) }
@@ -472,6 +474,7 @@ class KotlinPoetSourceGenerator : SourceGenerator {
             asType(typeDef, objectDef),
             asKModifiers(modifiers)
         )
+        propertyBuilder.addAnnotations(asJvmAnnotations(modifiers))
         docs.forEach(Consumer { format: String -> propertyBuilder.addKdoc(format) })
 
         if (!modifiers.contains(Modifier.FINAL)) {
@@ -489,6 +492,12 @@ class KotlinPoetSourceGenerator : SourceGenerator {
                         "%L", initializer.value
                     )
                 )
+            } else if (initializer is NewInstance && initializer.values.isEmpty()) {
+                propertyBuilder.initializer(
+                    CodeBlock.of(
+                        "%T()", asType(initializer.type, objectDef)
+                    )
+                )
             }
         }
         if (typeDef.isNullable) {
@@ -549,15 +558,22 @@ class KotlinPoetSourceGenerator : SourceGenerator {
         }
         funBuilder = funBuilder
             .addModifiers(asKModifiers(method, modifiers))
+            .addAnnotations(asJvmAnnotations(modifiers))
             .addParameters(
-                method.parameters.stream()
-                    .map { param: ParameterDef ->
+                method.parameters.mapIndexed { index: Int, param: ParameterDef ->
+                    if (method.isVarargs && index == method.parameters.size - 1) {
+                        ParameterSpec.builder(
+                            param.name,
+                            asType(asVarargType(param.type), objectDef),
+                            KModifier.VARARG
+                        ).build()
+                    } else {
                         ParameterSpec.builder(
                             param.name,
                             asType(param.type, objectDef)
                         ).build()
                     }
-                    .toList()
+                }
             )
         for (annotation in method.annotations) {
             funBuilder.addAnnotation(
@@ -572,8 +588,17 @@ class KotlinPoetSourceGenerator : SourceGenerator {
     }
 
     companion object {
+        // The JVM modifiers that are represented by annotations in Kotlin
+        private val JVM_ANNOTATION_MODIFIERS: Map<Modifier, ClassName> = mapOf(
+            Modifier.VOLATILE to ClassName("kotlin.jvm", "Volatile"),
+            Modifier.TRANSIENT to ClassName("kotlin.jvm", "Transient"),
+            Modifier.SYNCHRONIZED to ClassName("kotlin.jvm", "Synchronized"),
+            Modifier.STRICTFP to ClassName("kotlin.jvm", "Strictfp")
+        )
+
         private fun stripStatic(modifiers: MutableSet<Modifier>): MutableSet<Modifier> {
-            val mutable = HashSet(modifiers)
+            val mutable = EnumSet.noneOf(Modifier::class.java)
+            mutable.addAll(modifiers)
             mutable.remove(Modifier.STATIC)
             return mutable
         }
@@ -582,7 +607,8 @@ class KotlinPoetSourceGenerator : SourceGenerator {
             if (modifiers.contains(modifier)) {
                 return modifiers
             }
-            val mutable = HashSet(modifiers)
+            val mutable = EnumSet.noneOf(Modifier::class.java)
+            mutable.addAll(modifiers)
             mutable.add(modifier)
             return mutable
         }
@@ -616,7 +642,7 @@ class KotlinPoetSourceGenerator : SourceGenerator {
         }
 
         private fun asKModifiers(modifier: Collection<Modifier>): List<KModifier> {
-            return modifier.stream().map { m: Modifier ->
+            return modifier.stream().filter { m: Modifier -> !JVM_ANNOTATION_MODIFIERS.containsKey(m) }.map { m: Modifier ->
                 when (m) {
                     Modifier.PUBLIC -> KModifier.PUBLIC
                     Modifier.PROTECTED -> KModifier.PROTECTED
@@ -624,11 +650,27 @@ class KotlinPoetSourceGenerator : SourceGenerator {
                     Modifier.ABSTRACT -> KModifier.ABSTRACT
                     Modifier.SEALED -> KModifier.SEALED
                     Modifier.FINAL -> KModifier.FINAL
+                    Modifier.NATIVE -> KModifier.EXTERNAL
                     else -> throw IllegalStateException("Not supported modifier: $m")
                 }
             }.toList()
         }
 
+        private fun asJvmAnnotations(modifiers: Collection<Modifier>): List<AnnotationSpec> {
+            return modifiers.mapNotNull { m: Modifier -> JVM_ANNOTATION_MODIFIERS[m] }
+                .map { className: ClassName -> AnnotationSpec.builder(className).build() }
+        }
+
+        private fun asVarargType(typeDef: TypeDef): TypeDef {
+            if (typeDef is TypeDef.Array) {
+                if (typeDef.dimensions > 1) {
+                    return TypeDef.array(typeDef.componentType, typeDef.dimensions - 1)
+                }
+                return typeDef.componentType
+            }
+            throw IllegalStateException("Expected an array type for the varargs parameter got: $typeDef")
+        }
+
         @OptIn(KotlinPoetJavaPoetPreview::class)
         private fun asType(typeDef: TypeDef, objectDef: ObjectDef?): TypeName {
             val result: TypeName = if (typeDef == TypeDef.THIS) {
@@ -789,11 +831,121 @@ class KotlinPoetSourceGenerator : SourceGenerator {
                 builder.add("}\n")
                 return builder.build()
             }
+            if (statementDef is StatementDef.For) {
+                if (hasContinue(statementDef.statement, statementDef.label, true)) {
+                    // The update is written at the end of the while statement
+                    throw IllegalStateException("The continue of the for loop isn't supported in Kotlin: $statementDef")
+                }
+                val builder: CodeBlock.Builder =
+                    CodeBlock.builder()
+                if (statementDef.initialization != null) {
+                    builder.add(renderStatementCodeBlock(objectDef, methodDef, statementDef.initialization))
+                }
+                if (statementDef.label != null) {
+                    builder.add("%L@ ", statementDef.label)
+                }
+                builder.add("while (")
+                if (statementDef.condition != null) {
+                    builder.add(renderExpressionCode(objectDef, methodDef, statementDef.condition))
+                } else {
+                    builder.add("true")
+                }
+                builder.add(") {\n")
+                builder.indent()
+                builder.add(renderStatementCodeBlock(objectDef, methodDef, statementDef.statement))
+                if (statementDef.update != null) {
+                    builder.add(renderStatementCodeBlock(objectDef, methodDef, statementDef.update))
+                }
+                builder.unindent()
+                builder.add("}\n")
+                return builder.build()
+            }
+            if (statementDef is StatementDef.ForEach) {
+                val builder: CodeBlock.Builder =
+                    CodeBlock.builder()
+                if (statementDef.label != null) {
+                    builder.add("%L@ ", statementDef.label)
+                }
+                builder.add("for (%L in ", statementDef.variable.name)
+                builder.add(renderExpressionCode(objectDef, methodDef, statementDef.iterable))
+                builder.add(") {\n")
+                builder.indent()
+                builder.add(renderStatementCodeBlock(objectDef, methodDef, statementDef.statement))
+                builder.unindent()
+                builder.add("}\n")
+                return builder.build()
+            }
+            if (statementDef is StatementDef.Break) {
+                if (statementDef.label == null) {
+                    return CodeBlock.builder().addStatement("break").build()
+                }
+                return CodeBlock.builder().addStatement("break@%L", statementDef.label).build()
+            }
+            if (statementDef is StatementDef.Continue) {
+                if (statementDef.label == null) {
+                    return CodeBlock.builder().addStatement("continue").build()
+                }
+                return CodeBlock.builder().addStatement("continue@%L", statementDef.label).build()
+            }
+            if (statementDef is StatementDef.Synchronized) {
+                val builder: CodeBlock.Builder =
+                    CodeBlock.builder()
+                val monitor = renderExpressionCode(objectDef, methodDef, statementDef.monitor)
+                if (statementDef.useLock) {
+                    builder.add("%L.%M {\n", monitor, MemberName("kotlin.concurrent", "withLock"))
+                } else {
+                    builder.add("synchronized(%L) {\n", monitor)
+                }
+                builder.indent()
+                builder.add(renderStatementCodeBlock(objectDef, methodDef, statementDef.statement))
+                builder.unindent()
+                builder.add("}\n")
+                return builder.build()
+            }
+            if (statementDef is StatementDef.TryWithResources) {
+                val builder: CodeBlock.Builder =
+                    CodeBlock.builder()
+                for (resource in statementDef.resources) {
+                    builder.add(
+                        "%L.use { %N ->\n",
+                        renderExpressionCode(objectDef, methodDef, resource.expression),
+                        resource.variable.name
+                    )
+                    builder.indent()
+                }
+                builder.add(renderStatementCodeBlock(objectDef, methodDef, statementDef.statement))
+                for (resource in statementDef.resources) {
+                    builder.unindent()
+                    builder.add("}\n")
+                }
+                return builder.build()
+            }
             return CodeBlock.builder()
                 .addStatement("%L", renderStatement(objectDef, methodDef, statementDef))
                 .build()
         }
 
+        private fun hasContinue(statementDef: StatementDef, label: String?, innermost: Boolean): Boolean {
+            return when (statementDef) {
+                is StatementDef.Continue -> (statementDef.label == null && innermost) || (statementDef.label != null && statementDef.label == label)
+                is StatementDef.Multi -> statementDef.statements.any { hasContinue(it, label, innermost) }
+                is StatementDef.If -> hasContinue(statementDef.statement, label, innermost)
+                is StatementDef.IfElse -> hasContinue(statementDef.statement, label, innermost)
+                    || hasContinue(statementDef.elseStatement, label, innermost)
+                is StatementDef.Switch -> statementDef.cases.values.any { hasContinue(it, label, innermost) }
+                    || (statementDef.defaultCase != null && hasContinue(statementDef.defaultCase, label, innermost))
+                is StatementDef.Try -> hasContinue(statementDef.statement, label, innermost)
+                    || statementDef.catches.any { hasContinue(it.statement, label, innermost) }
+                    || (statementDef.finallyStatement != null && hasContinue(statementDef.finallyStatement, label, innermost))
+                is StatementDef.Synchronized -> hasContinue(statementDef.statement, label, innermost)
+                is StatementDef.TryWithResources -> hasContinue(statementDef.statement, label, innermost)
+                is StatementDef.While -> hasContinue(statementDef.statement, label, false)
+                is StatementDef.For -> hasContinue(statementDef.statement, label, false)
+                is StatementDef.ForEach -> hasContinue(statementDef.statement, label, false)
+                else -> false
+            }
+        }
+
         private fun renderStatement(
             objectDef: ObjectDef?,
             methodDef: MethodDef,
@@ -860,6 +1012,9 @@ class KotlinPoetSourceGenerator : SourceGenerator {
                     )
                     .build()
             }
+            if (statementDef is StatementDef.CompoundAssign) {
+                return renderCompoundAssign(objectDef, methodDef, statementDef)
+            }
             if (statementDef is ExpressionDef) {
                 return renderExpressionCode(objectDef, methodDef, statementDef)
             }
@@ -1075,6 +1230,15 @@ class KotlinPoetSourceGenerator : SourceGenerator {
                     .add(renderExpressionCode(objectDef, methodDef, expressionDef.right))
                     .build()
             }
+            if (expressionDef is ExpressionDef.Increment) {
+                val operator = if (expressionDef.decrement) "--" else "++"
+                val variableExp = renderVariable(objectDef, methodDef, expressionDef.variable)
+                return if (expressionDef.postfix) {
+                    variableExp.toBuilder().add("%L", operator).build()
+                } else {
+                    CodeBlock.builder().add("%L", operator).add(variableExp).build()
+                }
+            }
             if (expressionDef is MathUnaryOperation) {
                 return CodeBlock.builder()
                     .add(getMathOp(expressionDef.opType))
@@ -1109,6 +1273,35 @@ class KotlinPoetSourceGenerator : SourceGenerator {
                 builder.add(")")
                 return builder.build()
             }
+            if (expressionDef is ArrayLength) {
+                val arrayExp = renderExpressionCode(objectDef, methodDef, expressionDef.expression)
+                return arrayExp.toBuilder().add(".size").build()
+            }
+            if (expressionDef is MethodHandleConstant) {
+                // Kotlin classes aren't written with a static initializer, the method handle is looked up on use
+                return renderExpressionCode(objectDef, methodDef, JavaIdioms.lookupMethodHandle(expressionDef))
+            }
+            if (expressionDef is InvokeExact) {
+                val codeBuilder = CodeBlock.builder()
+                val cast = expressionDef.returnType != TypeDef.VOID
+                if (cast) {
+                    codeBuilder.add("(")
+                }
+                codeBuilder.add(renderExpressionCode(objectDef, methodDef, expressionDef.methodHandle))
+                codeBuilder.add(".invokeExact(")
+                for ((index, parameter) in expressionDef.values.withIndex()) {
+                    codeBuilder.add(renderExpressionCode(objectDef, methodDef, parameter.cast(expressionDef.parameterTypes[index])))
+                    if (index != expressionDef.values.size - 1) {
+                        codeBuilder.add(", ")
+                    }
+                }
+                codeBuilder.add(")")
+                if (cast) {
+                    // The cast of the result is a part of the call site type
+                    codeBuilder.add(" as %T)", asType(expressionDef.returnType, objectDef))
+                }
+                return codeBuilder.build()
+            }
             if (expressionDef is InvokeGetClassMethod) {
                 val instanceExp = renderExpressionCode(objectDef, methodDef, expressionDef.instance)
                 return instanceExp.toBuilder().add(".javaClass").build()
@@ -1142,6 +1335,15 @@ class KotlinPoetSourceGenerator : SourceGenerator {
                         .add(")")
                         .build()
                 }
+                if (type.isPrimitive && JavaIdioms.isFloatingPoint(type)) {
+                    // The equality of the primitive floating point values doesn't equal NaN to itself
+                    return CodeBlock.builder()
+                        .add(renderExpressionCode(objectDef, methodDef, expressionDef.instance))
+                        .add(".compareTo(")
+                        .add(renderExpressionCode(objectDef, methodDef, expressionDef.other))
+                        .add(") == 0")
+                        .build()
+                }
                 return CodeBlock.builder()
                     .add(renderExpressionCode(objectDef, methodDef, expressionDef.instance))
                     .add(" == ")
@@ -1168,6 +1370,15 @@ class KotlinPoetSourceGenerator : SourceGenerator {
                         .add(")")
                         .build()
                 }
+                if (type.isPrimitive && JavaIdioms.isFloatingPoint(type)) {
+                    // The equality of the primitive floating point values doesn't equal NaN to itself
+                    return CodeBlock.builder()
+                        .add(renderExpressionCode(objectDef, methodDef, expressionDef.instance))
+                        .add(".compareTo(")
+                        .add(renderExpressionCode(objectDef, methodDef, expressionDef.other))
+                        .add(") != 0")
+                        .build()
+                }
                 return CodeBlock.builder()
                     .add(renderExpressionCode(objectDef, methodDef, expressionDef.instance))
                     .add(" != ")
@@ -1198,15 +1409,83 @@ class KotlinPoetSourceGenerator : SourceGenerator {
                 MathBinaryOperation.OpType.MULTIPLICATION -> " * "
                 MathBinaryOperation.OpType.DIVISION -> " / "
                 MathBinaryOperation.OpType.MODULUS -> " % "
-                MathBinaryOperation.OpType.BITWISE_AND -> " & "
-                MathBinaryOperation.OpType.BITWISE_OR -> " | "
-                MathBinaryOperation.OpType.BITWISE_XOR -> " ^ "
-                MathBinaryOperation.OpType.BITWISE_LEFT_SHIFT -> " << "
-                MathBinaryOperation.OpType.BITWISE_RIGHT_SHIFT -> " >> "
-                MathBinaryOperation.OpType.BITWISE_UNSIGNED_RIGHT_SHIFT -> " >>> "
+                MathBinaryOperation.OpType.BITWISE_AND -> " and "
+                MathBinaryOperation.OpType.BITWISE_OR -> " or "
+                MathBinaryOperation.OpType.BITWISE_XOR -> " xor "
+                MathBinaryOperation.OpType.BITWISE_LEFT_SHIFT -> " shl "
+                MathBinaryOperation.OpType.BITWISE_RIGHT_SHIFT -> " shr "
+                MathBinaryOperation.OpType.BITWISE_UNSIGNED_RIGHT_SHIFT -> " ushr "
             }
         }
 
+        private fun renderCompoundAssign(
+            objectDef: ObjectDef?,
+            methodDef: MethodDef,
+            compoundAssign: StatementDef.CompoundAssign
+        ): CodeBlock {
+            val variableType = compoundAssign.variable.type() as TypeDef.Primitive
+            val opType = compoundAssign.opType
+            val variableExp = renderVariable(objectDef, methodDef, compoundAssign.variable)
+            var expression = compoundAssign.expression
+            if (expression is Cast && expression.type == variableType) {
+                // The statement casts the expression to the variable type, the operand type is decided here
+                expression = expression.expressionDef
+            }
+            val shift = when (opType) {
+                MathBinaryOperation.OpType.BITWISE_LEFT_SHIFT,
+                MathBinaryOperation.OpType.BITWISE_RIGHT_SHIFT,
+                MathBinaryOperation.OpType.BITWISE_UNSIGNED_RIGHT_SHIFT -> true
+                else -> false
+            }
+            // Kotlin computes the Byte and Short operations as Int and the shift distance is always an Int
+            val narrow = variableType == TypeDef.Primitive.BYTE || variableType == TypeDef.Primitive.SHORT
+            val operandType = if (shift || narrow) TypeDef.Primitive.INT else variableType
+            val operand = renderNumberAs(objectDef, methodDef, expression, operandType)
+            val codeBuilder = variableExp.toBuilder()
+            if (narrow) {
+                return codeBuilder
+                    .add(" = (")
+                    .add(variableExp)
+                    .add(".toInt()%L", getMathOp(opType))
+                    .add(operand)
+                    .add(").%L()", numberConversion(variableType))
+                    .build()
+            }
+            when (opType) {
+                MathBinaryOperation.OpType.ADDITION,
+                MathBinaryOperation.OpType.SUBTRACTION,
+                MathBinaryOperation.OpType.MULTIPLICATION,
+                MathBinaryOperation.OpType.DIVISION,
+                MathBinaryOperation.OpType.MODULUS -> codeBuilder.add("%L= ", getMathOp(opType).trimEnd())
+                // Kotlin doesn't have compound assignments of the bitwise operations
+                else -> codeBuilder.add(" = ").add(variableExp).add("%L", getMathOp(opType))
+            }
+            return codeBuilder.add(operand).build()
+        }
+
+        private fun renderNumberAs(
+            objectDef: ObjectDef?,
+            methodDef: MethodDef,
+            expression: ExpressionDef,
+            type: TypeDef.Primitive
+        ): CodeBlock {
+            val rendered = renderExpressionCode(objectDef, methodDef, expression)
+            if (expression.type() == type) {
+                return rendered
+            }
+            val codeBuilder = CodeBlock.builder()
+            if (expression is VariableDef || expression is Constant) {
+                codeBuilder.add(rendered)
+            } else {
+                codeBuilder.add("(").add(rendered).add(")")
+            }
+            return codeBuilder.add(".%L()", numberConversion(type)).build()
+        }
+
+        private fun numberConversion(type: TypeDef.Primitive): String {
+            return "to" + type.name().replaceFirstChar { it.uppercaseChar() }
+        }
+
         private fun getMathOp(opType: MathUnaryOperation.OpType): String {
             return when (opType) {
                 MathUnaryOperation.OpType.NEGATE -> "-"
@@ -1243,6 +1522,9 @@ class KotlinPoetSourceGenerator : SourceGenerator {
         ): CodeBlock {
             val type = constant.type
             val value = constant.value ?: return CodeBlock.of("null")
+            if (value is TypeDef) {
+                return CodeBlock.of("%T::class.java", asType(value, null))
+            }
             if (type is ClassTypeDef && type.isEnum) {
                 return renderExpressionCode(
                     null, methodDef, VariableDef.StaticField(
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.generator;
+
+import io.micronaut.core.annotation.Experimental;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.sourcegen.model.IfChainToSwitchRewriter;
+import io.micronaut.sourcegen.model.ObjectDef;
+
+/**
+ * The optional pass rewriting the if-else chains comparing a variable with the constants to a switch, see {@link IfChainToSwitchRewriter}.
+ * The pass isn't registered by default, it's enabled by registering it as an {@link ObjectDefPass} service.
+ * The method statements are rewritten when they are built.
+ *
+ * @since 1.5
+ */
+@Experimental
+public class IfChainToSwitchPass implements ObjectDefPass {
+
+    private final IfChainToSwitchRewriter rewriter = new IfChainToSwitchRewriter();
+
+    @Override
+    @NonNull
+    public ObjectDef apply(@NonNull ObjectDef objectDef) {
+        return rewriter.rewriteLazily(objectDef);
+    }
+}
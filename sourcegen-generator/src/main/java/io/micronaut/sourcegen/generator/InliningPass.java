@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.generator;
+
+import io.micronaut.core.annotation.Experimental;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.sourcegen.model.ObjectDef;
+import io.micronaut.sourcegen.model.ObjectDefInliner;
+
+/**
+ * The optional pass inlining the small private and static helper methods, see {@link ObjectDefInliner}.
+ * The pass isn't registered by default, it's enabled by registering it or a subclass with a different budget
+ * as an {@link ObjectDefPass} service. The pass is applied after the other passes.
+ *
+ * @since 1.5
+ */
+@Experimental
+public class InliningPass implements ObjectDefPass {
+
+    private final ObjectDefInliner inliner;
+
+    /**
+     * The pass with the {@link ObjectDefInliner#DEFAULT_MAX_SIZE}.
+     */
+    public InliningPass() {
+        this(ObjectDefInliner.DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize The maximum estimated bytecode size of an inlined method
+     */
+    protected InliningPass(int maxSize) {
+        this.inliner = new ObjectDefInliner(maxSize);
+    }
+
+    @Override
+    @NonNull
+    public ObjectDef apply(@NonNull ObjectDef objectDef) {
+        return inliner.inline(objectDef);
+    }
+
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.generator;
+
+import io.micronaut.core.annotation.Experimental;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.order.Ordered;
+import io.micronaut.sourcegen.model.ObjectDef;
+
+/**
+ * The model-to-model pass applied to the object definition before it's written by a {@link SourceGenerator}.
+ * The passes are loaded as services and applied in the order, the same passes are shared by all the generators.
+ * A pass should keep the method statements that are not built yet lazy, see {@link io.micronaut.sourcegen.model.ObjectDefRewriter#rewriteLazily(ObjectDef)}.
+ *
+ * @since 1.5
+ * @see io.micronaut.sourcegen.model.ObjectDefRewriter
+ */
+@Experimental
+public interface ObjectDefPass extends Ordered {
+
+    /**
+     * Apply the pass.
+     *
+     * @param objectDef The object definition
+     * @return The new object definition or the same instance if nothing has changed
+     */
+    @NonNull
+    ObjectDef apply(@NonNull ObjectDef objectDef);
+
+}
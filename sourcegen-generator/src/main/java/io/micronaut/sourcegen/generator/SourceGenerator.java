@@ -17,7 +17,6 @@ package io.micronaut.sourcegen.generator;
 
 import io.micronaut.core.annotation.Experimental;
 import io.micronaut.inject.ast.Element;
-import io.micronaut.inject.processing.ProcessingException;
 import io.micronaut.inject.visitor.VisitorContext;
 import io.micronaut.sourcegen.model.ObjectDef;
 
@@ -49,6 +48,7 @@ public interface SourceGenerator {
 
     /**
      * Write the file using the context.
+     * The {@link ObjectDefPass passes} are applied before the object is written.
      *
      * @param objectDef           The object to write
      * @param context             The context
@@ -59,10 +59,11 @@ public interface SourceGenerator {
         context.visitGeneratedSourceFile(objectDef.getPackageName(), objectDef.getSimpleName(), originatingElements)
             .ifPresent(generatedFile -> {
                 try {
-                    generatedFile.write(writer -> write(objectDef, writer));
+                    ObjectDef processedDef = SourceGenerators.applyPasses(objectDef);
+                    generatedFile.write(writer -> write(processedDef, writer));
                 } catch (Exception e) {
                     Element element = originatingElements.length > 0 ? originatingElements[0] : null;
-                    throw new ProcessingException(element, "Failed to generate '" + objectDef.getName() + "': " + e.getMessage(), e);
+                    throw SourceGenerators.writeFailure(element, objectDef, e);
                 }
             });
     }
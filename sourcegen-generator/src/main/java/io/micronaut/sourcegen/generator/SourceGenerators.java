@@ -19,11 +19,14 @@ import io.micronaut.core.annotation.Experimental;
 import io.micronaut.core.annotation.NonNull;
 import io.micronaut.core.annotation.Nullable;
 import io.micronaut.core.io.service.SoftServiceLoader;
+import io.micronaut.core.order.OrderUtil;
 import io.micronaut.inject.ast.Element;
 import io.micronaut.inject.processing.ProcessingException;
 import io.micronaut.inject.visitor.VisitorContext;
+import io.micronaut.sourcegen.model.ObjectDef;
 
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -38,6 +41,7 @@ import java.util.function.Consumer;
 public final class SourceGenerators {
 
     private static List<SourceGenerator> sourceGenerators;
+    private static List<ObjectDefPass> passes;
 
     private SourceGenerators() {
     }
@@ -50,6 +54,35 @@ public final class SourceGenerators {
         return sourceGenerators;
     }
 
+    /**
+     * @return The ordered passes applied before the object definition is written
+     * @since 1.5
+     */
+    @NonNull
+    public static synchronized List<ObjectDefPass> getPasses() {
+        if (passes == null) {
+            List<ObjectDefPass> loaded = new ArrayList<>(SoftServiceLoader.load(ObjectDefPass.class).collectAll());
+            OrderUtil.sort(loaded);
+            passes = List.copyOf(loaded);
+        }
+        return passes;
+    }
+
+    /**
+     * Apply the passes to the object definition.
+     *
+     * @param objectDef The object definition
+     * @return The new object definition or the same instance if nothing has changed
+     * @since 1.5
+     */
+    @NonNull
+    public static ObjectDef applyPasses(@NonNull ObjectDef objectDef) {
+        for (ObjectDefPass pass : getPasses()) {
+            objectDef = pass.apply(objectDef);
+        }
+        return objectDef;
+    }
+
     @Nullable
     public static Optional<SourceGenerator> findByLanguage(VisitorContext.Language language) {
         return getAll().stream().filter(s -> s.getLanguage() == language).findAny();
@@ -68,12 +101,38 @@ public final class SourceGenerators {
         @NonNull Class<? extends Annotation> annotation,
         @NonNull Exception exception,
         Consumer<RuntimeException> postponeCallback)  {
-        if (exception.getClass().getSimpleName().equals("PostponeToNextRoundException") && exception instanceof RuntimeException runtimeException) {
-            postponeCallback.accept(runtimeException);
+        if (isPostponeException(exception)) {
+            postponeCallback.accept((RuntimeException) exception);
         } else {
             String message = exception.getMessage() != null ? exception.getMessage() : exception.getClass().getSimpleName();
             throw new ProcessingException(originatingElement, "Failed to generate a @" + annotation.getSimpleName() + ": " + message, exception);
         }
     }
 
+    /**
+     * The exception of writing the object definition.
+     * The method bodies are built while the definition is written, the processing exceptions
+     * and the requests to postpone to the next round thrown by the body builders are returned unchanged
+     * to be handled by {@link #handleFatalException(Element, Class, Exception, Consumer)}.
+     *
+     * @param originatingElement The originating element
+     * @param objectDef          The object definition
+     * @param exception          The exception
+     * @return The exception to throw
+     * @since 1.5
+     */
+    @NonNull
+    public static RuntimeException writeFailure(@Nullable Element originatingElement,
+                                                @NonNull ObjectDef objectDef,
+                                                @NonNull Exception exception) {
+        if (exception instanceof ProcessingException || isPostponeException(exception)) {
+            return (RuntimeException) exception;
+        }
+        return new ProcessingException(originatingElement, "Failed to generate '" + objectDef.getName() + "': " + exception.getMessage(), exception);
+    }
+
+    private static boolean isPostponeException(Exception exception) {
+        return exception.getClass().getSimpleName().equals("PostponeToNextRoundException") && exception instanceof RuntimeException;
+    }
+
 }
@@ -51,7 +51,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -189,18 +188,14 @@ public final class BuilderAnnotationVisitor implements TypeElementVisitor<Builde
         return ClassTypeDef.of(ArrayList.class)
             .instantiate()
             .newLocal(parameter.name() + "ArrayList", arrayListVar ->
-                parameter
-                    .invoke("iterator", ClassTypeDef.of(Iterator.class))
-                    .newLocal(parameter.name() + "Iterator", iteratorVar ->
-                        parameter.ifNonNull(
-                                iteratorVar.invoke("hasNext", TypeDef.primitive(boolean.class))
-                                    .whileLoop(
-                                        arrayListVar.invoke("add", TypeDef.of(boolean.class), iteratorVar.invoke("next", ClassTypeDef.OBJECT))
-                                    )
-                            )
-                            .after(
-                                propertyField.assign(arrayListVar)
-                            )));
+                parameter.ifNonNull(
+                        parameter.forEach(parameter.name() + "Element", TypeDef.OBJECT, elementVar ->
+                            arrayListVar.invoke("add", TypeDef.of(boolean.class), elementVar)
+                        )
+                    )
+                    .after(
+                        propertyField.assign(arrayListVar)
+                    ));
     }
 
     private static StatementDef mapToArrayListStatement(VariableDef.Field propertyField,
@@ -463,11 +458,11 @@ public final class BuilderAnnotationVisitor implements TypeElementVisitor<Builde
             return
                 collectionSize.asExpressionSwitch(
                     propertyType,
-                    Map.of(
+                    sizeCases(
                         // List.of()
-                        ExpressionDef.constant(0), javaListType.invokeStatic("of", javaListType),
+                        javaListType.invokeStatic("of", javaListType),
                         // List.of(single)
-                        ExpressionDef.constant(1), javaListType.invokeStatic("of", javaListType, field.invoke("get", elementType, ExpressionDef.constant(0)))
+                        javaListType.invokeStatic("of", javaListType, field.invoke("get", elementType, ExpressionDef.constant(0)))
                     ),
                     javaListType.invokeStatic("copyOf", javaListType, field)
                 );
@@ -476,11 +471,11 @@ public final class BuilderAnnotationVisitor implements TypeElementVisitor<Builde
             return
                 collectionSize.asExpressionSwitch(
                     propertyType,
-                    Map.of(
+                    sizeCases(
                         // Set.of()
-                        ExpressionDef.constant(0), setListType.invokeStatic("of", setListType),
+                        setListType.invokeStatic("of", setListType),
                         // Set.of(single)
-                        ExpressionDef.constant(1), setListType.invokeStatic("of", setListType, field.invoke("get", elementType, ExpressionDef.constant(0)))
+                        setListType.invokeStatic("of", setListType, field.invoke("get", elementType, ExpressionDef.constant(0)))
                     ),
                     // Collections.unmodifiableSet(new LinkedHashSet(all))
                     ClassTypeDef.of(Collections.class)
@@ -524,6 +519,14 @@ public final class BuilderAnnotationVisitor implements TypeElementVisitor<Builde
         }
     }
 
+    private static Map<ExpressionDef.Constant, ExpressionDef> sizeCases(ExpressionDef empty, ExpressionDef single) {
+        // Map.of iteration order is not stable between runs
+        Map<ExpressionDef.Constant, ExpressionDef> cases = new LinkedHashMap<>();
+        cases.put(ExpressionDef.constant(0), empty);
+        cases.put(ExpressionDef.constant(1), single);
+        return cases;
+    }
+
     private static StatementDef createMapStatement(PropertyElement propertyElement,
                                                    VariableDef.Field field,
                                                    Class<?> mapClass,
@@ -535,19 +538,15 @@ public final class BuilderAnnotationVisitor implements TypeElementVisitor<Builde
         return TypeDef.parameterized(mapClass, keyType, valueType)
             .instantiate()
             .newLocal(field.name() + "Map", mapVar ->
-                field.invoke("iterator", TypeDef.parameterized(Iterator.class, entryType))
-                    .newLocal(field.name() + "Iterator", iteratorVar ->
-                        iteratorVar.invoke("hasNext", TypeDef.primitive(boolean.class)).whileLoop(
-                            iteratorVar.invoke("next", TypeDef.OBJECT).cast(Map.Entry.class).newLocal(field.name() + "Entry", entryVar ->
-                                mapVar.invoke("put", TypeDef.of(boolean.class),
-                                    entryVar.invoke("getKey", TypeDef.OBJECT).cast(keyType),
-                                    entryVar.invoke("getValue", TypeDef.OBJECT).cast(valueType)
-                                ))
-                        ).after(
-                            ClassTypeDef.of(Collections.class).invokeStatic(unmodifiableMethodName, ClassTypeDef.of(propertyType), mapVar)
-                                .returning()
-                        )
-                    ));
+                field.forEach(field.name() + "Entry", entryType, entryVar ->
+                    mapVar.invoke("put", TypeDef.of(boolean.class),
+                        entryVar.invoke("getKey", TypeDef.OBJECT).cast(keyType),
+                        entryVar.invoke("getValue", TypeDef.OBJECT).cast(valueType)
+                    )
+                ).after(
+                    ClassTypeDef.of(Collections.class).invokeStatic(unmodifiableMethodName, ClassTypeDef.of(propertyType), mapVar)
+                        .returning()
+                ));
 
     }
 
@@ -38,13 +38,14 @@ import io.micronaut.sourcegen.model.VariableDef;
 import javax.lang.model.element.Modifier;
 import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 
+import static io.micronaut.sourcegen.model.ExpressionDef.ComparisonOperation.OpType.LESS_THAN_OR_EQUAL;
 import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.ADDITION;
 import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.MULTIPLICATION;
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.SUBTRACTION;
 
 /**
  * The visitor that generates the Object class of a bean.
@@ -61,6 +62,9 @@ import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpT
 public final class ObjectAnnotationVisitor implements TypeElementVisitor<Object, Object> {
 
     private static final ExpressionDef HASH_MULTIPLIER = ExpressionDef.primitiveConstant(31);
+    private static final String APPEND_TO_METHOD = "appendTo";
+    private static final int DEFAULT_APPEND_DEPTH = 16;
+    private static final ClassTypeDef STRING_BUILDER_TYPE = ClassTypeDef.of(StringBuilder.class);
 
     private final Set<String> processed = new HashSet<>();
 
@@ -89,11 +93,10 @@ public final class ObjectAnnotationVisitor implements TypeElementVisitor<Object,
             return;
         }
         try {
-            String simpleName = element.getSimpleName() + "Object";
-            String objectClassName = element.getPackageName() + "." + simpleName;
+            ClassTypeDef objectType = objectTypeOf(element);
 
             // class def and annotations
-            ClassDef.ClassDefBuilder objectBuilder = ClassDef.builder(objectClassName)
+            ClassDef.ClassDefBuilder objectBuilder = ClassDef.builder(objectType.getName())
                 .addModifiers(Modifier.PUBLIC, Modifier.FINAL);
 
             // create the utils functions if they are annotated
@@ -102,6 +105,7 @@ public final class ObjectAnnotationVisitor implements TypeElementVisitor<Object,
                 List<PropertyElement> filteredProperties = element.getBeanProperties().stream()
                     .filter(property -> !property.hasAnnotation(ToString.Exclude.class)).toList();
                 createToStringMethod(objectBuilder, ClassTypeDef.of(element), filteredProperties);
+                createAppendToMethods(objectBuilder, ClassTypeDef.of(element), objectType, filteredProperties);
             }
             if (element.hasStereotype(EqualsAndHashCode.class)) {
                 List<PropertyElement> properties = element.getBeanProperties();
@@ -142,17 +146,18 @@ public final class ObjectAnnotationVisitor implements TypeElementVisitor<Object,
             .returns(TypeDef.STRING)
             .addParameter("instance", selfType)
             .build((self, parameterDef) -> {
+                    List<PropertyElement> props = properties.stream().filter(beanProperty -> !beanProperty.isWriteOnly()).toList();
                     List<ExpressionDef> expressions = new ArrayList<>();
                     expressions.add(ExpressionDef.constant(selfType.getSimpleName() + "["));
-                    for (int i = 0; i < properties.size(); i++) {
-                        var beanProperty = properties.get(i);
-                        if (beanProperty.isWriteOnly()) {
-                            continue;
-                        }
+                    for (int i = 0; i < props.size(); i++) {
+                        var beanProperty = props.get(i);
                         ExpressionDef propertyValue = parameterDef.get(0).getPropertyValue(beanProperty);
                         expressions.add(ExpressionDef.constant(beanProperty.getName() + "="));
                         expressions.add(propertyValue);
-                        expressions.add(ExpressionDef.constant((i == properties.size() - 1) ? "]" : ", "));
+                        expressions.add(ExpressionDef.constant((i == props.size() - 1) ? "]" : ", "));
+                    }
+                    if (props.isEmpty()) {
+                        expressions.add(ExpressionDef.constant("]"));
                     }
                     return JavaIdioms.concatStrings(expressions).returning();
                 }
@@ -160,6 +165,90 @@ public final class ObjectAnnotationVisitor implements TypeElementVisitor<Object,
         classDefBuilder.addMethod(method);
     }
 
+    /*
+    Creates the methods writing the bean into an existing builder:
+        public static void BeanNameObject.appendTo(BeanName object, StringBuilder builder)
+        public static void BeanNameObject.appendTo(BeanName object, StringBuilder builder, int depth)
+    The properties of a type annotated with @ToString are appended by the appendTo method of that type
+    instead of their toString, the output matches toString when those types delegate their toString
+    to the generated method.
+    The depth limits the nesting of those properties, deeper beans are written as BeanName[...]
+    so that the object graphs with cycles are written in a bounded time.
+    The method without the depth uses DEFAULT_APPEND_DEPTH.
+     */
+    private static void createAppendToMethods(ClassDef.ClassDefBuilder classDefBuilder,
+                                              ClassTypeDef selfType,
+                                              ClassTypeDef objectType,
+                                              List<PropertyElement> properties) {
+        List<PropertyElement> props = properties.stream().filter(beanProperty -> !beanProperty.isWriteOnly()).toList();
+        MethodDef appendToWithDepth = MethodDef.builder(APPEND_TO_METHOD)
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter("instance", selfType)
+            .addParameter("builder", STRING_BUILDER_TYPE)
+            .addParameter("depth", TypeDef.Primitive.INT)
+            .build((self, parameterDef) -> {
+                VariableDef.MethodParameter instance = parameterDef.get(0);
+                VariableDef.MethodParameter builder = parameterDef.get(1);
+                VariableDef.MethodParameter depth = parameterDef.get(2);
+                List<StatementDef> statements = new ArrayList<>();
+                statements.add(JavaIdioms.append(builder, ExpressionDef.constant(selfType.getSimpleName() + "[")));
+                for (int i = 0; i < props.size(); i++) {
+                    PropertyElement beanProperty = props.get(i);
+                    ExpressionDef propertyValue = instance.getPropertyValue(beanProperty);
+                    String separator = (i == props.size() - 1) ? "" : ", ";
+                    ExpressionDef.InvokeInstanceMethod name = JavaIdioms.append(builder, ExpressionDef.constant(beanProperty.getName() + "="));
+                    ClassElement propertyType = beanProperty.getType();
+                    if (!beanProperty.isArray() && propertyType.hasStereotype(ToString.class)) {
+                        statements.add(name);
+                        statements.add(propertyValue.newLocal("value" + i, value -> {
+                            StatementDef appendNull = JavaIdioms.append(builder, ExpressionDef.constant("null"));
+                            StatementDef appendNested = objectTypeOf(propertyType).invokeStatic(
+                                APPEND_TO_METHOD,
+                                TypeDef.VOID,
+                                value,
+                                builder,
+                                depth.math(SUBTRACTION, ExpressionDef.primitiveConstant(1))
+                            );
+                            return value.ifNull(appendNull, appendNested);
+                        }));
+                        if (!separator.isEmpty()) {
+                            statements.add(JavaIdioms.append(builder, ExpressionDef.constant(separator)));
+                        }
+                    } else {
+                        ExpressionDef.InvokeInstanceMethod appended = JavaIdioms.append(name, propertyValue);
+                        if (!separator.isEmpty()) {
+                            appended = JavaIdioms.append(appended, ExpressionDef.constant(separator));
+                        }
+                        statements.add(appended);
+                    }
+                }
+                statements.add(JavaIdioms.append(builder, ExpressionDef.constant("]")));
+                return depth.compare(LESS_THAN_OR_EQUAL, ExpressionDef.primitiveConstant(0)).doIfElse(
+                    JavaIdioms.append(builder, ExpressionDef.constant(selfType.getSimpleName() + "[...]")),
+                    StatementDef.multi(statements)
+                );
+            });
+        MethodDef appendTo = MethodDef.builder(APPEND_TO_METHOD)
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter("instance", selfType)
+            .addParameter("builder", STRING_BUILDER_TYPE)
+            .build((self, parameterDef) -> objectType.invokeStatic(
+                appendToWithDepth,
+                parameterDef.get(0),
+                parameterDef.get(1),
+                ExpressionDef.primitiveConstant(DEFAULT_APPEND_DEPTH)
+            ));
+        classDefBuilder.addMethod(appendTo);
+        classDefBuilder.addMethod(appendToWithDepth);
+    }
+
+    /*
+    The class generated for the bean: BeanNameObject in the package of the bean.
+     */
+    private static ClassTypeDef objectTypeOf(ClassElement element) {
+        return ClassTypeDef.of(element.getPackageName() + "." + element.getSimpleName() + "Object");
+    }
+
     /*
     Creates an equals method with signature:
         public static boolean BeanNameObject.equals(BeanName object1, Object object2)
@@ -178,8 +267,9 @@ public final class ObjectAnnotationVisitor implements TypeElementVisitor<Object,
                     instance.equalsReferentially(o).ifTrue(ExpressionDef.trueValue().returning()),
                     o.isNull().or(instance.invokeGetClass().notEqualsReferentially(o.invokeGetClass()))
                         .doIf(ExpressionDef.falseValue().returning()),
-                    o.cast(selfType).newLocal("other", variableDef -> {
-                        ExpressionDef.ConditionExpressionDef exp = null;
+                    o.cast(selfType).newLocal("other", other -> {
+                        List<StatementDef> statements = new ArrayList<>();
+                        int index = 0;
                         for (PropertyElement beanProperty : properties) {
                             if (beanProperty.hasAnnotation(EqualsAndHashCode.Exclude.class)) {
                                 continue;
@@ -188,28 +278,27 @@ public final class ObjectAnnotationVisitor implements TypeElementVisitor<Object,
                                 continue;
                             }
                             var firstProperty = instance.getPropertyValue(beanProperty);
-                            var secondProperty = variableDef.getPropertyValue(beanProperty);
-
-                            ExpressionDef.ConditionExpressionDef newEqualsExpression = firstProperty.equalsReferentially(secondProperty);
-                            if (!beanProperty.isPrimitive() || beanProperty.isArray()) {
-                                // Object.equals for objects
-//                                if (beanProperty.isArray()) {
-//                                    // Arrays.equals or Arrays.deepEquals for Array
-//                                    String methodName = beanProperty.getArrayDimensions() > 1 ?  "deepEquals" : "equals";
-//                                    equalsMethod = ClassTypeDef.of(Arrays.class).invokeStatic(methodName, TypeDef.Primitive.BOOLEAN, firstProperty, secondProperty);
-//                                }
-                                ExpressionDef.ConditionExpressionDef equalsMethod = firstProperty.equalsStructurally(secondProperty);
-                                newEqualsExpression = newEqualsExpression
-                                    .or(firstProperty.isNonNull().and(equalsMethod));
-                            }
-
-                            if (exp == null) {
-                                exp = newEqualsExpression;
+                            var secondProperty = other.getPropertyValue(beanProperty);
+                            if (beanProperty.isPrimitive() && !beanProperty.isArray()) {
+                                // The floating point values are compared like the wrapper equals
+                                statements.add(
+                                    firstProperty.notEqualsStructurally(secondProperty).doIf(ExpressionDef.falseValue().returning())
+                                );
                             } else {
-                                exp = exp.and(newEqualsExpression);
+                                // The values are read once, the comparison uses each of them up to three times
+                                int propertyIndex = index;
+                                statements.add(firstProperty.newLocal("thisValue" + propertyIndex, firstValue ->
+                                    secondProperty.newLocal("otherValue" + propertyIndex, secondValue ->
+                                        firstValue.notEqualsReferentially(secondValue)
+                                            .and(firstValue.isNull().or(firstValue.notEqualsStructurally(secondValue)))
+                                            .doIf(ExpressionDef.falseValue().returning())
+                                    )
+                                ));
                             }
+                            index++;
                         }
-                        return Objects.requireNonNullElseGet(exp, ExpressionDef::trueValue).returning();
+                        statements.add(ExpressionDef.trueValue().returning());
+                        return StatementDef.multi(statements);
                     })
                 );
             });
@@ -222,34 +311,48 @@ public final class ObjectAnnotationVisitor implements TypeElementVisitor<Object,
      */
     private static void createHashCodeMethod(ClassDef.ClassDefBuilder classDefBuilder, ClassTypeDef selfType, List<PropertyElement> properties) {
         List<PropertyElement> props = properties.stream().filter(beanProperty -> !beanProperty.hasAnnotation(EqualsAndHashCode.Exclude.class) && !beanProperty.isWriteOnly()).toList();
-        Iterator<PropertyElement> iterator = props.iterator();
         MethodDef method = MethodDef.builder("hashCode")
             .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
             .addParameter("instance", selfType.makeNullable())
             .returns(TypeDef.Primitive.INT)
             .build((self, parameterDef) -> {
-                    if (!iterator.hasNext()) {
+                    if (props.isEmpty()) {
                         return ExpressionDef.primitiveConstant(0).returning();
                     }
                     VariableDef.MethodParameter instance = parameterDef.get(0);
-                PropertyElement propertyElement1 = iterator.next();
-                return StatementDef.multi(
-                        instance.ifNull(ExpressionDef.primitiveConstant(0).returning()),
-                        instance.getPropertyValue(propertyElement1).invokeHashCode().newLocal("hashValue", hashValue -> {
-                            List<StatementDef> hashUpdates = new ArrayList<>();
-                            while (iterator.hasNext()) {
-                                PropertyElement propertyElement = iterator.next();
-                                ExpressionDef condition = hashValue.math(MULTIPLICATION, HASH_MULTIPLIER)
-                                    .math(ADDITION, instance.getPropertyValue(propertyElement).invokeHashCode());
-                                hashUpdates.add(hashValue.assign(condition));
+                    VariableDef.Local hashValue = new VariableDef.Local("hashValue", TypeDef.Primitive.INT);
+                    List<StatementDef> statements = new ArrayList<>();
+                    statements.add(instance.ifNull(ExpressionDef.primitiveConstant(0).returning()));
+                    for (int i = 0; i < props.size(); i++) {
+                        PropertyElement propertyElement = props.get(i);
+                        boolean isFirst = i == 0;
+                        statements.add(readOnce(propertyElement, instance.getPropertyValue(propertyElement), "value" + i, value -> {
+                            if (isFirst) {
+                                return hashValue.defineAndAssign(value.invokeHashCode());
                             }
-                            hashUpdates.add(hashValue.returning());
-                            return StatementDef.multi(hashUpdates);
-                        })
-                    );
+                            return hashValue.assign(hashValue.math(MULTIPLICATION, HASH_MULTIPLIER)
+                                .math(ADDITION, value.invokeHashCode()));
+                        }));
+                    }
+                    statements.add(hashValue.returning());
+                    return StatementDef.multi(statements);
                 }
             );
         classDefBuilder.addMethod(method);
     }
 
+    /*
+    Reads the property value into a local if the value is used more than once:
+    the hash code of an object checks it for null before calling hashCode.
+     */
+    private static StatementDef readOnce(PropertyElement propertyElement,
+                                         ExpressionDef propertyValue,
+                                         String localName,
+                                         Function<ExpressionDef, StatementDef> fn) {
+        if (propertyElement.isPrimitive() || propertyElement.isArray()) {
+            return fn.apply(propertyValue);
+        }
+        return propertyValue.newLocal(localName, fn::apply);
+    }
+
 }
@@ -29,6 +29,7 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -84,18 +85,27 @@ public final class AnnotationDef {
         ClassElement annotationElement = context.getClassElement(annotation.getAnnotationName())
             .orElseThrow(() -> new RuntimeException("Could not create class element for " + annotation.getAnnotationName()));
         Map<String, ClassElement> fieldTypes = annotationElement.getMethods().stream()
-            .collect(Collectors.toMap(MethodElement::getName, MethodElement::getReturnType));
+            .collect(Collectors.toMap(MethodElement::getName, MethodElement::getReturnType, (a, b) -> a, LinkedHashMap::new));
         if (fieldTypes.isEmpty()) {
             // kotlin annotation
             fieldTypes = annotationElement.getFields().stream()
-                .collect(Collectors.toMap(FieldElement::getName, FieldElement::getType));
+                .collect(Collectors.toMap(FieldElement::getName, FieldElement::getType, (a, b) -> a, LinkedHashMap::new));
         }
 
         // The other way to determine if the annotation is inner would be use the context to get the class element
         ClassTypeDef annotationType = ClassTypeDef.of(annotation.getAnnotationName(), annotation.getAnnotationName().contains("$"));
         AnnotationDefBuilder builder = AnnotationDef.builder(annotationType);
+        // Copy the members in the declaration order, the values map doesn't guarantee a stable order
+        Map<String, Object> values = new TreeMap<>(annotation.getConvertibleValues().asMap());
+        Map<String, Object> orderedValues = new LinkedHashMap<>();
+        for (String member : fieldTypes.keySet()) {
+            if (values.containsKey(member)) {
+                orderedValues.put(member, values.remove(member));
+            }
+        }
+        orderedValues.putAll(values);
         Map<String, ClassElement> finalFieldTypes = fieldTypes;
-        annotation.getConvertibleValues().asMap().forEach((key, value) ->
+        orderedValues.forEach((key, value) ->
             copyAnnotationValue(value, finalFieldTypes.get(key), context)
                     .ifPresent(copiedValue -> builder.addMember(key, copiedValue))
         );
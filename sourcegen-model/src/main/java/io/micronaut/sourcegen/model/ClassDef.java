@@ -66,6 +66,10 @@ public final class ClassDef extends ObjectDef {
         return new ClassDef(className, modifiers, fields, methods, properties, annotations, javadoc, typeVariables, superinterfaces, superclass, innerTypes, staticInitializer, synthetic);
     }
 
+    ClassDef withMembers(List<FieldDef> fields, List<MethodDef> methods, List<ObjectDef> innerTypes, StatementDef staticInitializer) {
+        return new ClassDef(className, modifiers, fields, methods, properties, annotations, javadoc, typeVariables, superinterfaces, superclass, innerTypes, staticInitializer, synthetic);
+    }
+
     @Override
     public ClassTypeDef asTypeDef() {
         if (typeVariables.isEmpty()) {
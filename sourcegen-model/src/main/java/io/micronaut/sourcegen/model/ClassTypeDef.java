@@ -20,10 +20,13 @@ import io.micronaut.inject.ast.ClassElement;
 import io.micronaut.inject.ast.MethodElement;
 import io.micronaut.inject.ast.ParameterElement;
 
+import javax.lang.model.element.Modifier;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -316,6 +319,26 @@ public sealed interface ClassTypeDef extends TypeDef {
         return invokeStatic(name, parameterTypes, returningType, List.of(values));
     }
 
+    /**
+     * The method handle constant of a method of this type.
+     * The constructor handle creates a new instance, the static method is recognized by the modifiers.
+     *
+     * @param method The method
+     * @return The method handle constant
+     * @since 1.5
+     */
+    default ExpressionDef.MethodHandleConstant methodHandle(MethodDef method) {
+        ExpressionDef.MethodHandleConstant.Kind kind;
+        if (method.isConstructor()) {
+            kind = ExpressionDef.MethodHandleConstant.Kind.CONSTRUCTOR;
+        } else if (method.getModifiers().contains(Modifier.STATIC)) {
+            kind = ExpressionDef.MethodHandleConstant.Kind.STATIC;
+        } else {
+            kind = ExpressionDef.MethodHandleConstant.Kind.VIRTUAL;
+        }
+        return new ExpressionDef.MethodHandleConstant(this, method, kind);
+    }
+
     /**
      * Invoke static method.
      *
@@ -399,6 +422,7 @@ public sealed interface ClassTypeDef extends TypeDef {
 
     /**
      * Create a new type definition.
+     * The type definitions of classes are shared.
      *
      * @param type The class
      * @return type definition
@@ -407,7 +431,7 @@ public sealed interface ClassTypeDef extends TypeDef {
         if (type.isPrimitive()) {
             throw new IllegalStateException("Primitive classes cannot be of type: " + ClassTypeDef.class.getName());
         }
-        return new JavaClass(type, false);
+        return TypeDefInterner.javaClass(type);
     }
 
     /**
@@ -429,7 +453,7 @@ public sealed interface ClassTypeDef extends TypeDef {
      * @since 1.5
      */
     static ClassTypeDef of(String className, boolean isInner) {
-        return new ClassName(className, isInner, false);
+        return TypeDefInterner.className(className, isInner);
     }
 
     /**
@@ -512,7 +536,7 @@ public sealed interface ClassTypeDef extends TypeDef {
 
         @Override
         public ClassTypeDef makeNullable() {
-            return new JavaClass(type, true);
+            return nullable ? this : TypeDefInterner.javaClass(type, true);
         }
 
         @Override
@@ -713,6 +737,13 @@ public sealed interface ClassTypeDef extends TypeDef {
     @Experimental
     record Parameterized(ClassTypeDef rawType,
                          List<TypeDef> typeArguments) implements ClassTypeDef {
+
+        public Parameterized {
+            // The interned instances are shared, the caller's list cannot be kept.
+            // List.copyOf would reject the null arguments the constructor always accepted
+            typeArguments = Collections.unmodifiableList(new ArrayList<>(typeArguments));
+        }
+
         @Override
         public String getName() {
             return rawType.getName();
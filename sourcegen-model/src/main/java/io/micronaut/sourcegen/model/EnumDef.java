@@ -66,6 +66,10 @@ public final class EnumDef extends ObjectDef {
         return new EnumDef(className, modifiers, fields, methods, properties, annotations, javadoc, enumConstants, superinterfaces, innerTypes, synthetic);
     }
 
+    EnumDef withMembers(List<FieldDef> fields, List<MethodDef> methods, List<ObjectDef> innerTypes, LinkedHashMap<String, List<ExpressionDef>> enumConstants) {
+        return new EnumDef(className, modifiers, fields, methods, properties, annotations, javadoc, enumConstants, superinterfaces, innerTypes, synthetic);
+    }
+
     public static EnumDefBuilder builder(String name) {
         return new EnumDefBuilder(name);
     }
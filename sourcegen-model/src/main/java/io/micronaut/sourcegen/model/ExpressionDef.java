@@ -27,10 +27,12 @@ import io.micronaut.inject.ast.FieldElement;
 import io.micronaut.inject.ast.MethodElement;
 import io.micronaut.inject.ast.PropertyElement;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -44,7 +46,7 @@ import java.util.function.Function;
  */
 @Experimental
 public sealed interface ExpressionDef
-    permits ExpressionDef.ArrayElement, ExpressionDef.Cast, ExpressionDef.ConditionExpressionDef, ExpressionDef.Constant, ExpressionDef.GetPropertyValue, ExpressionDef.IfElse, ExpressionDef.InstanceOf, ExpressionDef.InvokeGetClassMethod, ExpressionDef.InvokeHashCodeMethod, ExpressionDef.InvokeInstanceMethod, ExpressionDef.InvokeStaticMethod, ExpressionDef.MathBinaryOperation, ExpressionDef.MathUnaryOperation, ExpressionDef.NewArrayInitialized, ExpressionDef.NewArrayOfSize, ExpressionDef.NewInstance, ExpressionDef.Switch, ExpressionDef.SwitchYieldCase, VariableDef {
+    permits ExpressionDef.ArrayElement, ExpressionDef.ArrayLength, ExpressionDef.Cast, ExpressionDef.ConditionExpressionDef, ExpressionDef.Constant, ExpressionDef.GetPropertyValue, ExpressionDef.IfElse, ExpressionDef.Increment, ExpressionDef.InstanceOf, ExpressionDef.InvokeGetClassMethod, ExpressionDef.InvokeHashCodeMethod, ExpressionDef.InvokeExact, ExpressionDef.InvokeInstanceMethod, ExpressionDef.InvokeStaticMethod, ExpressionDef.MathBinaryOperation, ExpressionDef.MethodHandleConstant, ExpressionDef.MathUnaryOperation, ExpressionDef.NewArrayInitialized, ExpressionDef.NewArrayOfSize, ExpressionDef.NewInstance, ExpressionDef.Switch, ExpressionDef.SwitchYieldCase, VariableDef {
 
     /**
      * Check an array element.
@@ -71,6 +73,78 @@ public sealed interface ExpressionDef
         return new ArrayElement(this, index);
     }
 
+    /**
+     * The length of an array.
+     *
+     * @return The array length
+     * @since 1.5
+     */
+    default ArrayLength arrayLength() {
+        return new ArrayLength(this);
+    }
+
+    /**
+     * Clone this array.
+     *
+     * @return The array copy
+     * @since 1.5
+     */
+    default ExpressionDef arrayClone() {
+        return JavaIdioms.arrayClone(this);
+    }
+
+    /**
+     * Copy this array truncating or padding it to the new length.
+     *
+     * @param newLength The length of the copy
+     * @return The array copy
+     * @since 1.5
+     */
+    default ExpressionDef arrayCopyOf(ExpressionDef newLength) {
+        return JavaIdioms.arrayCopyOf(this, newLength);
+    }
+
+    /**
+     * Assign the value to every element of this array.
+     *
+     * @param value The value
+     * @return The fill statement
+     * @since 1.5
+     */
+    default StatementDef arrayFill(ExpressionDef value) {
+        return JavaIdioms.arrayFill(this, value);
+    }
+
+    /**
+     * Copy the elements of this array to the destination array.
+     *
+     * @param sourcePosition      The position in this array
+     * @param destination         The destination array
+     * @param destinationPosition The position in the destination array
+     * @param length              The number of elements to copy
+     * @return The copy statement
+     * @since 1.5
+     */
+    default StatementDef arrayCopy(ExpressionDef sourcePosition,
+                                   ExpressionDef destination,
+                                   ExpressionDef destinationPosition,
+                                   ExpressionDef length) {
+        return JavaIdioms.arrayCopy(this, sourcePosition, destination, destinationPosition, length);
+    }
+
+    /**
+     * Invoke this method handle with the exact call site type, the types must be the same as the type of the method handle.
+     *
+     * @param parameterTypes The parameter types
+     * @param returnType     The return type
+     * @param values         The values
+     * @return The invoke exact expression
+     * @since 1.5
+     */
+    default InvokeExact invokeExact(List<TypeDef> parameterTypes, TypeDef returnType, List<? extends ExpressionDef> values) {
+        return new InvokeExact(this, parameterTypes, returnType, values);
+    }
+
     /**
      * Check if the instance is of the type.
      *
@@ -409,7 +483,7 @@ public sealed interface ExpressionDef
                                                     Map<Constant, ? extends ExpressionDef> cases,
                                                     ExpressionDef defaultCase) {
         if (defaultCase == null) {
-            cases = new HashMap<>(cases);
+            cases = new LinkedHashMap<>(cases);
             defaultCase = cases.remove(nullValue());
             if (defaultCase == null) {
                 defaultCase = cases.remove(null);
@@ -434,7 +508,7 @@ public sealed interface ExpressionDef
                                                   Map<Constant, StatementDef> cases,
                                                   StatementDef defaultCase) {
         if (defaultCase == null) {
-            cases = new HashMap<>(cases);
+            cases = new LinkedHashMap<>(cases);
             defaultCase = cases.remove(nullValue());
             if (defaultCase == null) {
                 defaultCase = cases.remove(null);
@@ -454,6 +528,33 @@ public sealed interface ExpressionDef
         return new StatementDef.While(this, statement);
     }
 
+    /**
+     * Turn this {@link AutoCloseable} expression into a resource of the try-with-resources statement.
+     *
+     * @param name The local name of the resource
+     * @param fn   The contextual function
+     * @return A new try-with-resources statement
+     * @since 1.5
+     */
+    default StatementDef.TryWithResources tryWithResource(String name, Function<VariableDef, StatementDef> fn) {
+        VariableDef.Local local = new VariableDef.Local(name, type());
+        return StatementDef.doTryWithResources(local.defineAndAssign(this), fn.apply(local));
+    }
+
+    /**
+     * Turn this array or iterable expression into a for-each statement.
+     *
+     * @param name        The local name of the element
+     * @param elementType The element type
+     * @param fn          The contextual function
+     * @return A new for-each statement
+     * @since 1.5
+     */
+    default StatementDef.ForEach forEach(String name, TypeDef elementType, Function<VariableDef, StatementDef> fn) {
+        VariableDef.Local local = new VariableDef.Local(name, elementType);
+        return new StatementDef.ForEach(local, this, fn.apply(local));
+    }
+
     /**
      * Reference the field of this variable.
      *
@@ -723,6 +824,18 @@ public sealed interface ExpressionDef
         return new InvokeHashCodeMethod(this);
     }
 
+    /**
+     * The comparison of the expression with the other expression: the static {@code compare} method of the wrapper
+     * for the primitive values, {@link Comparable#compareTo(Object)} otherwise.
+     *
+     * @param other The other expression
+     * @return The expression of the {@code int} result
+     * @since 1.5
+     */
+    default ExpressionDef invokeCompareTo(ExpressionDef other) {
+        return JavaIdioms.compare(this, other);
+    }
+
     /**
      * The invocation of the {@link Object#getClass()}} or equivalent method for the expression.
      *
@@ -988,6 +1101,7 @@ public sealed interface ExpressionDef
 
     /**
      * The call an instance method expression.
+     * The method can be a private method of a nestmate, the outer type or an inner type of the same top-level type.
      *
      * @param instance  The instance
      * @param method    The method
@@ -1044,6 +1158,111 @@ public sealed interface ExpressionDef
         }
     }
 
+    /**
+     * The method handle constant, the handle is loaded from the constant pool of the class.
+     * The access to the method is checked from the class that loads the constant.
+     *
+     * @param owner  The owner of the method
+     * @param method The method
+     * @param kind   The kind of the method handle
+     * @author Denis Stepanov
+     * @since 1.5
+     */
+    @Experimental
+    record MethodHandleConstant(ClassTypeDef owner,
+                                MethodDef method,
+                                Kind kind) implements ExpressionDef {
+
+        private static final ClassTypeDef METHOD_HANDLE_TYPE = ClassTypeDef.of(MethodHandle.class);
+
+        public MethodHandleConstant {
+            if (method.isConstructor() != (kind == Kind.CONSTRUCTOR)) {
+                throw new IllegalStateException("Method " + owner.getName() + "#" + method.getName() + " doesn't match the method handle kind: " + kind);
+            }
+        }
+
+        @Override
+        public TypeDef type() {
+            return METHOD_HANDLE_TYPE;
+        }
+
+        /**
+         * @return The parameter types of the method handle, the instance is the first parameter of the virtual method
+         */
+        public List<TypeDef> parameterTypes() {
+            List<TypeDef> parameterTypes = new ArrayList<>(method.getParameters().size() + 1);
+            if (kind == Kind.VIRTUAL) {
+                parameterTypes.add(owner);
+            }
+            method.getParameters().forEach(parameter -> parameterTypes.add(parameter.getType()));
+            return parameterTypes;
+        }
+
+        /**
+         * @return The return type of the method handle, the constructor returns the new instance
+         */
+        public TypeDef returnType() {
+            return kind == Kind.CONSTRUCTOR ? owner : method.getReturnType();
+        }
+
+        /**
+         * Invoke the method handle with the type of the method handle.
+         *
+         * @param values The values
+         * @return The invoke exact expression
+         */
+        public InvokeExact invokeExact(ExpressionDef... values) {
+            return invokeExact(List.of(values));
+        }
+
+        /**
+         * Invoke the method handle with the type of the method handle.
+         *
+         * @param values The values
+         * @return The invoke exact expression
+         */
+        public InvokeExact invokeExact(List<? extends ExpressionDef> values) {
+            return new InvokeExact(this, parameterTypes(), returnType(), values);
+        }
+
+        /**
+         * The method handle kind.
+         */
+        public enum Kind {
+            STATIC, VIRTUAL, CONSTRUCTOR
+        }
+    }
+
+    /**
+     * The exact invocation of a method handle, the call site type is the method handle type.
+     * The values are cast to the parameter types and the invocation isn't adapted at runtime.
+     * The Java source declares {@link Throwable}, the invocation is expected to be in a try block catching it.
+     *
+     * @param methodHandle   The method handle
+     * @param parameterTypes The parameter types
+     * @param returnType     The return type
+     * @param values         The values
+     * @author Denis Stepanov
+     * @since 1.5
+     */
+    @Experimental
+    record InvokeExact(ExpressionDef methodHandle,
+                       List<TypeDef> parameterTypes,
+                       TypeDef returnType,
+                       List<? extends ExpressionDef> values) implements ExpressionDef, StatementDef {
+
+        public InvokeExact {
+            if (parameterTypes.size() != values.size()) {
+                throw new IllegalStateException("Method handle parameters: " + parameterTypes.size() + " doesn't match values provided: " + values.size());
+            }
+        }
+
+        @Override
+        public TypeDef type() {
+            return returnType;
+        }
+    }
+
     /**
      * The condition operation.
      *
@@ -1105,32 +1324,35 @@ public sealed interface ExpressionDef
 
     /**
      * The binary math operation.
+     * The type is the type of the left expression, it's computed once to avoid walking deep operation chains.
      *
      * @param opType The operation
      * @param left     The left expression
      * @param right    The right expression
+     * @param type     The type
      * @author Denis Stepanov
      */
     @Experimental
     record MathBinaryOperation(OpType opType,
                                ExpressionDef left,
-                               ExpressionDef right) implements ExpressionDef {
+                               ExpressionDef right,
+                               TypeDef type) implements ExpressionDef {
 
         public MathBinaryOperation(OpType opType, ExpressionDef left, ExpressionDef right) {
-            if (!(left.type() instanceof TypeDef.Primitive leftPrimitive) || !leftPrimitive.isNumber()) {
+            this(opType, left, right, left.type());
+        }
+
+        public MathBinaryOperation {
+            if (!(type instanceof TypeDef.Primitive leftPrimitive) || !leftPrimitive.isNumber()) {
                 throw new IllegalStateException("Math left type should be a primitive number");
             }
+            if (!type.equals(left.type())) {
+                throw new IllegalStateException("Math type " + type + " doesn't match the left type: " + left.type());
+            }
             if (!(right.type() instanceof TypeDef.Primitive rightPrimitive) || !rightPrimitive.isNumber()) {
                 throw new IllegalStateException("Math right type should be a primitive number");
             }
-            this.opType = opType;
-            this.left = left;
-            this.right = right.cast(left.type());
-        }
-
-        @Override
-        public TypeDef type() {
-            return left.type();
+            right = right.cast(type);
         }
 
         /**
@@ -1154,17 +1376,20 @@ public sealed interface ExpressionDef
 
     /**
      * The unary math operation.
+     * The type is the type of the expression, it's computed once to avoid walking deep operation chains.
      *
      * @param opType     The operation
      * @param expression The expression
+     * @param type       The type
      * @author Denis Stepanov
      */
     @Experimental
     record MathUnaryOperation(OpType opType,
-                              ExpressionDef expression) implements ExpressionDef {
-        @Override
-        public TypeDef type() {
-            return expression.type();
+                              ExpressionDef expression,
+                              TypeDef type) implements ExpressionDef {
+
+        public MathUnaryOperation(OpType opType, ExpressionDef expression) {
+            this(opType, expression, expression.type());
         }
 
         /**
@@ -1175,6 +1400,37 @@ public sealed interface ExpressionDef
         }
     }
 
+    /**
+     * The increment or decrement of a variable by one: {@code ++i}, {@code i++}, {@code --i} or {@code i--}.
+     * The value of the expression is the new value for the prefix form and the previous value for the postfix form,
+     * used as a statement the value is discarded.
+     *
+     * @param variable  The local variable, field or static field
+     * @param decrement Is decrement
+     * @param postfix   Is postfix
+     * @author Denis Stepanov
+     * @since 1.5
+     */
+    @Experimental
+    record Increment(VariableDef variable,
+                     boolean decrement,
+                     boolean postfix) implements ExpressionDef, StatementDef {
+
+        public Increment {
+            if (!(variable instanceof VariableDef.Local || variable instanceof VariableDef.Field || variable instanceof VariableDef.StaticField)) {
+                throw new IllegalStateException("Only a local variable or a field can be incremented: " + variable);
+            }
+            if (!(variable.type() instanceof TypeDef.Primitive primitive) || !primitive.isNumber()) {
+                throw new IllegalStateException("Incremented variable should be a primitive number: " + variable.type());
+            }
+        }
+
+        @Override
+        public TypeDef type() {
+            return variable.type();
+        }
+    }
+
     /**
      * The IS NULL condition.
      *
@@ -1321,16 +1577,17 @@ public sealed interface ExpressionDef
      *
      * @param instance        The instance
      * @param propertyElement The property element
+     * @param type            The type of the property
      * @author Denis Stepanov
      * @since 1.3
      */
     @Experimental
     record GetPropertyValue(ExpressionDef instance,
-                            PropertyElement propertyElement) implements ExpressionDef {
+                            PropertyElement propertyElement,
+                            TypeDef type) implements ExpressionDef {
 
-        @Override
-        public TypeDef type() {
-            return TypeDef.of(propertyElement.getType());
+        public GetPropertyValue(ExpressionDef instance, PropertyElement propertyElement) {
+            this(instance, propertyElement, TypeDef.of(propertyElement.getType()));
         }
     }
 
@@ -1475,6 +1732,28 @@ public sealed interface ExpressionDef
 
     }
 
+    /**
+     * The array length expression.
+     *
+     * @param expression The array expression
+     * @author Denis Stepanov
+     * @since 1.5
+     */
+    @Experimental
+    record ArrayLength(ExpressionDef expression) implements ExpressionDef {
+
+        public ArrayLength {
+            if (!(expression.type() instanceof TypeDef.Array)) {
+                throw new IllegalArgumentException(expression.type() + " is not an array");
+            }
+        }
+
+        @Override
+        public TypeDef type() {
+            return TypeDef.Primitive.INT;
+        }
+    }
+
     /**
      * The conditional expression.
      *
@@ -17,12 +17,14 @@ package io.micronaut.sourcegen.model;
 
 import io.micronaut.core.annotation.Experimental;
 import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.naming.NameUtils;
 
 import javax.lang.model.element.Modifier;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The field definition.
@@ -35,6 +37,9 @@ public final class FieldDef extends AbstractElement {
 
     private final TypeDef type;
     private final ExpressionDef initializer;
+    private final boolean lazy;
+
+    static final String LAZY_HOLDER_FIELD = "INSTANCE";
 
     private FieldDef(String name,
                      EnumSet<Modifier> modifiers,
@@ -42,10 +47,65 @@ public final class FieldDef extends AbstractElement {
                      ExpressionDef initializer,
                      List<AnnotationDef> annotations,
                      List<String> javadoc,
-                     boolean synthetic) {
+                     boolean synthetic,
+                     boolean lazy) {
         super(name, modifiers, annotations, javadoc, synthetic);
         this.type = type;
         this.initializer = initializer;
+        this.lazy = lazy;
+    }
+
+    FieldDef withInitializer(ExpressionDef initializer) {
+        return new FieldDef(name, modifiers, type, initializer, annotations, javadoc, synthetic, lazy);
+    }
+
+    /**
+     * The storage of the lazy field: a private volatile object field without the initializer,
+     * the field is null until the initializer is evaluated.
+     *
+     * @return The field
+     */
+    FieldDef asLazyStorage() {
+        EnumSet<Modifier> storageModifiers = EnumSet.of(Modifier.PRIVATE, Modifier.VOLATILE);
+        if (modifiers.contains(Modifier.TRANSIENT)) {
+            storageModifiers.add(Modifier.TRANSIENT);
+        }
+        return new FieldDef(name, storageModifiers, TypeDef.OBJECT, null, annotations, javadoc, synthetic, false);
+    }
+
+    /**
+     * The holder of the static lazy field: a private static final class named {@code NameHolder}
+     * with the package-private static final field {@code INSTANCE} initialized by the initializer.
+     *
+     * @return The holder class
+     */
+    ClassDef asLazyHolder() {
+        return ClassDef.builder(NameUtils.capitalize(name) + "Holder")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .addField(new FieldDef(LAZY_HOLDER_FIELD, EnumSet.of(Modifier.STATIC, Modifier.FINAL), type, initializer, annotations, javadoc, synthetic, false))
+            .build();
+    }
+
+    /**
+     * @return The name of the lazy field accessor
+     */
+    String lazyAccessorName() {
+        return "get" + NameUtils.capitalize(name);
+    }
+
+    /**
+     * The accessor builder of the lazy field, the accessor has the visibility of the field.
+     *
+     * @return The method builder
+     */
+    MethodDef.MethodDefBuilder lazyAccessorBuilder() {
+        MethodDef.MethodDefBuilder builder = MethodDef.builder(lazyAccessorName()).returns(type);
+        for (Modifier modifier : modifiers) {
+            if (modifier == Modifier.PUBLIC || modifier == Modifier.PROTECTED || modifier == Modifier.PRIVATE || modifier == Modifier.STATIC) {
+                builder.addModifiers(modifier);
+            }
+        }
+        return builder;
     }
 
     /**
@@ -84,14 +144,59 @@ public final class FieldDef extends AbstractElement {
         return new FieldDefBuilder(name, TypeDef.of(type));
     }
 
+    /**
+     * Creates a new private final {@link ReentrantLock} field to be used with {@link StatementDef.Synchronized#withLock(ExpressionDef, StatementDef)}.
+     *
+     * @param name The field name
+     * @return The field
+     * @since 1.5
+     */
+    @NonNull
+    public static FieldDef lock(@NonNull String name) {
+        ClassTypeDef lockType = ClassTypeDef.of(ReentrantLock.class);
+        return new FieldDefBuilder(name, lockType)
+            .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+            .initializer(lockType.instantiate())
+            .build();
+    }
+
     public TypeDef getType() {
         return type;
     }
 
+    /**
+     * The initializer of the field, the initializer of the lazy field is evaluated by the first access.
+     *
+     * @return The initializer
+     */
     public Optional<ExpressionDef> getInitializer() {
         return Optional.ofNullable(initializer);
     }
 
+    /**
+     * @return true if the field is initialized lazily by {@link #getLazyAccessor()}
+     * @since 1.5
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * The accessor of the lazy field named {@code getName}. The instance field is read with a volatile read,
+     * the initializer is evaluated once in a double-checked block synchronized on a private lock of the instance.
+     * The static field is read from a nested holder class, the initializer is evaluated by the initialization of the holder.
+     *
+     * @return The accessor method to invoke on the instance or the static accessor of the static field
+     * @since 1.5
+     */
+    @NonNull
+    public MethodDef getLazyAccessor() {
+        if (!lazy) {
+            throw new IllegalStateException("Field '" + name + "' is not lazy");
+        }
+        return lazyAccessorBuilder().build();
+    }
+
     /**
      * The field builder definition.
      *
@@ -103,6 +208,7 @@ public final class FieldDef extends AbstractElement {
 
         private TypeDef type;
         private ExpressionDef initializer;
+        private boolean lazy;
 
         private FieldDefBuilder(String name) {
             super(name);
@@ -121,12 +227,44 @@ public final class FieldDef extends AbstractElement {
         public FieldDef build() {
             Objects.requireNonNull(name, "Name cannot be null");
             Objects.requireNonNull(type, "Type cannot be null");
-            return new FieldDef(name, modifiers, type, initializer, annotations, javadoc, synthetic);
+            if (lazy) {
+                if (initializer == null) {
+                    throw new IllegalStateException("Lazy field '" + name + "' requires an initializer");
+                }
+                if (!modifiers.contains(Modifier.STATIC)) {
+                    if (type.isPrimitive()) {
+                        throw new IllegalStateException("Lazy instance field '" + name + "' cannot be primitive: " + type);
+                    }
+                    if (modifiers.contains(Modifier.FINAL)) {
+                        throw new IllegalStateException("Lazy instance field '" + name + "' cannot be final");
+                    }
+                }
+            }
+            return new FieldDef(name, modifiers, type, initializer, annotations, javadoc, synthetic, lazy);
         }
 
         public FieldDefBuilder initializer(ExpressionDef expr) {
             this.initializer = expr;
             return this;
         }
+
+        /**
+         * Initialize the field lazily, the initializer is evaluated by the first invocation of {@link FieldDef#getLazyAccessor()}.
+         * The initializer of the instance field is evaluated once, also when it evaluates to {@code null}.
+         * The static field is moved to a nested holder class, the class reads of the field are replaced by the holder field.
+         *
+         * @param expr The initializer
+         * @return this builder
+         * @since 1.5
+         */
+        public FieldDefBuilder lazy(ExpressionDef expr) {
+            this.initializer = Objects.requireNonNull(expr, "Initializer cannot be null");
+            return lazy();
+        }
+
+        FieldDefBuilder lazy() {
+            this.lazy = true;
+            return this;
+        }
     }
 }
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.model;
+
+import io.micronaut.core.annotation.Experimental;
+import io.micronaut.core.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rewriter of the if-else chains comparing one variable with the constants to a switch.
+ * The switch is written as a table or a lookup switch instead of the comparisons one after another.
+ *
+ * <p>The chains of {@link StatementDef.IfElse} and of {@link ExpressionDef.IfElse}, and the sequences of {@link StatementDef.If}
+ * are rewritten. A condition is an equality of the variable with a constant or an {@link ExpressionDef.Or} of them.
+ * The variable is a local variable, a method parameter or a field of this, of the type int or {@link String}.
+ * A string is compared structurally by invoking equals on the variable, the switch on a null variable fails the same way.
+ * The statements of the cases need to end with a return or a throw, the statements of a switch case aren't
+ * isolated in every source language.</p>
+ *
+ * @since 1.5
+ */
+@Experimental
+public final class IfChainToSwitchRewriter extends ObjectDefRewriter {
+
+    /**
+     * The minimum number of the constants of the rewritten chain.
+     */
+    public static final int MIN_CASES = 3;
+
+    @Override
+    protected ExpressionDef visitExpression(ExpressionDef expression) {
+        if (!(expression instanceof ExpressionDef.IfElse ifElse)) {
+            return expression;
+        }
+        Comparison first = Comparison.of(ifElse.condition());
+        if (first == null) {
+            return expression;
+        }
+        Map<ExpressionDef.Constant, ExpressionDef> cases = new LinkedHashMap<>();
+        ExpressionDef current = ifElse;
+        while (current instanceof ExpressionDef.IfElse currentIfElse) {
+            Comparison comparison = Comparison.of(currentIfElse.condition());
+            if (comparison == null || !comparison.variable.equals(first.variable)) {
+                break;
+            }
+            for (ExpressionDef.Constant constant : comparison.constants) {
+                // The later duplicate constant is unreachable
+                cases.putIfAbsent(constant, currentIfElse.ifExpression());
+            }
+            current = currentIfElse.elseExpression();
+        }
+        if (current instanceof ExpressionDef.Switch aSwitch && aSwitch.expression().equals(first.variable)) {
+            // The end of the chain is already rewritten
+            aSwitch.cases().forEach(cases::putIfAbsent);
+            current = aSwitch.defaultCase();
+        }
+        if (cases.size() < MIN_CASES) {
+            return expression;
+        }
+        return new ExpressionDef.Switch(first.variable, ifElse.type(), cases, current);
+    }
+
+    @Override
+    protected StatementDef visitStatement(StatementDef statement) {
+        if (!(statement instanceof StatementDef.IfElse ifElse)) {
+            return statement;
+        }
+        Comparison first = Comparison.of(ifElse.condition());
+        if (first == null) {
+            return statement;
+        }
+        Map<ExpressionDef.Constant, StatementDef> cases = new LinkedHashMap<>();
+        StatementDef current = ifElse;
+        StatementDef defaultCase = null;
+        while (current != null) {
+            ExpressionDef condition;
+            StatementDef caseStatement;
+            StatementDef elseStatement;
+            if (current instanceof StatementDef.IfElse currentIfElse) {
+                condition = currentIfElse.condition();
+                caseStatement = currentIfElse.statement();
+                elseStatement = currentIfElse.elseStatement();
+            } else if (current instanceof StatementDef.If currentIf) {
+                condition = currentIf.condition();
+                caseStatement = currentIf.statement();
+                elseStatement = null;
+            } else if (current instanceof StatementDef.Switch aSwitch && aSwitch.expression().equals(first.variable)
+                && aSwitch.cases().values().stream().allMatch(IfChainToSwitchRewriter::isAbrupt)) {
+                // The end of the chain is already rewritten
+                aSwitch.cases().forEach(cases::putIfAbsent);
+                defaultCase = aSwitch.defaultCase();
+                break;
+            } else {
+                defaultCase = current;
+                break;
+            }
+            Comparison comparison = Comparison.of(condition);
+            if (comparison == null || !comparison.variable.equals(first.variable) || !isAbrupt(caseStatement)) {
+                defaultCase = current;
+                break;
+            }
+            for (ExpressionDef.Constant constant : comparison.constants) {
+                cases.putIfAbsent(constant, caseStatement);
+            }
+            current = elseStatement;
+        }
+        if (cases.size() < MIN_CASES) {
+            return statement;
+        }
+        return new StatementDef.Switch(first.variable, first.variable.type(), cases, defaultCase);
+    }
+
+    @Override
+    protected List<StatementDef> visitStatements(List<StatementDef> statements) {
+        List<StatementDef> result = null;
+        int i = 0;
+        while (i < statements.size()) {
+            // The sequence of ifs, every if returns or throws, the following statements are the default case
+            Comparison first = statements.get(i) instanceof StatementDef.If anIf && isAbrupt(anIf.statement()) ? Comparison.of(anIf.condition()) : null;
+            int end = i;
+            Map<ExpressionDef.Constant, StatementDef> cases = new LinkedHashMap<>();
+            if (first != null) {
+                while (end < statements.size()
+                    && statements.get(end) instanceof StatementDef.If anIf
+                    && isAbrupt(anIf.statement())) {
+                    Comparison comparison = Comparison.of(anIf.condition());
+                    if (comparison == null || !comparison.variable.equals(first.variable)) {
+                        break;
+                    }
+                    for (ExpressionDef.Constant constant : comparison.constants) {
+                        cases.putIfAbsent(constant, anIf.statement());
+                    }
+                    end++;
+                }
+            }
+            if (cases.size() < MIN_CASES) {
+                if (result != null) {
+                    result.add(statements.get(i));
+                }
+                i++;
+                continue;
+            }
+            if (result == null) {
+                result = new ArrayList<>(statements.subList(0, i));
+            }
+            result.add(new StatementDef.Switch(first.variable, first.variable.type(), cases, null));
+            i = end;
+        }
+        return result == null ? statements : result;
+    }
+
+    private static boolean isAbrupt(StatementDef statement) {
+        List<StatementDef> statements = statement.flatten();
+        if (statements.isEmpty()) {
+            return false;
+        }
+        StatementDef last = statements.get(statements.size() - 1);
+        if (last instanceof StatementDef.IfElse ifElse) {
+            return isAbrupt(ifElse.statement()) && isAbrupt(ifElse.elseStatement());
+        }
+        return last instanceof StatementDef.Return || last instanceof StatementDef.Throw;
+    }
+
+    /**
+     * The comparison of the variable with the constants.
+     *
+     * @param variable  The variable
+     * @param constants The constants
+     */
+    private record Comparison(ExpressionDef variable, List<ExpressionDef.Constant> constants) {
+
+        @Nullable
+        static Comparison of(ExpressionDef condition) {
+            if (condition instanceof ExpressionDef.Or or) {
+                Comparison left = of(or.left());
+                Comparison right = of(or.right());
+                if (left == null || right == null || !left.variable.equals(right.variable)) {
+                    return null;
+                }
+                List<ExpressionDef.Constant> constants = new ArrayList<>(left.constants);
+                constants.addAll(right.constants);
+                return new Comparison(left.variable, constants);
+            }
+            if (condition instanceof ExpressionDef.ComparisonOperation comparison
+                && comparison.opType() == ExpressionDef.ComparisonOperation.OpType.EQUAL_TO) {
+                return ofInt(comparison.left(), comparison.right());
+            }
+            if (condition instanceof ExpressionDef.EqualsReferentially equals) {
+                return ofInt(equals.instance(), equals.other());
+            }
+            if (condition instanceof ExpressionDef.EqualsStructurally equals) {
+                Comparison comparison = ofInt(equals.instance(), equals.other());
+                if (comparison != null) {
+                    return comparison;
+                }
+                // Only the variable is the instance, the constant instance would accept null
+                if (isVariable(equals.instance())
+                    && equals.instance().type() instanceof ClassTypeDef classTypeDef
+                    && classTypeDef.getName().equals(String.class.getName())
+                    && uncast(equals.other()) instanceof ExpressionDef.Constant constant
+                    && constant.value() instanceof String value) {
+                    return new Comparison(equals.instance(), List.of(ExpressionDef.constant(value)));
+                }
+            }
+            return null;
+        }
+
+        @Nullable
+        private static Comparison ofInt(ExpressionDef left, ExpressionDef right) {
+            ExpressionDef variable = uncast(left);
+            ExpressionDef other = uncast(right);
+            if (variable instanceof ExpressionDef.Constant) {
+                ExpressionDef swap = variable;
+                variable = other;
+                other = swap;
+            }
+            if (isVariable(variable)
+                && variable.type().equals(TypeDef.Primitive.INT)
+                && other instanceof ExpressionDef.Constant constant
+                && constant.value() instanceof Integer value) {
+                return new Comparison(variable, List.of(TypeDef.Primitive.INT.constant(value)));
+            }
+            return null;
+        }
+
+        private static boolean isVariable(ExpressionDef expression) {
+            return expression instanceof VariableDef.Local
+                || expression instanceof VariableDef.MethodParameter
+                || expression instanceof VariableDef.Field field && field.instance() instanceof VariableDef.This;
+        }
+
+        private static ExpressionDef uncast(ExpressionDef expression) {
+            while (expression instanceof ExpressionDef.Cast cast
+                && (cast.type().equals(TypeDef.Primitive.INT) || cast.type().equals(cast.expressionDef().type()))) {
+                expression = cast.expressionDef();
+            }
+            return expression;
+        }
+    }
+
+}
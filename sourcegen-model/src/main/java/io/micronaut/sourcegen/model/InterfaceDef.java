@@ -52,6 +52,10 @@ public final class InterfaceDef extends ObjectDef {
         return new InterfaceDef(className, modifiers, methods, properties, annotations, javadoc, typeVariables, superinterfaces, innerTypes, synthetic);
     }
 
+    InterfaceDef withMembers(List<MethodDef> methods, List<ObjectDef> innerTypes) {
+        return new InterfaceDef(className, modifiers, methods, properties, annotations, javadoc, typeVariables, superinterfaces, innerTypes, synthetic);
+    }
+
     @Override
     public ClassTypeDef asTypeDef() {
         if (typeVariables.isEmpty()) {
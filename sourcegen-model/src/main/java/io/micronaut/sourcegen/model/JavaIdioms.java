@@ -22,10 +22,20 @@ import io.micronaut.inject.ast.MemberElement;
 import io.micronaut.inject.ast.MethodElement;
 import io.micronaut.inject.ast.PropertyElement;
 
+import javax.lang.model.element.Modifier;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Java language idioms.
@@ -55,11 +65,67 @@ public final class JavaIdioms {
         .returns(int.class)
         .build();
 
+    private static final ClassTypeDef COMPARABLE_TYPE = ClassTypeDef.of(Comparable.class);
+
+    private static final MethodDef COMPARABLE_COMPARE_TO = MethodDef.builder("compareTo")
+        .returns(int.class)
+        .addParameter(Object.class)
+        .build();
+
     private static final ClassTypeDef ARRAYS_TYPE = ClassTypeDef.of(Arrays.class);
+    private static final ClassTypeDef SYSTEM_TYPE = ClassTypeDef.of(System.class);
+
+    private static final MethodDef SYSTEM_ARRAYCOPY = MethodDef.builder("arraycopy")
+        .addParameters(Object.class, int.class, Object.class, int.class, int.class)
+        .build();
+
+    private static final MethodDef OBJECT_CLONE = MethodDef.builder("clone")
+        .returns(Object.class)
+        .build();
+
+    private static final ClassTypeDef METHOD_HANDLE_TYPE = ClassTypeDef.of(MethodHandle.class);
+    private static final ClassTypeDef METHOD_TYPE_TYPE = ClassTypeDef.of(MethodType.class);
+    private static final ClassTypeDef LOOKUP_TYPE = ClassTypeDef.of(MethodHandles.Lookup.class);
+
+    private static final MethodDef METHOD_HANDLES_LOOKUP = MethodDef.builder("lookup")
+        .returns(LOOKUP_TYPE)
+        .build();
+
+    private static final MethodDef METHOD_TYPE_METHOD_TYPE = MethodDef.builder("methodType")
+        .returns(METHOD_TYPE_TYPE)
+        .addParameters(TypeDef.CLASS, TypeDef.CLASS.array())
+        .build();
+
+    private static final MethodDef LOOKUP_FIND_STATIC = MethodDef.builder("findStatic")
+        .returns(METHOD_HANDLE_TYPE)
+        .addParameters(TypeDef.CLASS, TypeDef.STRING, METHOD_TYPE_TYPE)
+        .build();
+
+    private static final MethodDef LOOKUP_FIND_VIRTUAL = MethodDef.builder("findVirtual")
+        .returns(METHOD_HANDLE_TYPE)
+        .addParameters(TypeDef.CLASS, TypeDef.STRING, METHOD_TYPE_TYPE)
+        .build();
+
+    private static final MethodDef LOOKUP_FIND_CONSTRUCTOR = MethodDef.builder("findConstructor")
+        .returns(METHOD_HANDLE_TYPE)
+        .addParameters(TypeDef.CLASS, METHOD_TYPE_TYPE)
+        .build();
 
     private static final Method STRING_BUILDER_APPEND_STRING = ReflectionUtils.getRequiredMethod(StringBuilder.class, "append", String.class);
     private static final Method STRING_BUILDER_APPEND_OBJECT = ReflectionUtils.getRequiredMethod(StringBuilder.class, "append", Object.class);
+    private static final Method STRING_BUILDER_APPEND_BOOLEAN = ReflectionUtils.getRequiredMethod(StringBuilder.class, "append", boolean.class);
+    private static final Method STRING_BUILDER_APPEND_CHAR = ReflectionUtils.getRequiredMethod(StringBuilder.class, "append", char.class);
+    private static final Method STRING_BUILDER_APPEND_INT = ReflectionUtils.getRequiredMethod(StringBuilder.class, "append", int.class);
+    private static final Method STRING_BUILDER_APPEND_LONG = ReflectionUtils.getRequiredMethod(StringBuilder.class, "append", long.class);
+    private static final Method STRING_BUILDER_APPEND_FLOAT = ReflectionUtils.getRequiredMethod(StringBuilder.class, "append", float.class);
+    private static final Method STRING_BUILDER_APPEND_DOUBLE = ReflectionUtils.getRequiredMethod(StringBuilder.class, "append", double.class);
+    /**
+     * The length assumed for a value whose string form can't be estimated from its type.
+     */
+    private static final int ESTIMATED_OBJECT_LENGTH = 16;
     private static final Method STRING_BUILDER_TO_STRING = ReflectionUtils.getRequiredMethod(StringBuilder.class, "toString");
+    private static final String LAZY_LOCK_FIELD = "lazyLock";
+    private static final String METHOD_HANDLE_FIELD = "METHOD_HANDLE_";
 
     /**
      * Concat strings using {@link StringBuilder}.
@@ -73,6 +139,8 @@ public final class JavaIdioms {
 
     /**
      * Concat strings using {@link StringBuilder}.
+     * The builder is presized with the length of the constant segments plus an estimate for the other values,
+     * and primitive values are appended using the matching typed overload.
      *
      * @param stringExpressions The expression
      * @return The string builder expression
@@ -84,23 +152,77 @@ public final class JavaIdioms {
         if (stringExpressions.size() == 1) {
             return convertToStringIfNeeded(stringExpressions.get(0));
         }
-        ExpressionDef stringBuilderExp = null;
+        int capacity = 0;
         for (ExpressionDef expression : stringExpressions) {
-            if (stringBuilderExp == null) {
-                stringBuilderExp = ClassTypeDef.of(StringBuilder.class).instantiate(
-                    convertToStringIfNeeded(expression)
-                );
-            } else if (expression.type().equals(TypeDef.STRING)) {
-                stringBuilderExp = stringBuilderExp.invoke(STRING_BUILDER_APPEND_STRING, expression);
-            } else if (expression.type().isArray()) {
-                stringBuilderExp = stringBuilderExp.invoke(STRING_BUILDER_APPEND_STRING, convertToStringIfNeeded(expression));
-            } else {
-                stringBuilderExp = stringBuilderExp.invoke(STRING_BUILDER_APPEND_OBJECT, expression);
-            }
+            capacity = Math.addExact(capacity, estimateStringLength(expression));
+        }
+        ExpressionDef stringBuilderExp = ClassTypeDef.of(StringBuilder.class)
+            .instantiate(List.of(TypeDef.Primitive.INT), TypeDef.Primitive.INT.constant(capacity));
+        for (ExpressionDef expression : stringExpressions) {
+            stringBuilderExp = append(stringBuilderExp, expression);
         }
         return stringBuilderExp.invoke(STRING_BUILDER_TO_STRING);
     }
 
+    /**
+     * Append the expression to a {@link StringBuilder} using the {@code append} overload matching its type.
+     * Arrays are appended using {@link Arrays#toString}.
+     *
+     * @param stringBuilderExp The string builder expression
+     * @param expression The appended expression
+     * @return The string builder expression
+     * @since 1.5
+     */
+    public static ExpressionDef.InvokeInstanceMethod append(ExpressionDef stringBuilderExp, ExpressionDef expression) {
+        TypeDef type = expression.type();
+        if (type.equals(TypeDef.STRING)) {
+            return stringBuilderExp.invoke(STRING_BUILDER_APPEND_STRING, expression);
+        }
+        if (type.isArray()) {
+            return stringBuilderExp.invoke(STRING_BUILDER_APPEND_STRING, convertToStringIfNeeded(expression));
+        }
+        if (type instanceof TypeDef.Primitive primitive) {
+            return switch (primitive.name()) {
+                case "boolean" -> stringBuilderExp.invoke(STRING_BUILDER_APPEND_BOOLEAN, expression);
+                case "char" -> stringBuilderExp.invoke(STRING_BUILDER_APPEND_CHAR, expression);
+                case "byte", "short" -> stringBuilderExp.invoke(STRING_BUILDER_APPEND_INT, expression.cast(TypeDef.Primitive.INT));
+                case "int" -> stringBuilderExp.invoke(STRING_BUILDER_APPEND_INT, expression);
+                case "long" -> stringBuilderExp.invoke(STRING_BUILDER_APPEND_LONG, expression);
+                case "float" -> stringBuilderExp.invoke(STRING_BUILDER_APPEND_FLOAT, expression);
+                case "double" -> stringBuilderExp.invoke(STRING_BUILDER_APPEND_DOUBLE, expression);
+                default -> throw new IllegalStateException("Unrecognized primitive type: " + primitive.name());
+            };
+        }
+        return stringBuilderExp.invoke(STRING_BUILDER_APPEND_OBJECT, expression);
+    }
+
+    /**
+     * Estimates the length of the string representation of the expression.
+     * Constants are measured exactly, primitives use the length of their longest common representation.
+     *
+     * @param expression The expression
+     * @return The estimated length
+     */
+    private static int estimateStringLength(ExpressionDef expression) {
+        if (expression instanceof ExpressionDef.Constant constant && constant.value() != null) {
+            return String.valueOf(constant.value()).length();
+        }
+        if (TypeDef.Primitive.unboxIfPossible(expression.type()) instanceof TypeDef.Primitive primitive) {
+            return switch (primitive.name()) {
+                case "boolean" -> 5;
+                case "char" -> 1;
+                case "byte" -> 4;
+                case "short" -> 6;
+                case "int" -> 11;
+                case "long" -> 20;
+                case "float" -> 15;
+                case "double" -> 24;
+                default -> ESTIMATED_OBJECT_LENGTH;
+            };
+        }
+        return ESTIMATED_OBJECT_LENGTH;
+    }
+
     /**
      * Convert the expression to {@link String} if it's not one.
      * @param expression The expression
@@ -139,6 +261,17 @@ public final class JavaIdioms {
      */
     public static ExpressionDef equalsStructurally(ExpressionDef left, ExpressionDef right) {
         var type = left.type();
+        var rightType = right.type();
+        if (rightType.isPrimitive()) {
+            // The left wrapper is unboxed, it's expected to be not null as the instance of equals
+            TypeDef.Primitive primitive = (TypeDef.Primitive) (type.isPrimitive() ? type : rightType);
+            return equalsPrimitive(primitive, left.cast(primitive), right.cast(primitive));
+        }
+        if (type instanceof TypeDef.Primitive primitive) {
+            // The right value can be null and is evaluated once: the left value is boxed and compared with equals,
+            // the wrapper equals has the same NaN and -0.0 semantics as the primitive comparison
+            return left.cast(primitive.wrapperType()).invoke(OBJECT_EQUALS, right);
+        }
         if (type instanceof TypeDef.Array array) {
             if (array.dimensions() > 1) {
                 return ARRAYS_TYPE
@@ -160,6 +293,60 @@ public final class JavaIdioms {
         return left.invoke(OBJECT_EQUALS, right);
     }
 
+    /**
+     * The equality of the primitive values, the floating point values are equal if {@code Double.compare}
+     * or {@code Float.compare} returns zero: NaN is equal to itself and -0.0 isn't equal to 0.0.
+     *
+     * @param primitive The primitive type
+     * @param left      The left expression
+     * @param right     The right expression
+     * @return The idiom expression
+     */
+    private static ExpressionDef.ConditionExpressionDef equalsPrimitive(TypeDef.Primitive primitive, ExpressionDef left, ExpressionDef right) {
+        if (isFloatingPoint(primitive)) {
+            return compare(left, right).equalsReferentially(TypeDef.Primitive.INT.constant(0));
+        }
+        return left.equalsReferentially(right);
+    }
+
+    /**
+     * Is the type a primitive or a wrapper of {@code float} or {@code double}.
+     *
+     * @param type The type
+     * @return true if the values need {@code Float.compare} or {@code Double.compare} to be equal
+     * @since 1.5
+     */
+    public static boolean isFloatingPoint(TypeDef type) {
+        TypeDef unboxed = TypeDef.Primitive.unboxIfPossible(type);
+        return unboxed.equals(TypeDef.Primitive.DOUBLE) || unboxed.equals(TypeDef.Primitive.FLOAT);
+    }
+
+    /**
+     * The compare idiom: the static {@code compare} method of the wrapper for the primitive values and the wrappers,
+     * {@link Comparable#compareTo(Object)} for the objects.
+     *
+     * @param left  The left expression
+     * @param right The right expression
+     * @return The idiom expression of the {@code int} result
+     * @since 1.5
+     */
+    public static ExpressionDef compare(ExpressionDef left, ExpressionDef right) {
+        TypeDef type = TypeDef.Primitive.unboxIfPossible(left.type());
+        if (!type.isPrimitive()) {
+            type = TypeDef.Primitive.unboxIfPossible(right.type());
+        }
+        if (type instanceof TypeDef.Primitive primitive) {
+            return primitive.wrapperType().invokeStatic(
+                "compare",
+                List.of(primitive, primitive),
+                TypeDef.Primitive.INT,
+                left.cast(primitive),
+                right.cast(primitive)
+            );
+        }
+        return left.cast(COMPARABLE_TYPE).invoke(COMPARABLE_COMPARE_TO, right);
+    }
+
     /**
      * The hashCode idiom.
      *
@@ -181,12 +368,366 @@ public final class JavaIdioms {
             return primitive.wrapperType()
                 .invokeStatic("hashCode", primitiveIntType, instance);
         }
+        if (TypeDef.Primitive.unboxIfPossible(type) instanceof TypeDef.Primitive primitive) {
+            // The static hashCode of the unboxed value instead of the virtual call
+            return instance.ifNull(
+                primitiveIntType.constant(0),
+                primitive.wrapperType().invokeStatic("hashCode", primitiveIntType, instance.cast(primitive))
+            );
+        }
         return instance.ifNull(
             primitiveIntType.constant(0),
             instance.invoke(OBJECT_HASHCODE)
         );
     }
 
+    /**
+     * Copy the array elements using {@link System#arraycopy(Object, int, Object, int, int)}, the call is a JIT intrinsic.
+     *
+     * @param source              The source array
+     * @param sourcePosition      The source position
+     * @param destination         The destination array
+     * @param destinationPosition The destination position
+     * @param length              The number of elements to copy
+     * @return The idiom statement
+     * @since 1.5
+     */
+    public static StatementDef arrayCopy(ExpressionDef source,
+                                         ExpressionDef sourcePosition,
+                                         ExpressionDef destination,
+                                         ExpressionDef destinationPosition,
+                                         ExpressionDef length) {
+        getArrayType(source);
+        getArrayType(destination);
+        return SYSTEM_TYPE.invokeStatic(SYSTEM_ARRAYCOPY, source, sourcePosition, destination, destinationPosition, length);
+    }
+
+    /**
+     * Fill the array using {@link Arrays#fill}.
+     *
+     * @param array The array
+     * @param value The value
+     * @return The idiom statement
+     * @since 1.5
+     */
+    public static StatementDef arrayFill(ExpressionDef array, ExpressionDef value) {
+        TypeDef.Array arrayType = getArrayType(array);
+        if (isPrimitiveArray(arrayType)) {
+            TypeDef componentType = arrayType.componentType();
+            return ARRAYS_TYPE.invokeStatic(
+                "fill",
+                List.of(arrayType, componentType),
+                TypeDef.VOID,
+                array,
+                value.type().equals(componentType) ? value : value.cast(componentType)
+            );
+        }
+        return ARRAYS_TYPE.invokeStatic(
+            "fill",
+            List.of(TypeDef.OBJECT.array(), TypeDef.OBJECT),
+            TypeDef.VOID,
+            array,
+            value
+        );
+    }
+
+    /**
+     * Copy the array using {@link Arrays#copyOf}.
+     *
+     * @param array     The array
+     * @param newLength The length of the copy
+     * @return The idiom expression
+     * @since 1.5
+     */
+    public static ExpressionDef arrayCopyOf(ExpressionDef array, ExpressionDef newLength) {
+        TypeDef.Array arrayType = getArrayType(array);
+        if (isPrimitiveArray(arrayType)) {
+            return ARRAYS_TYPE.invokeStatic(
+                "copyOf",
+                List.of(arrayType, TypeDef.Primitive.INT),
+                arrayType,
+                array,
+                newLength
+            );
+        }
+        return ARRAYS_TYPE.invokeStatic(
+            "copyOf",
+            List.of(TypeDef.OBJECT.array(), TypeDef.Primitive.INT),
+            TypeDef.OBJECT.array(),
+            array,
+            newLength
+        ).cast(arrayType);
+    }
+
+    /**
+     * Clone the array, the clone of an array doesn't throw {@link CloneNotSupportedException}.
+     *
+     * @param array The array
+     * @return The idiom expression
+     * @since 1.5
+     */
+    public static ExpressionDef arrayClone(ExpressionDef array) {
+        return array.invoke(OBJECT_CLONE).cast(getArrayType(array));
+    }
+
+    private static TypeDef.Array getArrayType(ExpressionDef expression) {
+        if (expression.type() instanceof TypeDef.Array array) {
+            return array;
+        }
+        throw new IllegalArgumentException(expression.type() + " is not an array");
+    }
+
+    private static boolean isPrimitiveArray(TypeDef.Array arrayType) {
+        return arrayType.dimensions() == 1 && arrayType.componentType().isPrimitive();
+    }
+
+    /**
+     * The lookup of the method handle, the source code cannot express the method handle constant.
+     * The lookup throws {@link ReflectiveOperationException}.
+     *
+     * @param methodHandle The method handle constant
+     * @return The idiom expression
+     * @since 1.5
+     */
+    public static ExpressionDef lookupMethodHandle(ExpressionDef.MethodHandleConstant methodHandle) {
+        MethodDef method = methodHandle.method();
+        ExpressionDef lookup = ClassTypeDef.of(MethodHandles.class).invokeStatic(METHOD_HANDLES_LOOKUP);
+        ExpressionDef owner = ExpressionDef.constant(methodHandle.owner());
+        ExpressionDef methodType = METHOD_TYPE_TYPE.invokeStatic(
+            METHOD_TYPE_METHOD_TYPE,
+            ExpressionDef.constant(method.getReturnType()),
+            TypeDef.CLASS.array().instantiate(
+                method.getParameters().stream().map(parameter -> ExpressionDef.constant(parameter.getType())).toList()
+            )
+        );
+        return switch (methodHandle.kind()) {
+            case STATIC -> lookup.invoke(LOOKUP_FIND_STATIC, owner, ExpressionDef.constant(method.getName()), methodType);
+            case VIRTUAL -> lookup.invoke(LOOKUP_FIND_VIRTUAL, owner, ExpressionDef.constant(method.getName()), methodType);
+            case CONSTRUCTOR -> lookup.invoke(LOOKUP_FIND_CONSTRUCTOR, owner, methodType);
+        };
+    }
+
+    /**
+     * Replace the method handle constants of the class by private static final fields.
+     * The fields are initialized by the lookup in the static initializer, the failed lookup fails the initialization of the class.
+     * The inner types aren't modified.
+     *
+     * @param classDef The class definition
+     * @return The class definition with the fields or the same instance if there are no method handle constants
+     * @since 1.5
+     */
+    public static ClassDef hoistMethodHandles(ClassDef classDef) {
+        ClassTypeDef classType = classDef.asTypeDef();
+        Map<ExpressionDef.MethodHandleConstant, VariableDef.StaticField> methodHandleFields = new LinkedHashMap<>();
+        ObjectDefRewriter rewriter = new ObjectDefRewriter() {
+
+            private int index;
+
+            @Override
+            protected ExpressionDef visitExpression(ExpressionDef expression) {
+                if (expression instanceof ExpressionDef.MethodHandleConstant methodHandle) {
+                    return methodHandleFields.computeIfAbsent(methodHandle, ignore ->
+                        classType.getStaticField(nextFieldName(), METHOD_HANDLE_TYPE)
+                    );
+                }
+                return expression;
+            }
+
+            private String nextFieldName() {
+                // Skip the names of the fields of the class
+                String name;
+                do {
+                    name = METHOD_HANDLE_FIELD + index++;
+                } while (classDef.hasField(name));
+                return name;
+            }
+        };
+        List<MethodDef> methods = classDef.getMethods().stream().map(rewriter::rewrite).toList();
+        List<FieldDef> fields = new ArrayList<>(classDef.getFields().stream().map(rewriter::rewrite).toList());
+        StatementDef staticInitializer = classDef.getStaticInitializer();
+        if (staticInitializer != null) {
+            staticInitializer = rewriter.rewriteStatement(staticInitializer);
+        }
+        if (methodHandleFields.isEmpty()) {
+            return classDef;
+        }
+        List<StatementDef> lookups = new ArrayList<>();
+        for (Map.Entry<ExpressionDef.MethodHandleConstant, VariableDef.StaticField> e : methodHandleFields.entrySet()) {
+            VariableDef.StaticField field = e.getValue();
+            fields.add(FieldDef.builder(field.name(), METHOD_HANDLE_TYPE)
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .build());
+            lookups.add(field.put(lookupMethodHandle(e.getKey())));
+        }
+        StatementDef initializeFields = new StatementDef.Try(StatementDef.multi(lookups))
+            .doCatch(ReflectiveOperationException.class, exception ->
+                ClassTypeDef.of(ExceptionInInitializerError.class).instantiate(List.of(TypeDef.of(Throwable.class)), exception).doThrow()
+            );
+        return classDef.withMembers(
+            fields,
+            methods,
+            classDef.getInnerTypes(),
+            staticInitializer == null ? initializeFields : StatementDef.multi(initializeFields, staticInitializer)
+        );
+    }
+
+    /**
+     * Replace the lazy fields of the class by private volatile fields and their accessors.
+     * The accessor reads the field once on the initialized path, the initializer is evaluated in a block synchronized
+     * on a private lock after the field is read again. The lock is shared by the lazy fields of the instance,
+     * it also marks the fields initialized to {@code null}.
+     * The static lazy field is moved to a nested holder class initialized by the first read.
+     * The reads of the lazy fields in the class are replaced by the accessor or by the holder field,
+     * the lazy fields cannot be assigned. The inner types aren't modified.
+     *
+     * @param classDef The class definition
+     * @return The class definition with the accessors or the same instance if there are no lazy fields
+     * @since 1.5
+     */
+    public static ClassDef expandLazyFields(ClassDef classDef) {
+        if (classDef.getFields().stream().noneMatch(FieldDef::isLazy)) {
+            return classDef;
+        }
+        ClassTypeDef classType = classDef.asTypeDef();
+        Set<String> methodNames = new HashSet<>();
+        for (MethodDef method : classDef.getMethods()) {
+            if (method.getParameters().isEmpty()) {
+                methodNames.add(method.getName());
+            }
+        }
+        Set<String> innerTypeNames = new HashSet<>();
+        for (ObjectDef innerType : classDef.getInnerTypes()) {
+            innerTypeNames.add(innerType.getSimpleName());
+        }
+        Map<String, String> accessorNames = new HashMap<>();
+        Map<String, ClassTypeDef.ClassName> holderNames = new HashMap<>();
+        Map<String, VariableDef.StaticField> holderFields = new LinkedHashMap<>();
+        for (FieldDef field : classDef.getFields()) {
+            if (!field.isLazy()) {
+                continue;
+            }
+            String accessorName = field.lazyAccessorName();
+            if (!methodNames.add(accessorName)) {
+                throw new IllegalStateException("The accessor '" + accessorName + "' of the lazy field '" + field.getName() + "' conflicts with an existing method of " + classDef.getName());
+            }
+            accessorNames.put(field.getName(), accessorName);
+            if (field.getModifiers().contains(Modifier.STATIC)) {
+                String holderName = field.asLazyHolder().getSimpleName();
+                String uniqueHolderName = holderName;
+                for (int i = 1; !innerTypeNames.add(uniqueHolderName); i++) {
+                    uniqueHolderName = holderName + i;
+                }
+                ClassTypeDef.ClassName holderType = new ClassTypeDef.ClassName(classType.getCanonicalName() + "$" + uniqueHolderName, true);
+                holderNames.put(field.getName(), holderType);
+                holderFields.put(field.getName(), holderType.getStaticField(FieldDef.LAZY_HOLDER_FIELD, field.getType()));
+            }
+        }
+        ObjectDefRewriter rewriter = new ObjectDefRewriter() {
+            @Override
+            protected ExpressionDef visitExpression(ExpressionDef expression) {
+                if (expression instanceof VariableDef.StaticField staticField && staticField.ownerType().equals(classType)) {
+                    VariableDef.StaticField holderField = holderFields.get(staticField.name());
+                    if (holderField != null) {
+                        return holderField;
+                    }
+                }
+                if (expression instanceof VariableDef.Field field && isLazyInstanceField(field)) {
+                    return field.instance().invoke(accessorNames.get(field.name()), field.type());
+                }
+                return expression;
+            }
+
+            @Override
+            protected StatementDef visitStatement(StatementDef statement) {
+                if (statement instanceof StatementDef.PutStaticField putStaticField
+                    && putStaticField.field().ownerType().equals(classType)
+                    && holderFields.containsKey(putStaticField.field().name())) {
+                    throw new IllegalStateException("Lazy static field '" + putStaticField.field().name() + "' cannot be assigned");
+                }
+                if (statement instanceof StatementDef.PutField putField && isLazyInstanceField(putField.field())) {
+                    throw new IllegalStateException("Lazy field '" + putField.field().name() + "' cannot be assigned");
+                }
+                return statement;
+            }
+
+            private boolean isLazyInstanceField(VariableDef.Field field) {
+                return accessorNames.containsKey(field.name())
+                    && !holderFields.containsKey(field.name())
+                    && (field.instance() instanceof VariableDef.This || classType.equals(field.instance().type()));
+            }
+        };
+        List<FieldDef> fields = new ArrayList<>(classDef.getFields().size());
+        List<MethodDef> methods = new ArrayList<>(classDef.getMethods());
+        methods.replaceAll(rewriter::rewrite);
+        List<ObjectDef> innerTypes = new ArrayList<>(classDef.getInnerTypes());
+        FieldDef lock = null;
+        for (FieldDef field : classDef.getFields()) {
+            if (!field.isLazy()) {
+                fields.add(rewriter.rewrite(field));
+                continue;
+            }
+            // The initializer can read the other lazy fields
+            FieldDef rewritten = rewriter.rewrite(field);
+            if (field.getModifiers().contains(Modifier.STATIC)) {
+                ClassDef holder = rewritten.asLazyHolder();
+                innerTypes.add((ClassDef) holder.withClassName(holderNames.get(field.getName())));
+                VariableDef.StaticField holderField = holderFields.get(field.getName());
+                methods.add(field.lazyAccessorBuilder().build((aThis, methodParameters) -> holderField.returning()));
+                continue;
+            }
+            if (lock == null) {
+                // The empty array is serializable, unlike an object
+                lock = FieldDef.builder(uniqueFieldName(classDef, LAZY_LOCK_FIELD), TypeDef.OBJECT)
+                    .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+                    .initializer(TypeDef.OBJECT.array().instantiate(0))
+                    .build();
+                fields.add(lock);
+            }
+            FieldDef storage = field.asLazyStorage();
+            FieldDef lockField = lock;
+            ExpressionDef initializer = rewritten.getInitializer().orElseThrow();
+            fields.add(storage);
+            methods.add(field.lazyAccessorBuilder().build((aThis, methodParameters) -> {
+                VariableDef.Field storageField = aThis.field(storage);
+                VariableDef.Field lockAccess = aThis.field(lockField);
+                VariableDef.Local value = new VariableDef.Local("value", TypeDef.OBJECT);
+                return StatementDef.multi(
+                    value.defineAndAssign(storageField),
+                    value.isNull().doIf(new StatementDef.Synchronized(lockAccess, StatementDef.multi(
+                        value.assign(storageField),
+                        value.isNull().doIf(StatementDef.multi(
+                            value.assign(initializer),
+                            // The null value is stored as the lock, the field is null only before the initialization
+                            value.isNull().doIfElse(storageField.put(lockAccess), storageField.put(value))
+                        ))
+                    ))),
+                    value.equalsReferentially(lockAccess).doIf(ExpressionDef.nullValue().returning()),
+                    value.cast(field.getType()).returning()
+                );
+            }));
+        }
+        StatementDef staticInitializer = classDef.getStaticInitializer();
+        if (staticInitializer != null) {
+            staticInitializer = rewriter.rewriteStatement(staticInitializer);
+        }
+        return classDef.withMembers(fields, methods, innerTypes, staticInitializer);
+    }
+
+    /**
+     * The name of a new field, the name is suffixed by a number if the class or a superclass has a field with the name.
+     *
+     * @param classDef The class definition
+     * @param name     The preferred name
+     * @return The field name
+     */
+    private static String uniqueFieldName(ClassDef classDef, String name) {
+        String fieldName = name;
+        for (int i = 1; classDef.hasField(fieldName); i++) {
+            fieldName = name + i;
+        }
+        return fieldName;
+    }
+
     /**
      * The get class idiom.
      *
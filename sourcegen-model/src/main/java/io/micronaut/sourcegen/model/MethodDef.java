@@ -33,6 +33,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * The method definition.
@@ -46,23 +47,80 @@ public final class MethodDef extends AbstractElement {
     public static final String CONSTRUCTOR = "<init>";
     private final TypeDef returnType;
     private final List<ParameterDef> parameters;
-    private final List<StatementDef> statements;
+    private volatile List<StatementDef> statements;
+    private Supplier<List<StatementDef>> statementsSupplier;
     private final boolean override;
+    private final boolean varargs;
+    private final boolean bridge;
+    private final boolean retainStatements;
+    private final Object lock = new Object();
 
     MethodDef(String name,
               EnumSet<Modifier> modifiers,
               TypeDef returnType,
               List<ParameterDef> parameters,
-              List<StatementDef> statements,
+              Supplier<List<StatementDef>> statementsSupplier,
               List<AnnotationDef> annotations,
               List<String> javadoc,
               boolean override,
-              boolean synthetic) {
+              boolean synthetic,
+              boolean varargs,
+              boolean bridge) {
+        this(name, modifiers, returnType, parameters, statementsSupplier, annotations, javadoc, override, synthetic, varargs, bridge, true);
+    }
+
+    private MethodDef(String name,
+                      EnumSet<Modifier> modifiers,
+                      TypeDef returnType,
+                      List<ParameterDef> parameters,
+                      Supplier<List<StatementDef>> statementsSupplier,
+                      List<AnnotationDef> annotations,
+                      List<String> javadoc,
+                      boolean override,
+                      boolean synthetic,
+                      boolean varargs,
+                      boolean bridge,
+                      boolean retainStatements) {
         super(name, modifiers, annotations, javadoc, synthetic);
         this.returnType = Objects.requireNonNullElse(returnType, TypeDef.VOID);
         this.parameters = Collections.unmodifiableList(parameters);
-        this.statements = statements;
+        this.statementsSupplier = statementsSupplier;
         this.override = override;
+        this.varargs = varargs;
+        this.bridge = bridge;
+        this.retainStatements = retainStatements;
+    }
+
+    MethodDef withStatements(List<StatementDef> statements) {
+        List<StatementDef> result = Collections.unmodifiableList(statements);
+        return new MethodDef(name, modifiers, returnType, parameters, () -> result, annotations, javadoc, override, synthetic, varargs, bridge);
+    }
+
+    /**
+     * The copy of the method with the statements built on the first access.
+     *
+     * @param statementsSupplier The statements supplier
+     * @return The new method
+     */
+    MethodDef withLazyStatements(Supplier<List<StatementDef>> statementsSupplier) {
+        return new MethodDef(name, modifiers, returnType, parameters, statementsSupplier, annotations, javadoc, override, synthetic, varargs, bridge);
+    }
+
+    /**
+     * @return true if the statements are built and retained
+     */
+    boolean isStatementsBuilt() {
+        return statements != null || !retainStatements;
+    }
+
+    /**
+     * The copy of the method with the statements supplied on every access and not retained.
+     *
+     * @param compactStatements The statements supplier
+     * @return The new method
+     */
+    MethodDef withCompactStatements(Supplier<List<StatementDef>> compactStatements) {
+        return new MethodDef(name, modifiers, returnType, parameters, compactStatements, annotations, javadoc, override, synthetic, varargs, bridge, false);
     }
 
     /**
@@ -150,7 +208,8 @@ public final class MethodDef extends AbstractElement {
         return MethodDef.builder(method.getName())
             .addModifiers(toOverrideModifiers(method.getModifiers()))
             .addParameters(Arrays.stream(method.getParameters()).map(p -> ParameterDef.of(p.getName(), TypeDef.of(p.getType()))).toList())
-            .returns(TypeDef.of(method.getReturnType()));
+            .returns(TypeDef.of(method.getReturnType()))
+            .varargs(method.isVarArgs());
     }
 
     /**
@@ -164,7 +223,8 @@ public final class MethodDef extends AbstractElement {
     public static MethodDefBuilder override(@NonNull Constructor<?> constructor) {
         return MethodDef.constructor()
             .addModifiers(toOverrideModifiers(constructor.getModifiers()))
-            .addParameters(Arrays.stream(constructor.getParameters()).map(p -> ParameterDef.of(p.getName(), TypeDef.of(p.getType()))).toList());
+            .addParameters(Arrays.stream(constructor.getParameters()).map(p -> ParameterDef.of(p.getName(), TypeDef.of(p.getType()))).toList())
+            .varargs(constructor.isVarArgs());
     }
 
     private static Modifier[] toOverrideModifiers(int modifiers) {
@@ -197,8 +257,29 @@ public final class MethodDef extends AbstractElement {
         return parameters;
     }
 
+    /**
+     * The statements are built by the body builders on the first access.
+     * The statements of a method compacted by {@link ObjectDefArena} are decoded on every access.
+     *
+     * @return The statements
+     */
     public List<StatementDef> getStatements() {
-        return statements;
+        if (!retainStatements) {
+            return statementsSupplier.get();
+        }
+        List<StatementDef> result = statements;
+        if (result == null) {
+            synchronized (lock) {
+                result = statements;
+                if (result == null) {
+                    result = statementsSupplier.get();
+                    statements = result;
+                    // Release the body builders and everything they capture
+                    statementsSupplier = null;
+                }
+            }
+        }
+        return result;
     }
 
     @Nullable
@@ -227,6 +308,22 @@ public final class MethodDef extends AbstractElement {
         return override;
     }
 
+    /**
+     * @return True if the last parameter is a variable arity parameter
+     * @since 1.5
+     */
+    public boolean isVarargs() {
+        return varargs;
+    }
+
+    /**
+     * @return True if method is a bridge method
+     * @since 1.5
+     */
+    public boolean isBridge() {
+        return bridge;
+    }
+
     /**
      * @return True if method is a constructor
      */
@@ -245,8 +342,10 @@ public final class MethodDef extends AbstractElement {
             ", modifiers=" + modifiers +
             ", returnType=" + returnType +
             ", parameters=" + parameters +
-            ", statements=" + statements +
+            ", statements=" + (statements == null ? "<not built>" : statements) +
             ", override=" + override +
+            ", varargs=" + varargs +
+            ", bridge=" + bridge +
             '}';
     }
 
@@ -264,6 +363,8 @@ public final class MethodDef extends AbstractElement {
         private final List<MethodBodyBuilder> bodyBuilders = new ArrayList<>();
         private final List<StatementDef> statements = new ArrayList<>();
         private boolean overrides;
+        private boolean varargs;
+        private boolean bridge;
 
         private MethodDefBuilder(String name) {
             super(name);
@@ -301,6 +402,40 @@ public final class MethodDef extends AbstractElement {
             return this;
         }
 
+        /**
+         * Mark the last parameter as a variable arity parameter.
+         *
+         * @return the current builder
+         * @since 1.5
+         */
+        public MethodDefBuilder varargs() {
+            return varargs(true);
+        }
+
+        /**
+         * Mark the last parameter as a variable arity parameter.
+         *
+         * @param varargs The value
+         * @return the current builder
+         * @since 1.5
+         */
+        public MethodDefBuilder varargs(boolean varargs) {
+            this.varargs = varargs;
+            return this;
+        }
+
+        /**
+         * Mark the method as a bridge method.
+         * The bridge flag is only written by the bytecode generator.
+         *
+         * @return the current builder
+         * @since 1.5
+         */
+        public MethodDefBuilder bridge() {
+            this.bridge = true;
+            return this;
+        }
+
         public MethodDefBuilder returns(Class<?> type) {
             return returns(TypeDef.of(type));
         }
@@ -477,23 +612,59 @@ public final class MethodDef extends AbstractElement {
             return this;
         }
 
+        /**
+         * Build the method.
+         * The body builders are applied on the first access of the statements,
+         * unless the return type isn't specified and needs to be extracted from the statements.
+         *
+         * @return The method
+         */
         public MethodDef build() {
+            if (varargs && (parameters.isEmpty() || !CollectionUtils.last(parameters).getType().isArray())) {
+                throw new IllegalStateException("The last parameter of the varargs method: " + name + " must be an array");
+            }
+            Supplier<List<StatementDef>> statementsSupplier;
+            if (bodyBuilders.isEmpty() || returnType == null && !name.equals(CONSTRUCTOR)) {
+                // Nothing to defer or the return type needs to be extracted from the statements
+                List<StatementDef> result = buildStatements(parameters, statements, bodyBuilders);
+                statementsSupplier = () -> result;
+                if (returnType == null && !result.isEmpty()) {
+                    returnType = findReturnType(CollectionUtils.last(result));
+                }
+            } else {
+                List<ParameterDef> parametersCopy = List.copyOf(parameters);
+                List<StatementDef> statementsCopy = List.copyOf(statements);
+                List<MethodBodyBuilder> bodyBuildersCopy = List.copyOf(bodyBuilders);
+                statementsSupplier = () -> buildStatements(parametersCopy, statementsCopy, bodyBuildersCopy);
+            }
+            if (returnType == null && !name.equals(CONSTRUCTOR)) {
+                returnType = TypeDef.VOID;
+            }
+            return new MethodDef(name, modifiers, returnType, parameters, statementsSupplier, annotations, javadoc, overrides, synthetic, varargs, bridge);
+        }
+
+        private static List<StatementDef> buildStatements(List<ParameterDef> parameters,
+                                                          List<StatementDef> statements,
+                                                          List<MethodBodyBuilder> bodyBuilders) {
             List<VariableDef.MethodParameter> variables = parameters.stream()
                 .map(ParameterDef::asVariable)
                 .toList();
+            List<StatementDef> result = new ArrayList<>(statements);
             for (MethodBodyBuilder bodyBuilder : bodyBuilders) {
                 StatementDef statement = bodyBuilder.apply(new VariableDef.This(), variables);
                 if (statement != null) {
-                    addStatement(statement);
+                    addFlattened(result, statement);
                 }
             }
-            if (returnType == null && !statements.isEmpty()) {
-                returnType = findReturnType(CollectionUtils.last(statements));
-            }
-            if (returnType == null && !name.equals(CONSTRUCTOR)) {
-                returnType = TypeDef.VOID;
+            return Collections.unmodifiableList(result);
+        }
+
+        private static void addFlattened(List<StatementDef> statements, StatementDef statement) {
+            if (statement instanceof StatementDef.Multi multi) {
+                multi.statements().forEach(s -> addFlattened(statements, s));
+            } else {
+                statements.add(statement);
             }
-            return new MethodDef(name, modifiers, returnType, parameters, statements, annotations, javadoc, overrides, synthetic);
         }
 
         private static TypeDef findReturnType(StatementDef statement) {
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.model;
+
+import io.micronaut.core.annotation.Experimental;
+import io.micronaut.core.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The compact storage of the method statements.
+ * The statements of the compacted object definition are encoded into one byte array,
+ * the strings, the types and the invoked methods are shared by all the statements and are kept once.
+ * The statements are decoded on every access of {@link MethodDef#getStatements()} and aren't retained,
+ * the writers consume the compacted definition as any other.
+ *
+ * <p>The compaction is intended for very large definitions that are kept while processing,
+ * the access to the statements is slower and the statements are new instances on every access.</p>
+ *
+ * @since 1.5
+ */
+@Experimental
+public final class ObjectDefArena {
+
+    private final ObjectDefCodec.Arena arena = new ObjectDefCodec.Arena();
+    private final Map<List<Object>, MethodDef> invokedMethods = new HashMap<>();
+
+    /**
+     * Compact the object definition into a new arena.
+     *
+     * @param objectDef The object definition
+     * @return The compacted object definition
+     */
+    @NonNull
+    public static ObjectDef compact(@NonNull ObjectDef objectDef) {
+        return new ObjectDefArena().add(objectDef);
+    }
+
+    /**
+     * Compact the object definition into this arena.
+     * The methods of the definition and of the inner types are replaced, the invocations of them reference the replacements.
+     *
+     * @param objectDef The object definition
+     * @return The compacted object definition
+     */
+    @NonNull
+    public ObjectDef add(@NonNull ObjectDef objectDef) {
+        Map<MethodDef, CompactStatements> compacted = new IdentityHashMap<>();
+        collectMethods(objectDef, compacted);
+        for (Map.Entry<MethodDef, CompactStatements> e : compacted.entrySet()) {
+            e.getValue().offset = arena.append(e.getKey().getStatements(), method -> {
+                CompactStatements compactStatements = compacted.get(method);
+                return compactStatements == null ? sharedInvokedMethod(method) : compactStatements.methodDef;
+            });
+        }
+        return replaceMethods(objectDef, compacted);
+    }
+
+    /**
+     * @return The size of the encoded statements in bytes
+     */
+    public int getSize() {
+        return arena.size();
+    }
+
+    /**
+     * @return The number of the shared strings, types, methods and values
+     */
+    public int getSharedValuesCount() {
+        return arena.sharedValuesCount();
+    }
+
+    private MethodDef sharedInvokedMethod(MethodDef method) {
+        if (!method.getStatements().isEmpty()) {
+            return method;
+        }
+        // The invocations of other types create a new method for every invocation
+        List<Object> signature = List.of(
+            method.getName(),
+            method.getReturnType(),
+            method.getParameters().stream().map(ParameterDef::getType).toList(),
+            method.getModifiers()
+        );
+        synchronized (invokedMethods) {
+            return invokedMethods.computeIfAbsent(signature, s -> method);
+        }
+    }
+
+    private void collectMethods(ObjectDef objectDef, Map<MethodDef, CompactStatements> compacted) {
+        for (MethodDef method : objectDef.getMethods()) {
+            CompactStatements compactStatements = new CompactStatements();
+            compactStatements.methodDef = method.withCompactStatements(compactStatements);
+            compacted.put(method, compactStatements);
+        }
+        for (ObjectDef innerType : objectDef.getInnerTypes()) {
+            collectMethods(innerType, compacted);
+        }
+    }
+
+    private static ObjectDef replaceMethods(ObjectDef objectDef, Map<MethodDef, CompactStatements> compacted) {
+        List<MethodDef> methods = new ArrayList<>(objectDef.getMethods().size());
+        for (MethodDef method : objectDef.getMethods()) {
+            methods.add(compacted.get(method).methodDef);
+        }
+        List<ObjectDef> innerTypes = new ArrayList<>(objectDef.getInnerTypes().size());
+        for (ObjectDef innerType : objectDef.getInnerTypes()) {
+            innerTypes.add(replaceMethods(innerType, compacted));
+        }
+        if (objectDef instanceof ClassDef classDef) {
+            return classDef.withMembers(classDef.getFields(), methods, innerTypes, classDef.getStaticInitializer());
+        }
+        if (objectDef instanceof EnumDef enumDef) {
+            return enumDef.withMembers(enumDef.getFields(), methods, innerTypes, enumDef.getEnumConstants());
+        }
+        if (objectDef instanceof RecordDef recordDef) {
+            return recordDef.withMembers(methods, innerTypes);
+        }
+        if (objectDef instanceof InterfaceDef interfaceDef) {
+            return interfaceDef.withMembers(methods, innerTypes);
+        }
+        throw new IllegalStateException("Unknown object definition: " + objectDef);
+    }
+
+    /**
+     * The statements supplier of a compacted method.
+     */
+    private final class CompactStatements implements Supplier<List<StatementDef>> {
+
+        private MethodDef methodDef;
+        private volatile int offset = -1;
+
+        @Override
+        public List<StatementDef> get() {
+            if (offset == -1) {
+                throw new IllegalStateException("The statements of method: " + methodDef.getName() + " aren't compacted yet");
+            }
+            return arena.read(offset);
+        }
+    }
+
+}
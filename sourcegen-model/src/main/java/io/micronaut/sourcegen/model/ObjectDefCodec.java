@@ -0,0 +1,1460 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.model;
+
+import io.micronaut.core.annotation.Experimental;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+
+import javax.lang.model.element.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * The compact binary encoding of the object definition.
+ *
+ * <p>The encoding starts with a magic number and a version, the decoder rejects other versions.
+ * The strings, the types, the object definitions and the methods are kept in tables:
+ * a value is written inline the first time and referenced by its index after that.
+ * The node tags, the sizes and the indexes are written as varints.
+ * The modifiers are written as a bitmask over a fixed table owned by the codec, the encoding doesn't depend on the JDK.</p>
+ *
+ * <p>The compilation elements cannot be encoded:
+ * {@link ClassTypeDef.ClassElementType} is written as the class name and restored as {@link ClassTypeDef.JavaClass} if the class can be loaded
+ * or as {@link ClassTypeDef.ClassName} otherwise, the restore is lossy: the type arguments and the annotations of the element are dropped,
+ * {@link ExpressionDef.GetPropertyValue} is written as {@link JavaIdioms#getPropertyValue(ExpressionDef.GetPropertyValue)}.</p>
+ *
+ * @since 1.5
+ */
+@Experimental
+public final class ObjectDefCodec {
+
+    private static final int MAGIC = 0x53474D44;
+    private static final int VERSION = 2;
+
+    // The table reference: null, a new value written inline or the index of the value plus REF_OFFSET
+    private static final int REF_NULL = 0;
+    private static final int REF_NEW = 1;
+    private static final int REF_OFFSET = 2;
+
+    private static final int OBJECT_CLASS = 1;
+    private static final int OBJECT_ENUM = 2;
+    private static final int OBJECT_RECORD = 3;
+    private static final int OBJECT_INTERFACE = 4;
+
+    private static final int TYPE_PRIMITIVE = 1;
+    private static final int TYPE_ARRAY = 2;
+    private static final int TYPE_VARIABLE = 3;
+    private static final int TYPE_WILDCARD = 4;
+    private static final int TYPE_ANNOTATED = 5;
+    private static final int TYPE_JAVA_CLASS = 6;
+    private static final int TYPE_CLASS_NAME = 7;
+    private static final int TYPE_CLASS_ELEMENT = 8;
+    private static final int TYPE_CLASS_DEF = 9;
+    private static final int TYPE_PARAMETERIZED = 10;
+    private static final int TYPE_ANNOTATED_CLASS = 11;
+
+    private static final int NODE_NULL = 0;
+    private static final int NODE_MULTI = 1;
+    private static final int NODE_THROW = 2;
+    private static final int NODE_RETURN = 3;
+    private static final int NODE_ASSIGN = 4;
+    private static final int NODE_PUT_FIELD = 5;
+    private static final int NODE_PUT_STATIC_FIELD = 6;
+    private static final int NODE_DEFINE_AND_ASSIGN = 7;
+    private static final int NODE_IF = 8;
+    private static final int NODE_IF_ELSE = 9;
+    private static final int NODE_SWITCH = 10;
+    private static final int NODE_WHILE = 11;
+    private static final int NODE_TRY = 12;
+    private static final int NODE_SYNCHRONIZED = 13;
+    private static final int NODE_NEW_INSTANCE = 14;
+    private static final int NODE_CAST = 15;
+    private static final int NODE_CONSTANT = 16;
+    private static final int NODE_INVOKE_INSTANCE = 17;
+    private static final int NODE_INVOKE_STATIC = 18;
+    private static final int NODE_COMPARISON = 19;
+    private static final int NODE_MATH_BINARY = 20;
+    private static final int NODE_MATH_UNARY = 21;
+    private static final int NODE_IS_NULL = 22;
+    private static final int NODE_IS_NOT_NULL = 23;
+    private static final int NODE_IS_TRUE = 24;
+    private static final int NODE_IS_FALSE = 25;
+    private static final int NODE_AND = 26;
+    private static final int NODE_OR = 27;
+    private static final int NODE_IF_ELSE_EXPRESSION = 28;
+    private static final int NODE_SWITCH_EXPRESSION = 29;
+    private static final int NODE_SWITCH_YIELD_CASE = 30;
+    private static final int NODE_NEW_ARRAY_OF_SIZE = 31;
+    private static final int NODE_NEW_ARRAY_INITIALIZED = 32;
+    private static final int NODE_GET_CLASS = 33;
+    private static final int NODE_HASH_CODE = 34;
+    private static final int NODE_EQUALS_STRUCTURALLY = 35;
+    private static final int NODE_NOT_EQUALS_STRUCTURALLY = 36;
+    private static final int NODE_EQUALS_REFERENTIALLY = 37;
+    private static final int NODE_NOT_EQUALS_REFERENTIALLY = 38;
+    private static final int NODE_INSTANCE_OF = 39;
+    private static final int NODE_ARRAY_ELEMENT = 40;
+    private static final int NODE_LOCAL = 41;
+    private static final int NODE_METHOD_PARAMETER = 42;
+    private static final int NODE_FIELD = 43;
+    private static final int NODE_STATIC_FIELD = 44;
+    private static final int NODE_THIS = 45;
+    private static final int NODE_SUPER = 46;
+    private static final int NODE_EXCEPTION_VAR = 47;
+    private static final int NODE_FOR = 48;
+    private static final int NODE_FOR_EACH = 49;
+    private static final int NODE_BREAK = 50;
+    private static final int NODE_CONTINUE = 51;
+    private static final int NODE_COMPOUND_ASSIGN = 52;
+    private static final int NODE_INCREMENT = 53;
+    private static final int NODE_TRY_WITH_RESOURCES = 54;
+    private static final int NODE_ARRAY_LENGTH = 55;
+    private static final int NODE_METHOD_HANDLE = 56;
+    private static final int NODE_INVOKE_EXACT = 57;
+
+    private static final int VALUE_NULL = 0;
+    private static final int VALUE_STRING = 1;
+    private static final int VALUE_BOOLEAN = 2;
+    private static final int VALUE_INT = 3;
+    private static final int VALUE_LONG = 4;
+    private static final int VALUE_FLOAT = 5;
+    private static final int VALUE_DOUBLE = 6;
+    private static final int VALUE_CHAR = 7;
+    private static final int VALUE_SHORT = 8;
+    private static final int VALUE_BYTE = 9;
+    private static final int VALUE_ENUM = 10;
+    private static final int VALUE_CLASS = 11;
+    private static final int VALUE_TYPE = 12;
+    private static final int VALUE_ANNOTATION = 13;
+    private static final int VALUE_EXPRESSION = 14;
+    private static final int VALUE_LIST = 15;
+    private static final int VALUE_SHARED = 16;
+
+    // The element flags
+    private static final int FLAG_SYNTHETIC = 1;
+    private static final int FLAG_LAZY = 2;
+
+    // The modifier bits, the order is part of the format and new names are only appended
+    private static final List<String> MODIFIERS = List.of(
+        "PUBLIC", "PROTECTED", "PRIVATE", "ABSTRACT", "DEFAULT", "STATIC", "SEALED", "NON_SEALED",
+        "FINAL", "TRANSIENT", "VOLATILE", "SYNCHRONIZED", "NATIVE", "STRICTFP"
+    );
+
+    private ObjectDefCodec() {
+    }
+
+    /**
+     * Encode the object definition.
+     *
+     * @param objectDef The object definition
+     * @return The encoded bytes
+     */
+    @NonNull
+    public static byte[] encode(@NonNull ObjectDef objectDef) {
+        Encoder encoder = new Encoder(null, false);
+        encoder.writeFixedInt(MAGIC);
+        encoder.writeVarint(VERSION);
+        encoder.writeObject(objectDef);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Encode the structure of the object definition, the result cannot be decoded.
+     * The types and the invoked methods are written inline and the referenced object definitions by their name,
+     * the result depends only on the structure and not on the sharing of the instances.
+     *
+     * @param objectDef   The object definition
+     * @param ignoreNames Whether the name of the object definition, and of its inner types, is replaced by a placeholder
+     * @return The encoded bytes
+     */
+    static byte[] encodeStructure(ObjectDef objectDef, boolean ignoreNames) {
+        Encoder encoder = new Encoder(ignoreNames ? objectDef.getName() : null, true);
+        encoder.writeVarint(VERSION);
+        encoder.writeObject(objectDef);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Decode the object definition, the classes are loaded by the class loader of the model.
+     *
+     * @param bytes The encoded bytes
+     * @return The object definition
+     */
+    @NonNull
+    public static ObjectDef decode(@NonNull byte[] bytes) {
+        return decode(bytes, ObjectDefCodec.class.getClassLoader());
+    }
+
+    /**
+     * Decode the object definition.
+     *
+     * @param bytes       The encoded bytes
+     * @param classLoader The class loader of the referenced classes
+     * @return The object definition
+     */
+    @NonNull
+    public static ObjectDef decode(@NonNull byte[] bytes, @NonNull ClassLoader classLoader) {
+        Decoder decoder = new Decoder(bytes, classLoader);
+        if (bytes.length < 4 || decoder.readFixedInt() != MAGIC) {
+            throw new IllegalStateException("Not an encoded object definition");
+        }
+        int version = decoder.readVarint();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported object definition encoding version: " + version);
+        }
+        ObjectDef objectDef = decoder.readObject();
+        if (objectDef == null || decoder.position != bytes.length) {
+            throw new IllegalStateException("Malformed object definition encoding");
+        }
+        return objectDef;
+    }
+
+    /**
+     * The arena of the method statements, see {@link ObjectDefArena}.
+     * The statements are stored in one growing byte array, the strings, the types, the invoked methods
+     * and the values that cannot be encoded are kept as objects in the shared tables and referenced by the index.
+     */
+    static final class Arena {
+
+        private final SharedTables sharedTables = new SharedTables();
+        private final Encoder encoder = new Encoder(sharedTables);
+
+        /**
+         * Append the statements.
+         *
+         * @param statements   The statements
+         * @param methodMapper The mapper of the invoked methods
+         * @return The offset of the statements
+         */
+        synchronized int append(List<StatementDef> statements, UnaryOperator<MethodDef> methodMapper) {
+            int offset = encoder.size;
+            encoder.methodMapper = methodMapper;
+            encoder.writeNodes(statements);
+            encoder.methodMapper = UnaryOperator.identity();
+            return offset;
+        }
+
+        /**
+         * Decode the statements.
+         *
+         * @param offset The offset of the statements
+         * @return The new statements
+         */
+        synchronized List<StatementDef> read(int offset) {
+            return Collections.unmodifiableList(new Decoder(encoder.buffer, offset, sharedTables).readStatements());
+        }
+
+        synchronized int size() {
+            return encoder.size;
+        }
+
+        synchronized int sharedValuesCount() {
+            return sharedTables.strings.size() + sharedTables.types.size() + sharedTables.methods.size() + sharedTables.values.size();
+        }
+    }
+
+    /**
+     * The shared tables of the arena.
+     */
+    private static final class SharedTables {
+
+        private final Map<String, Integer> stringIndexes = new HashMap<>();
+        private final Map<TypeDef, Integer> typeIndexes = new IdentityHashMap<>();
+        private final Map<MethodDef, Integer> methodIndexes = new IdentityHashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final List<TypeDef> types = new ArrayList<>();
+        private final List<MethodDef> methods = new ArrayList<>();
+        private final List<Object> values = new ArrayList<>();
+    }
+
+    /**
+     * The encoder.
+     */
+    private static final class Encoder {
+
+        private final Map<String, Integer> strings;
+        // The types are mostly interned, the identity keeps the inner flag of the class names that is ignored by the equality.
+        // The structure encoding doesn't depend on the identity, the values are written inline.
+        @Nullable
+        private final Map<TypeDef, Integer> types;
+        @Nullable
+        private final Map<ObjectDef, Integer> objects;
+        @Nullable
+        private final Map<MethodDef, Integer> methods;
+        @Nullable
+        private final String ignoredName;
+        private final boolean structure;
+        @Nullable
+        private final SharedTables sharedTables;
+        private UnaryOperator<MethodDef> methodMapper = UnaryOperator.identity();
+        private byte[] buffer = new byte[1024];
+        private int size;
+
+        Encoder(@Nullable String ignoredName, boolean structure) {
+            this.ignoredName = ignoredName;
+            this.structure = structure;
+            this.sharedTables = null;
+            this.strings = new HashMap<>();
+            this.types = structure ? null : new IdentityHashMap<>();
+            this.objects = structure ? null : new IdentityHashMap<>();
+            this.methods = structure ? null : new IdentityHashMap<>();
+        }
+
+        Encoder(SharedTables sharedTables) {
+            this.ignoredName = null;
+            this.structure = false;
+            this.sharedTables = sharedTables;
+            this.strings = sharedTables.stringIndexes;
+            this.types = sharedTables.typeIndexes;
+            this.objects = null;
+            this.methods = sharedTables.methodIndexes;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        void writeObject(@Nullable ObjectDef objectDef) {
+            if (writeReference(objects, null, objectDef)) {
+                return;
+            }
+            if (objectDef instanceof ClassDef) {
+                writeVarint(OBJECT_CLASS);
+            } else if (objectDef instanceof EnumDef) {
+                writeVarint(OBJECT_ENUM);
+            } else if (objectDef instanceof RecordDef) {
+                writeVarint(OBJECT_RECORD);
+            } else if (objectDef instanceof InterfaceDef) {
+                writeVarint(OBJECT_INTERFACE);
+            } else {
+                throw new IllegalStateException("Unknown object definition: " + objectDef);
+            }
+            writeString(typeName(objectDef.getName()));
+            writeBoolean(objectDef.className.isInner());
+            writeElement(objectDef);
+            writeSize(objectDef.getMethods());
+            objectDef.getMethods().forEach(this::writeMethod);
+            writeSize(objectDef.getProperties());
+            for (PropertyDef property : objectDef.getProperties()) {
+                writeString(property.getName());
+                writeElement(property);
+                writeType(property.getType());
+            }
+            writeTypes(objectDef.getSuperinterfaces());
+            writeSize(objectDef.getInnerTypes());
+            objectDef.getInnerTypes().forEach(this::writeObject);
+            if (objectDef instanceof ClassDef classDef) {
+                writeFields(classDef.getFields());
+                writeTypes(classDef.getTypeVariables());
+                writeType(classDef.getSuperclass());
+                writeNode(classDef.getStaticInitializer());
+            } else if (objectDef instanceof EnumDef enumDef) {
+                writeFields(enumDef.getFields());
+                writeVarint(enumDef.getEnumConstants().size());
+                for (Map.Entry<String, List<ExpressionDef>> e : enumDef.getEnumConstants().entrySet()) {
+                    writeString(e.getKey());
+                    writeNodes(e.getValue());
+                }
+            } else if (objectDef instanceof RecordDef recordDef) {
+                writeTypes(recordDef.getTypeVariables());
+            } else if (objectDef instanceof InterfaceDef interfaceDef) {
+                writeTypes(interfaceDef.getTypeVariables());
+            }
+            register(objects, objectDef);
+        }
+
+        private void writeMethod(MethodDef methodDef) {
+            if (writeReference(methods, null, methodDef)) {
+                return;
+            }
+            writeString(methodDef.getName());
+            writeElement(methodDef);
+            writeType(methodDef.getReturnType());
+            writeSize(methodDef.getParameters());
+            for (ParameterDef parameter : methodDef.getParameters()) {
+                writeString(parameter.getName());
+                writeType(parameter.getType());
+                writeElement(parameter);
+            }
+            writeBoolean(methodDef.isOverride());
+            writeBoolean(methodDef.isVarargs());
+            writeBoolean(methodDef.isBridge());
+            writeNodes(methodDef.getStatements());
+            register(methods, methodDef);
+        }
+
+        private void writeInvokedMethod(MethodDef methodDef) {
+            if (sharedTables != null) {
+                writeReference(methods, sharedTables.methods, methodMapper.apply(methodDef));
+            } else if (structure) {
+                // The invocation depends only on the signature
+                writeString(methodDef.getName());
+                writeType(methodDef.getReturnType());
+                writeSize(methodDef.getParameters());
+                methodDef.getParameters().forEach(parameter -> writeType(parameter.getType()));
+            } else {
+                writeMethod(methodDef);
+            }
+        }
+
+        private void writeFields(List<FieldDef> fields) {
+            writeSize(fields);
+            for (FieldDef field : fields) {
+                writeString(field.getName());
+                writeElement(field);
+                writeType(field.getType());
+                writeNode(field.getInitializer().orElse(null));
+            }
+        }
+
+        private void writeElement(AbstractElement element) {
+            int modifiers = 0;
+            for (Modifier modifier : element.getModifiers()) {
+                int bit = MODIFIERS.indexOf(modifier.name());
+                if (bit < 0) {
+                    throw new IllegalStateException("Unsupported modifier: " + modifier);
+                }
+                modifiers |= 1 << bit;
+            }
+            writeVarint(modifiers);
+            writeAnnotations(element.getAnnotations());
+            writeSize(element.getJavadoc());
+            element.getJavadoc().forEach(this::writeString);
+            int flags = element.isSynthetic() ? FLAG_SYNTHETIC : 0;
+            if (element instanceof FieldDef fieldDef && fieldDef.isLazy()) {
+                flags |= FLAG_LAZY;
+            }
+            writeVarint(flags);
+        }
+
+        private void writeAnnotations(List<AnnotationDef> annotations) {
+            writeSize(annotations);
+            annotations.forEach(this::writeAnnotation);
+        }
+
+        private void writeAnnotation(AnnotationDef annotation) {
+            writeType(annotation.getType());
+            writeVarint(annotation.getValues().size());
+            for (Map.Entry<String, Object> e : annotation.getValues().entrySet()) {
+                writeString(e.getKey());
+                writeValue(e.getValue());
+            }
+        }
+
+        private void writeValue(@Nullable Object value) {
+            if (value == null) {
+                writeVarint(VALUE_NULL);
+            } else if (value instanceof String string) {
+                writeVarint(VALUE_STRING);
+                writeString(string);
+            } else if (value instanceof Boolean aBoolean) {
+                writeVarint(VALUE_BOOLEAN);
+                writeBoolean(aBoolean);
+            } else if (value instanceof Integer integer) {
+                writeVarint(VALUE_INT);
+                writeVarlong(zigZag(integer));
+            } else if (value instanceof Long aLong) {
+                writeVarint(VALUE_LONG);
+                writeVarlong(zigZag(aLong));
+            } else if (value instanceof Float aFloat) {
+                writeVarint(VALUE_FLOAT);
+                writeFixedInt(Float.floatToRawIntBits(aFloat));
+            } else if (value instanceof Double aDouble) {
+                writeVarint(VALUE_DOUBLE);
+                long bits = Double.doubleToRawLongBits(aDouble);
+                writeFixedInt((int) (bits >>> 32));
+                writeFixedInt((int) bits);
+            } else if (value instanceof Character character) {
+                writeVarint(VALUE_CHAR);
+                writeVarint(character);
+            } else if (value instanceof Short aShort) {
+                writeVarint(VALUE_SHORT);
+                writeVarlong(zigZag(aShort));
+            } else if (value instanceof Byte aByte) {
+                writeVarint(VALUE_BYTE);
+                writeVarlong(zigZag(aByte));
+            } else if (sharedTables != null && (value instanceof Enum<?> || value instanceof Class<?> || value instanceof AnnotationDef)) {
+                writeVarint(VALUE_SHARED);
+                writeVarint(sharedTables.values.size());
+                sharedTables.values.add(value);
+            } else if (value instanceof Enum<?> anEnum) {
+                writeVarint(VALUE_ENUM);
+                writeString(anEnum.getDeclaringClass().getName());
+                writeString(anEnum.name());
+            } else if (value instanceof Class<?> aClass) {
+                writeVarint(VALUE_CLASS);
+                writeString(aClass.getName());
+            } else if (value instanceof TypeDef typeDef) {
+                writeVarint(VALUE_TYPE);
+                writeType(typeDef);
+            } else if (value instanceof AnnotationDef annotationDef) {
+                writeVarint(VALUE_ANNOTATION);
+                writeAnnotation(annotationDef);
+            } else if (value instanceof ExpressionDef expressionDef) {
+                writeVarint(VALUE_EXPRESSION);
+                writeNode(expressionDef);
+            } else if (value instanceof Collection<?> collection) {
+                writeVarint(VALUE_LIST);
+                writeVarint(collection.size());
+                collection.forEach(this::writeValue);
+            } else {
+                throw new IllegalStateException("Unsupported value: " + value + " of type: " + value.getClass().getName());
+            }
+        }
+
+        private void writeTypes(List<? extends TypeDef> typeDefs) {
+            writeSize(typeDefs);
+            typeDefs.forEach(this::writeType);
+        }
+
+        private void writeType(@Nullable TypeDef typeDef) {
+            if (writeReference(types, sharedTables == null ? null : sharedTables.types, typeDef)) {
+                return;
+            }
+            if (typeDef instanceof TypeDef.Primitive primitive) {
+                writeVarint(TYPE_PRIMITIVE);
+                writeString(primitive.clazz().getName());
+            } else if (typeDef instanceof TypeDef.Array array) {
+                writeVarint(TYPE_ARRAY);
+                writeType(array.componentType());
+                writeVarint(array.dimensions());
+                writeBoolean(array.nullable());
+            } else if (typeDef instanceof TypeDef.TypeVariable typeVariable) {
+                writeVarint(TYPE_VARIABLE);
+                writeString(typeVariable.name());
+                writeTypes(typeVariable.bounds());
+                writeBoolean(typeVariable.nullable());
+            } else if (typeDef instanceof TypeDef.Wildcard wildcard) {
+                writeVarint(TYPE_WILDCARD);
+                writeTypes(wildcard.upperBounds());
+                writeTypes(wildcard.lowerBounds());
+            } else if (typeDef instanceof TypeDef.AnnotatedTypeDef annotated) {
+                writeVarint(TYPE_ANNOTATED);
+                writeType(annotated.typeDef());
+                writeAnnotations(annotated.annotations());
+            } else if (typeDef instanceof ClassTypeDef.AnnotatedClassTypeDef annotated) {
+                writeVarint(TYPE_ANNOTATED_CLASS);
+                writeType(annotated.typeDef());
+                writeAnnotations(annotated.annotations());
+            } else if (typeDef instanceof ClassTypeDef.JavaClass javaClass) {
+                writeVarint(TYPE_JAVA_CLASS);
+                writeString(javaClass.type().getName());
+                writeBoolean(javaClass.nullable());
+            } else if (typeDef instanceof ClassTypeDef.ClassName className) {
+                writeVarint(TYPE_CLASS_NAME);
+                writeString(typeName(className.name()));
+                writeBoolean(className.isInner());
+                writeBoolean(className.nullable());
+            } else if (typeDef instanceof ClassTypeDef.ClassElementType classElementType) {
+                writeVarint(TYPE_CLASS_ELEMENT);
+                writeString(typeName(classElementType.getName()));
+                writeBoolean(classElementType.isInner());
+                writeBoolean(classElementType.nullable());
+            } else if (typeDef instanceof ClassTypeDef.ClassDefType classDefType) {
+                if (structure) {
+                    // The referenced definition is compared by the name
+                    writeVarint(TYPE_CLASS_NAME);
+                    writeString(typeName(classDefType.getName()));
+                    writeBoolean(classDefType.isInner());
+                } else {
+                    writeVarint(TYPE_CLASS_DEF);
+                    writeObject(classDefType.objectDef());
+                }
+                writeBoolean(classDefType.nullable());
+            } else if (typeDef instanceof ClassTypeDef.Parameterized parameterized) {
+                writeVarint(TYPE_PARAMETERIZED);
+                writeType(parameterized.rawType());
+                writeTypes(parameterized.typeArguments());
+            } else {
+                throw new IllegalStateException("Unknown type: " + typeDef);
+            }
+            register(types, typeDef);
+        }
+
+        private void writeNodes(List<?> nodes) {
+            writeSize(nodes);
+            nodes.forEach(this::writeNode);
+        }
+
+        private void writeNode(@Nullable Object node) {
+            if (node == null) {
+                writeVarint(NODE_NULL);
+            } else if (node instanceof StatementDef.Multi multi) {
+                writeVarint(NODE_MULTI);
+                writeNodes(multi.statements());
+            } else if (node instanceof StatementDef.Throw aThrow) {
+                writeVarint(NODE_THROW);
+                writeNode(aThrow.expression());
+            } else if (node instanceof StatementDef.Return aReturn) {
+                writeVarint(NODE_RETURN);
+                writeNode(aReturn.expression());
+            } else if (node instanceof StatementDef.Assign assign) {
+                writeVarint(NODE_ASSIGN);
+                writeNode(assign.variable());
+                writeNode(assign.expression());
+            } else if (node instanceof StatementDef.PutField putField) {
+                writeVarint(NODE_PUT_FIELD);
+                writeNode(putField.field());
+                writeNode(putField.expression());
+            } else if (node instanceof StatementDef.PutStaticField putStaticField) {
+                writeVarint(NODE_PUT_STATIC_FIELD);
+                writeNode(putStaticField.field());
+                writeNode(putStaticField.expression());
+            } else if (node instanceof StatementDef.DefineAndAssign defineAndAssign) {
+                writeVarint(NODE_DEFINE_AND_ASSIGN);
+                writeNode(defineAndAssign.variable());
+                writeNode(defineAndAssign.expression());
+            } else if (node instanceof StatementDef.CompoundAssign compoundAssign) {
+                writeVarint(NODE_COMPOUND_ASSIGN);
+                writeNode(compoundAssign.variable());
+                writeVarint(compoundAssign.opType().ordinal());
+                writeNode(compoundAssign.expression());
+            } else if (node instanceof StatementDef.If anIf) {
+                writeVarint(NODE_IF);
+                writeNode(anIf.condition());
+                writeNode(anIf.statement());
+            } else if (node instanceof StatementDef.IfElse ifElse) {
+                writeVarint(NODE_IF_ELSE);
+                writeNode(ifElse.condition());
+                writeNode(ifElse.statement());
+                writeNode(ifElse.elseStatement());
+            } else if (node instanceof StatementDef.Switch aSwitch) {
+                writeVarint(NODE_SWITCH);
+                writeNode(aSwitch.expression());
+                writeType(aSwitch.type());
+                writeCases(aSwitch.cases());
+                writeNode(aSwitch.defaultCase());
+            } else if (node instanceof StatementDef.While aWhile) {
+                writeVarint(NODE_WHILE);
+                writeNode(aWhile.expression());
+                writeNode(aWhile.statement());
+            } else if (node instanceof StatementDef.For aFor) {
+                writeVarint(NODE_FOR);
+                writeNode(aFor.initialization());
+                writeNode(aFor.condition());
+                writeNode(aFor.update());
+                writeNode(aFor.statement());
+                writeString(aFor.label());
+            } else if (node instanceof StatementDef.ForEach forEach) {
+                writeVarint(NODE_FOR_EACH);
+                writeNode(forEach.variable());
+                writeNode(forEach.iterable());
+                writeNode(forEach.statement());
+                writeString(forEach.label());
+            } else if (node instanceof StatementDef.Break aBreak) {
+                writeVarint(NODE_BREAK);
+                writeString(aBreak.label());
+            } else if (node instanceof StatementDef.Continue aContinue) {
+                writeVarint(NODE_CONTINUE);
+                writeString(aContinue.label());
+            } else if (node instanceof StatementDef.Try aTry) {
+                writeVarint(NODE_TRY);
+                writeNode(aTry.statement());
+                writeSize(aTry.catches());
+                for (StatementDef.Try.Catch aCatch : aTry.catches()) {
+                    writeType(aCatch.exception());
+                    writeNode(aCatch.statement());
+                }
+                writeNode(aTry.finallyStatement());
+            } else if (node instanceof StatementDef.TryWithResources tryWithResources) {
+                writeVarint(NODE_TRY_WITH_RESOURCES);
+                writeNodes(tryWithResources.resources());
+                writeNode(tryWithResources.statement());
+            } else if (node instanceof StatementDef.Synchronized aSynchronized) {
+                writeVarint(NODE_SYNCHRONIZED);
+                writeNode(aSynchronized.monitor());
+                writeNode(aSynchronized.statement());
+                writeBoolean(aSynchronized.useLock());
+            } else if (node instanceof ExpressionDef expressionDef) {
+                writeExpression(expressionDef);
+            } else {
+                throw new IllegalStateException("Unknown statement: " + node);
+            }
+        }
+
+        private void writeExpression(ExpressionDef expression) {
+            if (expression instanceof VariableDef variableDef) {
+                writeVariable(variableDef);
+            } else if (expression instanceof ExpressionDef.Constant constant) {
+                writeVarint(NODE_CONSTANT);
+                writeType(constant.type());
+                writeValue(constant.value());
+            } else if (expression instanceof ExpressionDef.Cast cast) {
+                writeVarint(NODE_CAST);
+                writeType(cast.type());
+                writeNode(cast.expressionDef());
+            } else if (expression instanceof ExpressionDef.NewInstance newInstance) {
+                writeVarint(NODE_NEW_INSTANCE);
+                writeType(newInstance.type());
+                writeTypes(newInstance.parameterTypes());
+                writeNodes(newInstance.values());
+            } else if (expression instanceof ExpressionDef.InvokeInstanceMethod invokeInstanceMethod) {
+                writeVarint(NODE_INVOKE_INSTANCE);
+                writeNode(invokeInstanceMethod.instance());
+                writeInvokedMethod(invokeInstanceMethod.method());
+                writeBoolean(invokeInstanceMethod.isDefault());
+                writeNodes(invokeInstanceMethod.values());
+            } else if (expression instanceof ExpressionDef.InvokeStaticMethod invokeStaticMethod) {
+                writeVarint(NODE_INVOKE_STATIC);
+                writeType(invokeStaticMethod.classDef());
+                writeInvokedMethod(invokeStaticMethod.method());
+                writeNodes(invokeStaticMethod.values());
+            } else if (expression instanceof ExpressionDef.MethodHandleConstant methodHandle) {
+                writeVarint(NODE_METHOD_HANDLE);
+                writeType(methodHandle.owner());
+                writeInvokedMethod(methodHandle.method());
+                writeVarint(methodHandle.kind().ordinal());
+            } else if (expression instanceof ExpressionDef.InvokeExact invokeExact) {
+                writeVarint(NODE_INVOKE_EXACT);
+                writeNode(invokeExact.methodHandle());
+                writeTypes(invokeExact.parameterTypes());
+                writeType(invokeExact.returnType());
+                writeNodes(invokeExact.values());
+            } else if (expression instanceof ExpressionDef.ComparisonOperation comparison) {
+                writeVarint(NODE_COMPARISON);
+                writeVarint(comparison.opType().ordinal());
+                writeNode(comparison.left());
+                // The operation casts the right expression to the type of the left one
+                writeNode(((ExpressionDef.Cast) comparison.right()).expressionDef());
+            } else if (expression instanceof ExpressionDef.MathBinaryOperation math) {
+                writeVarint(NODE_MATH_BINARY);
+                writeVarint(math.opType().ordinal());
+                writeNode(math.left());
+                // The operation casts the right expression to the type of the operation
+                writeNode(((ExpressionDef.Cast) math.right()).expressionDef());
+            } else if (expression instanceof ExpressionDef.Increment increment) {
+                writeVarint(NODE_INCREMENT);
+                writeNode(increment.variable());
+                writeBoolean(increment.decrement());
+                writeBoolean(increment.postfix());
+            } else if (expression instanceof ExpressionDef.MathUnaryOperation math) {
+                writeVarint(NODE_MATH_UNARY);
+                writeVarint(math.opType().ordinal());
+                writeNode(math.expression());
+                writeType(math.type());
+            } else if (expression instanceof ExpressionDef.IsNull isNull) {
+                writeVarint(NODE_IS_NULL);
+                writeNode(isNull.expression());
+            } else if (expression instanceof ExpressionDef.IsNotNull isNotNull) {
+                writeVarint(NODE_IS_NOT_NULL);
+                writeNode(isNotNull.expression());
+            } else if (expression instanceof ExpressionDef.IsTrue isTrue) {
+                writeVarint(NODE_IS_TRUE);
+                writeNode(isTrue.expression());
+            } else if (expression instanceof ExpressionDef.IsFalse isFalse) {
+                writeVarint(NODE_IS_FALSE);
+                writeNode(isFalse.expression());
+            } else if (expression instanceof ExpressionDef.And and) {
+                writeVarint(NODE_AND);
+                writeNode(and.left());
+                writeNode(and.right());
+            } else if (expression instanceof ExpressionDef.Or or) {
+                writeVarint(NODE_OR);
+                writeNode(or.left());
+                writeNode(or.right());
+            } else if (expression instanceof ExpressionDef.IfElse ifElse) {
+                writeVarint(NODE_IF_ELSE_EXPRESSION);
+                writeNode(ifElse.condition());
+                writeNode(ifElse.ifExpression());
+                writeNode(ifElse.elseExpression());
+                writeType(ifElse.type());
+            } else if (expression instanceof ExpressionDef.Switch aSwitch) {
+                writeVarint(NODE_SWITCH_EXPRESSION);
+                writeNode(aSwitch.expression());
+                writeType(aSwitch.type());
+                writeCases(aSwitch.cases());
+                writeNode(aSwitch.defaultCase());
+            } else if (expression instanceof ExpressionDef.SwitchYieldCase switchYieldCase) {
+                writeVarint(NODE_SWITCH_YIELD_CASE);
+                writeType(switchYieldCase.type());
+                writeNode(switchYieldCase.statement());
+            } else if (expression instanceof ExpressionDef.NewArrayOfSize newArray) {
+                writeVarint(NODE_NEW_ARRAY_OF_SIZE);
+                writeType(newArray.type());
+                writeVarint(newArray.size());
+            } else if (expression instanceof ExpressionDef.NewArrayInitialized newArray) {
+                writeVarint(NODE_NEW_ARRAY_INITIALIZED);
+                writeType(newArray.type());
+                writeNodes(newArray.expressions());
+            } else if (expression instanceof ExpressionDef.GetPropertyValue getPropertyValue) {
+                writeNode(JavaIdioms.getPropertyValue(getPropertyValue));
+            } else if (expression instanceof ExpressionDef.InvokeGetClassMethod invokeGetClassMethod) {
+                writeVarint(NODE_GET_CLASS);
+                writeNode(invokeGetClassMethod.instance());
+            } else if (expression instanceof ExpressionDef.InvokeHashCodeMethod invokeHashCodeMethod) {
+                writeVarint(NODE_HASH_CODE);
+                writeNode(invokeHashCodeMethod.instance());
+            } else if (expression instanceof ExpressionDef.EqualsStructurally equals) {
+                writeVarint(NODE_EQUALS_STRUCTURALLY);
+                writeNode(equals.instance());
+                writeNode(equals.other());
+            } else if (expression instanceof ExpressionDef.NotEqualsStructurally notEquals) {
+                writeVarint(NODE_NOT_EQUALS_STRUCTURALLY);
+                writeNode(notEquals.instance());
+                writeNode(notEquals.other());
+            } else if (expression instanceof ExpressionDef.EqualsReferentially equals) {
+                writeVarint(NODE_EQUALS_REFERENTIALLY);
+                writeNode(equals.instance());
+                writeNode(equals.other());
+            } else if (expression instanceof ExpressionDef.NotEqualsReferentially notEquals) {
+                writeVarint(NODE_NOT_EQUALS_REFERENTIALLY);
+                writeNode(notEquals.instance());
+                writeNode(notEquals.other());
+            } else if (expression instanceof ExpressionDef.InstanceOf instanceOf) {
+                writeVarint(NODE_INSTANCE_OF);
+                writeNode(instanceOf.expression());
+                writeType(instanceOf.instanceType());
+            } else if (expression instanceof ExpressionDef.ArrayElement arrayElement) {
+                writeVarint(NODE_ARRAY_ELEMENT);
+                writeNode(arrayElement.expression());
+                writeType(arrayElement.type());
+                writeNode(arrayElement.indexExpression());
+            } else if (expression instanceof ExpressionDef.ArrayLength arrayLength) {
+                writeVarint(NODE_ARRAY_LENGTH);
+                writeNode(arrayLength.expression());
+            } else {
+                throw new IllegalStateException("Unknown expression: " + expression);
+            }
+        }
+
+        private void writeVariable(VariableDef variableDef) {
+            if (variableDef instanceof VariableDef.Local local) {
+                writeVarint(NODE_LOCAL);
+                writeString(local.name());
+                writeType(local.type());
+            } else if (variableDef instanceof VariableDef.MethodParameter parameter) {
+                writeVarint(NODE_METHOD_PARAMETER);
+                writeString(parameter.name());
+                writeType(parameter.type());
+            } else if (variableDef instanceof VariableDef.Field field) {
+                writeVarint(NODE_FIELD);
+                writeNode(field.instance());
+                writeString(field.name());
+                writeType(field.type());
+            } else if (variableDef instanceof VariableDef.StaticField field) {
+                writeVarint(NODE_STATIC_FIELD);
+                writeType(field.ownerType());
+                writeString(field.name());
+                writeType(field.type());
+            } else if (variableDef instanceof VariableDef.This) {
+                writeVarint(NODE_THIS);
+            } else if (variableDef instanceof VariableDef.Super aSuper) {
+                writeVarint(NODE_SUPER);
+                writeType(aSuper.type());
+            } else if (variableDef instanceof VariableDef.ExceptionVar exceptionVar) {
+                writeVarint(NODE_EXCEPTION_VAR);
+                writeType(exceptionVar.type());
+            } else {
+                throw new IllegalStateException("Unknown variable: " + variableDef);
+            }
+        }
+
+        private void writeCases(Map<ExpressionDef.Constant, ?> cases) {
+            writeVarint(cases.size());
+            for (Map.Entry<ExpressionDef.Constant, ?> e : cases.entrySet()) {
+                writeNode(e.getKey());
+                writeNode(e.getValue());
+            }
+        }
+
+        private String typeName(String name) {
+            if (ignoredName == null || !name.startsWith(ignoredName)) {
+                return name;
+            }
+            if (name.length() == ignoredName.length()) {
+                return "";
+            }
+            // The inner types of the definition
+            return name.charAt(ignoredName.length()) == '$' ? name.substring(ignoredName.length()) : name;
+        }
+
+        private <T> boolean writeReference(@Nullable Map<T, Integer> table, @Nullable List<T> sharedValues, @Nullable T value) {
+            if (value == null) {
+                writeVarint(REF_NULL);
+                return true;
+            }
+            Integer index = table == null ? null : table.get(value);
+            if (index == null && sharedValues != null) {
+                // The shared value is kept as the object and never written inline
+                index = sharedValues.size();
+                sharedValues.add(value);
+                table.put(value, index);
+            }
+            if (index != null) {
+                writeVarint(index + REF_OFFSET);
+                return true;
+            }
+            writeVarint(REF_NEW);
+            return false;
+        }
+
+        private static <T> void register(@Nullable Map<T, Integer> table, T value) {
+            // The value is registered after its content, the decoder assigns the same index
+            if (table != null) {
+                table.put(value, table.size());
+            }
+        }
+
+        private void writeString(@Nullable String string) {
+            if (writeReference(strings, sharedTables == null ? null : sharedTables.strings, string)) {
+                return;
+            }
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+            register(strings, string);
+        }
+
+        private void writeSize(Collection<?> collection) {
+            writeVarint(collection.size());
+        }
+
+        private void writeBoolean(boolean value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) (value ? 1 : 0);
+        }
+
+        void writeFixedInt(int value) {
+            ensureCapacity(4);
+            buffer[size++] = (byte) (value >>> 24);
+            buffer[size++] = (byte) (value >>> 16);
+            buffer[size++] = (byte) (value >>> 8);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeVarint(int value) {
+            writeVarlong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarlong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        private void ensureCapacity(int length) {
+            if (size + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + length));
+            }
+        }
+    }
+
+    /**
+     * The decoder.
+     */
+    private static final class Decoder {
+
+        private final byte[] bytes;
+        private final ClassLoader classLoader;
+        private final List<String> strings;
+        private final List<TypeDef> types;
+        private final List<ObjectDef> objects = new ArrayList<>();
+        private final List<MethodDef> methods;
+        private final List<Object> sharedValues;
+        private int position;
+
+        Decoder(byte[] bytes, ClassLoader classLoader) {
+            this.bytes = bytes;
+            this.classLoader = classLoader;
+            this.strings = new ArrayList<>();
+            this.types = new ArrayList<>();
+            this.methods = new ArrayList<>();
+            this.sharedValues = List.of();
+        }
+
+        Decoder(byte[] bytes, int position, SharedTables sharedTables) {
+            // The shared values are only referenced
+            this.bytes = bytes;
+            this.position = position;
+            this.classLoader = ObjectDefCodec.class.getClassLoader();
+            this.strings = sharedTables.strings;
+            this.types = sharedTables.types;
+            this.methods = sharedTables.methods;
+            this.sharedValues = sharedTables.values;
+        }
+
+        @Nullable
+        ObjectDef readObject() {
+            int reference = readVarint();
+            if (reference != REF_NEW) {
+                return lookup(objects, reference);
+            }
+            int kind = readVarint();
+            String name = readString();
+            boolean isInner = readBoolean();
+            ObjectDefBuilder<?> builder = switch (kind) {
+                case OBJECT_CLASS -> readElement(ClassDef.builder(name));
+                case OBJECT_ENUM -> readElement(EnumDef.builder(name));
+                case OBJECT_RECORD -> readElement(RecordDef.builder(name));
+                case OBJECT_INTERFACE -> readElement(InterfaceDef.builder(name));
+                default -> throw new IllegalStateException("Unknown object definition kind: " + kind);
+            };
+            int methodsCount = readVarint();
+            for (int i = 0; i < methodsCount; i++) {
+                builder.addMethod(readMethod());
+            }
+            int propertiesCount = readVarint();
+            for (int i = 0; i < propertiesCount; i++) {
+                builder.addProperty(readElement(PropertyDef.builder(readString())).ofType(readType()).build());
+            }
+            builder.addSuperinterfaces(readTypes());
+            int innerTypesCount = readVarint();
+            for (int i = 0; i < innerTypesCount; i++) {
+                // The inner type is renamed to the same name
+                builder.addInnerType(readObject());
+            }
+            ObjectDef objectDef;
+            if (builder instanceof ClassDef.ClassDefBuilder classDefBuilder) {
+                classDefBuilder.addFields(readFields());
+                for (TypeDef typeVariable : readTypes()) {
+                    classDefBuilder.addTypeVariable((TypeDef.TypeVariable) typeVariable);
+                }
+                classDefBuilder.superclass((ClassTypeDef) readType());
+                classDefBuilder.addStaticInitializer(readStatement());
+                objectDef = classDefBuilder.build();
+            } else if (builder instanceof EnumDef.EnumDefBuilder enumDefBuilder) {
+                readFields().forEach(enumDefBuilder::addField);
+                int constantsCount = readVarint();
+                for (int i = 0; i < constantsCount; i++) {
+                    String constantName = readString();
+                    enumDefBuilder.addEnumConstant(constantName, readExpressions().toArray(ExpressionDef[]::new));
+                }
+                objectDef = enumDefBuilder.build();
+            } else if (builder instanceof RecordDef.RecordDefBuilder recordDefBuilder) {
+                for (TypeDef typeVariable : readTypes()) {
+                    recordDefBuilder.addTypeVariable((TypeDef.TypeVariable) typeVariable);
+                }
+                objectDef = recordDefBuilder.build();
+            } else {
+                InterfaceDef.InterfaceDefBuilder interfaceDefBuilder = (InterfaceDef.InterfaceDefBuilder) builder;
+                for (TypeDef typeVariable : readTypes()) {
+                    interfaceDefBuilder.addTypeVariable((TypeDef.TypeVariable) typeVariable);
+                }
+                objectDef = interfaceDefBuilder.build();
+            }
+            if (isInner) {
+                objectDef = objectDef.withClassName(new ClassTypeDef.ClassName(name, true));
+            }
+            objects.add(objectDef);
+            return objectDef;
+        }
+
+        private MethodDef readMethod() {
+            int reference = readVarint();
+            if (reference != REF_NEW) {
+                return lookup(methods, reference);
+            }
+            MethodDef.MethodDefBuilder builder = readElement(MethodDef.builder(readString()));
+            TypeDef returnType = readType();
+            if (returnType != null) {
+                builder.returns(returnType);
+            }
+            int parametersCount = readVarint();
+            for (int i = 0; i < parametersCount; i++) {
+                builder.addParameter(readElement(ParameterDef.builder(readString(), readType())).build());
+            }
+            builder.overrides(readBoolean());
+            builder.varargs(readBoolean());
+            if (readBoolean()) {
+                builder.bridge();
+            }
+            builder.addStatements(readStatements());
+            MethodDef methodDef = builder.build();
+            methods.add(methodDef);
+            return methodDef;
+        }
+
+        private List<FieldDef> readFields() {
+            int count = readVarint();
+            List<FieldDef> fields = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                FieldDef.FieldDefBuilder builder = readElement(FieldDef.builder(readString()));
+                builder.ofType(readType());
+                builder.initializer(readExpression());
+                fields.add(builder.build());
+            }
+            return fields;
+        }
+
+        private <B extends AbstractElementBuilder<?>> B readElement(B builder) {
+            int modifiers = readVarint();
+            EnumSet<Modifier> modifierSet = EnumSet.noneOf(Modifier.class);
+            for (int bit = 0; bit < MODIFIERS.size(); bit++) {
+                if ((modifiers & (1 << bit)) != 0) {
+                    modifierSet.add(modifier(MODIFIERS.get(bit)));
+                }
+            }
+            builder.addModifiers(modifierSet);
+            builder.addAnnotations(readAnnotations());
+            int javadocCount = readVarint();
+            for (int i = 0; i < javadocCount; i++) {
+                builder.addJavadoc(readString());
+            }
+            int flags = readVarint();
+            if ((flags & FLAG_SYNTHETIC) != 0) {
+                builder.synthetic();
+            }
+            if ((flags & FLAG_LAZY) != 0 && builder instanceof FieldDef.FieldDefBuilder fieldBuilder) {
+                fieldBuilder.lazy();
+            }
+            return builder;
+        }
+
+        private List<AnnotationDef> readAnnotations() {
+            int count = readVarint();
+            List<AnnotationDef> annotations = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                annotations.add(readAnnotation());
+            }
+            return annotations;
+        }
+
+        private AnnotationDef readAnnotation() {
+            AnnotationDef.AnnotationDefBuilder builder = AnnotationDef.builder((ClassTypeDef) readType());
+            int count = readVarint();
+            for (int i = 0; i < count; i++) {
+                String member = readString();
+                builder.addMember(member, readValue());
+            }
+            return builder.build();
+        }
+
+        @Nullable
+        private Object readValue() {
+            int tag = readVarint();
+            return switch (tag) {
+                case VALUE_NULL -> null;
+                case VALUE_STRING -> readString();
+                case VALUE_BOOLEAN -> readBoolean();
+                case VALUE_INT -> (int) unZigZag(readVarlong());
+                case VALUE_LONG -> unZigZag(readVarlong());
+                case VALUE_FLOAT -> Float.intBitsToFloat(readFixedInt());
+                case VALUE_DOUBLE -> Double.longBitsToDouble(((long) readFixedInt() << 32) | (readFixedInt() & 0xFFFFFFFFL));
+                case VALUE_CHAR -> (char) readVarint();
+                case VALUE_SHORT -> (short) unZigZag(readVarlong());
+                case VALUE_BYTE -> (byte) unZigZag(readVarlong());
+                case VALUE_ENUM -> readEnum();
+                case VALUE_CLASS -> loadClass(readString());
+                case VALUE_TYPE -> readType();
+                case VALUE_ANNOTATION -> readAnnotation();
+                case VALUE_EXPRESSION -> readExpression();
+                case VALUE_SHARED -> sharedValues.get(readVarint());
+                case VALUE_LIST -> {
+                    int count = readVarint();
+                    List<Object> values = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        values.add(readValue());
+                    }
+                    yield Collections.unmodifiableList(values);
+                }
+                default -> throw new IllegalStateException("Unknown value tag: " + tag);
+            };
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Enum<?> readEnum() {
+            Class enumClass = loadClass(readString());
+            return Enum.valueOf(enumClass, readString());
+        }
+
+        private List<TypeDef> readTypes() {
+            int count = readVarint();
+            List<TypeDef> typeDefs = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                typeDefs.add(readType());
+            }
+            return typeDefs;
+        }
+
+        @Nullable
+        private TypeDef readType() {
+            int reference = readVarint();
+            if (reference != REF_NEW) {
+                return lookup(types, reference);
+            }
+            int tag = readVarint();
+            TypeDef typeDef = switch (tag) {
+                case TYPE_PRIMITIVE -> TypeDef.primitive(readString());
+                case TYPE_ARRAY -> TypeDefInterner.intern(new TypeDef.Array(readType(), readVarint(), readBoolean()));
+                case TYPE_VARIABLE -> new TypeDef.TypeVariable(readString(), readTypes(), readBoolean());
+                case TYPE_WILDCARD -> new TypeDef.Wildcard(readTypes(), readTypes());
+                case TYPE_ANNOTATED -> new TypeDef.AnnotatedTypeDef(readType(), readAnnotations());
+                case TYPE_ANNOTATED_CLASS -> new ClassTypeDef.AnnotatedClassTypeDef((ClassTypeDef) readType(), readAnnotations());
+                case TYPE_JAVA_CLASS -> TypeDefInterner.javaClass(loadClass(readString()), readBoolean());
+                case TYPE_CLASS_NAME -> readClassName(readString(), readBoolean(), readBoolean());
+                case TYPE_CLASS_ELEMENT -> readClassElement(readString(), readBoolean(), readBoolean());
+                case TYPE_CLASS_DEF -> new ClassTypeDef.ClassDefType(readObject(), readBoolean());
+                case TYPE_PARAMETERIZED -> TypeDefInterner.intern(new ClassTypeDef.Parameterized((ClassTypeDef) readType(), readTypes()));
+                default -> throw new IllegalStateException("Unknown type tag: " + tag);
+            };
+            types.add(typeDef);
+            return typeDef;
+        }
+
+        private static ClassTypeDef readClassName(String name, boolean isInner, boolean nullable) {
+            if (nullable) {
+                return new ClassTypeDef.ClassName(name, isInner, true);
+            }
+            return TypeDefInterner.className(name, isInner);
+        }
+
+        private static Modifier modifier(String name) {
+            try {
+                return Modifier.valueOf(name);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Modifier " + name + " is not supported by this JDK", e);
+            }
+        }
+
+        private ClassTypeDef readClassElement(String name, boolean isInner, boolean nullable) {
+            // The element isn't available, the loaded class keeps the interface and the enum flags.
+            // The restore is lossy: the type arguments and the annotations of the element are dropped
+            try {
+                return TypeDefInterner.javaClass(Class.forName(name, false, classLoader), nullable);
+            } catch (ClassNotFoundException | LinkageError e) {
+                return readClassName(name, isInner, nullable);
+            }
+        }
+
+        private Class<?> loadClass(String name) {
+            try {
+                return Class.forName(name, false, classLoader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                throw new IllegalStateException("Cannot load class: " + name, e);
+            }
+        }
+
+        private List<StatementDef> readStatements() {
+            int count = readVarint();
+            List<StatementDef> statements = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                statements.add(readStatement());
+            }
+            return statements;
+        }
+
+        private List<ExpressionDef> readExpressions() {
+            int count = readVarint();
+            List<ExpressionDef> expressions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                expressions.add(readExpression());
+            }
+            return expressions;
+        }
+
+        @Nullable
+        private StatementDef readStatement() {
+            return (StatementDef) readNode();
+        }
+
+        @Nullable
+        private ExpressionDef readExpression() {
+            return (ExpressionDef) readNode();
+        }
+
+        private ExpressionDef.ConditionExpressionDef readCondition() {
+            return (ExpressionDef.ConditionExpressionDef) readNode();
+        }
+
+        @Nullable
+        private Object readNode() {
+            int tag = readVarint();
+            return switch (tag) {
+                case NODE_NULL -> null;
+                case NODE_MULTI -> new StatementDef.Multi(readStatements());
+                case NODE_THROW -> new StatementDef.Throw(readExpression());
+                case NODE_RETURN -> new StatementDef.Return(readExpression());
+                case NODE_ASSIGN -> new StatementDef.Assign((VariableDef.Local) readNode(), readExpression());
+                case NODE_PUT_FIELD -> new StatementDef.PutField((VariableDef.Field) readNode(), readExpression());
+                case NODE_PUT_STATIC_FIELD -> new StatementDef.PutStaticField((VariableDef.StaticField) readNode(), readExpression());
+                case NODE_DEFINE_AND_ASSIGN -> new StatementDef.DefineAndAssign((VariableDef.Local) readNode(), readExpression());
+                case NODE_COMPOUND_ASSIGN -> new StatementDef.CompoundAssign(
+                    (VariableDef) readNode(), ExpressionDef.MathBinaryOperation.OpType.values()[readVarint()], readExpression()
+                );
+                case NODE_IF -> new StatementDef.If(readExpression(), readStatement());
+                case NODE_IF_ELSE -> new StatementDef.IfElse(readExpression(), readStatement(), readStatement());
+                case NODE_SWITCH -> new StatementDef.Switch(readExpression(), readType(), readCases(), readStatement());
+                case NODE_WHILE -> new StatementDef.While(readExpression(), readStatement());
+                case NODE_FOR -> new StatementDef.For(readStatement(), readExpression(), readStatement(), readStatement(), readString());
+                case NODE_FOR_EACH -> new StatementDef.ForEach((VariableDef.Local) readNode(), readExpression(), readStatement(), readString());
+                case NODE_BREAK -> new StatementDef.Break(readString());
+                case NODE_CONTINUE -> new StatementDef.Continue(readString());
+                case NODE_TRY -> {
+                    StatementDef statement = readStatement();
+                    int count = readVarint();
+                    List<StatementDef.Try.Catch> catches = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        catches.add(new StatementDef.Try.Catch((ClassTypeDef) readType(), readStatement()));
+                    }
+                    yield new StatementDef.Try(statement, catches, readStatement());
+                }
+                case NODE_TRY_WITH_RESOURCES -> {
+                    int count = readVarint();
+                    List<StatementDef.DefineAndAssign> resources = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        resources.add((StatementDef.DefineAndAssign) readNode());
+                    }
+                    yield new StatementDef.TryWithResources(resources, readStatement());
+                }
+                case NODE_SYNCHRONIZED -> new StatementDef.Synchronized(readExpression(), readStatement(), readBoolean());
+                case NODE_NEW_INSTANCE -> new ExpressionDef.NewInstance((ClassTypeDef) readType(), readTypes(), readExpressions());
+                case NODE_CAST -> new ExpressionDef.Cast(readType(), readExpression());
+                case NODE_CONSTANT -> new ExpressionDef.Constant(readType(), readValue());
+                case NODE_INVOKE_INSTANCE -> new ExpressionDef.InvokeInstanceMethod(readExpression(), readMethod(), readBoolean(), readExpressions());
+                case NODE_INVOKE_STATIC -> new ExpressionDef.InvokeStaticMethod((ClassTypeDef) readType(), readMethod(), readExpressions());
+                case NODE_METHOD_HANDLE -> new ExpressionDef.MethodHandleConstant((ClassTypeDef) readType(), readMethod(), ExpressionDef.MethodHandleConstant.Kind.values()[readVarint()]);
+                case NODE_INVOKE_EXACT -> new ExpressionDef.InvokeExact(readExpression(), readTypes(), readType(), readExpressions());
+                case NODE_COMPARISON -> new ExpressionDef.ComparisonOperation(
+                    ExpressionDef.ComparisonOperation.OpType.values()[readVarint()], readExpression(), readExpression()
+                );
+                case NODE_MATH_BINARY -> new ExpressionDef.MathBinaryOperation(
+                    ExpressionDef.MathBinaryOperation.OpType.values()[readVarint()], readExpression(), readExpression()
+                );
+                case NODE_INCREMENT -> new ExpressionDef.Increment((VariableDef) readNode(), readBoolean(), readBoolean());
+                case NODE_MATH_UNARY -> new ExpressionDef.MathUnaryOperation(
+                    ExpressionDef.MathUnaryOperation.OpType.values()[readVarint()], readExpression(), readType()
+                );
+                case NODE_IS_NULL -> new ExpressionDef.IsNull(readExpression());
+                case NODE_IS_NOT_NULL -> new ExpressionDef.IsNotNull(readExpression());
+                case NODE_IS_TRUE -> new ExpressionDef.IsTrue(readExpression());
+                case NODE_IS_FALSE -> new ExpressionDef.IsFalse(readExpression());
+                case NODE_AND -> new ExpressionDef.And(readCondition(), readCondition());
+                case NODE_OR -> new ExpressionDef.Or(readCondition(), readCondition());
+                case NODE_IF_ELSE_EXPRESSION -> new ExpressionDef.IfElse(readExpression(), readExpression(), readExpression(), readType());
+                case NODE_SWITCH_EXPRESSION -> new ExpressionDef.Switch(readExpression(), readType(), readCases(), readExpression());
+                case NODE_SWITCH_YIELD_CASE -> new ExpressionDef.SwitchYieldCase(readType(), readStatement());
+                case NODE_NEW_ARRAY_OF_SIZE -> new ExpressionDef.NewArrayOfSize((TypeDef.Array) readType(), readVarint());
+                case NODE_NEW_ARRAY_INITIALIZED -> new ExpressionDef.NewArrayInitialized((TypeDef.Array) readType(), readExpressions());
+                case NODE_GET_CLASS -> new ExpressionDef.InvokeGetClassMethod(readExpression());
+                case NODE_HASH_CODE -> new ExpressionDef.InvokeHashCodeMethod(readExpression());
+                case NODE_EQUALS_STRUCTURALLY -> new ExpressionDef.EqualsStructurally(readExpression(), readExpression());
+                case NODE_NOT_EQUALS_STRUCTURALLY -> new ExpressionDef.NotEqualsStructurally(readExpression(), readExpression());
+                case NODE_EQUALS_REFERENTIALLY -> new ExpressionDef.EqualsReferentially(readExpression(), readExpression());
+                case NODE_NOT_EQUALS_REFERENTIALLY -> new ExpressionDef.NotEqualsReferentially(readExpression(), readExpression());
+                case NODE_INSTANCE_OF -> new ExpressionDef.InstanceOf(readExpression(), (ClassTypeDef) readType());
+                case NODE_ARRAY_ELEMENT -> new ExpressionDef.ArrayElement(readExpression(), readType(), readExpression());
+                case NODE_ARRAY_LENGTH -> new ExpressionDef.ArrayLength(readExpression());
+                case NODE_LOCAL -> new VariableDef.Local(readString(), readType());
+                case NODE_METHOD_PARAMETER -> new VariableDef.MethodParameter(readString(), readType());
+                case NODE_FIELD -> new VariableDef.Field(readExpression(), readString(), readType());
+                case NODE_STATIC_FIELD -> new VariableDef.StaticField((ClassTypeDef) readType(), readString(), readType());
+                case NODE_THIS -> new VariableDef.This();
+                case NODE_SUPER -> new VariableDef.Super((ClassTypeDef) readType());
+                case NODE_EXCEPTION_VAR -> new VariableDef.ExceptionVar((ClassTypeDef) readType());
+                default -> throw new IllegalStateException("Unknown node tag: " + tag);
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> Map<ExpressionDef.Constant, T> readCases() {
+            int count = readVarint();
+            Map<ExpressionDef.Constant, T> cases = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                ExpressionDef.Constant constant = (ExpressionDef.Constant) readNode();
+                cases.put(constant, (T) readNode());
+            }
+            return cases;
+        }
+
+        private static <T> T lookup(List<T> table, int reference) {
+            if (reference == REF_NULL) {
+                return null;
+            }
+            int index = reference - REF_OFFSET;
+            if (index < 0 || index >= table.size()) {
+                throw new IllegalStateException("Malformed object definition encoding, unknown reference: " + reference);
+            }
+            return table.get(index);
+        }
+
+        @Nullable
+        private String readString() {
+            int reference = readVarint();
+            if (reference != REF_NEW) {
+                return lookup(strings, reference);
+            }
+            int length = readVarint();
+            checkAvailable(length);
+            String string = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            strings.add(string);
+            return string;
+        }
+
+        private boolean readBoolean() {
+            checkAvailable(1);
+            return bytes[position++] != 0;
+        }
+
+        int readFixedInt() {
+            checkAvailable(4);
+            int value = (bytes[position] & 0xFF) << 24
+                | (bytes[position + 1] & 0xFF) << 16
+                | (bytes[position + 2] & 0xFF) << 8
+                | bytes[position + 3] & 0xFF;
+            position += 4;
+            return value;
+        }
+
+        int readVarint() {
+            return (int) readVarlong();
+        }
+
+        private long readVarlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                checkAvailable(1);
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Malformed object definition encoding, varint is too long");
+        }
+
+        private static long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private void checkAvailable(int length) {
+            if (length < 0 || position + length > bytes.length) {
+                throw new IllegalStateException("Malformed object definition encoding, unexpected end of data");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,543 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.model;
+
+import io.micronaut.core.annotation.Experimental;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+
+import javax.lang.model.element.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The inliner of the small helper methods.
+ * The invocations of the private and the static methods of the same object definition are replaced by the method statements,
+ * the method parameters are replaced by the invocation values and the local variables of the method are renamed.
+ * The helper methods are kept, the other invocations still reference them.
+ *
+ * <p>A method is inlined if its estimated bytecode size is within the budget, it's not recursive,
+ * and its statements are a single return of an expression or don't return before the end.
+ * The values that aren't a constant or a variable are assigned to new local variables,
+ * this is only possible for the invocation that is the expression of a statement.</p>
+ *
+ * @since 1.5
+ */
+@Experimental
+public final class ObjectDefInliner {
+
+    /**
+     * The default maximum size, the same as the maximum bytecode size of a method the JIT always inlines.
+     */
+    public static final int DEFAULT_MAX_SIZE = 35;
+
+    private final int maxSize;
+
+    /**
+     * The inliner with the {@link #DEFAULT_MAX_SIZE}.
+     */
+    public ObjectDefInliner() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize The maximum estimated bytecode size of an inlined method
+     */
+    public ObjectDefInliner(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Inline the helper methods of the object definition and of the inner types.
+     *
+     * @param objectDef The object definition
+     * @return The new object definition or the same instance if nothing has changed
+     */
+    @NonNull
+    public ObjectDef inline(@NonNull ObjectDef objectDef) {
+        Inlining inlining = new Inlining(objectDef);
+        boolean changed = false;
+        List<MethodDef> methods = new ArrayList<>(objectDef.getMethods().size());
+        for (MethodDef method : objectDef.getMethods()) {
+            MethodDef newMethod = inlining.resolve(method);
+            changed |= newMethod != method;
+            methods.add(newMethod);
+        }
+        List<ObjectDef> innerTypes = new ArrayList<>(objectDef.getInnerTypes().size());
+        for (ObjectDef innerType : objectDef.getInnerTypes()) {
+            ObjectDef newInnerType = inline(innerType);
+            changed |= newInnerType != innerType;
+            innerTypes.add(newInnerType);
+        }
+        if (!changed) {
+            return objectDef;
+        }
+        if (objectDef instanceof ClassDef classDef) {
+            return classDef.withMembers(classDef.getFields(), methods, innerTypes, classDef.getStaticInitializer());
+        }
+        if (objectDef instanceof EnumDef enumDef) {
+            return enumDef.withMembers(enumDef.getFields(), methods, innerTypes, enumDef.getEnumConstants());
+        }
+        if (objectDef instanceof RecordDef recordDef) {
+            return recordDef.withMembers(methods, innerTypes);
+        }
+        if (objectDef instanceof InterfaceDef interfaceDef) {
+            return interfaceDef.withMembers(methods, innerTypes);
+        }
+        throw new IllegalStateException("Unknown object definition: " + objectDef);
+    }
+
+    /**
+     * Estimate the bytecode size of the statements.
+     * The estimate counts the instructions of every statement and expression, it's not exact.
+     *
+     * @param statements The statements
+     * @return The estimated size in bytes
+     */
+    public static int estimateSize(@NonNull List<StatementDef> statements) {
+        SizeEstimate estimate = new SizeEstimate();
+        for (StatementDef statement : statements) {
+            estimate.rewriteStatement(statement);
+        }
+        return estimate.size;
+    }
+
+    private static boolean isTrivial(ExpressionDef expression) {
+        return expression instanceof ExpressionDef.Constant
+            || expression instanceof VariableDef.Local
+            || expression instanceof VariableDef.MethodParameter
+            || expression instanceof VariableDef.This;
+    }
+
+    private static ExpressionDef castIfNeeded(ExpressionDef expression, TypeDef type) {
+        if (expression instanceof VariableDef.This || expression.type().equals(type)) {
+            return expression;
+        }
+        return expression.cast(type);
+    }
+
+    /**
+     * The inlining of the methods of one object definition.
+     */
+    private final class Inlining {
+
+        private final ObjectDef objectDef;
+        private final Map<MethodDef, MethodDef> resolved = new IdentityHashMap<>();
+        private final Set<MethodDef> inProgress = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Set<MethodDef> recursive = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Map<List<Object>, MethodDef> declared = new HashMap<>();
+
+        private Inlining(ObjectDef objectDef) {
+            this.objectDef = objectDef;
+            for (MethodDef method : objectDef.getMethods()) {
+                declared.putIfAbsent(signature(method), method);
+            }
+        }
+
+        /**
+         * Inline the invoked methods into the method, the invoked methods are resolved first.
+         *
+         * @param method The method
+         * @return The method with the inlined invocations
+         */
+        MethodDef resolve(MethodDef method) {
+            MethodDef result = resolved.get(method);
+            if (result != null) {
+                return result;
+            }
+            inProgress.add(method);
+            result = new MethodInliner(this).rewrite(method);
+            inProgress.remove(method);
+            resolved.put(method, result);
+            return result;
+        }
+
+        /**
+         * Find the resolved method that can be inlined into the invocation.
+         *
+         * @param invocation The invocation
+         * @return The resolved method or null
+         */
+        @Nullable
+        MethodDef findInlined(ExpressionDef invocation) {
+            MethodDef method;
+            if (invocation instanceof ExpressionDef.InvokeStaticMethod invokeStaticMethod) {
+                if (!invokeStaticMethod.classDef().getName().equals(objectDef.getName())) {
+                    return null;
+                }
+                method = declared.get(signature(invokeStaticMethod.method()));
+                if (method == null || !method.getModifiers().contains(Modifier.STATIC)) {
+                    return null;
+                }
+            } else if (invocation instanceof ExpressionDef.InvokeInstanceMethod invokeInstanceMethod) {
+                if (!(invokeInstanceMethod.instance() instanceof VariableDef.This) || invokeInstanceMethod.isDefault()) {
+                    return null;
+                }
+                method = declared.get(signature(invokeInstanceMethod.method()));
+                if (method == null || !method.getModifiers().contains(Modifier.PRIVATE) || method.getModifiers().contains(Modifier.STATIC)) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+            if (inProgress.contains(method)) {
+                // The method invokes itself directly or through the other methods
+                recursive.add(method);
+                return null;
+            }
+            if (method.isConstructor() || method.isVarargs()
+                || method.getModifiers().contains(Modifier.ABSTRACT)
+                || method.getModifiers().contains(Modifier.SYNCHRONIZED)
+                || method.getModifiers().contains(Modifier.NATIVE)) {
+                return null;
+            }
+            MethodDef resolvedMethod = resolve(method);
+            if (recursive.contains(method)) {
+                return null;
+            }
+            List<StatementDef> statements = resolvedMethod.getStatements();
+            if (returnedExpression(statements) == null && !returnsAtEnd(statements)) {
+                return null;
+            }
+            if (estimateSize(statements) > maxSize) {
+                return null;
+            }
+            return resolvedMethod;
+        }
+
+        private static List<Object> signature(MethodDef method) {
+            List<Object> signature = new ArrayList<>(method.getParameters().size() + 1);
+            signature.add(method.getName());
+            for (ParameterDef parameter : method.getParameters()) {
+                signature.add(parameter.getType());
+            }
+            return signature;
+        }
+    }
+
+    /**
+     * The returned expression of the method that only returns an expression.
+     *
+     * @param statements The method statements
+     * @return The expression or null
+     */
+    @Nullable
+    private static ExpressionDef returnedExpression(List<StatementDef> statements) {
+        if (statements.size() == 1 && statements.get(0).flatten().size() == 1
+            && statements.get(0).flatten().get(0) instanceof StatementDef.Return aReturn) {
+            return aReturn.expression();
+        }
+        return null;
+    }
+
+    /**
+     * Whether the method doesn't return before the end, the statements can be inlined before the following statements.
+     *
+     * @param statements The method statements
+     * @return true if the method doesn't return before the end
+     */
+    private static boolean returnsAtEnd(List<StatementDef> statements) {
+        ReturnFinder returnFinder = new ReturnFinder();
+        for (int i = 0; i < statements.size(); i++) {
+            StatementDef statement = statements.get(i);
+            if (i == statements.size() - 1 && statement instanceof StatementDef.Return aReturn && aReturn.expression() == null) {
+                break;
+            }
+            returnFinder.rewriteStatement(statement);
+        }
+        return !returnFinder.found;
+    }
+
+    /**
+     * The inliner of the invocations of one method.
+     */
+    private static final class MethodInliner extends ObjectDefRewriter {
+
+        private final Inlining inlining;
+        private int localsCount;
+
+        private MethodInliner(Inlining inlining) {
+            this.inlining = inlining;
+        }
+
+        @Override
+        protected ExpressionDef visitExpression(ExpressionDef expression) {
+            if (!(expression instanceof ExpressionDef.InvokeInstanceMethod) && !(expression instanceof ExpressionDef.InvokeStaticMethod)) {
+                return expression;
+            }
+            List<? extends ExpressionDef> values = values(expression);
+            for (ExpressionDef value : values) {
+                if (!isTrivial(value)) {
+                    // The values need to be evaluated before the rest of the expression
+                    return expression;
+                }
+            }
+            MethodDef method = inlining.findInlined(expression);
+            if (method == null) {
+                return expression;
+            }
+            ExpressionDef returnedExpression = returnedExpression(method.getStatements());
+            if (returnedExpression == null) {
+                return expression;
+            }
+            Substitution substitution = new Substitution(this, method, values, new ArrayList<>());
+            return castIfNeeded(substitution.rewriteExpression(returnedExpression), method.getReturnType());
+        }
+
+        @Override
+        protected StatementDef visitStatement(StatementDef statement) {
+            if (statement instanceof ExpressionDef.InvokeInstanceMethod || statement instanceof ExpressionDef.InvokeStaticMethod) {
+                ExpressionDef invocation = (ExpressionDef) statement;
+                MethodDef method = inlining.findInlined(invocation);
+                if (method == null) {
+                    return statement;
+                }
+                List<StatementDef> statements = new ArrayList<>();
+                Substitution substitution = new Substitution(this, method, values(invocation), statements);
+                ExpressionDef returnedExpression = returnedExpression(method.getStatements());
+                if (returnedExpression != null) {
+                    if (!(returnedExpression instanceof StatementDef)) {
+                        // Only an invocation or an increment can be a statement
+                        return statement;
+                    }
+                    statements.add((StatementDef) substitution.rewriteExpression(returnedExpression));
+                } else {
+                    List<StatementDef> methodStatements = method.getStatements();
+                    for (StatementDef methodStatement : methodStatements) {
+                        if (!(methodStatement instanceof StatementDef.Return)) {
+                            statements.add(substitution.rewriteStatement(methodStatement));
+                        }
+                    }
+                }
+                return statements.size() == 1 ? statements.get(0) : new StatementDef.Multi(statements);
+            }
+            if (statement instanceof StatementDef.Return aReturn && aReturn.expression() != null) {
+                return inlineStatementExpression(statement, aReturn.expression(), StatementDef.Return::new);
+            }
+            if (statement instanceof StatementDef.Throw aThrow) {
+                return inlineStatementExpression(statement, aThrow.expression(), StatementDef.Throw::new);
+            }
+            if (statement instanceof StatementDef.DefineAndAssign defineAndAssign) {
+                return inlineStatementExpression(statement, defineAndAssign.expression(),
+                    expression -> new StatementDef.DefineAndAssign(defineAndAssign.variable(), expression));
+            }
+            if (statement instanceof StatementDef.Assign assign) {
+                return inlineStatementExpression(statement, assign.expression(),
+                    expression -> new StatementDef.Assign(assign.variable(), expression));
+            }
+            return statement;
+        }
+
+        /**
+         * Inline the invocation with the values that are assigned to the local variables before the statement.
+         * The invocation is the first evaluated expression of the statement, the order of evaluation is kept.
+         */
+        private StatementDef inlineStatementExpression(StatementDef statement,
+                                                       ExpressionDef expression,
+                                                       Function<ExpressionDef, StatementDef> statementFactory) {
+            if (!(expression instanceof ExpressionDef.InvokeInstanceMethod) && !(expression instanceof ExpressionDef.InvokeStaticMethod)) {
+                return statement;
+            }
+            MethodDef method = inlining.findInlined(expression);
+            if (method == null) {
+                return statement;
+            }
+            ExpressionDef returnedExpression = returnedExpression(method.getStatements());
+            if (returnedExpression == null) {
+                return statement;
+            }
+            List<StatementDef> statements = new ArrayList<>();
+            Substitution substitution = new Substitution(this, method, values(expression), statements);
+            ExpressionDef inlined = castIfNeeded(substitution.rewriteExpression(returnedExpression), method.getReturnType());
+            statements.add(statementFactory.apply(inlined));
+            return statements.size() == 1 ? statements.get(0) : new StatementDef.Multi(statements);
+        }
+
+        private VariableDef.Local newLocal(String name, TypeDef type) {
+            return new VariableDef.Local(name + "$inline" + localsCount++, type);
+        }
+
+        private static List<? extends ExpressionDef> values(ExpressionDef invocation) {
+            if (invocation instanceof ExpressionDef.InvokeInstanceMethod invokeInstanceMethod) {
+                return invokeInstanceMethod.values();
+            }
+            return ((ExpressionDef.InvokeStaticMethod) invocation).values();
+        }
+    }
+
+    /**
+     * The substitution of the parameters and the local variables of the inlined method.
+     */
+    private static final class Substitution extends ObjectDefRewriter {
+
+        private final MethodInliner methodInliner;
+        private final Map<String, ExpressionDef> parameters = new HashMap<>();
+        private final Map<String, String> locals = new HashMap<>();
+
+        /**
+         * @param methodInliner The method inliner
+         * @param method        The inlined method
+         * @param values        The invocation values
+         * @param statements    The statements to add the assignments of the values that aren't trivial
+         */
+        private Substitution(MethodInliner methodInliner, MethodDef method, List<? extends ExpressionDef> values, List<StatementDef> statements) {
+            this.methodInliner = methodInliner;
+            for (int i = 0; i < values.size(); i++) {
+                ParameterDef parameter = method.getParameters().get(i);
+                ExpressionDef value = castIfNeeded(values.get(i), parameter.getType());
+                if (!isTrivial(values.get(i))) {
+                    VariableDef.Local local = methodInliner.newLocal(parameter.getName(), parameter.getType());
+                    statements.add(new StatementDef.DefineAndAssign(local, value));
+                    value = local;
+                }
+                parameters.put(parameter.getName(), value);
+            }
+        }
+
+        @Override
+        protected ExpressionDef visitExpression(ExpressionDef expression) {
+            if (expression instanceof VariableDef.MethodParameter parameter) {
+                ExpressionDef value = parameters.get(parameter.name());
+                return value == null ? parameter : value;
+            }
+            if (expression instanceof VariableDef.Local local) {
+                return rename(local);
+            }
+            if (expression instanceof ExpressionDef.Increment increment) {
+                return renameIncrement(increment);
+            }
+            return expression;
+        }
+
+        @Override
+        protected StatementDef visitStatement(StatementDef statement) {
+            if (statement instanceof StatementDef.DefineAndAssign defineAndAssign) {
+                return new StatementDef.DefineAndAssign(rename(defineAndAssign.variable()), defineAndAssign.expression());
+            }
+            if (statement instanceof StatementDef.Assign assign) {
+                return new StatementDef.Assign(rename(assign.variable()), assign.expression());
+            }
+            if (statement instanceof StatementDef.ForEach forEach) {
+                return new StatementDef.ForEach(rename(forEach.variable()), forEach.iterable(), forEach.statement(), forEach.label());
+            }
+            if (statement instanceof StatementDef.TryWithResources tryWithResources) {
+                List<StatementDef.DefineAndAssign> resources = tryWithResources.resources().stream()
+                    .map(resource -> new StatementDef.DefineAndAssign(rename(resource.variable()), resource.expression()))
+                    .toList();
+                return new StatementDef.TryWithResources(resources, tryWithResources.statement());
+            }
+            if (statement instanceof StatementDef.CompoundAssign compoundAssign && compoundAssign.variable() instanceof VariableDef.Local local) {
+                return new StatementDef.CompoundAssign(rename(local), compoundAssign.opType(), compoundAssign.expression());
+            }
+            if (statement instanceof ExpressionDef.Increment increment) {
+                return renameIncrement(increment);
+            }
+            return statement;
+        }
+
+        private ExpressionDef.Increment renameIncrement(ExpressionDef.Increment increment) {
+            if (increment.variable() instanceof VariableDef.Local local) {
+                return new ExpressionDef.Increment(rename(local), increment.decrement(), increment.postfix());
+            }
+            return increment;
+        }
+
+        private VariableDef.Local rename(VariableDef.Local local) {
+            String name = locals.computeIfAbsent(local.name(), n -> methodInliner.newLocal(n, local.type()).name());
+            return new VariableDef.Local(name, local.type());
+        }
+    }
+
+    /**
+     * The finder of the return statements and of the labeled loops, the labels could clash with the labels of the caller.
+     */
+    private static final class ReturnFinder extends ObjectDefRewriter {
+
+        private boolean found;
+
+        @Override
+        protected StatementDef visitStatement(StatementDef statement) {
+            found |= statement instanceof StatementDef.Return
+                || statement instanceof StatementDef.For aFor && aFor.label() != null
+                || statement instanceof StatementDef.ForEach forEach && forEach.label() != null;
+            return statement;
+        }
+    }
+
+    /**
+     * The estimate of the bytecode size.
+     */
+    private static final class SizeEstimate extends ObjectDefRewriter {
+
+        private int size;
+
+        @Override
+        protected ExpressionDef visitExpression(ExpressionDef expression) {
+            if (expression instanceof VariableDef.Local
+                || expression instanceof VariableDef.MethodParameter
+                || expression instanceof VariableDef.This
+                || expression instanceof VariableDef.ExceptionVar) {
+                size += 1;
+            } else if (expression instanceof ExpressionDef.Constant) {
+                size += 2;
+            } else if (expression instanceof ExpressionDef.NewInstance) {
+                size += 7;
+            } else if (expression instanceof ExpressionDef.NewArrayInitialized newArray) {
+                size += 4 + 4 * newArray.expressions().size();
+            } else {
+                size += 3;
+            }
+            return expression;
+        }
+
+        @Override
+        protected StatementDef visitStatement(StatementDef statement) {
+            if (statement instanceof StatementDef.Multi) {
+                return statement;
+            }
+            if (statement instanceof StatementDef.Return
+                || statement instanceof StatementDef.Throw
+                || statement instanceof StatementDef.Assign
+                || statement instanceof StatementDef.DefineAndAssign) {
+                size += 1;
+            } else if (statement instanceof ExpressionDef.InvokeInstanceMethod || statement instanceof ExpressionDef.InvokeStaticMethod
+                || statement instanceof ExpressionDef.InvokeExact) {
+                // The invocation and the pop of the result
+                size += 4;
+            } else if (statement instanceof StatementDef.IfElse || statement instanceof StatementDef.While || statement instanceof StatementDef.For) {
+                size += 6;
+            } else if (statement instanceof StatementDef.ForEach) {
+                // The iterator or the indexed loop
+                size += 16;
+            } else if (statement instanceof StatementDef.Switch || statement instanceof StatementDef.Try || statement instanceof StatementDef.Synchronized) {
+                size += 12;
+            } else if (statement instanceof StatementDef.TryWithResources tryWithResources) {
+                // The close and the suppressed exceptions handler of every resource
+                size += 24 * tryWithResources.resources().size();
+            } else {
+                size += 3;
+            }
+            return statement;
+        }
+    }
+
+}
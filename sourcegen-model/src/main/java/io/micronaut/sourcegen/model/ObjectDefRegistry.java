@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.model;
+
+import io.micronaut.core.annotation.Experimental;
+import io.micronaut.core.annotation.NonNull;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of the emitted object definitions.
+ * A generator registers the definition before emitting it, and reuses the already emitted definition
+ * if a structurally identical one is registered.
+ *
+ * @since 1.5
+ */
+@Experimental
+public final class ObjectDefRegistry {
+
+    private final Map<ObjectDefStructure, ObjectDef> emitted = new ConcurrentHashMap<>();
+    private final boolean ignoreNames;
+
+    /**
+     * The registry comparing the definitions without the names.
+     */
+    public ObjectDefRegistry() {
+        this(true);
+    }
+
+    /**
+     * @param ignoreNames Whether the names of the definitions are ignored
+     */
+    public ObjectDefRegistry(boolean ignoreNames) {
+        this.ignoreNames = ignoreNames;
+    }
+
+    /**
+     * Register the object definition.
+     *
+     * @param objectDef The object definition
+     * @return The already registered identical definition or the given definition if it needs to be emitted
+     */
+    @NonNull
+    public ObjectDef register(@NonNull ObjectDef objectDef) {
+        ObjectDef existing = emitted.putIfAbsent(ObjectDefStructure.of(objectDef, ignoreNames), objectDef);
+        return existing == null ? objectDef : existing;
+    }
+
+    /**
+     * Find the registered identical definition.
+     *
+     * @param objectDef The object definition
+     * @return The registered definition
+     */
+    @NonNull
+    public Optional<ObjectDef> find(@NonNull ObjectDef objectDef) {
+        return Optional.ofNullable(emitted.get(ObjectDefStructure.of(objectDef, ignoreNames)));
+    }
+
+    /**
+     * @return The number of the registered definitions
+     */
+    public int size() {
+        return emitted.size();
+    }
+
+    /**
+     * Remove all the registered definitions, a new processing round doesn't share them.
+     */
+    public void clear() {
+        emitted.clear();
+    }
+
+}
@@ -0,0 +1,621 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.model;
+
+import io.micronaut.core.annotation.Experimental;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The structural rewriter of the object definition.
+ * The rewriter walks the statements and the expressions bottom-up, the children are rewritten before
+ * {@link #visitExpression(ExpressionDef)} or {@link #visitStatement(StatementDef)} is called with the parent.
+ * The sharing is preserved: the same instance is returned when nothing has changed.
+ * A rewriter that returns the visited element unchanged can be used as a visitor.
+ *
+ * <p>The method invocations in the statement position are only visited by {@link #visitStatement(StatementDef)}.
+ * The assignment targets are not visited, only their instance expressions are.</p>
+ *
+ * @since 1.5
+ */
+@Experimental
+public abstract class ObjectDefRewriter {
+
+    /**
+     * Visit the expression, the children of the expression are already rewritten.
+     *
+     * @param expression The expression
+     * @return The replacement or the same expression
+     */
+    @NonNull
+    protected ExpressionDef visitExpression(@NonNull ExpressionDef expression) {
+        return expression;
+    }
+
+    /**
+     * Visit the statement, the children of the statement are already rewritten.
+     *
+     * @param statement The statement
+     * @return The replacement or the same statement
+     */
+    @NonNull
+    protected StatementDef visitStatement(@NonNull StatementDef statement) {
+        return statement;
+    }
+
+    /**
+     * Visit the statements of a method or of a {@link StatementDef.Multi}, the statements are already rewritten.
+     *
+     * @param statements The statements
+     * @return The replacement or the same list
+     */
+    @NonNull
+    protected List<StatementDef> visitStatements(@NonNull List<StatementDef> statements) {
+        return statements;
+    }
+
+    /**
+     * Rewrite the object definition including the inner types.
+     *
+     * @param objectDef The object definition
+     * @return The rewritten object definition or the same instance if nothing has changed
+     */
+    @NonNull
+    public final ObjectDef rewrite(@NonNull ObjectDef objectDef) {
+        return rewrite(objectDef, this::rewrite);
+    }
+
+    /**
+     * Rewrite the object definition including the inner types, the method statements that are not built yet
+     * are rewritten when they are built. The rewriter should be stateless, it can be invoked later from any thread.
+     *
+     * @param objectDef The object definition
+     * @return The rewritten object definition or the same instance if nothing has changed
+     */
+    @NonNull
+    public final ObjectDef rewriteLazily(@NonNull ObjectDef objectDef) {
+        return rewrite(objectDef, this::rewriteLazily);
+    }
+
+    private ObjectDef rewrite(ObjectDef objectDef, ItemRewriter<MethodDef> methodRewriter) {
+        List<MethodDef> methods = rewriteList(objectDef.getMethods(), methodRewriter);
+        List<ObjectDef> innerTypes = rewriteList(objectDef.getInnerTypes(), innerType -> rewrite(innerType, methodRewriter));
+        if (objectDef instanceof ClassDef classDef) {
+            List<FieldDef> fields = rewriteList(classDef.getFields(), this::rewrite);
+            StatementDef staticInitializer = rewriteNullableStatement(classDef.getStaticInitializer());
+            if (methods == classDef.getMethods() && innerTypes == classDef.getInnerTypes()
+                && fields == classDef.getFields() && staticInitializer == classDef.getStaticInitializer()) {
+                return classDef;
+            }
+            return classDef.withMembers(fields, methods, innerTypes, staticInitializer);
+        }
+        if (objectDef instanceof EnumDef enumDef) {
+            List<FieldDef> fields = rewriteList(enumDef.getFields(), this::rewrite);
+            LinkedHashMap<String, List<ExpressionDef>> enumConstants = new LinkedHashMap<>();
+            boolean enumConstantsChanged = false;
+            for (Map.Entry<String, List<ExpressionDef>> e : enumDef.getEnumConstants().entrySet()) {
+                List<ExpressionDef> values = rewriteList(e.getValue(), this::rewriteExpression);
+                enumConstantsChanged |= values != e.getValue();
+                enumConstants.put(e.getKey(), values);
+            }
+            if (methods == enumDef.getMethods() && innerTypes == enumDef.getInnerTypes()
+                && fields == enumDef.getFields() && !enumConstantsChanged) {
+                return enumDef;
+            }
+            return enumDef.withMembers(fields, methods, innerTypes, enumConstantsChanged ? enumConstants : enumDef.getEnumConstants());
+        }
+        if (methods == objectDef.getMethods() && innerTypes == objectDef.getInnerTypes()) {
+            return objectDef;
+        }
+        if (objectDef instanceof RecordDef recordDef) {
+            return recordDef.withMembers(methods, innerTypes);
+        }
+        if (objectDef instanceof InterfaceDef interfaceDef) {
+            return interfaceDef.withMembers(methods, innerTypes);
+        }
+        throw new IllegalStateException("Unknown object definition: " + objectDef);
+    }
+
+    /**
+     * Rewrite the method statements.
+     *
+     * @param methodDef The method definition
+     * @return The rewritten method definition or the same instance if nothing has changed
+     */
+    @NonNull
+    public final MethodDef rewrite(@NonNull MethodDef methodDef) {
+        List<StatementDef> statements = methodDef.getStatements();
+        List<StatementDef> newStatements = visitStatements(rewriteList(statements, this::rewriteStatement));
+        if (newStatements == statements) {
+            return methodDef;
+        }
+        return methodDef.withStatements(newStatements);
+    }
+
+    private MethodDef rewriteLazily(MethodDef methodDef) {
+        if (methodDef.isStatementsBuilt()) {
+            return rewrite(methodDef);
+        }
+        return methodDef.withLazyStatements(() -> {
+            List<StatementDef> statements = methodDef.getStatements();
+            return Collections.unmodifiableList(visitStatements(rewriteList(statements, this::rewriteStatement)));
+        });
+    }
+
+    /**
+     * Rewrite the field initializer.
+     *
+     * @param fieldDef The field definition
+     * @return The rewritten field definition or the same instance if nothing has changed
+     */
+    @NonNull
+    public final FieldDef rewrite(@NonNull FieldDef fieldDef) {
+        ExpressionDef initializer = fieldDef.getInitializer().orElse(null);
+        if (initializer == null) {
+            return fieldDef;
+        }
+        ExpressionDef newInitializer = rewriteExpression(initializer);
+        if (newInitializer == initializer) {
+            return fieldDef;
+        }
+        return fieldDef.withInitializer(newInitializer);
+    }
+
+    /**
+     * Rewrite the statement.
+     *
+     * @param statement The statement
+     * @return The rewritten statement or the same instance if nothing has changed
+     */
+    @NonNull
+    public final StatementDef rewriteStatement(@NonNull StatementDef statement) {
+        return visitStatement(rewriteStatementChildren(statement));
+    }
+
+    /**
+     * Rewrite the expression.
+     *
+     * @param expression The expression
+     * @return The rewritten expression or the same instance if nothing has changed
+     */
+    @NonNull
+    public final ExpressionDef rewriteExpression(@NonNull ExpressionDef expression) {
+        return visitExpression(rewriteExpressionChildren(expression));
+    }
+
+    private StatementDef rewriteStatementChildren(StatementDef statement) {
+        if (statement instanceof StatementDef.Multi multi) {
+            List<StatementDef> statements = visitStatements(rewriteList(multi.statements(), this::rewriteStatement));
+            return statements == multi.statements() ? multi : new StatementDef.Multi(statements);
+        }
+        if (statement instanceof StatementDef.Throw aThrow) {
+            ExpressionDef expression = rewriteExpression(aThrow.expression());
+            return expression == aThrow.expression() ? aThrow : new StatementDef.Throw(expression);
+        }
+        if (statement instanceof StatementDef.Return aReturn) {
+            ExpressionDef expression = rewriteNullableExpression(aReturn.expression());
+            return expression == aReturn.expression() ? aReturn : new StatementDef.Return(expression);
+        }
+        if (statement instanceof StatementDef.Assign assign) {
+            ExpressionDef expression = rewriteExpression(assign.expression());
+            return expression == assign.expression() ? assign : new StatementDef.Assign(assign.variable(), expression);
+        }
+        if (statement instanceof StatementDef.PutField putField) {
+            VariableDef.Field field = rewriteField(putField.field());
+            ExpressionDef expression = rewriteExpression(putField.expression());
+            if (field == putField.field() && expression == putField.expression()) {
+                return putField;
+            }
+            return new StatementDef.PutField(field, expression);
+        }
+        if (statement instanceof StatementDef.PutStaticField putStaticField) {
+            ExpressionDef expression = rewriteExpression(putStaticField.expression());
+            return expression == putStaticField.expression() ? putStaticField : new StatementDef.PutStaticField(putStaticField.field(), expression);
+        }
+        if (statement instanceof StatementDef.DefineAndAssign defineAndAssign) {
+            ExpressionDef expression = rewriteExpression(defineAndAssign.expression());
+            return expression == defineAndAssign.expression() ? defineAndAssign : new StatementDef.DefineAndAssign(defineAndAssign.variable(), expression);
+        }
+        if (statement instanceof StatementDef.CompoundAssign compoundAssign) {
+            VariableDef variable = rewriteTarget(compoundAssign.variable());
+            ExpressionDef expression = rewriteExpression(compoundAssign.expression());
+            if (variable == compoundAssign.variable() && expression == compoundAssign.expression()) {
+                return compoundAssign;
+            }
+            // The statement casts the expression to the type of the variable
+            return new StatementDef.CompoundAssign(variable, compoundAssign.opType(), uncast(expression, variable.type()));
+        }
+        if (statement instanceof StatementDef.If anIf) {
+            ExpressionDef condition = rewriteExpression(anIf.condition());
+            StatementDef ifStatement = rewriteStatement(anIf.statement());
+            if (condition == anIf.condition() && ifStatement == anIf.statement()) {
+                return anIf;
+            }
+            return new StatementDef.If(condition, ifStatement);
+        }
+        if (statement instanceof StatementDef.IfElse ifElse) {
+            ExpressionDef condition = rewriteExpression(ifElse.condition());
+            StatementDef ifStatement = rewriteStatement(ifElse.statement());
+            StatementDef elseStatement = rewriteStatement(ifElse.elseStatement());
+            if (condition == ifElse.condition() && ifStatement == ifElse.statement() && elseStatement == ifElse.elseStatement()) {
+                return ifElse;
+            }
+            return new StatementDef.IfElse(condition, ifStatement, elseStatement);
+        }
+        if (statement instanceof StatementDef.Switch aSwitch) {
+            ExpressionDef expression = rewriteExpression(aSwitch.expression());
+            Map<ExpressionDef.Constant, StatementDef> cases = rewriteCases(aSwitch.cases(), this::rewriteStatement);
+            StatementDef defaultCase = rewriteNullableStatement(aSwitch.defaultCase());
+            if (expression == aSwitch.expression() && cases == aSwitch.cases() && defaultCase == aSwitch.defaultCase()) {
+                return aSwitch;
+            }
+            return new StatementDef.Switch(expression, aSwitch.type(), cases, defaultCase);
+        }
+        if (statement instanceof StatementDef.While aWhile) {
+            ExpressionDef expression = rewriteExpression(aWhile.expression());
+            StatementDef whileStatement = rewriteStatement(aWhile.statement());
+            if (expression == aWhile.expression() && whileStatement == aWhile.statement()) {
+                return aWhile;
+            }
+            return new StatementDef.While(expression, whileStatement);
+        }
+        if (statement instanceof StatementDef.For aFor) {
+            StatementDef initialization = rewriteNullableStatement(aFor.initialization());
+            ExpressionDef condition = rewriteNullableExpression(aFor.condition());
+            StatementDef update = rewriteNullableStatement(aFor.update());
+            StatementDef forStatement = rewriteStatement(aFor.statement());
+            if (initialization == aFor.initialization() && condition == aFor.condition()
+                && update == aFor.update() && forStatement == aFor.statement()) {
+                return aFor;
+            }
+            return new StatementDef.For(initialization, condition, update, forStatement, aFor.label());
+        }
+        if (statement instanceof StatementDef.ForEach forEach) {
+            ExpressionDef iterable = rewriteExpression(forEach.iterable());
+            StatementDef forEachStatement = rewriteStatement(forEach.statement());
+            if (iterable == forEach.iterable() && forEachStatement == forEach.statement()) {
+                return forEach;
+            }
+            return new StatementDef.ForEach(forEach.variable(), iterable, forEachStatement, forEach.label());
+        }
+        if (statement instanceof StatementDef.Break || statement instanceof StatementDef.Continue) {
+            return statement;
+        }
+        if (statement instanceof StatementDef.Try aTry) {
+            StatementDef tryStatement = rewriteStatement(aTry.statement());
+            List<StatementDef.Try.Catch> catches = rewriteList(aTry.catches(), aCatch -> {
+                StatementDef catchStatement = rewriteStatement(aCatch.statement());
+                return catchStatement == aCatch.statement() ? aCatch : new StatementDef.Try.Catch(aCatch.exception(), catchStatement);
+            });
+            StatementDef finallyStatement = rewriteNullableStatement(aTry.finallyStatement());
+            if (tryStatement == aTry.statement() && catches == aTry.catches() && finallyStatement == aTry.finallyStatement()) {
+                return aTry;
+            }
+            return new StatementDef.Try(tryStatement, catches, finallyStatement);
+        }
+        if (statement instanceof StatementDef.TryWithResources tryWithResources) {
+            List<StatementDef.DefineAndAssign> resources = rewriteList(tryWithResources.resources(), resource -> {
+                ExpressionDef expression = rewriteExpression(resource.expression());
+                return expression == resource.expression() ? resource : new StatementDef.DefineAndAssign(resource.variable(), expression);
+            });
+            StatementDef tryStatement = rewriteStatement(tryWithResources.statement());
+            if (resources == tryWithResources.resources() && tryStatement == tryWithResources.statement()) {
+                return tryWithResources;
+            }
+            return new StatementDef.TryWithResources(resources, tryStatement);
+        }
+        if (statement instanceof StatementDef.Synchronized aSynchronized) {
+            ExpressionDef monitor = rewriteExpression(aSynchronized.monitor());
+            StatementDef synchronizedStatement = rewriteStatement(aSynchronized.statement());
+            if (monitor == aSynchronized.monitor() && synchronizedStatement == aSynchronized.statement()) {
+                return aSynchronized;
+            }
+            return new StatementDef.Synchronized(monitor, synchronizedStatement, aSynchronized.useLock());
+        }
+        if (statement instanceof ExpressionDef.InvokeInstanceMethod || statement instanceof ExpressionDef.InvokeStaticMethod
+            || statement instanceof ExpressionDef.InvokeExact || statement instanceof ExpressionDef.Increment) {
+            return (StatementDef) rewriteExpressionChildren((ExpressionDef) statement);
+        }
+        throw new IllegalStateException("Unknown statement: " + statement);
+    }
+
+    private ExpressionDef rewriteExpressionChildren(ExpressionDef expression) {
+        if (expression instanceof ExpressionDef.Constant
+            || expression instanceof ExpressionDef.MethodHandleConstant
+            || expression instanceof ExpressionDef.NewArrayOfSize) {
+            return expression;
+        }
+        if (expression instanceof VariableDef variableDef) {
+            if (variableDef instanceof VariableDef.Field field) {
+                return rewriteField(field);
+            }
+            return variableDef;
+        }
+        if (expression instanceof ExpressionDef.Cast cast) {
+            ExpressionDef castExpression = rewriteExpression(cast.expressionDef());
+            return castExpression == cast.expressionDef() ? cast : new ExpressionDef.Cast(cast.type(), castExpression);
+        }
+        if (expression instanceof ExpressionDef.NewInstance newInstance) {
+            List<? extends ExpressionDef> values = rewriteList(newInstance.values(), this::rewriteExpression);
+            return values == newInstance.values() ? newInstance : new ExpressionDef.NewInstance(newInstance.type(), newInstance.parameterTypes(), values);
+        }
+        if (expression instanceof ExpressionDef.InvokeInstanceMethod invokeInstanceMethod) {
+            ExpressionDef instance = rewriteExpression(invokeInstanceMethod.instance());
+            List<? extends ExpressionDef> values = rewriteList(invokeInstanceMethod.values(), this::rewriteExpression);
+            if (instance == invokeInstanceMethod.instance() && values == invokeInstanceMethod.values()) {
+                return invokeInstanceMethod;
+            }
+            return new ExpressionDef.InvokeInstanceMethod(instance, invokeInstanceMethod.method(), invokeInstanceMethod.isDefault(), values);
+        }
+        if (expression instanceof ExpressionDef.InvokeStaticMethod invokeStaticMethod) {
+            List<? extends ExpressionDef> values = rewriteList(invokeStaticMethod.values(), this::rewriteExpression);
+            if (values == invokeStaticMethod.values()) {
+                return invokeStaticMethod;
+            }
+            return new ExpressionDef.InvokeStaticMethod(invokeStaticMethod.classDef(), invokeStaticMethod.method(), values);
+        }
+        if (expression instanceof ExpressionDef.InvokeExact invokeExact) {
+            ExpressionDef methodHandle = rewriteExpression(invokeExact.methodHandle());
+            List<? extends ExpressionDef> values = rewriteList(invokeExact.values(), this::rewriteExpression);
+            if (methodHandle == invokeExact.methodHandle() && values == invokeExact.values()) {
+                return invokeExact;
+            }
+            return new ExpressionDef.InvokeExact(methodHandle, invokeExact.parameterTypes(), invokeExact.returnType(), values);
+        }
+        if (expression instanceof ExpressionDef.MathBinaryOperation math) {
+            ExpressionDef left = rewriteExpression(math.left());
+            ExpressionDef right = rewriteExpression(math.right());
+            if (left == math.left() && right == math.right()) {
+                return math;
+            }
+            // The operation casts the right expression to the type of the left one
+            return new ExpressionDef.MathBinaryOperation(math.opType(), left, uncast(right, left.type()));
+        }
+        if (expression instanceof ExpressionDef.Increment increment) {
+            VariableDef variable = rewriteTarget(increment.variable());
+            return variable == increment.variable() ? increment : new ExpressionDef.Increment(variable, increment.decrement(), increment.postfix());
+        }
+        if (expression instanceof ExpressionDef.MathUnaryOperation math) {
+            ExpressionDef mathExpression = rewriteExpression(math.expression());
+            return mathExpression == math.expression() ? math : new ExpressionDef.MathUnaryOperation(math.opType(), mathExpression);
+        }
+        if (expression instanceof ExpressionDef.ComparisonOperation comparison) {
+            ExpressionDef left = rewriteExpression(comparison.left());
+            ExpressionDef right = rewriteExpression(comparison.right());
+            if (left == comparison.left() && right == comparison.right()) {
+                return comparison;
+            }
+            // The operation casts the right expression to the type of the left one
+            return new ExpressionDef.ComparisonOperation(comparison.opType(), left, uncast(right, left.type()));
+        }
+        if (expression instanceof ExpressionDef.IsNull isNull) {
+            ExpressionDef nullExpression = rewriteExpression(isNull.expression());
+            return nullExpression == isNull.expression() ? isNull : new ExpressionDef.IsNull(nullExpression);
+        }
+        if (expression instanceof ExpressionDef.IsNotNull isNotNull) {
+            ExpressionDef notNullExpression = rewriteExpression(isNotNull.expression());
+            return notNullExpression == isNotNull.expression() ? isNotNull : new ExpressionDef.IsNotNull(notNullExpression);
+        }
+        if (expression instanceof ExpressionDef.IsTrue isTrue) {
+            ExpressionDef trueExpression = rewriteExpression(isTrue.expression());
+            return trueExpression == isTrue.expression() ? isTrue : new ExpressionDef.IsTrue(trueExpression);
+        }
+        if (expression instanceof ExpressionDef.IsFalse isFalse) {
+            ExpressionDef falseExpression = rewriteExpression(isFalse.expression());
+            return falseExpression == isFalse.expression() ? isFalse : new ExpressionDef.IsFalse(falseExpression);
+        }
+        if (expression instanceof ExpressionDef.And and) {
+            ExpressionDef left = rewriteExpression(and.left());
+            ExpressionDef right = rewriteExpression(and.right());
+            if (left == and.left() && right == and.right()) {
+                return and;
+            }
+            return new ExpressionDef.And(asCondition(left), asCondition(right));
+        }
+        if (expression instanceof ExpressionDef.Or or) {
+            ExpressionDef left = rewriteExpression(or.left());
+            ExpressionDef right = rewriteExpression(or.right());
+            if (left == or.left() && right == or.right()) {
+                return or;
+            }
+            return new ExpressionDef.Or(asCondition(left), asCondition(right));
+        }
+        if (expression instanceof ExpressionDef.IfElse ifElse) {
+            ExpressionDef condition = rewriteExpression(ifElse.condition());
+            ExpressionDef ifExpression = rewriteExpression(ifElse.ifExpression());
+            ExpressionDef elseExpression = rewriteExpression(ifElse.elseExpression());
+            if (condition == ifElse.condition() && ifExpression == ifElse.ifExpression() && elseExpression == ifElse.elseExpression()) {
+                return ifElse;
+            }
+            return new ExpressionDef.IfElse(condition, ifExpression, elseExpression, ifElse.type());
+        }
+        if (expression instanceof ExpressionDef.Switch aSwitch) {
+            ExpressionDef switchExpression = rewriteExpression(aSwitch.expression());
+            Map<ExpressionDef.Constant, ? extends ExpressionDef> cases = rewriteCases(aSwitch.cases(), this::rewriteExpression);
+            ExpressionDef defaultCase = rewriteNullableExpression(aSwitch.defaultCase());
+            if (switchExpression == aSwitch.expression() && cases == aSwitch.cases() && defaultCase == aSwitch.defaultCase()) {
+                return aSwitch;
+            }
+            return new ExpressionDef.Switch(switchExpression, aSwitch.type(), cases, defaultCase);
+        }
+        if (expression instanceof ExpressionDef.SwitchYieldCase switchYieldCase) {
+            StatementDef statement = rewriteStatement(switchYieldCase.statement());
+            return statement == switchYieldCase.statement() ? switchYieldCase : new ExpressionDef.SwitchYieldCase(switchYieldCase.type(), statement);
+        }
+        if (expression instanceof ExpressionDef.NewArrayInitialized newArray) {
+            List<? extends ExpressionDef> expressions = rewriteList(newArray.expressions(), this::rewriteExpression);
+            return expressions == newArray.expressions() ? newArray : new ExpressionDef.NewArrayInitialized(newArray.type(), expressions);
+        }
+        if (expression instanceof ExpressionDef.GetPropertyValue getPropertyValue) {
+            ExpressionDef instance = rewriteExpression(getPropertyValue.instance());
+            if (instance == getPropertyValue.instance()) {
+                return getPropertyValue;
+            }
+            return new ExpressionDef.GetPropertyValue(instance, getPropertyValue.propertyElement(), getPropertyValue.type());
+        }
+        if (expression instanceof ExpressionDef.InvokeGetClassMethod invokeGetClassMethod) {
+            ExpressionDef instance = rewriteExpression(invokeGetClassMethod.instance());
+            return instance == invokeGetClassMethod.instance() ? invokeGetClassMethod : new ExpressionDef.InvokeGetClassMethod(instance);
+        }
+        if (expression instanceof ExpressionDef.InvokeHashCodeMethod invokeHashCodeMethod) {
+            ExpressionDef instance = rewriteExpression(invokeHashCodeMethod.instance());
+            return instance == invokeHashCodeMethod.instance() ? invokeHashCodeMethod : new ExpressionDef.InvokeHashCodeMethod(instance);
+        }
+        if (expression instanceof ExpressionDef.EqualsStructurally equals) {
+            ExpressionDef instance = rewriteExpression(equals.instance());
+            ExpressionDef other = rewriteExpression(equals.other());
+            if (instance == equals.instance() && other == equals.other()) {
+                return equals;
+            }
+            return new ExpressionDef.EqualsStructurally(instance, other);
+        }
+        if (expression instanceof ExpressionDef.NotEqualsStructurally notEquals) {
+            ExpressionDef instance = rewriteExpression(notEquals.instance());
+            ExpressionDef other = rewriteExpression(notEquals.other());
+            if (instance == notEquals.instance() && other == notEquals.other()) {
+                return notEquals;
+            }
+            return new ExpressionDef.NotEqualsStructurally(instance, other);
+        }
+        if (expression instanceof ExpressionDef.EqualsReferentially equals) {
+            ExpressionDef instance = rewriteExpression(equals.instance());
+            ExpressionDef other = rewriteExpression(equals.other());
+            if (instance == equals.instance() && other == equals.other()) {
+                return equals;
+            }
+            return new ExpressionDef.EqualsReferentially(instance, other);
+        }
+        if (expression instanceof ExpressionDef.NotEqualsReferentially notEquals) {
+            ExpressionDef instance = rewriteExpression(notEquals.instance());
+            ExpressionDef other = rewriteExpression(notEquals.other());
+            if (instance == notEquals.instance() && other == notEquals.other()) {
+                return notEquals;
+            }
+            return new ExpressionDef.NotEqualsReferentially(instance, other);
+        }
+        if (expression instanceof ExpressionDef.InstanceOf instanceOf) {
+            ExpressionDef instanceOfExpression = rewriteExpression(instanceOf.expression());
+            return instanceOfExpression == instanceOf.expression() ? instanceOf : new ExpressionDef.InstanceOf(instanceOfExpression, instanceOf.instanceType());
+        }
+        if (expression instanceof ExpressionDef.ArrayElement arrayElement) {
+            ExpressionDef array = rewriteExpression(arrayElement.expression());
+            ExpressionDef index = rewriteExpression(arrayElement.indexExpression());
+            if (array == arrayElement.expression() && index == arrayElement.indexExpression()) {
+                return arrayElement;
+            }
+            return new ExpressionDef.ArrayElement(array, arrayElement.type(), index);
+        }
+        if (expression instanceof ExpressionDef.ArrayLength arrayLength) {
+            ExpressionDef array = rewriteExpression(arrayLength.expression());
+            return array == arrayLength.expression() ? arrayLength : new ExpressionDef.ArrayLength(array);
+        }
+        throw new IllegalStateException("Unknown expression: " + expression);
+    }
+
+    private VariableDef.Field rewriteField(VariableDef.Field field) {
+        ExpressionDef instance = rewriteExpression(field.instance());
+        return instance == field.instance() ? field : new VariableDef.Field(instance, field.name(), field.type());
+    }
+
+    private VariableDef rewriteTarget(VariableDef variable) {
+        if (variable instanceof VariableDef.Field field) {
+            return rewriteField(field);
+        }
+        return variable;
+    }
+
+    @Nullable
+    private ExpressionDef rewriteNullableExpression(@Nullable ExpressionDef expression) {
+        return expression == null ? null : rewriteExpression(expression);
+    }
+
+    @Nullable
+    private StatementDef rewriteNullableStatement(@Nullable StatementDef statement) {
+        return statement == null ? null : rewriteStatement(statement);
+    }
+
+    private static ExpressionDef.ConditionExpressionDef asCondition(ExpressionDef expression) {
+        if (expression instanceof ExpressionDef.ConditionExpressionDef condition) {
+            return condition;
+        }
+        return expression.isTrue();
+    }
+
+    private static ExpressionDef uncast(ExpressionDef expression, TypeDef type) {
+        if (expression instanceof ExpressionDef.Cast cast && cast.type().equals(type)) {
+            return cast.expressionDef();
+        }
+        return expression;
+    }
+
+    /**
+     * Rewrite the items of the list.
+     *
+     * @param list     The list
+     * @param rewriter The item rewriter
+     * @param <T>      The item type
+     * @return The new list or the same list if no item has changed
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> rewriteList(List<? extends T> list, ItemRewriter<T> rewriter) {
+        List<T> result = null;
+        for (int i = 0; i < list.size(); i++) {
+            T item = list.get(i);
+            T newItem = rewriter.rewrite(item);
+            if (result == null && newItem != item) {
+                result = new ArrayList<>(list.size());
+                result.addAll(list.subList(0, i));
+            }
+            if (result != null) {
+                result.add(newItem);
+            }
+        }
+        // The unchanged list is only read
+        return result == null ? (List<T>) list : result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Map<ExpressionDef.Constant, T> rewriteCases(Map<ExpressionDef.Constant, ? extends T> cases, ItemRewriter<T> rewriter) {
+        Map<ExpressionDef.Constant, T> result = new LinkedHashMap<>();
+        boolean changed = false;
+        for (Map.Entry<ExpressionDef.Constant, ? extends T> e : cases.entrySet()) {
+            T value = e.getValue();
+            T newValue = value == null ? null : rewriter.rewrite(value);
+            changed |= newValue != value;
+            result.put(e.getKey(), newValue);
+        }
+        return changed ? result : (Map<ExpressionDef.Constant, T>) cases;
+    }
+
+    /**
+     * The item rewriter.
+     *
+     * @param <T> The item type
+     */
+    @FunctionalInterface
+    private interface ItemRewriter<T> {
+
+        T rewrite(T item);
+
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.model;
+
+import io.micronaut.core.annotation.Experimental;
+import io.micronaut.core.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * The structure of the object definition.
+ * Two structures are equal if the object definitions generate the same class, the members, the statements and the types are compared,
+ * the instances don't need to be shared.
+ * The structure can ignore the name of the definition, the references to the definition and to its inner types are compared without it.
+ *
+ * <p>The structure is computed from the {@link ObjectDefCodec} encoding, the referenced object definitions are compared by the name
+ * and the invoked methods by the signature.</p>
+ *
+ * @since 1.5
+ */
+@Experimental
+public final class ObjectDefStructure {
+
+    private final byte[] encoded;
+    private final int hashCode;
+
+    private ObjectDefStructure(byte[] encoded) {
+        this.encoded = encoded;
+        this.hashCode = Arrays.hashCode(encoded);
+    }
+
+    /**
+     * Compute the structure including the name.
+     *
+     * @param objectDef The object definition
+     * @return The structure
+     */
+    @NonNull
+    public static ObjectDefStructure of(@NonNull ObjectDef objectDef) {
+        return of(objectDef, false);
+    }
+
+    /**
+     * Compute the structure.
+     *
+     * @param objectDef   The object definition
+     * @param ignoreNames Whether the name of the definition is ignored
+     * @return The structure
+     */
+    @NonNull
+    public static ObjectDefStructure of(@NonNull ObjectDef objectDef, boolean ignoreNames) {
+        return new ObjectDefStructure(ObjectDefCodec.encodeStructure(objectDef, ignoreNames));
+    }
+
+    /**
+     * Compare the structure of the object definitions.
+     *
+     * @param objectDef1  The first object definition
+     * @param objectDef2  The second object definition
+     * @param ignoreNames Whether the names of the definitions are ignored
+     * @return true if both definitions generate the same class
+     */
+    public static boolean structurallyEquals(@NonNull ObjectDef objectDef1, @NonNull ObjectDef objectDef2, boolean ignoreNames) {
+        return objectDef1 == objectDef2 || of(objectDef1, ignoreNames).equals(of(objectDef2, ignoreNames));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof ObjectDefStructure that && hashCode == that.hashCode && Arrays.equals(encoded, that.encoded);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "ObjectDefStructure{size=" + encoded.length + ", hash=" + hashCode + '}';
+    }
+}
@@ -0,0 +1,483 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.model;
+
+import io.micronaut.core.annotation.Experimental;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+
+import javax.lang.model.element.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The structural validator of the object definition.
+ * The validator does a single pass over the object, its members and the method statements and reports
+ * the problems in terms of the model: incompatible assignments and returns, missing returns,
+ * duplicate locals and parameters, misplaced breaks and continues and illegal modifier combinations.
+ * The checks are conservative, only the cases that are known to fail at the compile or verify time are reported.
+ *
+ * @since 1.5
+ */
+@Experimental
+public final class ObjectDefValidator {
+
+    private final List<Problem> problems = new ArrayList<>();
+    private ObjectDef objectDef;
+    private MethodDef methodDef;
+    private final Set<String> locals = new HashSet<>();
+    private final Deque<String> localsStack = new ArrayDeque<>();
+    private final List<Target> targets = new ArrayList<>();
+
+    private ObjectDefValidator() {
+    }
+
+    /**
+     * Validate the object definition including the inner types.
+     *
+     * @param objectDef The object definition
+     * @return The problems found, empty if the object is valid
+     */
+    @NonNull
+    public static List<Problem> validate(@NonNull ObjectDef objectDef) {
+        ObjectDefValidator validator = new ObjectDefValidator();
+        validator.validateObject(objectDef);
+        return validator.problems;
+    }
+
+    /**
+     * Validate the object definition including the inner types.
+     *
+     * @param objectDef The object definition
+     * @throws IllegalStateException If there are problems found
+     */
+    public static void validateOrThrow(@NonNull ObjectDef objectDef) {
+        List<Problem> problems = validate(objectDef);
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Invalid definition of " + objectDef.getName() + ": "
+                + problems.stream().map(Problem::toString).collect(Collectors.joining(", ")));
+        }
+    }
+
+    private void validateObject(ObjectDef objectDef) {
+        this.objectDef = objectDef;
+        this.methodDef = null;
+        Set<Modifier> modifiers = objectDef.getModifiers();
+        validateAccessModifiers(objectDef, modifiers);
+        if (modifiers.contains(Modifier.ABSTRACT) && modifiers.contains(Modifier.FINAL)) {
+            report(objectDef, "Illegal combination of modifiers: abstract and final");
+        }
+        List<FieldDef> fields = List.of();
+        if (objectDef instanceof ClassDef classDef) {
+            fields = classDef.getFields();
+        } else if (objectDef instanceof EnumDef enumDef) {
+            fields = enumDef.getFields();
+        }
+        Set<String> fieldNames = new HashSet<>();
+        for (FieldDef field : fields) {
+            if (!fieldNames.add(field.getName())) {
+                report(field, "Duplicate field");
+            }
+            validateField(field);
+        }
+        for (MethodDef method : objectDef.getMethods()) {
+            validateMethod(method);
+        }
+        for (ObjectDef innerType : objectDef.getInnerTypes()) {
+            validateObject(innerType);
+        }
+    }
+
+    private void validateField(FieldDef field) {
+        Set<Modifier> modifiers = field.getModifiers();
+        validateAccessModifiers(field, modifiers);
+        if (modifiers.contains(Modifier.FINAL) && modifiers.contains(Modifier.VOLATILE)) {
+            report(field, "Illegal combination of modifiers: final and volatile");
+        }
+        field.getInitializer().ifPresent(initializer -> validateAssignment(field, field.getType(), initializer));
+    }
+
+    private void validateMethod(MethodDef method) {
+        this.methodDef = method;
+        Set<Modifier> modifiers = method.getModifiers();
+        validateAccessModifiers(method, modifiers);
+        boolean isAbstract = modifiers.contains(Modifier.ABSTRACT);
+        boolean isNative = modifiers.contains(Modifier.NATIVE);
+        if (isAbstract) {
+            for (Modifier modifier : List.of(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL, Modifier.NATIVE, Modifier.SYNCHRONIZED, Modifier.STRICTFP)) {
+                if (modifiers.contains(modifier)) {
+                    report(method, "Illegal combination of modifiers: abstract and " + modifier);
+                }
+            }
+            if (objectDef instanceof ClassDef && !objectDef.getModifiers().contains(Modifier.ABSTRACT)) {
+                report(method, "Abstract method in a non-abstract class");
+            }
+        }
+        List<StatementDef> statements = method.getStatements();
+        if ((isAbstract || isNative) && !statements.isEmpty()) {
+            report(method, (isAbstract ? "Abstract" : "Native") + " method cannot have a body");
+        }
+        boolean hasBody = !statements.isEmpty() || !isAbstract && !isNative && !(objectDef instanceof InterfaceDef);
+        if (hasBody
+            && !method.isConstructor()
+            && !method.getReturnType().equals(TypeDef.VOID)
+            && (statements.isEmpty() || !isTerminating(statements.get(statements.size() - 1)))) {
+            report(method, "Missing return statement");
+        }
+
+        locals.clear();
+        localsStack.clear();
+        targets.clear();
+        for (ParameterDef parameter : method.getParameters()) {
+            if (!locals.add(parameter.getName())) {
+                report(method, "Duplicate parameter: " + parameter.getName());
+            }
+        }
+        for (StatementDef statement : statements) {
+            validateStatement(statement);
+        }
+    }
+
+    private void validateStatement(StatementDef statement) {
+        if (statement instanceof StatementDef.Multi multi) {
+            for (StatementDef s : multi.statements()) {
+                validateStatement(s);
+            }
+        } else if (statement instanceof StatementDef.DefineAndAssign defineAndAssign) {
+            VariableDef.Local local = defineAndAssign.variable();
+            validateAssignment(methodDef, local.type(), defineAndAssign.expression());
+            defineLocal(local);
+        } else if (statement instanceof StatementDef.Assign assign) {
+            validateAssignment(methodDef, assign.variable().type(), assign.expression());
+        } else if (statement instanceof StatementDef.PutField putField) {
+            validateAssignment(methodDef, putField.field().type(), putField.expression());
+        } else if (statement instanceof StatementDef.PutStaticField putStaticField) {
+            validateAssignment(methodDef, putStaticField.field().type(), putStaticField.expression());
+        } else if (statement instanceof StatementDef.Return aReturn) {
+            validateReturn(aReturn);
+        } else if (statement instanceof StatementDef.If anIf) {
+            validateScoped(anIf.statement());
+        } else if (statement instanceof StatementDef.IfElse ifElse) {
+            validateScoped(ifElse.statement());
+            validateScoped(ifElse.elseStatement());
+        } else if (statement instanceof StatementDef.While aWhile) {
+            validateLoop(null, aWhile.statement());
+        } else if (statement instanceof StatementDef.For aFor) {
+            int scopeSize = localsStack.size();
+            if (aFor.initialization() != null) {
+                validateStatement(aFor.initialization());
+            }
+            validateLoop(aFor.label(), aFor.statement());
+            if (aFor.update() != null) {
+                validateScoped(aFor.update());
+            }
+            popLocals(scopeSize);
+        } else if (statement instanceof StatementDef.ForEach forEach) {
+            int scopeSize = localsStack.size();
+            defineLocal(forEach.variable());
+            validateLoop(forEach.label(), forEach.statement());
+            popLocals(scopeSize);
+        } else if (statement instanceof StatementDef.Break aBreak) {
+            validateJump("break", aBreak.label());
+        } else if (statement instanceof StatementDef.Continue aContinue) {
+            validateJump("continue", aContinue.label());
+        } else if (statement instanceof StatementDef.Switch aSwitch) {
+            targets.add(new Target(null, false));
+            for (StatementDef caseStatement : aSwitch.cases().values()) {
+                validateScoped(caseStatement);
+            }
+            if (aSwitch.defaultCase() != null) {
+                validateScoped(aSwitch.defaultCase());
+            }
+            targets.remove(targets.size() - 1);
+        } else if (statement instanceof StatementDef.Try aTry) {
+            validateScoped(aTry.statement());
+            for (StatementDef.Try.Catch aCatch : aTry.catches()) {
+                validateScoped(aCatch.statement());
+            }
+            if (aTry.finallyStatement() != null) {
+                validateScoped(aTry.finallyStatement());
+            }
+        } else if (statement instanceof StatementDef.TryWithResources tryWithResources) {
+            int scopeSize = localsStack.size();
+            for (StatementDef.DefineAndAssign resource : tryWithResources.resources()) {
+                validateStatement(resource);
+            }
+            validateScoped(tryWithResources.statement());
+            popLocals(scopeSize);
+        } else if (statement instanceof StatementDef.Synchronized aSynchronized) {
+            validateScoped(aSynchronized.statement());
+        }
+    }
+
+    private void validateScoped(StatementDef statement) {
+        int scopeSize = localsStack.size();
+        validateStatement(statement);
+        popLocals(scopeSize);
+    }
+
+    private void popLocals(int scopeSize) {
+        while (localsStack.size() > scopeSize) {
+            locals.remove(localsStack.pop());
+        }
+    }
+
+    private void defineLocal(VariableDef.Local local) {
+        if (locals.add(local.name())) {
+            localsStack.push(local.name());
+        } else {
+            report(methodDef, "Duplicate local: " + local.name());
+        }
+    }
+
+    private void validateLoop(@Nullable String label, StatementDef statement) {
+        if (label != null && targets.stream().anyMatch(target -> label.equals(target.label()))) {
+            report(methodDef, "Duplicate label: " + label);
+        }
+        targets.add(new Target(label, true));
+        validateScoped(statement);
+        targets.remove(targets.size() - 1);
+    }
+
+    private void validateJump(String jump, @Nullable String label) {
+        for (int i = targets.size() - 1; i >= 0; i--) {
+            Target target = targets.get(i);
+            if (label == null && !target.loop() && jump.equals("break")) {
+                // The break without a label leaves the switch
+                return;
+            }
+            if (target.loop() && (label == null || label.equals(target.label()))) {
+                return;
+            }
+        }
+        report(methodDef, label == null ? "The " + jump + " outside of a loop" : "Undefined label: " + label);
+    }
+
+    private void validateReturn(StatementDef.Return aReturn) {
+        TypeDef returnType = methodDef.getReturnType();
+        ExpressionDef expression = aReturn.expression();
+        boolean returnsVoid = expression == null || expression.type().equals(TypeDef.VOID);
+        if (returnsVoid) {
+            if (!returnType.equals(TypeDef.VOID)) {
+                report(methodDef, "The return expression returns VOID but the method returns " + returnType);
+            }
+        } else if (returnType.equals(TypeDef.VOID)) {
+            report(methodDef, "The return expression returns " + expression.type() + " but the method returns VOID");
+        } else {
+            validateAssignment(methodDef, returnType, expression);
+        }
+    }
+
+    private void validateAssignment(AbstractElement element, TypeDef target, ExpressionDef expression) {
+        TypeDef source = unwrap(expression.type());
+        target = unwrap(target);
+        if (source.equals(TypeDef.VOID)) {
+            report(element, "Cannot assign VOID expression to " + target);
+            return;
+        }
+        if (target instanceof TypeDef.Primitive targetPrimitive) {
+            if (expression instanceof ExpressionDef.Constant constant && constant.value() == null) {
+                report(element, "Cannot assign null to " + target);
+            } else if (source instanceof TypeDef.Primitive sourcePrimitive
+                && targetPrimitive.equals(TypeDef.Primitive.BOOLEAN) != sourcePrimitive.equals(TypeDef.Primitive.BOOLEAN)) {
+                report(element, "Incompatible types: " + source + " cannot be converted to " + target);
+            } else if (source instanceof TypeDef.Array) {
+                report(element, "Incompatible types: " + source + " cannot be converted to " + target);
+            }
+        } else if (target instanceof TypeDef.Array targetArray) {
+            if (source instanceof TypeDef.Primitive) {
+                report(element, "Incompatible types: " + source + " cannot be converted to " + target);
+            } else if (source instanceof TypeDef.Array sourceArray
+                && (targetArray.componentType().isPrimitive() || sourceArray.componentType().isPrimitive())
+                && (targetArray.dimensions() != sourceArray.dimensions() || !targetArray.componentType().equals(sourceArray.componentType()))) {
+                report(element, "Incompatible types: " + source + " cannot be converted to " + target);
+            }
+        }
+    }
+
+    private static TypeDef unwrap(TypeDef typeDef) {
+        if (typeDef instanceof TypeDef.AnnotatedTypeDef annotatedTypeDef) {
+            return unwrap(annotatedTypeDef.typeDef());
+        }
+        if (typeDef instanceof ClassTypeDef.AnnotatedClassTypeDef annotatedClassTypeDef) {
+            return annotatedClassTypeDef.typeDef();
+        }
+        return typeDef;
+    }
+
+    private void validateAccessModifiers(AbstractElement element, Set<Modifier> modifiers) {
+        int count = 0;
+        for (Modifier modifier : List.of(Modifier.PUBLIC, Modifier.PROTECTED, Modifier.PRIVATE)) {
+            if (modifiers.contains(modifier)) {
+                count++;
+            }
+        }
+        if (count > 1) {
+            report(element, "Illegal combination of access modifiers: " + modifiers);
+        }
+    }
+
+    /**
+     * Is the statement not completing normally: it ends with a return, a throw,
+     * or an infinite loop that no break leaves, the code following the statement isn't reachable.
+     *
+     * @param statement The statement
+     * @return true if the statement doesn't complete normally
+     * @since 1.5
+     */
+    public static boolean isTerminating(@NonNull StatementDef statement) {
+        List<StatementDef> statements = statement.flatten();
+        if (statements.isEmpty()) {
+            return false;
+        }
+        StatementDef statementDef = statements.get(statements.size() - 1);
+        if (statementDef instanceof StatementDef.IfElse ifElse) {
+            return isTerminating(ifElse.statement()) && isTerminating(ifElse.elseStatement());
+        }
+        if (statementDef instanceof StatementDef.Try aTry) {
+            return isTerminating(aTry.statement());
+        }
+        if (statementDef instanceof StatementDef.Synchronized aSynchronized) {
+            return isTerminating(aSynchronized.statement());
+        }
+        if (statementDef instanceof StatementDef.TryWithResources tryWithResources) {
+            return isTerminating(tryWithResources.statement());
+        }
+        if (statementDef instanceof StatementDef.Switch switchStatement) {
+            if (switchStatement.defaultCase() == null) {
+                return false;
+            }
+            for (Map.Entry<ExpressionDef.Constant, StatementDef> e : switchStatement.cases().entrySet()) {
+                if (!isTerminating(e.getValue()) || hasBreak(e.getValue(), null, false)) {
+                    return false;
+                }
+            }
+            return isTerminating(switchStatement.defaultCase()) && !hasBreak(switchStatement.defaultCase(), null, false);
+        }
+        if (statementDef instanceof StatementDef.While aWhile) {
+            return isConstantTrue(aWhile.expression()) && !hasBreak(aWhile.statement(), null, false);
+        }
+        if (statementDef instanceof StatementDef.For aFor) {
+            return (aFor.condition() == null || isConstantTrue(aFor.condition())) && !hasBreak(aFor.statement(), aFor.label(), false);
+        }
+        return statementDef instanceof StatementDef.Return || statementDef instanceof StatementDef.Throw;
+    }
+
+    /**
+     * Is the expression the constant {@code true}, a loop with the condition only ends with a jump.
+     *
+     * @param expression The expression
+     * @return true if the expression is the constant true
+     * @since 1.5
+     */
+    public static boolean isConstantTrue(@NonNull ExpressionDef expression) {
+        return expression instanceof ExpressionDef.Constant constant && Boolean.TRUE.equals(constant.value());
+    }
+
+    /**
+     * Is there a break leaving the statement.
+     *
+     * @param statement The statement
+     * @param label     The label of the statement or null
+     * @param nested    Is the statement nested in a loop or a switch, the breaks without a label leave that one
+     * @return true if a break leaves the statement
+     */
+    private static boolean hasBreak(@Nullable StatementDef statement, @Nullable String label, boolean nested) {
+        if (statement == null) {
+            return false;
+        }
+        if (statement instanceof StatementDef.Break aBreak) {
+            return aBreak.label() == null ? !nested : aBreak.label().equals(label);
+        }
+        if (statement instanceof StatementDef.Multi multi) {
+            return multi.statements().stream().anyMatch(s -> hasBreak(s, label, nested));
+        }
+        if (statement instanceof StatementDef.If anIf) {
+            return hasBreak(anIf.statement(), label, nested);
+        }
+        if (statement instanceof StatementDef.IfElse ifElse) {
+            return hasBreak(ifElse.statement(), label, nested) || hasBreak(ifElse.elseStatement(), label, nested);
+        }
+        if (statement instanceof StatementDef.While aWhile) {
+            return hasBreak(aWhile.statement(), label, true);
+        }
+        if (statement instanceof StatementDef.For aFor) {
+            return hasBreak(aFor.statement(), label, true);
+        }
+        if (statement instanceof StatementDef.ForEach forEach) {
+            return hasBreak(forEach.statement(), label, true);
+        }
+        if (statement instanceof StatementDef.Switch aSwitch) {
+            return aSwitch.cases().values().stream().anyMatch(s -> hasBreak(s, label, true))
+                || hasBreak(aSwitch.defaultCase(), label, true);
+        }
+        if (statement instanceof StatementDef.Try aTry) {
+            return hasBreak(aTry.statement(), label, nested)
+                || aTry.catches().stream().anyMatch(aCatch -> hasBreak(aCatch.statement(), label, nested))
+                || hasBreak(aTry.finallyStatement(), label, nested);
+        }
+        if (statement instanceof StatementDef.TryWithResources tryWithResources) {
+            return hasBreak(tryWithResources.statement(), label, nested);
+        }
+        if (statement instanceof StatementDef.Synchronized aSynchronized) {
+            return hasBreak(aSynchronized.statement(), label, nested);
+        }
+        return false;
+    }
+
+    /**
+     * The target of a break or a continue.
+     *
+     * @param label The label or null
+     * @param loop  Is the target a loop, or a switch
+     */
+    private record Target(@Nullable String label, boolean loop) {
+    }
+
+    private void report(AbstractElement element, String message) {
+        problems.add(new Problem(objectDef, element == objectDef ? null : element, message));
+    }
+
+    /**
+     * The validation problem.
+     *
+     * @param objectDef The object definition
+     * @param element   The member element or null if the problem is related to the object itself
+     * @param message   The message
+     * @since 1.5
+     */
+    @Experimental
+    public record Problem(@NonNull ObjectDef objectDef,
+                          @Nullable AbstractElement element,
+                          @NonNull String message) {
+
+        @Override
+        public String toString() {
+            if (element == null) {
+                return objectDef.getName() + ": " + message;
+            }
+            String kind = element instanceof MethodDef ? "method" : "field";
+            return objectDef.getName() + " " + kind + " " + element.getName() + ": " + message;
+        }
+    }
+
+}
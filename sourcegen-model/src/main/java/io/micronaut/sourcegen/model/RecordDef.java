@@ -52,6 +52,10 @@ public final class RecordDef extends ObjectDef {
         return new RecordDef(className, modifiers, methods, properties, annotations, javadoc, typeVariables, superinterfaces, innerTypes, synthetic);
     }
 
+    RecordDef withMembers(List<MethodDef> methods, List<ObjectDef> innerTypes) {
+        return new RecordDef(className, modifiers, methods, properties, annotations, javadoc, typeVariables, superinterfaces, innerTypes, synthetic);
+    }
+
     public static RecordDefBuilder builder(String name) {
         return new RecordDefBuilder(name);
     }
@@ -32,7 +32,7 @@ import java.util.function.Function;
  * @since 1.0
  */
 @Experimental
-public sealed interface StatementDef permits ExpressionDef.InvokeInstanceMethod, ExpressionDef.InvokeStaticMethod, StatementDef.Assign, StatementDef.DefineAndAssign, StatementDef.If, StatementDef.IfElse, StatementDef.Multi, StatementDef.PutField, StatementDef.PutStaticField, StatementDef.Return, StatementDef.Switch, StatementDef.Synchronized, StatementDef.Throw, StatementDef.Try, StatementDef.While {
+public sealed interface StatementDef permits ExpressionDef.Increment, ExpressionDef.InvokeExact, ExpressionDef.InvokeInstanceMethod, ExpressionDef.InvokeStaticMethod, StatementDef.Assign, StatementDef.CompoundAssign, StatementDef.DefineAndAssign, StatementDef.If, StatementDef.IfElse, StatementDef.Multi, StatementDef.PutField, StatementDef.PutStaticField, StatementDef.Return, StatementDef.Switch, StatementDef.Synchronized, StatementDef.Throw, StatementDef.Try, StatementDef.TryWithResources, StatementDef.While, StatementDef.For, StatementDef.ForEach, StatementDef.Break, StatementDef.Continue {
 
     /**
      * The helper method to turn this statement into a multi statement.
@@ -76,6 +76,18 @@ public sealed interface StatementDef permits ExpressionDef.InvokeInstanceMethod,
         return new Try(statement);
     }
 
+    /**
+     * Try-with-resources statement.
+     *
+     * @param resource  The resource to close
+     * @param statement The statement to try
+     * @return The try-with-resources statement
+     * @since 1.5
+     */
+    static TryWithResources doTryWithResources(DefineAndAssign resource, StatementDef statement) {
+        return new TryWithResources(List.of(resource), statement);
+    }
+
     /**
      * The multi line statement.
      *
@@ -206,6 +218,37 @@ public sealed interface StatementDef permits ExpressionDef.InvokeInstanceMethod,
                            ExpressionDef expression) implements StatementDef {
     }
 
+    /**
+     * The compound assignment statement: {@code variable op= expression}.
+     * The expression is cast to the type of the variable the same way as the right side of {@link ExpressionDef.MathBinaryOperation}.
+     *
+     * @param variable   The local variable, field or static field
+     * @param opType     The operation
+     * @param expression The expression
+     * @author Denis Stepanov
+     * @since 1.5
+     */
+    @Experimental
+    record CompoundAssign(VariableDef variable,
+                          ExpressionDef.MathBinaryOperation.OpType opType,
+                          ExpressionDef expression) implements StatementDef {
+
+        public CompoundAssign {
+            if (!(variable instanceof VariableDef.Local || variable instanceof VariableDef.Field || variable instanceof VariableDef.StaticField)) {
+                throw new IllegalStateException("Only a local variable or a field can be compound assigned: " + variable);
+            }
+            if (!(variable.type() instanceof TypeDef.Primitive primitive) || !primitive.isNumber()) {
+                throw new IllegalStateException("Compound assigned variable should be a primitive number: " + variable.type());
+            }
+            if (!(expression.type() instanceof TypeDef.Primitive expressionPrimitive) || !expressionPrimitive.isNumber()) {
+                throw new IllegalStateException("Compound assigned expression should be a primitive number: " + expression.type());
+            }
+            if (!expression.type().equals(variable.type())) {
+                expression = expression.cast(variable.type());
+            }
+        }
+    }
+
     /**
      * The if statement.
      *
@@ -256,6 +299,101 @@ public sealed interface StatementDef permits ExpressionDef.InvokeInstanceMethod,
     record While(ExpressionDef expression, StatementDef statement) implements StatementDef {
     }
 
+    /**
+     * The for statement.
+     * The locals defined by the initialization are only visible in the loop.
+     *
+     * @param initialization The initialization statement or null
+     * @param condition      The condition or null if the loop is only left by a break or a return
+     * @param update         The statement executed after every iteration or null
+     * @param statement      The loop statement
+     * @param label          The label of the loop or null
+     * @since 1.5
+     */
+    @Experimental
+    record For(@Nullable StatementDef initialization,
+               @Nullable ExpressionDef condition,
+               @Nullable StatementDef update,
+               StatementDef statement,
+               @Nullable String label) implements StatementDef {
+
+        public For(@Nullable StatementDef initialization,
+                   @Nullable ExpressionDef condition,
+                   @Nullable StatementDef update,
+                   StatementDef statement) {
+            this(initialization, condition, update, statement, null);
+        }
+
+        /**
+         * Label the loop.
+         *
+         * @param label The label
+         * @return The labeled loop
+         */
+        public For labeled(String label) {
+            return new For(initialization, condition, update, statement, label);
+        }
+    }
+
+    /**
+     * The for-each statement.
+     * An array and a {@link java.util.RandomAccess} list are iterated by the index, other iterables by the iterator.
+     *
+     * @param variable  The local variable of the element
+     * @param iterable  The array or the {@link Iterable} expression
+     * @param statement The loop statement
+     * @param label     The label of the loop or null
+     * @since 1.5
+     */
+    @Experimental
+    record ForEach(VariableDef.Local variable,
+                   ExpressionDef iterable,
+                   StatementDef statement,
+                   @Nullable String label) implements StatementDef {
+
+        public ForEach(VariableDef.Local variable, ExpressionDef iterable, StatementDef statement) {
+            this(variable, iterable, statement, null);
+        }
+
+        /**
+         * Label the loop.
+         *
+         * @param label The label
+         * @return The labeled loop
+         */
+        public ForEach labeled(String label) {
+            return new ForEach(variable, iterable, statement, label);
+        }
+    }
+
+    /**
+     * The break statement.
+     *
+     * @param label The label of the loop or null for the innermost loop
+     * @since 1.5
+     */
+    @Experimental
+    record Break(@Nullable String label) implements StatementDef {
+
+        public Break() {
+            this(null);
+        }
+    }
+
+    /**
+     * The continue statement.
+     *
+     * @param label The label of the loop or null for the innermost loop
+     * @since 1.5
+     */
+    @Experimental
+    record Continue(@Nullable String label) implements StatementDef {
+
+        public Continue() {
+            this(null);
+        }
+    }
+
     /**
      * The try statement.
      *
@@ -308,13 +446,66 @@ public sealed interface StatementDef permits ExpressionDef.InvokeInstanceMethod,
 
     /**
      * The synchronized statement.
+     * If {@code useLock} is enabled the monitor is expected to be a {@link java.util.concurrent.locks.Lock}
+     * and the statement is guarded with {@code lock()}/{@code unlock()} in a try/finally block
+     * instead of the monitor enter/exit, which doesn't pin virtual threads.
      *
      * @param monitor   The monitor
      * @param statement The statement to be synchronized
+     * @param useLock   Use the lock instead of the monitor
      * @since 1.5
      */
     @Experimental
-    record Synchronized(ExpressionDef monitor, StatementDef statement) implements StatementDef {
+    record Synchronized(ExpressionDef monitor, StatementDef statement, boolean useLock) implements StatementDef {
+
+        public Synchronized(ExpressionDef monitor, StatementDef statement) {
+            this(monitor, statement, false);
+        }
+
+        public Synchronized {
+            if (useLock && monitor.type().isPrimitive()) {
+                throw new IllegalStateException("Expected a lock got: " + monitor.type());
+            }
+        }
+
+        /**
+         * Guard the statement with a {@link java.util.concurrent.locks.Lock}.
+         *
+         * @param lock      The lock expression
+         * @param statement The statement
+         * @return The synchronized statement
+         * @since 1.5
+         */
+        public static Synchronized withLock(ExpressionDef lock, StatementDef statement) {
+            return new Synchronized(lock, statement, true);
+        }
+    }
+
+    /**
+     * The try-with-resources statement.
+     * The resources are closed in the reverse order after the statement completes,
+     * the exceptions thrown by closing the resources after a failure are added as suppressed.
+     * The catches and the finally statement can be added by wrapping the statement in {@link Try}.
+     *
+     * @param resources The resources definitions, the type of the resource should be {@link AutoCloseable}
+     * @param statement The statement
+     * @author Denis Stepanov
+     * @since 1.5
+     */
+    @Experimental
+    record TryWithResources(List<DefineAndAssign> resources,
+                            StatementDef statement) implements StatementDef {
+
+        public TryWithResources {
+            if (resources.isEmpty()) {
+                throw new IllegalStateException("Try-with-resources requires at least one resource");
+            }
+            for (DefineAndAssign resource : resources) {
+                if (!(resource.variable().type() instanceof ClassTypeDef)) {
+                    throw new IllegalStateException("The resource " + resource.variable().name() + " should be an AutoCloseable object, found: " + resource.variable().type());
+                }
+            }
+        }
     }
 
 }
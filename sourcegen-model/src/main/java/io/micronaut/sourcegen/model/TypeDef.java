@@ -88,7 +88,7 @@ public sealed interface TypeDef permits ClassTypeDef, TypeDef.Annotated, TypeDef
      * @since 1.5
      */
     default TypeDef.Array array() {
-        return new TypeDef.Array(this, 1, false);
+        return TypeDefInterner.intern(new TypeDef.Array(this, 1, false));
     }
 
     /**
@@ -99,7 +99,7 @@ public sealed interface TypeDef permits ClassTypeDef, TypeDef.Annotated, TypeDef
      * @since 1.5
      */
     default TypeDef.Array array(int dimension) {
-        return new TypeDef.Array(this, dimension, false);
+        return TypeDefInterner.intern(new TypeDef.Array(this, dimension, false));
     }
 
     /**
@@ -179,33 +179,22 @@ public sealed interface TypeDef permits ClassTypeDef, TypeDef.Annotated, TypeDef
     }
 
     static Array array(TypeDef componentType) {
-        return new Array(componentType, 1, false);
+        return TypeDefInterner.intern(new Array(componentType, 1, false));
     }
 
     static Array array(TypeDef componentType, int dimensions) {
-        return new Array(componentType, dimensions, false);
+        return TypeDefInterner.intern(new Array(componentType, dimensions, false));
     }
 
     /**
      * Creates a new type.
+     * The type definitions of classes are shared.
      *
      * @param type The type
      * @return a new type definition
      */
     static TypeDef of(Class<?> type) {
-        if (type.isPrimitive()) {
-            return primitive(type);
-        }
-        if (type.isArray()) {
-            Class<?> componentType = type.getComponentType();
-            int dimensions = 1;
-            while (componentType.isArray()) {
-                componentType = componentType.getComponentType();
-                dimensions++;
-            }
-            return new Array(TypeDef.of(componentType), dimensions, false);
-        }
-        return ClassTypeDef.of(type);
+        return TypeDefInterner.typeOf(type);
     }
 
     /**
@@ -260,7 +249,7 @@ public sealed interface TypeDef permits ClassTypeDef, TypeDef.Annotated, TypeDef
      * @return a new type definition
      */
     static ClassTypeDef parameterized(ClassTypeDef type, List<TypeDef> genericParameters) {
-        return new ClassTypeDef.Parameterized(type, genericParameters);
+        return TypeDefInterner.intern(new ClassTypeDef.Parameterized(type, genericParameters));
     }
 
     /**
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.model;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The interner of the immutable type definitions.
+ * The types created from a {@link Class} are cached for the lifetime of the class,
+ * the other immutable types are kept only while they are referenced by the model,
+ * which limits them to the processing round that created them.
+ * The types referencing the compilation elements are never interned, the elements are not shared between the rounds.
+ *
+ * @since 1.5
+ */
+final class TypeDefInterner {
+
+    private static final ClassValue<ClassTypeDef.JavaClass> JAVA_CLASSES = new ClassValue<>() {
+        @Override
+        protected ClassTypeDef.JavaClass computeValue(Class<?> type) {
+            return new ClassTypeDef.JavaClass(type, false);
+        }
+    };
+
+    private static final ClassValue<ClassTypeDef.JavaClass> NULLABLE_JAVA_CLASSES = new ClassValue<>() {
+        @Override
+        protected ClassTypeDef.JavaClass computeValue(Class<?> type) {
+            return new ClassTypeDef.JavaClass(type, true);
+        }
+    };
+
+    private static final ClassValue<TypeDef> TYPES_OF_CLASSES = new ClassValue<>() {
+        @Override
+        protected TypeDef computeValue(Class<?> type) {
+            if (type.isPrimitive()) {
+                return TypeDef.primitive(type.getName());
+            }
+            if (type.isArray()) {
+                Class<?> componentType = type.getComponentType();
+                int dimensions = 1;
+                while (componentType.isArray()) {
+                    componentType = componentType.getComponentType();
+                    dimensions++;
+                }
+                return intern(new TypeDef.Array(typeOf(componentType), dimensions, false));
+            }
+            return javaClass(type);
+        }
+    };
+
+    private static final Map<String, WeakReference<ClassTypeDef.ClassName>> CLASS_NAMES = new WeakHashMap<>();
+    private static final Map<String, WeakReference<ClassTypeDef.ClassName>> INNER_CLASS_NAMES = new WeakHashMap<>();
+    private static final Map<TypeDef, WeakReference<TypeDef>> TYPES = new WeakHashMap<>();
+
+    private TypeDefInterner() {
+    }
+
+    /**
+     * @param type The class
+     * @return The shared type definition of the class
+     */
+    static TypeDef typeOf(Class<?> type) {
+        return TYPES_OF_CLASSES.get(type);
+    }
+
+    /**
+     * @param type     The class
+     * @param nullable Is nullable
+     * @return The shared class type definition
+     */
+    static ClassTypeDef.JavaClass javaClass(Class<?> type, boolean nullable) {
+        return nullable ? NULLABLE_JAVA_CLASSES.get(type) : JAVA_CLASSES.get(type);
+    }
+
+    /**
+     * @param type The class
+     * @return The shared class type definition
+     */
+    static ClassTypeDef.JavaClass javaClass(Class<?> type) {
+        return JAVA_CLASSES.get(type);
+    }
+
+    /**
+     * @param name    The class name
+     * @param isInner Is inner class
+     * @return The shared class type definition
+     */
+    static ClassTypeDef.ClassName className(String name, boolean isInner) {
+        // The class name equality ignores the inner flag, the inner types are kept separately
+        Map<String, WeakReference<ClassTypeDef.ClassName>> classNames = isInner ? INNER_CLASS_NAMES : CLASS_NAMES;
+        synchronized (classNames) {
+            WeakReference<ClassTypeDef.ClassName> reference = classNames.get(name);
+            ClassTypeDef.ClassName className = reference == null ? null : reference.get();
+            if (className == null) {
+                className = new ClassTypeDef.ClassName(name, isInner, false);
+                // The entry is kept while the type, referencing the key, is reachable
+                classNames.put(className.name(), new WeakReference<>(className));
+            }
+            return className;
+        }
+    }
+
+    /**
+     * Intern the type definition if it's built only of the classes, the primitives and the arrays.
+     *
+     * @param typeDef The type definition
+     * @param <T>     The type definition type
+     * @return The shared type definition or the given one if it cannot be interned
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends TypeDef> T intern(T typeDef) {
+        if (!isInternable(typeDef)) {
+            return typeDef;
+        }
+        synchronized (TYPES) {
+            WeakReference<TypeDef> reference = TYPES.get(typeDef);
+            TypeDef interned = reference == null ? null : reference.get();
+            if (interned != null && interned.getClass() == typeDef.getClass()) {
+                return (T) interned;
+            }
+            TYPES.put(typeDef, new WeakReference<>(typeDef));
+            return typeDef;
+        }
+    }
+
+    private static boolean isInternable(TypeDef typeDef) {
+        if (typeDef instanceof TypeDef.Primitive || typeDef instanceof ClassTypeDef.JavaClass) {
+            return true;
+        }
+        if (typeDef instanceof TypeDef.Array array) {
+            return isInternable(array.componentType());
+        }
+        if (typeDef instanceof ClassTypeDef.Parameterized parameterized) {
+            if (!isInternable(parameterized.rawType())) {
+                return false;
+            }
+            for (TypeDef typeArgument : parameterized.typeArguments()) {
+                if (!isInternable(typeArgument)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+}
@@ -46,6 +46,58 @@ public sealed interface VariableDef extends ExpressionDef permits VariableDef.Ex
         return assign(new MethodParameter(parameterDef.getName(), parameterDef.getType()));
     }
 
+    /**
+     * The compound assignment of this variable: {@code this op= expression}.
+     *
+     * @param opType     The operation
+     * @param expression The expression
+     * @return The statement
+     * @since 1.5
+     */
+    default StatementDef.CompoundAssign compoundAssign(ExpressionDef.MathBinaryOperation.OpType opType, ExpressionDef expression) {
+        return new StatementDef.CompoundAssign(this, opType, expression);
+    }
+
+    /**
+     * The prefix increment: {@code ++this}.
+     *
+     * @return The increment expression
+     * @since 1.5
+     */
+    default ExpressionDef.Increment increment() {
+        return new ExpressionDef.Increment(this, false, false);
+    }
+
+    /**
+     * The prefix decrement: {@code --this}.
+     *
+     * @return The decrement expression
+     * @since 1.5
+     */
+    default ExpressionDef.Increment decrement() {
+        return new ExpressionDef.Increment(this, true, false);
+    }
+
+    /**
+     * The postfix increment: {@code this++}.
+     *
+     * @return The increment expression
+     * @since 1.5
+     */
+    default ExpressionDef.Increment postIncrement() {
+        return new ExpressionDef.Increment(this, false, true);
+    }
+
+    /**
+     * The postfix decrement: {@code this--}.
+     *
+     * @return The decrement expression
+     * @since 1.5
+     */
+    default ExpressionDef.Increment postDecrement() {
+        return new ExpressionDef.Increment(this, true, true);
+    }
+
     /**
      * The local variable.
      *
@@ -93,6 +145,7 @@ public sealed interface VariableDef extends ExpressionDef permits VariableDef.Ex
 
     /**
      * The variable of a field.
+     * The field can be a private field of a nestmate, the outer type or an inner type of the same top-level type.
      *
      * @param instance The instance variable
      * @param name     The name
@@ -0,0 +1,44 @@
+package io.micronaut.sourcegen.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.ADDITION;
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.MULTIPLICATION;
+
+class ExpressionTypeTest {
+
+    @Test
+    void testDeepMathChain() {
+        // A hashCode like chain: ((h * 31 + 0) * 31 + 1) ...
+        // The type of every node is computed once, building and querying the chain is linear
+        ExpressionDef hash = TypeDef.Primitive.INT.constant(1);
+        for (int i = 0; i < 100_000; i++) {
+            hash = hash.math(MULTIPLICATION, TypeDef.Primitive.INT.constant(31))
+                .math(ADDITION, TypeDef.Primitive.INT.constant(i));
+            if (i % 2 == 0) {
+                hash = hash.math(ExpressionDef.MathUnaryOperation.OpType.NEGATE);
+            }
+        }
+        Assertions.assertEquals(TypeDef.Primitive.INT, hash.type());
+    }
+
+    @Test
+    void testRightIsCastToLeftType() {
+        ExpressionDef.MathBinaryOperation operation = (ExpressionDef.MathBinaryOperation) TypeDef.Primitive.LONG.constant(1L)
+            .math(ADDITION, TypeDef.Primitive.INT.constant(1));
+
+        Assertions.assertEquals(TypeDef.Primitive.LONG, operation.type());
+        Assertions.assertEquals(TypeDef.Primitive.LONG, operation.right().type());
+    }
+
+    @Test
+    void testTypeMismatch() {
+        Assertions.assertThrows(IllegalStateException.class, () -> new ExpressionDef.MathBinaryOperation(
+            ADDITION,
+            TypeDef.Primitive.INT.constant(1),
+            TypeDef.Primitive.INT.constant(1),
+            TypeDef.Primitive.LONG
+        ));
+    }
+}
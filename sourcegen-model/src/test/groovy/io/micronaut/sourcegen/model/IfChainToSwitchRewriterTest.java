@@ -0,0 +1,115 @@
+package io.micronaut.sourcegen.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.element.Modifier;
+import java.util.List;
+
+class IfChainToSwitchRewriterTest {
+
+    @Test
+    void testIfElseChain() {
+        ClassDef classDef = classDef(MethodDef.builder("dispatch")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter("value", int.class)
+            .returns(String.class)
+            .build((aThis, methodParameters) -> {
+                VariableDef value = methodParameters.get(0);
+                return value.equalsStructurally(TypeDef.Primitive.INT.constant(1)).doIfElse(
+                    ExpressionDef.constant("one").returning(),
+                    value.compare(ExpressionDef.ComparisonOperation.OpType.EQUAL_TO, TypeDef.Primitive.INT.constant(2))
+                        .or(value.compare(ExpressionDef.ComparisonOperation.OpType.EQUAL_TO, TypeDef.Primitive.INT.constant(3)))
+                        .doIfElse(
+                            ExpressionDef.constant("two or three").returning(),
+                            value.equalsStructurally(TypeDef.Primitive.INT.constant(4)).doIfElse(
+                                ExpressionDef.constant("four").returning(),
+                                ExpressionDef.constant("other").returning()
+                            )
+                        )
+                );
+            }));
+
+        MethodDef method = rewrite(classDef).getMethods().get(0);
+
+        StatementDef.Switch aSwitch = (StatementDef.Switch) method.getStatements().get(0);
+        Assertions.assertEquals(new VariableDef.MethodParameter("value", TypeDef.Primitive.INT), aSwitch.expression());
+        Assertions.assertEquals(4, aSwitch.cases().size());
+        Assertions.assertSame(aSwitch.cases().get(TypeDef.Primitive.INT.constant(2)), aSwitch.cases().get(TypeDef.Primitive.INT.constant(3)));
+        Assertions.assertEquals(ExpressionDef.constant("other").returning(), aSwitch.defaultCase());
+    }
+
+    @Test
+    void testIfSequenceAndExpression() {
+        ClassDef classDef = classDef(MethodDef.builder("dispatch")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter("value", String.class)
+            .returns(int.class)
+            .build((aThis, methodParameters) -> {
+                VariableDef value = methodParameters.get(0);
+                return StatementDef.multi(
+                    value.equalsStructurally(ExpressionDef.constant("a")).doIf(TypeDef.Primitive.INT.constant(1).returning()),
+                    value.equalsStructurally(ExpressionDef.constant("b")).doIf(TypeDef.Primitive.INT.constant(2).returning()),
+                    value.equalsStructurally(ExpressionDef.constant("c")).doIf(TypeDef.Primitive.INT.constant(3).returning()),
+                    value.equalsStructurally(ExpressionDef.constant("d")).doIfElse(
+                        TypeDef.Primitive.INT.constant(4),
+                        value.equalsStructurally(ExpressionDef.constant("e")).doIfElse(
+                            TypeDef.Primitive.INT.constant(5),
+                            value.equalsStructurally(ExpressionDef.constant("f")).doIfElse(
+                                TypeDef.Primitive.INT.constant(6),
+                                TypeDef.Primitive.INT.constant(0)
+                            )
+                        )
+                    ).returning()
+                );
+            }));
+
+        List<StatementDef> statements = rewrite(classDef).getMethods().get(0).getStatements();
+
+        Assertions.assertEquals(2, statements.size());
+        StatementDef.Switch aSwitch = (StatementDef.Switch) statements.get(0);
+        Assertions.assertEquals(List.of(ExpressionDef.constant("a"), ExpressionDef.constant("b"), ExpressionDef.constant("c")), List.copyOf(aSwitch.cases().keySet()));
+        Assertions.assertNull(aSwitch.defaultCase());
+        ExpressionDef.Switch expressionSwitch = (ExpressionDef.Switch) ((StatementDef.Return) statements.get(1)).expression();
+        Assertions.assertEquals(3, expressionSwitch.cases().size());
+        Assertions.assertEquals(TypeDef.Primitive.INT.constant(0), expressionSwitch.defaultCase());
+    }
+
+    @Test
+    void testNotRewritten() {
+        ClassDef classDef = classDef(MethodDef.builder("dispatch")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter("value", String.class)
+            .addParameter("other", String.class)
+            .returns(int.class)
+            .build((aThis, methodParameters) -> {
+                VariableDef value = methodParameters.get(0);
+                VariableDef other = methodParameters.get(1);
+                return StatementDef.multi(
+                    // The constant instance accepts null
+                    ExpressionDef.constant("a").equalsStructurally(value).doIf(TypeDef.Primitive.INT.constant(1).returning()),
+                    value.equalsStructurally(ExpressionDef.constant("b")).doIf(TypeDef.Primitive.INT.constant(2).returning()),
+                    value.equalsStructurally(ExpressionDef.constant("c")).doIf(TypeDef.Primitive.INT.constant(3).returning()),
+                    // Different variables
+                    value.equalsStructurally(ExpressionDef.constant("d")).doIfElse(
+                        TypeDef.Primitive.INT.constant(4).returning(),
+                        other.equalsStructurally(ExpressionDef.constant("e")).doIfElse(
+                            TypeDef.Primitive.INT.constant(5).returning(),
+                            value.equalsStructurally(ExpressionDef.constant("f")).doIf(TypeDef.Primitive.INT.constant(6).returning())
+                        )
+                    ),
+                    TypeDef.Primitive.INT.constant(0).returning()
+                );
+            }));
+
+        Assertions.assertSame(classDef, rewrite(classDef));
+    }
+
+    private static ObjectDef rewrite(ClassDef classDef) {
+        return new IfChainToSwitchRewriter().rewrite(classDef);
+    }
+
+    private static ClassDef classDef(MethodDef method) {
+        return ClassDef.builder("example.Dispatcher").addMethod(method).build();
+    }
+}
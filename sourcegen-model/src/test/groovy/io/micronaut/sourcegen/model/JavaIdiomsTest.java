@@ -0,0 +1,37 @@
+package io.micronaut.sourcegen.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.element.Modifier;
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+
+class JavaIdiomsTest {
+
+    @Test
+    void testHoistedMethodHandlesDoNotReuseFieldNames() {
+        ClassTypeDef handlesType = ClassTypeDef.of("example.Handles");
+        MethodDef twice = MethodDef.builder("twice")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter("value", int.class)
+            .returns(int.class)
+            .build((aThis, methodParameters) -> methodParameters.get(0).returning());
+        ClassDef classDef = ClassDef.builder(handlesType.getName())
+            .addField(FieldDef.builder("METHOD_HANDLE_0", MethodHandle.class).addModifiers(Modifier.STATIC).build())
+            .addMethod(twice)
+            .addMethod(MethodDef.builder("callTwice")
+                .addModifiers(Modifier.STATIC)
+                .addParameter("value", int.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> handlesType.methodHandle(twice).invokeExact(methodParameters.get(0)).returning()))
+            .build();
+
+        ClassDef hoisted = JavaIdioms.hoistMethodHandles(classDef);
+
+        Assertions.assertEquals(List.of("METHOD_HANDLE_0", "METHOD_HANDLE_1"), hoisted.getFields().stream().map(FieldDef::getName).toList());
+        StatementDef.Return aReturn = (StatementDef.Return) hoisted.getMethods().get(1).getStatements().get(0);
+        ExpressionDef.InvokeExact invokeExact = (ExpressionDef.InvokeExact) aReturn.expression();
+        Assertions.assertEquals("METHOD_HANDLE_1", ((VariableDef.StaticField) invokeExact.methodHandle()).name());
+    }
+}
@@ -0,0 +1,99 @@
+package io.micronaut.sourcegen.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class MethodDefTest {
+
+    @Test
+    void testBodyIsBuiltOnFirstAccess() {
+        AtomicInteger invocations = new AtomicInteger();
+        MethodDef methodDef = MethodDef.builder("get")
+            .addParameter("value", int.class)
+            .returns(int.class)
+            .build((aThis, methodParameters) -> {
+                invocations.incrementAndGet();
+                return methodParameters.get(0).returning();
+            });
+
+        Assertions.assertEquals(0, invocations.get());
+        Assertions.assertEquals(TypeDef.Primitive.INT, methodDef.getReturnType());
+        Assertions.assertEquals(0, invocations.get());
+
+        List<StatementDef> statements = methodDef.getStatements();
+        Assertions.assertEquals(1, statements.size());
+        Assertions.assertInstanceOf(StatementDef.Return.class, statements.get(0));
+        Assertions.assertSame(statements, methodDef.getStatements());
+        Assertions.assertEquals(1, invocations.get());
+    }
+
+    @Test
+    void testBodyIsBuiltEagerlyToExtractReturnType() {
+        AtomicInteger invocations = new AtomicInteger();
+        MethodDef methodDef = MethodDef.builder("get")
+            .build((aThis, methodParameters) -> {
+                invocations.incrementAndGet();
+                return TypeDef.Primitive.LONG.constant(1L).returning();
+            });
+
+        Assertions.assertEquals(1, invocations.get());
+        Assertions.assertEquals(TypeDef.Primitive.LONG, methodDef.getReturnType());
+        methodDef.getStatements();
+        Assertions.assertEquals(1, invocations.get());
+    }
+
+    @Test
+    void testStatementsAndBodyBuildersOrder() {
+        MethodDef methodDef = MethodDef.builder("run")
+            .returns(TypeDef.VOID)
+            .addStatement(TypeDef.Primitive.INT.constant(1).newLocal("a"))
+            .addStatement((aThis, methodParameters) -> StatementDef.multi(
+                TypeDef.Primitive.INT.constant(2).newLocal("b"),
+                TypeDef.Primitive.INT.constant(3).newLocal("c")
+            ))
+            .addStatement(TypeDef.Primitive.INT.constant(4).newLocal("d"))
+            .build();
+
+        List<StatementDef> statements = methodDef.getStatements();
+        Assertions.assertEquals(4, statements.size());
+        Assertions.assertEquals(List.of("a", "d", "b", "c"), statements.stream()
+            .map(statement -> ((StatementDef.DefineAndAssign) statement).variable().name())
+            .toList());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> statements.add(statements.get(0)));
+    }
+
+    @Test
+    void testConcurrentAccess() throws Exception {
+        AtomicInteger invocations = new AtomicInteger();
+        MethodDef methodDef = MethodDef.builder("get")
+            .returns(int.class)
+            .build((aThis, methodParameters) -> {
+                invocations.incrementAndGet();
+                return TypeDef.Primitive.INT.constant(1).returning();
+            });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<List<StatementDef>>> tasks = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                tasks.add(methodDef::getStatements);
+            }
+            List<Future<List<StatementDef>>> futures = executor.invokeAll(tasks);
+            List<StatementDef> expected = futures.get(0).get();
+            for (Future<List<StatementDef>> future : futures) {
+                Assertions.assertSame(expected, future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(1, invocations.get());
+    }
+}
@@ -0,0 +1,66 @@
+package io.micronaut.sourcegen.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.element.Modifier;
+import java.util.List;
+
+class ObjectDefArenaTest {
+
+    @Test
+    void testCompact() {
+        FieldDef field = FieldDef.builder("value", String.class).addModifiers(Modifier.PRIVATE).build();
+        MethodDef get = MethodDef.builder("get")
+            .addModifiers(Modifier.PUBLIC)
+            .returns(String.class)
+            .build((aThis, methodParameters) -> aThis.field(field).returning());
+        MethodDef length = MethodDef.builder("length")
+            .addModifiers(Modifier.PUBLIC)
+            .returns(int.class)
+            .build((aThis, methodParameters) -> aThis.invoke(get).invoke("length", TypeDef.Primitive.INT).returning());
+        ClassDef classDef = ClassDef.builder("example.Large")
+            .addField(field)
+            .addMethod(get)
+            .addMethod(length)
+            .build();
+
+        ObjectDefArena arena = new ObjectDefArena();
+        ClassDef compacted = (ClassDef) arena.add(classDef);
+
+        Assertions.assertEquals(classDef.getName(), compacted.getName());
+        Assertions.assertEquals(classDef.getFields(), compacted.getFields());
+        MethodDef compactedGet = compacted.getMethods().get(0);
+        Assertions.assertEquals(get.getStatements(), compactedGet.getStatements());
+        // The statements are decoded on every access
+        Assertions.assertNotSame(compactedGet.getStatements(), compactedGet.getStatements());
+        StatementDef.Return aReturn = (StatementDef.Return) compacted.getMethods().get(1).getStatements().get(0);
+        ExpressionDef.InvokeInstanceMethod invokeLength = (ExpressionDef.InvokeInstanceMethod) aReturn.expression();
+        ExpressionDef.InvokeInstanceMethod invokeGet = (ExpressionDef.InvokeInstanceMethod) invokeLength.instance();
+        // The invocation references the compacted method
+        Assertions.assertSame(compactedGet, invokeGet.method());
+        Assertions.assertTrue(arena.getSize() > 0);
+    }
+
+    @Test
+    void testSharedTables() {
+        ClassDef.ClassDefBuilder builder = ClassDef.builder("example.Large");
+        for (int i = 0; i < 100; i++) {
+            builder.addMethod(MethodDef.builder("method" + i)
+                .addParameter("value", String.class)
+                .returns(String.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).isNull().doIfElse(
+                    ExpressionDef.constant("null").returning(),
+                    methodParameters.get(0).invoke("trim", TypeDef.STRING).returning()
+                )));
+        }
+        ObjectDefArena arena = new ObjectDefArena();
+        ObjectDef compacted = arena.add(builder.build());
+
+        Assertions.assertEquals(100, compacted.getMethods().size());
+        // The body strings and types are shared by all the methods
+        Assertions.assertTrue(arena.getSharedValuesCount() < 20, "Shared: " + arena.getSharedValuesCount());
+        List<StatementDef> statements = compacted.getMethods().get(99).getStatements();
+        Assertions.assertInstanceOf(StatementDef.IfElse.class, statements.get(0));
+    }
+}
@@ -0,0 +1,159 @@
+package io.micronaut.sourcegen.model;
+
+import io.micronaut.inject.ast.ClassElement;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.element.Modifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.List;
+import java.util.Map;
+
+class ObjectDefCodecTest {
+
+    @Test
+    void testRoundTrip() {
+        FieldDef field = FieldDef.builder("value", int.class)
+            .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+            .addJavadoc("The value")
+            .build();
+        VariableDef.Local total = new VariableDef.Local("total", TypeDef.Primitive.LONG);
+        MethodDef get = MethodDef.builder("get")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter("flag", boolean.class)
+            .returns(int.class)
+            .build((aThis, methodParameters) -> methodParameters.get(0).isTrue().doIfElse(
+                aThis.field(field).math(ExpressionDef.MathBinaryOperation.OpType.ADDITION, TypeDef.Primitive.INT.constant(1)).returning(),
+                aThis.field(field).returning()
+            ));
+        ClassDef classDef = ClassDef.builder("example.Encoded")
+            .addModifiers(Modifier.PUBLIC)
+            .addAnnotation(AnnotationDef.builder(Retention.class).addMember("value", RetentionPolicy.RUNTIME).build())
+            .addField(field)
+            .addField(FieldDef.builder("names", TypeDef.parameterized(List.class, String.class))
+                .initializer(ClassTypeDef.of(List.class).invokeStatic("of", TypeDef.parameterized(List.class, String.class), ExpressionDef.constant("a")))
+                .build())
+            .addMethod(get)
+            .addMethod(MethodDef.builder("twice")
+                .returns(int.class)
+                .build((aThis, methodParameters) -> aThis.invoke(get, ExpressionDef.constant(true)).newLocal("result", result ->
+                    new StatementDef.Try(result.returning()).doCatch(RuntimeException.class, e -> e.doThrow())
+                )))
+            .addMethod(MethodDef.builder("count")
+                .addParameter("values", int[].class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    total.defineAndAssign(TypeDef.Primitive.LONG.constant(0L)),
+                    methodParameters.get(0).forEach("value", TypeDef.Primitive.INT, value -> StatementDef.multi(
+                        total.compoundAssign(ExpressionDef.MathBinaryOperation.OpType.ADDITION, value),
+                        new StatementDef.For(null, null, total.postDecrement(), new StatementDef.Break("values")).labeled("inner")
+                    )).labeled("values")
+                )))
+            .addMethod(MethodDef.builder("close")
+                .addParameter("resource", AutoCloseable.class)
+                .returns(boolean.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).tryWithResource("r", r ->
+                    r.isNonNull().returning()
+                )))
+            .addInnerType(RecordDef.builder("Inner").addProperty(PropertyDef.builder("name").ofType(String.class).build()).build())
+            .build();
+
+        byte[] bytes = ObjectDefCodec.encode(classDef);
+        ObjectDef decoded = ObjectDefCodec.decode(bytes);
+
+        Assertions.assertInstanceOf(ClassDef.class, decoded);
+        ClassDef decodedClass = (ClassDef) decoded;
+        Assertions.assertEquals("example.Encoded", decodedClass.getName());
+        Assertions.assertEquals(classDef.getModifiers(), decodedClass.getModifiers());
+        Assertions.assertEquals(RetentionPolicy.RUNTIME, decodedClass.getAnnotations().get(0).getValues().get("value"));
+        Assertions.assertEquals(List.of("The value"), decodedClass.getFields().get(0).getJavadoc());
+        Assertions.assertEquals(classDef.getFields().get(1).getType(), decodedClass.getFields().get(1).getType());
+        Assertions.assertEquals(get.getStatements(), decodedClass.getMethods().get(0).getStatements());
+        Assertions.assertEquals(2, decodedClass.getMethods().get(1).getStatements().size());
+        Assertions.assertEquals(classDef.getMethods().get(2).getStatements(), decodedClass.getMethods().get(2).getStatements());
+        Assertions.assertEquals(classDef.getMethods().get(3).getStatements(), decodedClass.getMethods().get(3).getStatements());
+        ObjectDef inner = decodedClass.getInnerTypes().get(0);
+        Assertions.assertEquals("example.Encoded$Inner", inner.getName());
+        Assertions.assertTrue(inner.asTypeDef().isInner());
+        Assertions.assertArrayEquals(bytes, ObjectDefCodec.encode(decoded));
+    }
+
+    @Test
+    void testSharedValuesAreWrittenOnce() {
+        byte[] oneField = ObjectDefCodec.encode(classWithFields(1));
+        byte[] bytes = ObjectDefCodec.encode(classWithFields(10));
+        // The name, the flags and the type reference of a field
+        Assertions.assertTrue(bytes.length - oneField.length <= 9 * 14, "The shared type should be referenced");
+        ClassDef decoded = (ClassDef) ObjectDefCodec.decode(bytes);
+        Assertions.assertSame(decoded.getFields().get(0).getType(), decoded.getFields().get(9).getType());
+    }
+
+    @Test
+    void testLazyField() {
+        ClassDef classDef = ClassDef.builder("example.Lazy")
+            .addField(FieldDef.builder("name", String.class).lazy(ExpressionDef.constant("lazy")).build())
+            .build();
+
+        FieldDef decoded = ((ClassDef) ObjectDefCodec.decode(ObjectDefCodec.encode(classDef))).getFields().get(0);
+        Assertions.assertTrue(decoded.isLazy());
+        Assertions.assertEquals(ExpressionDef.constant("lazy"), decoded.getInitializer().orElseThrow());
+        Assertions.assertEquals("getName", decoded.getLazyAccessor().getName());
+    }
+
+    private static ClassDef classWithFields(int count) {
+        ClassDef.ClassDefBuilder builder = ClassDef.builder("example.Shared");
+        for (int i = 0; i < count; i++) {
+            builder.addField(FieldDef.builder("field" + i, TypeDef.parameterized(Map.class, String.class, Integer.class)).build());
+        }
+        return builder.build();
+    }
+
+    @Test
+    void testEnum() {
+        EnumDef enumDef = EnumDef.builder("example.Colors")
+            .addEnumConstant("RED", ExpressionDef.constant("r"))
+            .addEnumConstant("GREEN", ExpressionDef.constant("g"))
+            .addField(FieldDef.builder("code", String.class).addModifiers(Modifier.PRIVATE, Modifier.FINAL).build())
+            .addAllFieldsConstructor(Modifier.PRIVATE)
+            .build();
+
+        EnumDef decoded = (EnumDef) ObjectDefCodec.decode(ObjectDefCodec.encode(enumDef));
+        Assertions.assertEquals(enumDef.getEnumConstants(), decoded.getEnumConstants());
+        Assertions.assertEquals(enumDef.getMethods().get(0).getStatements(), decoded.getMethods().get(0).getStatements());
+    }
+
+    @Test
+    void testModifiers() {
+        ClassDef.ClassDefBuilder builder = ClassDef.builder("example.Modifiers");
+        for (Modifier modifier : Modifier.values()) {
+            builder.addField(FieldDef.builder(modifier.name().toLowerCase(), int.class).addModifiers(modifier).build());
+        }
+        ClassDef classDef = builder.build();
+
+        ClassDef decoded = (ClassDef) ObjectDefCodec.decode(ObjectDefCodec.encode(classDef));
+        for (int i = 0; i < classDef.getFields().size(); i++) {
+            Assertions.assertEquals(classDef.getFields().get(i).getModifiers(), decoded.getFields().get(i).getModifiers());
+        }
+    }
+
+    @Test
+    void testClassElementIsRestoredAsClass() {
+        ClassDef classDef = ClassDef.builder("example.Elements")
+            .addField(FieldDef.builder("name", ClassTypeDef.of(ClassElement.of(String.class))).build())
+            .addField(FieldDef.builder("missing", ClassTypeDef.of(ClassElement.of("example.Missing"))).build())
+            .build();
+
+        ClassDef decoded = (ClassDef) ObjectDefCodec.decode(ObjectDefCodec.encode(classDef));
+        Assertions.assertEquals(ClassTypeDef.of(String.class), Assertions.assertInstanceOf(ClassTypeDef.JavaClass.class, decoded.getFields().get(0).getType()));
+        Assertions.assertEquals(ClassTypeDef.of("example.Missing"), Assertions.assertInstanceOf(ClassTypeDef.ClassName.class, decoded.getFields().get(1).getType()));
+    }
+
+    @Test
+    void testUnsupportedInput() {
+        byte[] bytes = ObjectDefCodec.encode(ClassDef.builder("example.Empty").build());
+        bytes[4] = 99;
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> ObjectDefCodec.decode(bytes));
+        Assertions.assertEquals("Unsupported object definition encoding version: 99", e.getMessage());
+        Assertions.assertThrows(IllegalStateException.class, () -> ObjectDefCodec.decode(new byte[] {1, 2}));
+    }
+}
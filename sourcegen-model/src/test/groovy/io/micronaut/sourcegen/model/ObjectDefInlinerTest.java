@@ -0,0 +1,129 @@
+package io.micronaut.sourcegen.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.element.Modifier;
+import java.util.List;
+
+class ObjectDefInlinerTest {
+
+    private static final ClassTypeDef TYPE = ClassTypeDef.of("example.Inlined");
+    private static final FieldDef FIELD = FieldDef.builder("value", Object.class).addModifiers(Modifier.PRIVATE).build();
+
+    @Test
+    void testInlineTrivialValues() {
+        MethodDef self = MethodDef.builder("self")
+            .addModifiers(Modifier.PRIVATE)
+            .returns(TYPE)
+            .build((aThis, methodParameters) -> aThis.cast(TYPE).returning());
+        MethodDef same = MethodDef.builder("same")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter("left", Object.class)
+            .addParameter("right", Object.class)
+            .returns(boolean.class)
+            .build((aThis, methodParameters) -> methodParameters.get(0).equalsReferentially(methodParameters.get(1)).returning());
+        MethodDef withValue = MethodDef.builder("withValue")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter("value", Object.class)
+            .returns(TYPE)
+            .build((aThis, methodParameters) -> StatementDef.multi(
+                aThis.field(FIELD).put(methodParameters.get(0)),
+                aThis.invoke(self).returning()
+            ));
+        MethodDef isSame = MethodDef.builder("isSame")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter("other", Object.class)
+            .returns(boolean.class)
+            .build((aThis, methodParameters) -> TYPE.invokeStatic(same, aThis, methodParameters.get(0)).returning());
+
+        ClassDef inlined = (ClassDef) new ObjectDefInliner().inline(classDef(self, same, withValue, isSame));
+
+        Assertions.assertEquals(4, inlined.getMethods().size());
+        List<StatementDef> withValueStatements = flatten(inlined.getMethods().get(2));
+        StatementDef.Return selfReturn = (StatementDef.Return) withValueStatements.get(1);
+        Assertions.assertEquals(new ExpressionDef.Cast(TYPE, new VariableDef.This()), selfReturn.expression());
+        StatementDef.Return sameReturn = (StatementDef.Return) inlined.getMethods().get(3).getStatements().get(0);
+        Assertions.assertEquals(
+            new ExpressionDef.EqualsReferentially(new VariableDef.This(), new VariableDef.MethodParameter("other", TypeDef.OBJECT)),
+            sameReturn.expression()
+        );
+    }
+
+    @Test
+    void testInlineWithLocals() {
+        MethodDef same = MethodDef.builder("same")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter("left", Object.class)
+            .addParameter("right", Object.class)
+            .returns(boolean.class)
+            .build((aThis, methodParameters) -> methodParameters.get(0).equalsReferentially(methodParameters.get(1)).returning());
+        MethodDef reset = MethodDef.builder("reset")
+            .addModifiers(Modifier.PRIVATE)
+            .addParameter("value", Object.class)
+            .build((aThis, methodParameters) -> StatementDef.multi(
+                methodParameters.get(0).newLocal("previous"),
+                aThis.field(FIELD).put(new VariableDef.Local("previous", TypeDef.OBJECT))
+            ));
+        MethodDef isSame = MethodDef.builder("isSame")
+            .addModifiers(Modifier.PUBLIC)
+            .returns(boolean.class)
+            .build((aThis, methodParameters) -> StatementDef.multi(
+                aThis.invoke(reset, ExpressionDef.nullValue()),
+                TYPE.invokeStatic(same, aThis.field(FIELD), aThis).returning()
+            ));
+
+        ClassDef inlined = (ClassDef) new ObjectDefInliner().inline(classDef(same, reset, isSame));
+
+        List<StatementDef> statements = flatten(inlined.getMethods().get(2));
+        // The local variable of the inlined method is renamed
+        StatementDef.DefineAndAssign previous = (StatementDef.DefineAndAssign) statements.get(0);
+        Assertions.assertNotEquals("previous", previous.variable().name());
+        Assertions.assertEquals(new StatementDef.PutField(new VariableDef.This().field(FIELD), previous.variable()), statements.get(1));
+        // The field value is evaluated before the inlined expression
+        StatementDef.DefineAndAssign left = (StatementDef.DefineAndAssign) statements.get(2);
+        Assertions.assertEquals(new VariableDef.This().field(FIELD), left.expression());
+        StatementDef.Return aReturn = (StatementDef.Return) statements.get(3);
+        Assertions.assertEquals(new ExpressionDef.EqualsReferentially(left.variable(), new VariableDef.This()), aReturn.expression());
+        Assertions.assertNotEquals(previous.variable().name(), left.variable().name());
+    }
+
+    @Test
+    void testNotInlined() {
+        MethodDef recursive = MethodDef.builder("recursive")
+            .addModifiers(Modifier.PRIVATE)
+            .returns(Object.class)
+            .build((aThis, methodParameters) -> new VariableDef.This().invoke("recursive", TypeDef.OBJECT).returning());
+        MethodDef large = MethodDef.builder("large")
+            .addModifiers(Modifier.PRIVATE)
+            .returns(Object.class)
+            .build((aThis, methodParameters) -> aThis.field(FIELD).invoke("toString", TypeDef.STRING)
+                .invoke("trim", TypeDef.STRING).invoke("strip", TypeDef.STRING).returning());
+        MethodDef caller = MethodDef.builder("caller")
+            .addModifiers(Modifier.PUBLIC)
+            .returns(Object.class)
+            .build((aThis, methodParameters) -> aThis.invoke(large).ifNull(
+                aThis.invoke(recursive).returning(),
+                ExpressionDef.nullValue().returning()
+            ));
+        ClassDef classDef = classDef(recursive, large, caller);
+
+        Assertions.assertSame(classDef, new ObjectDefInliner(10).inline(classDef));
+        ClassDef inlined = (ClassDef) new ObjectDefInliner().inline(classDef);
+        // The recursive method is only invoked
+        Assertions.assertSame(recursive, inlined.getMethods().get(0));
+        Assertions.assertNotSame(caller, inlined.getMethods().get(2));
+    }
+
+    private static List<StatementDef> flatten(MethodDef method) {
+        return method.getStatements().stream().flatMap(statement -> statement.flatten().stream()).toList();
+    }
+
+    private static ClassDef classDef(MethodDef... methods) {
+        ClassDef.ClassDefBuilder builder = ClassDef.builder(TYPE.getName()).addField(FIELD);
+        for (MethodDef method : methods) {
+            builder.addMethod(method);
+        }
+        return builder.build();
+    }
+}
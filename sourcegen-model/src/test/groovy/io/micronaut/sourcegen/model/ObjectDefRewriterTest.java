@@ -0,0 +1,149 @@
+package io.micronaut.sourcegen.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.element.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+class ObjectDefRewriterTest {
+
+    @Test
+    void testSharingIsPreserved() {
+        ClassDef classDef = exampleClass();
+        List<ExpressionDef> visited = new ArrayList<>();
+        ObjectDefRewriter visitor = new ObjectDefRewriter() {
+            @Override
+            protected ExpressionDef visitExpression(ExpressionDef expression) {
+                visited.add(expression);
+                return expression;
+            }
+        };
+
+        Assertions.assertSame(classDef, visitor.rewrite(classDef));
+        Assertions.assertTrue(visited.stream().anyMatch(e -> e instanceof ExpressionDef.MathBinaryOperation));
+        Assertions.assertTrue(visited.stream().anyMatch(e -> e instanceof ExpressionDef.Constant constant && constant.value().equals(10)));
+    }
+
+    @Test
+    void testRewriteOnlyChangedPath() {
+        ClassDef classDef = exampleClass();
+        ObjectDefRewriter rewriter = new ObjectDefRewriter() {
+            @Override
+            protected ExpressionDef visitExpression(ExpressionDef expression) {
+                if (expression instanceof ExpressionDef.Constant constant && constant.value() instanceof Integer value && value == 2) {
+                    return TypeDef.Primitive.INT.constant(3);
+                }
+                return expression;
+            }
+        };
+
+        ClassDef rewritten = (ClassDef) rewriter.rewrite(classDef);
+        Assertions.assertNotSame(classDef, rewritten);
+        Assertions.assertSame(classDef.getFields().get(0), rewritten.getFields().get(0));
+        Assertions.assertSame(classDef.getMethods().get(0), rewritten.getMethods().get(0));
+        Assertions.assertNotSame(classDef.getMethods().get(1), rewritten.getMethods().get(1));
+
+        StatementDef.Return aReturn = (StatementDef.Return) rewritten.getMethods().get(1).getStatements().get(0);
+        ExpressionDef.MathBinaryOperation math = (ExpressionDef.MathBinaryOperation) aReturn.expression();
+        Assertions.assertEquals(TypeDef.Primitive.INT.constant(3), ((ExpressionDef.Cast) math.right()).expressionDef());
+        ExpressionDef.MathBinaryOperation original = (ExpressionDef.MathBinaryOperation) ((StatementDef.Return) classDef.getMethods().get(1).getStatements().get(0)).expression();
+        Assertions.assertSame(original.left(), math.left());
+    }
+
+    @Test
+    void testRewriteStatements() {
+        ClassDef classDef = exampleClass();
+        ObjectDefRewriter rewriter = new ObjectDefRewriter() {
+            @Override
+            protected StatementDef visitStatement(StatementDef statement) {
+                if (statement instanceof StatementDef.If anIf && anIf.condition() == TypeDef.Primitive.TRUE) {
+                    return anIf.statement();
+                }
+                return statement;
+            }
+        };
+
+        ClassDef rewritten = (ClassDef) rewriter.rewrite(classDef);
+        Assertions.assertInstanceOf(StatementDef.Return.class, rewritten.getMethods().get(0).getStatements().get(0));
+        Assertions.assertSame(classDef.getMethods().get(1), rewritten.getMethods().get(1));
+    }
+
+    @Test
+    void testRewriteLazily() {
+        List<String> built = new ArrayList<>();
+        ClassDef classDef = ClassDef.builder("example.Lazy")
+            .addMethod(MethodDef.builder("value")
+                .returns(int.class)
+                .build((aThis, methodParameters) -> {
+                    built.add("value");
+                    return TypeDef.Primitive.INT.constant(2).returning();
+                }))
+            .build();
+        ObjectDefRewriter rewriter = new ObjectDefRewriter() {
+            @Override
+            protected ExpressionDef visitExpression(ExpressionDef expression) {
+                if (expression instanceof ExpressionDef.Constant constant && constant.value() instanceof Integer value && value == 2) {
+                    return TypeDef.Primitive.INT.constant(3);
+                }
+                return expression;
+            }
+        };
+
+        // The statements are rewritten when they are built
+        ClassDef rewritten = (ClassDef) rewriter.rewriteLazily(classDef);
+        Assertions.assertEquals(List.of(), built);
+        StatementDef.Return aReturn = (StatementDef.Return) rewritten.getMethods().get(0).getStatements().get(0);
+        Assertions.assertEquals(TypeDef.Primitive.INT.constant(3), aReturn.expression());
+        Assertions.assertEquals(List.of("value"), built);
+        Assertions.assertSame(aReturn, rewritten.getMethods().get(0).getStatements().get(0));
+
+        // The built statements are rewritten immediately
+        Assertions.assertSame(rewritten, rewriter.rewriteLazily(rewritten));
+    }
+
+    @Test
+    void testRewriteLazilyBuildsBodyOnce() {
+        List<String> built = new ArrayList<>();
+        ClassDef classDef = ClassDef.builder("example.Lazy")
+            .addMethod(MethodDef.builder("value")
+                .returns(int.class)
+                .build((aThis, methodParameters) -> {
+                    built.add("value");
+                    return TypeDef.Primitive.INT.constant(2).returning();
+                }))
+            .build();
+        ObjectDefRewriter rewriter = new ObjectDefRewriter() {
+        };
+
+        // The rewritten copies share the statements built from the original method
+        ClassDef first = (ClassDef) rewriter.rewriteLazily(classDef);
+        ClassDef second = (ClassDef) rewriter.rewriteLazily(classDef);
+        first.getMethods().get(0).getStatements();
+        second.getMethods().get(0).getStatements();
+        classDef.getMethods().get(0).getStatements();
+        Assertions.assertEquals(List.of("value"), built);
+    }
+
+    private static ClassDef exampleClass() {
+        FieldDef field = FieldDef.builder("value", int.class)
+            .addModifiers(Modifier.PRIVATE)
+            .initializer(TypeDef.Primitive.INT.constant(10))
+            .build();
+        return ClassDef.builder("example.Rewritten")
+            .addField(field)
+            .addMethod(MethodDef.builder("first")
+                .returns(int.class)
+                .build((aThis, methodParameters) -> new StatementDef.If(
+                    TypeDef.Primitive.TRUE,
+                    aThis.field(field).returning()
+                )))
+            .addMethod(MethodDef.builder("second")
+                .returns(int.class)
+                .build((aThis, methodParameters) -> aThis.field(field)
+                    .math(ExpressionDef.MathBinaryOperation.OpType.ADDITION, TypeDef.Primitive.INT.constant(2))
+                    .returning()))
+            .build();
+    }
+}
@@ -0,0 +1,58 @@
+package io.micronaut.sourcegen.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.element.Modifier;
+
+class ObjectDefStructureTest {
+
+    @Test
+    void testStructuralEquality() {
+        ClassDef helper1 = helper("example.FooHelper", 1);
+        ClassDef helper2 = helper("example.FooHelper", 1);
+
+        Assertions.assertNotSame(helper1, helper2);
+        Assertions.assertEquals(ObjectDefStructure.of(helper1), ObjectDefStructure.of(helper2));
+        Assertions.assertEquals(ObjectDefStructure.of(helper1).hashCode(), ObjectDefStructure.of(helper2).hashCode());
+        Assertions.assertNotEquals(ObjectDefStructure.of(helper1), ObjectDefStructure.of(helper("example.FooHelper", 2)));
+    }
+
+    @Test
+    void testIgnoreNames() {
+        ClassDef helper1 = helper("example.FooHelper", 1);
+        ClassDef helper2 = helper("example.BarHelper", 1);
+
+        Assertions.assertFalse(ObjectDefStructure.structurallyEquals(helper1, helper2, false));
+        Assertions.assertTrue(ObjectDefStructure.structurallyEquals(helper1, helper2, true));
+        Assertions.assertFalse(ObjectDefStructure.structurallyEquals(helper1, helper("example.BarHelper", 2), true));
+    }
+
+    @Test
+    void testRegistry() {
+        ObjectDefRegistry registry = new ObjectDefRegistry();
+        ClassDef helper1 = helper("example.FooHelper", 1);
+
+        Assertions.assertSame(helper1, registry.register(helper1));
+        Assertions.assertSame(helper1, registry.register(helper("example.BarHelper", 1)));
+        Assertions.assertTrue(registry.find(helper("example.BazHelper", 2)).isEmpty());
+        Assertions.assertEquals(1, registry.size());
+        registry.clear();
+        Assertions.assertEquals(0, registry.size());
+    }
+
+    private static ClassDef helper(String name, int value) {
+        ClassTypeDef self = new ClassTypeDef.ClassName(name);
+        return ClassDef.builder(name)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addMethod(MethodDef.builder("create")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(self)
+                .build((aThis, methodParameters) -> self.instantiate().returning()))
+            .addMethod(MethodDef.builder("value")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> TypeDef.Primitive.INT.constant(value).returning()))
+            .build();
+    }
+}
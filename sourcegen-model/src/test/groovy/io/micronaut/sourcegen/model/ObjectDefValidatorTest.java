@@ -0,0 +1,164 @@
+package io.micronaut.sourcegen.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.lang.model.element.Modifier;
+import java.util.List;
+import java.util.Map;
+
+class ObjectDefValidatorTest {
+
+    @Test
+    void testValid() {
+        FieldDef field = FieldDef.builder("value", int.class).addModifiers(Modifier.PRIVATE).build();
+        ClassDef classDef = ClassDef.builder("example.Valid")
+            .addField(field)
+            .addMethod(MethodDef.builder("get")
+                .addParameter("flag", boolean.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).isTrue().doIfElse(
+                    aThis.field(field).newLocal("result", result -> result.returning()),
+                    aThis.field(field).newLocal("result", result -> result.returning())
+                )))
+            .build();
+
+        Assertions.assertEquals(List.of(), ObjectDefValidator.validate(classDef));
+    }
+
+    @Test
+    void testMissingReturn() {
+        ClassDef classDef = ClassDef.builder("example.Invalid")
+            .addMethod(MethodDef.builder("get")
+                .addParameter("flag", boolean.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).isTrue().doIf(
+                    TypeDef.Primitive.INT.constant(1).returning()
+                )))
+            .build();
+
+        List<ObjectDefValidator.Problem> problems = ObjectDefValidator.validate(classDef);
+        Assertions.assertEquals(1, problems.size());
+        Assertions.assertEquals("example.Invalid method get: Missing return statement", problems.get(0).toString());
+    }
+
+    @Test
+    void testIncompatibleTypes() {
+        ClassDef classDef = ClassDef.builder("example.Invalid")
+            .addField(FieldDef.builder("value", int.class).initializer(ExpressionDef.nullValue()).build())
+            .addMethod(MethodDef.builder("get")
+                .returns(int.class)
+                .build((aThis, methodParameters) -> TypeDef.Primitive.BOOLEAN.constant(true).returning()))
+            .build();
+
+        List<ObjectDefValidator.Problem> problems = ObjectDefValidator.validate(classDef);
+        Assertions.assertEquals(2, problems.size());
+        Assertions.assertInstanceOf(FieldDef.class, problems.get(0).element());
+        Assertions.assertInstanceOf(MethodDef.class, problems.get(1).element());
+    }
+
+    @Test
+    void testDuplicateLocalsAndParameters() {
+        ClassDef classDef = ClassDef.builder("example.Invalid")
+            .addMethod(MethodDef.builder("get")
+                .addParameter("value", int.class)
+                .addParameter("value", int.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> methodParameters.get(0).newLocal("local", local ->
+                    local.newLocal("local", ExpressionDef::returning)
+                )))
+            .build();
+
+        List<ObjectDefValidator.Problem> problems = ObjectDefValidator.validate(classDef);
+        Assertions.assertEquals(2, problems.size());
+        Assertions.assertEquals("example.Invalid method get: Duplicate parameter: value", problems.get(0).toString());
+        Assertions.assertEquals("example.Invalid method get: Duplicate local: local", problems.get(1).toString());
+    }
+
+    @Test
+    void testIllegalModifiers() {
+        ClassDef classDef = ClassDef.builder("example.Invalid")
+            .addModifiers(Modifier.PUBLIC, Modifier.PRIVATE)
+            .addField(FieldDef.builder("value", int.class).addModifiers(Modifier.FINAL, Modifier.VOLATILE).build())
+            .addMethod(MethodDef.builder("get")
+                .addModifiers(Modifier.ABSTRACT, Modifier.STATIC)
+                .returns(int.class)
+                .build())
+            .build();
+
+        List<ObjectDefValidator.Problem> problems = ObjectDefValidator.validate(classDef);
+        Assertions.assertEquals(4, problems.size());
+        Assertions.assertNull(problems.get(0).element());
+        Assertions.assertEquals("example.Invalid field value: Illegal combination of modifiers: final and volatile", problems.get(1).toString());
+        Assertions.assertEquals("example.Invalid method get: Illegal combination of modifiers: abstract and static", problems.get(2).toString());
+        Assertions.assertEquals("example.Invalid method get: Abstract method in a non-abstract class", problems.get(3).toString());
+        Assertions.assertThrows(IllegalStateException.class, () -> ObjectDefValidator.validateOrThrow(classDef));
+    }
+
+    @Test
+    void testLoops() {
+        ClassDef classDef = ClassDef.builder("example.Invalid")
+            .addMethod(MethodDef.builder("loop")
+                .addParameter("values", int[].class)
+                .build((aThis, methodParameters) -> StatementDef.multi(
+                    methodParameters.get(0).forEach("value", TypeDef.Primitive.INT, value -> StatementDef.multi(
+                        value.asStatementSwitch(TypeDef.Primitive.INT, Map.of(
+                            TypeDef.Primitive.INT.constant(1), new StatementDef.Break(),
+                            TypeDef.Primitive.INT.constant(2), new StatementDef.Break("outer")
+                        )),
+                        new StatementDef.Continue("inner")
+                    )).labeled("outer"),
+                    // The locals of the loops are scoped
+                    methodParameters.get(0).forEach("value", TypeDef.Primitive.INT, value -> new StatementDef.Continue()),
+                    new StatementDef.Break()
+                )))
+            .build();
+
+        // The break without a label leaves the switch
+        List<ObjectDefValidator.Problem> problems = ObjectDefValidator.validate(classDef);
+        Assertions.assertEquals(2, problems.size());
+        Assertions.assertEquals("example.Invalid method loop: Undefined label: inner", problems.get(0).toString());
+        Assertions.assertEquals("example.Invalid method loop: The break outside of a loop", problems.get(1).toString());
+    }
+
+    @Test
+    void testInfiniteLoops() {
+        VariableDef.Local i = new VariableDef.Local("i", TypeDef.Primitive.INT);
+        ClassDef classDef = ClassDef.builder("example.Loops")
+            .addMethod(MethodDef.builder("whileTrue")
+                .addParameter("value", int.class)
+                .returns(int.class)
+                .build((aThis, methodParameters) -> new StatementDef.While(
+                    ExpressionDef.trueValue(),
+                    methodParameters.get(0).compare(ExpressionDef.ComparisonOperation.OpType.GREATER_THAN, TypeDef.Primitive.INT.constant(0))
+                        .doIf(methodParameters.get(0).returning())
+                )))
+            .addMethod(MethodDef.builder("forEver")
+                .returns(int.class)
+                .build((aThis, methodParameters) -> new StatementDef.For(
+                    i.defineAndAssign(TypeDef.Primitive.INT.constant(0)),
+                    null,
+                    i.increment(),
+                    StatementDef.multi(
+                        // The break leaves the inner loop
+                        new StatementDef.While(ExpressionDef.trueValue(), new StatementDef.Break()),
+                        i.compare(ExpressionDef.ComparisonOperation.OpType.GREATER_THAN, TypeDef.Primitive.INT.constant(10))
+                            .doIf(i.returning())
+                    )
+                )))
+            .addMethod(MethodDef.builder("broken")
+                .returns(int.class)
+                .build((aThis, methodParameters) -> new StatementDef.For(
+                    null,
+                    null,
+                    null,
+                    new StatementDef.Break("outer"),
+                    "outer"
+                )))
+            .build();
+
+        List<ObjectDefValidator.Problem> problems = ObjectDefValidator.validate(classDef);
+        Assertions.assertEquals(1, problems.size());
+        Assertions.assertEquals("example.Loops method broken: Missing return statement", problems.get(0).toString());
+    }
+}
@@ -0,0 +1,82 @@
+package io.micronaut.sourcegen.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+class TypeDefInternerTest {
+
+    @Test
+    void testClasses() {
+        Assertions.assertSame(ClassTypeDef.of(String.class), ClassTypeDef.of(String.class));
+        Assertions.assertSame(TypeDef.STRING, TypeDef.of(String.class));
+        Assertions.assertSame(TypeDef.STRING.makeNullable(), ClassTypeDef.of(String.class).makeNullable());
+        Assertions.assertNotSame(TypeDef.STRING, TypeDef.STRING.makeNullable());
+        Assertions.assertSame(TypeDef.Primitive.INT, TypeDef.of(int.class));
+        Assertions.assertSame(TypeDef.VOID, TypeDef.of(void.class));
+        Assertions.assertSame(TypeDef.Primitive.INT.wrapperType(), TypeDef.of(Integer.class));
+    }
+
+    @Test
+    void testArrays() {
+        Assertions.assertSame(TypeDef.of(int[][].class), TypeDef.of(int[][].class));
+        Assertions.assertSame(TypeDef.of(String[].class), TypeDef.STRING.array());
+        Assertions.assertSame(TypeDef.array(TypeDef.Primitive.LONG, 2), TypeDef.Primitive.LONG.array(2));
+    }
+
+    @Test
+    void testParameterized() {
+        Assertions.assertSame(
+            TypeDef.parameterized(Map.class, String.class, Integer.class),
+            TypeDef.parameterized(ClassTypeDef.of(Map.class), TypeDef.STRING, TypeDef.of(Integer.class))
+        );
+        Assertions.assertSame(
+            TypeDef.parameterized(List.class, TypeDef.parameterized(List.class, String.class)),
+            TypeDef.parameterized(List.class, TypeDef.parameterized(List.class, String.class))
+        );
+    }
+
+    @Test
+    void testParameterizedCopiesArguments() {
+        List<TypeDef> arguments = new ArrayList<>(List.of(TypeDef.STRING));
+        ClassTypeDef.Parameterized parameterized = (ClassTypeDef.Parameterized) TypeDef.parameterized(ClassTypeDef.of(List.class), arguments);
+        arguments.set(0, TypeDef.of(Integer.class));
+        Assertions.assertEquals(List.of(TypeDef.STRING), parameterized.typeArguments());
+        Assertions.assertSame(parameterized, TypeDef.parameterized(List.class, String.class));
+    }
+
+    @Test
+    void testParameterizedAcceptsNullArguments() {
+        List<TypeDef> arguments = new ArrayList<>();
+        arguments.add(null);
+        ClassTypeDef.Parameterized parameterized = new ClassTypeDef.Parameterized(ClassTypeDef.of(List.class), arguments);
+        arguments.set(0, TypeDef.STRING);
+        Assertions.assertEquals(Collections.singletonList(null), parameterized.typeArguments());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> parameterized.typeArguments().add(TypeDef.STRING));
+    }
+
+    @Test
+    void testClassNames() {
+        Assertions.assertSame(ClassTypeDef.of("example.Test"), ClassTypeDef.of("example.Test"));
+        Assertions.assertSame(ClassTypeDef.of("example.Test$Inner", true), ClassTypeDef.of("example.Test$Inner", true));
+        ClassTypeDef notInner = ClassTypeDef.of("example.Test$Inner");
+        ClassTypeDef inner = ClassTypeDef.of("example.Test$Inner", true);
+        Assertions.assertFalse(notInner.isInner());
+        Assertions.assertTrue(inner.isInner());
+    }
+
+    @Test
+    void testNotInterned() {
+        // The type variables and the types of the user classes are not shared
+        Assertions.assertNotSame(TypeDef.variable("T"), TypeDef.variable("T"));
+        Assertions.assertEquals(TypeDef.variable("T"), TypeDef.variable("T"));
+        Assertions.assertNotSame(
+            TypeDef.parameterized(ClassTypeDef.of("example.Test"), TypeDef.STRING),
+            TypeDef.parameterized(ClassTypeDef.of("example.Test"), TypeDef.STRING)
+        );
+    }
+}
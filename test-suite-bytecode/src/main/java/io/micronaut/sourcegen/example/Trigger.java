@@ -17,6 +17,7 @@ package io.micronaut.sourcegen.example;
 
 
 import io.micronaut.sourcegen.custom.example.GenerateArray;
+import io.micronaut.sourcegen.custom.example.GenerateCompoundAssignments;
 import io.micronaut.sourcegen.custom.example.GenerateIfsPredicate;
 import io.micronaut.sourcegen.custom.example.GenerateInnerTypes;
 import io.micronaut.sourcegen.custom.example.GenerateMethodInvocation;
@@ -28,7 +29,9 @@ import io.micronaut.sourcegen.custom.example.GenerateInterface;
 import io.micronaut.sourcegen.custom.example.GenerateMyEnum2;
 import io.micronaut.sourcegen.custom.example.GenerateMyRecord1;
 import io.micronaut.sourcegen.custom.example.GenerateMyRecord3;
+import io.micronaut.sourcegen.custom.example.GenerateModifiers;
 import io.micronaut.sourcegen.custom.example.GenerateMyRepository1;
+import io.micronaut.sourcegen.custom.example.GenerateNestmates;
 import io.micronaut.sourcegen.custom.example.GenerateSwitch;
 
 @GenerateMyBean1
@@ -45,5 +48,8 @@ import io.micronaut.sourcegen.custom.example.GenerateSwitch;
 @GenerateArray
 @GenerateMethodInvocation
 @GenerateInnerTypes
+@GenerateModifiers
+@GenerateNestmates
+@GenerateCompoundAssignments
 public class Trigger {
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.example;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CompoundAssignmentsTest {
+
+    @Test
+    void testInts() {
+        CompoundAssignments compoundAssignments = new CompoundAssignments();
+        Assertions.assertEquals(145, compoundAssignments.ints(5, 7));
+        Assertions.assertEquals(40, compoundAssignments.ints(-40000, 3));
+    }
+
+    @Test
+    void testLongs() {
+        CompoundAssignments compoundAssignments = new CompoundAssignments();
+        Assertions.assertEquals(5909874999296L, compoundAssignments.longs(3L, 40));
+        Assertions.assertEquals(2305843009213693935L, compoundAssignments.longs(-1L, 5));
+    }
+
+    @Test
+    void testBytesAndShorts() {
+        CompoundAssignments compoundAssignments = new CompoundAssignments();
+        Assertions.assertEquals((byte) 76, compoundAssignments.bytes((byte) 5));
+        Assertions.assertEquals((byte) 64, compoundAssignments.bytes((byte) 127));
+        Assertions.assertEquals((byte) 122, compoundAssignments.bytes((byte) -100));
+        Assertions.assertEquals((short) 1826, compoundAssignments.shorts((short) 7));
+        Assertions.assertEquals((short) -32521, compoundAssignments.shorts((short) 1000));
+    }
+}
@@ -3,6 +3,11 @@ package io.micronaut.sourcegen.example;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -289,4 +294,50 @@ public class MethodInvokerTest {
         }
     }
 
+    @Test
+    public void testSwapper7() {
+        Swapper swapper = new Swapper();
+        Object o1 = new Object();
+        Assertions.assertNull(swapper.swap7(o1));
+        Assertions.assertEquals(o1, swapper.getTarget());
+        Object o2 = new Object();
+        Assertions.assertEquals(o1, swapper.swap7(o2));
+        Assertions.assertEquals(o2, swapper.getTarget());
+        Assertions.assertFalse(swapper.isLocked());
+    }
+
+    @Test
+    public void testSwapper8() {
+        Swapper swapper = new Swapper();
+        Assertions.assertThrows(IllegalStateException.class, () -> swapper.swap8(new Object()));
+        Assertions.assertFalse(swapper.isLocked());
+        Assertions.assertThrows(IllegalStateException.class, () -> swapper.swap8(new Object()));
+        Assertions.assertFalse(swapper.isLocked());
+    }
+
+    @Test
+    public void testLockContention() throws Exception {
+        Swapper swapper = new Swapper();
+        int threads = 64;
+        int iterations = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < iterations; j++) {
+                        swapper.increment();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assertions.assertEquals(threads * iterations + 1, swapper.increment());
+        Assertions.assertFalse(swapper.isLocked());
+    }
+
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.example;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+class ModifiersTest {
+
+    @Test
+    void testFieldModifiers() throws Exception {
+        Assertions.assertTrue(Modifier.isVolatile(Modifiers.class.getDeclaredField("counter").getModifiers()));
+        Assertions.assertTrue(Modifier.isTransient(Modifiers.class.getDeclaredField("cache").getModifiers()));
+    }
+
+    @Test
+    void testSynchronizedMethod() throws Exception {
+        Method increment = Modifiers.class.getDeclaredMethod("increment");
+        Assertions.assertTrue(Modifier.isSynchronized(increment.getModifiers()));
+        Modifiers modifiers = new Modifiers();
+        Assertions.assertEquals(1, modifiers.increment());
+        Assertions.assertEquals(2, modifiers.increment());
+    }
+
+    @Test
+    void testVarargsMethod() throws Exception {
+        Assertions.assertTrue(Modifiers.class.getDeclaredMethod("sum", int[].class).isVarArgs());
+        Assertions.assertEquals(0, Modifiers.sum());
+        Assertions.assertEquals(6, Modifiers.sum(1, 2, 3));
+    }
+
+    @Test
+    void testNativeMethod() throws Exception {
+        Assertions.assertTrue(Modifier.isNative(Modifiers.class.getDeclaredMethod("nativeMethod").getModifiers()));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.custom.visitor;
+
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.inject.ast.ClassElement;
+import io.micronaut.inject.visitor.TypeElementVisitor;
+import io.micronaut.inject.visitor.VisitorContext;
+import io.micronaut.sourcegen.custom.example.GenerateCompoundAssignments;
+import io.micronaut.sourcegen.generator.SourceGenerator;
+import io.micronaut.sourcegen.generator.SourceGenerators;
+import io.micronaut.sourcegen.model.ClassDef;
+import io.micronaut.sourcegen.model.ExpressionDef;
+import io.micronaut.sourcegen.model.MethodDef;
+import io.micronaut.sourcegen.model.StatementDef;
+import io.micronaut.sourcegen.model.TypeDef;
+
+import javax.lang.model.element.Modifier;
+
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.ADDITION;
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.BITWISE_AND;
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.BITWISE_LEFT_SHIFT;
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.BITWISE_OR;
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.BITWISE_RIGHT_SHIFT;
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.BITWISE_UNSIGNED_RIGHT_SHIFT;
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.BITWISE_XOR;
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.DIVISION;
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.MODULUS;
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.MULTIPLICATION;
+import static io.micronaut.sourcegen.model.ExpressionDef.MathBinaryOperation.OpType.SUBTRACTION;
+
+@Internal
+public final class GenerateCompoundAssignmentsVisitor implements TypeElementVisitor<GenerateCompoundAssignments, Object> {
+
+    @Override
+    public @NonNull VisitorKind getVisitorKind() {
+        return VisitorKind.ISOLATING;
+    }
+
+    @Override
+    public void visitClass(ClassElement element, VisitorContext context) {
+        SourceGenerator sourceGenerator = SourceGenerators.findByLanguage(context.getLanguage()).orElse(null);
+        if (sourceGenerator == null) {
+            return;
+        }
+
+        ClassDef classDef = ClassDef.builder(element.getPackageName() + ".CompoundAssignments")
+            .addModifiers(Modifier.PUBLIC)
+            .addMethod(MethodDef.builder("ints")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter("x", TypeDef.Primitive.INT)
+                .addParameter("y", TypeDef.Primitive.INT)
+                .returns(TypeDef.Primitive.INT)
+                .build((self, parameterDefs) -> parameterDefs.get(0).newLocal("value", value -> StatementDef.multi(
+                    value.compoundAssign(ADDITION, parameterDefs.get(1)),
+                    value.compoundAssign(MULTIPLICATION, ExpressionDef.primitiveConstant(3)),
+                    value.compoundAssign(BITWISE_AND, ExpressionDef.primitiveConstant(0xFFFF)),
+                    value.compoundAssign(BITWISE_OR, ExpressionDef.primitiveConstant(0x100)),
+                    value.compoundAssign(BITWISE_XOR, parameterDefs.get(1)),
+                    value.compoundAssign(BITWISE_LEFT_SHIFT, ExpressionDef.primitiveConstant(2)),
+                    value.compoundAssign(BITWISE_RIGHT_SHIFT, ExpressionDef.primitiveConstant(1)),
+                    value.compoundAssign(BITWISE_UNSIGNED_RIGHT_SHIFT, ExpressionDef.primitiveConstant(1)),
+                    value.compoundAssign(MODULUS, ExpressionDef.primitiveConstant(1000)),
+                    value.compoundAssign(SUBTRACTION, ExpressionDef.primitiveConstant(1)),
+                    value.compoundAssign(DIVISION, ExpressionDef.primitiveConstant(2)),
+                    value.returning()
+                ))))
+            .addMethod(MethodDef.builder("longs")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter("x", TypeDef.Primitive.LONG)
+                .addParameter("distance", TypeDef.Primitive.INT)
+                .returns(TypeDef.Primitive.LONG)
+                .build((self, parameterDefs) -> parameterDefs.get(0).newLocal("value", value -> StatementDef.multi(
+                    value.compoundAssign(ADDITION, parameterDefs.get(1)),
+                    value.compoundAssign(BITWISE_LEFT_SHIFT, parameterDefs.get(1)),
+                    value.compoundAssign(BITWISE_XOR, parameterDefs.get(0)),
+                    value.compoundAssign(BITWISE_UNSIGNED_RIGHT_SHIFT, ExpressionDef.primitiveConstant(3)),
+                    value.returning()
+                ))))
+            .addMethod(MethodDef.builder("bytes")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter("x", TypeDef.Primitive.BYTE)
+                .returns(TypeDef.Primitive.BYTE)
+                .build((self, parameterDefs) -> parameterDefs.get(0).newLocal("value", value -> StatementDef.multi(
+                    value.compoundAssign(ADDITION, ExpressionDef.primitiveConstant(1)),
+                    value.compoundAssign(BITWISE_LEFT_SHIFT, ExpressionDef.primitiveConstant(1)),
+                    value.compoundAssign(BITWISE_OR, ExpressionDef.primitiveConstant(0x40)),
+                    value.returning()
+                ))))
+            .addMethod(MethodDef.builder("shorts")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter("x", TypeDef.Primitive.SHORT)
+                .returns(TypeDef.Primitive.SHORT)
+                .build((self, parameterDefs) -> parameterDefs.get(0).newLocal("value", value -> StatementDef.multi(
+                    value.compoundAssign(MULTIPLICATION, ExpressionDef.primitiveConstant(300)),
+                    value.compoundAssign(SUBTRACTION, parameterDefs.get(0)),
+                    value.compoundAssign(BITWISE_XOR, ExpressionDef.primitiveConstant(0x0F0F)),
+                    value.returning()
+                ))))
+            .build();
+
+        sourceGenerator.write(classDef, context, element);
+    }
+
+}
@@ -182,10 +182,15 @@ public final class GenerateMethodInvocationVisitor implements TypeElementVisitor
             .initializer(new VariableDef.This().field(lockField).invoke("writeLock", TypeDef.of(Lock.class)))
             .build();
 
+        FieldDef syncLockField = FieldDef.lock("syncLock");
+        FieldDef counterField = FieldDef.builder("counter", TypeDef.Primitive.INT).addModifiers(Modifier.PRIVATE).build();
+
         ClassDef swapper = ClassDef.builder("io.micronaut.sourcegen.example.Swapper")
             .addField(targetField)
             .addField(lockField)
             .addField(writeLockField)
+            .addField(syncLockField)
+            .addField(counterField)
             .addMethod(MethodDef.builder("getTarget").build((aThis, methodParameters) -> aThis.field(targetField).returning()))
             .addMethod(MethodDef.builder("swap")
                 .addModifiers(Modifier.PUBLIC)
@@ -268,6 +273,33 @@ public final class GenerateMethodInvocationVisitor implements TypeElementVisitor
                         ClassTypeDef.of(IllegalStateException.class).instantiate(ExpressionDef.constant("Bam")).doThrow()
                     )
                 )))
+            .addMethod(MethodDef.builder("swap7")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameters(Object.class)
+                .returns(Object.class)
+                .build((aThis, methodParameters) -> StatementDef.Synchronized.withLock(aThis.field(syncLockField),
+                    aThis.field(targetField).newLocal("target", targetVar -> StatementDef.multi(
+                        aThis.field(targetField).assign(methodParameters.get(0)),
+                        targetVar.returning()
+                    ))
+                )))
+            .addMethod(MethodDef.builder("swap8")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameters(Object.class)
+                .returns(Object.class)
+                .build((aThis, methodParameters) -> StatementDef.Synchronized.withLock(aThis.field(syncLockField),
+                    ClassTypeDef.of(IllegalStateException.class).instantiate(ExpressionDef.constant("Bam")).doThrow()
+                )))
+            .addMethod(MethodDef.builder("increment")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(TypeDef.Primitive.INT)
+                .build((aThis, methodParameters) -> StatementDef.Synchronized.withLock(aThis.field(syncLockField),
+                    aThis.field(counterField).increment().returning()
+                )))
+            .addMethod(MethodDef.builder("isLocked")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(TypeDef.Primitive.BOOLEAN)
+                .build((aThis, methodParameters) -> aThis.field(syncLockField).invoke("isLocked", TypeDef.Primitive.BOOLEAN).returning()))
             .build();
 
         sourceGenerator.write(swapper, context, element);
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-2023 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.custom.visitor;
+
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.inject.ast.ClassElement;
+import io.micronaut.inject.visitor.TypeElementVisitor;
+import io.micronaut.inject.visitor.VisitorContext;
+import io.micronaut.sourcegen.custom.example.GenerateModifiers;
+import io.micronaut.sourcegen.generator.SourceGenerator;
+import io.micronaut.sourcegen.generator.SourceGenerators;
+import io.micronaut.sourcegen.model.ClassDef;
+import io.micronaut.sourcegen.model.ClassTypeDef;
+import io.micronaut.sourcegen.model.FieldDef;
+import io.micronaut.sourcegen.model.MethodDef;
+import io.micronaut.sourcegen.model.TypeDef;
+
+import javax.lang.model.element.Modifier;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+@Internal
+public final class GenerateModifiersVisitor implements TypeElementVisitor<GenerateModifiers, Object> {
+
+    @Override
+    public @NonNull VisitorKind getVisitorKind() {
+        return VisitorKind.ISOLATING;
+    }
+
+    @Override
+    public void visitClass(ClassElement element, VisitorContext context) {
+        SourceGenerator sourceGenerator = SourceGenerators.findByLanguage(context.getLanguage()).orElse(null);
+        if (sourceGenerator == null) {
+            return;
+        }
+
+        FieldDef counterField = FieldDef.builder("counter", TypeDef.Primitive.INT)
+            .addModifiers(Modifier.PRIVATE, Modifier.VOLATILE)
+            .build();
+        FieldDef cacheField = FieldDef.builder("cache", TypeDef.STRING.makeNullable())
+            .addModifiers(Modifier.PRIVATE, Modifier.TRANSIENT)
+            .build();
+
+        ClassDef classDef = ClassDef.builder(element.getPackageName() + ".Modifiers")
+            .addModifiers(Modifier.PUBLIC)
+            .addField(counterField)
+            .addField(cacheField)
+            .addMethod(MethodDef.builder("increment")
+                .addModifiers(Modifier.PUBLIC, Modifier.SYNCHRONIZED)
+                .returns(TypeDef.Primitive.INT)
+                .build((aThis, methodParameters) -> aThis.field(counterField).increment().returning()))
+            .addMethod(MethodDef.builder("sum")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("values", TypeDef.Primitive.INT.array())
+                .varargs()
+                .returns(TypeDef.Primitive.INT)
+                .buildStatic(methodParameters -> ClassTypeDef.of(Arrays.class)
+                    .invokeStatic("stream", TypeDef.of(IntStream.class), methodParameters.get(0))
+                    .invoke("sum", TypeDef.Primitive.INT)
+                    .returning()
+                ))
+            .addMethod(MethodDef.builder("nativeMethod")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.NATIVE)
+                .returns(TypeDef.VOID)
+                .build())
+            .build();
+
+        sourceGenerator.write(classDef, context, element);
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.custom.visitor;
+
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.inject.ast.ClassElement;
+import io.micronaut.inject.visitor.TypeElementVisitor;
+import io.micronaut.inject.visitor.VisitorContext;
+import io.micronaut.sourcegen.custom.example.GenerateNestmates;
+import io.micronaut.sourcegen.generator.SourceGenerator;
+import io.micronaut.sourcegen.generator.SourceGenerators;
+import io.micronaut.sourcegen.model.ClassDef;
+import io.micronaut.sourcegen.model.ClassTypeDef;
+import io.micronaut.sourcegen.model.ExpressionDef;
+import io.micronaut.sourcegen.model.FieldDef;
+import io.micronaut.sourcegen.model.MethodDef;
+import io.micronaut.sourcegen.model.TypeDef;
+
+import javax.lang.model.element.Modifier;
+import java.util.List;
+
+@Internal
+public final class GenerateNestmatesVisitor implements TypeElementVisitor<GenerateNestmates, Object> {
+
+    @Override
+    public @NonNull VisitorKind getVisitorKind() {
+        return VisitorKind.ISOLATING;
+    }
+
+    @Override
+    public void visitClass(ClassElement element, VisitorContext context) {
+        SourceGenerator sourceGenerator = SourceGenerators.findByLanguage(context.getLanguage()).orElse(null);
+        if (sourceGenerator == null) {
+            return;
+        }
+
+        String className = element.getPackageName() + ".Nestmates";
+        ClassTypeDef outerType = ClassTypeDef.of(className);
+        ClassTypeDef accessorType = ClassTypeDef.of(className + "$Accessor", true);
+
+        // The private members of the outer class accessed by the inner class
+        FieldDef secretField = FieldDef.builder("secret", TypeDef.Primitive.INT)
+            .addModifiers(Modifier.PRIVATE)
+            .build();
+        MethodDef twiceMethod = MethodDef.builder("twice")
+            .addModifiers(Modifier.PRIVATE)
+            .addParameter("value", TypeDef.Primitive.INT)
+            .returns(TypeDef.Primitive.INT)
+            .build((aThis, methodParameters) -> methodParameters.get(0)
+                .math(ExpressionDef.MathBinaryOperation.OpType.MULTIPLICATION, TypeDef.Primitive.INT.constant(2))
+                .returning());
+
+        // The private members of the inner class accessed by the outer class
+        FieldDef outerField = FieldDef.builder("outer", outerType)
+            .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+            .build();
+        MethodDef peekMethod = MethodDef.builder("peek")
+            .addModifiers(Modifier.PRIVATE)
+            .returns(TypeDef.Primitive.INT)
+            .build((aThis, methodParameters) -> aThis.field(outerField).field(secretField).returning());
+
+        ClassDef accessor = ClassDef.builder("Accessor")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+            .addField(outerField)
+            .addAllFieldsConstructor(Modifier.PRIVATE)
+            .addMethod(MethodDef.builder("update")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter("value", TypeDef.Primitive.INT)
+                .returns(TypeDef.Primitive.INT)
+                .build((aThis, methodParameters) -> aThis.field(outerField).field(secretField)
+                    .put(aThis.field(outerField).invoke(twiceMethod, methodParameters.get(0)))
+                    .after(aThis.field(outerField).field(secretField).returning())
+                ))
+            .addMethod(peekMethod)
+            .build();
+
+        ClassDef classDef = ClassDef.builder(className)
+            .addModifiers(Modifier.PUBLIC)
+            .addField(secretField)
+            .addMethod(twiceMethod)
+            .addMethod(MethodDef.builder("accessor")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(accessorType)
+                .build((aThis, methodParameters) -> accessorType.instantiate(List.<TypeDef>of(outerType), aThis).returning()))
+            .addMethod(MethodDef.builder("owner")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("accessor", accessorType)
+                .returns(outerType)
+                .buildStatic(methodParameters -> methodParameters.get(0).field(outerField).returning()))
+            .addMethod(MethodDef.builder("peek")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter("accessor", accessorType)
+                .returns(TypeDef.Primitive.INT)
+                .buildStatic(methodParameters -> methodParameters.get(0).invoke(peekMethod).returning()))
+            .addInnerType(accessor)
+            .build();
+
+        sourceGenerator.write(classDef, context, element);
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017-2024 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.example;
+
+import io.micronaut.sourcegen.annotations.EqualsAndHashCode;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@EqualsAndHashCode
+public class Reading {
+
+    public static final AtomicInteger READS = new AtomicInteger();
+
+    private final String value;
+
+    public Reading(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        READS.incrementAndGet();
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return ReadingObject.equals(this, o);
+    }
+
+    @Override
+    public int hashCode() {
+        return ReadingObject.hashCode(this);
+    }
+}
@@ -34,6 +34,9 @@ import java.util.List;
 @GenerateAnnotatedType
 @GenerateInnerTypes
 @GenerateMyEnum2
+@GenerateModifiers
+@GenerateNestmates
+@GenerateCompoundAssignments
 public class Trigger {
     public List<String> copyAddresses;
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.example;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+class NestmatesTest {
+
+    @Test
+    void testNestmates() {
+        Assertions.assertEquals(Nestmates.class, Nestmates.Accessor.class.getNestHost());
+        Assertions.assertTrue(Nestmates.class.isNestmateOf(Nestmates.Accessor.class));
+    }
+
+    @Test
+    void testPrivateAccess() throws Exception {
+        Assertions.assertTrue(Modifier.isPrivate(Nestmates.class.getDeclaredField("secret").getModifiers()));
+        Assertions.assertTrue(Modifier.isPrivate(Nestmates.Accessor.class.getDeclaredField("outer").getModifiers()));
+        Assertions.assertTrue(Modifier.isPrivate(Nestmates.Accessor.class.getDeclaredConstructor(Nestmates.class).getModifiers()));
+
+        Nestmates nestmates = new Nestmates();
+        Nestmates.Accessor accessor = nestmates.accessor();
+        Assertions.assertSame(nestmates, Nestmates.owner(accessor));
+        Assertions.assertEquals(0, Nestmates.peek(accessor));
+        Assertions.assertEquals(6, accessor.update(3));
+        Assertions.assertEquals(6, Nestmates.peek(accessor));
+    }
+
+    @Test
+    void testNoSyntheticAccessors() {
+        Assertions.assertTrue(Arrays.stream(Nestmates.class.getDeclaredMethods()).noneMatch(Method::isSynthetic));
+        Assertions.assertTrue(Arrays.stream(Nestmates.Accessor.class.getDeclaredMethods()).noneMatch(Method::isSynthetic));
+    }
+}
@@ -119,4 +119,54 @@ public class ObjectTest {
         assertNotEquals(person.hashCode(), personDiffArray.hashCode());
     }
     //end::testt[]
+
+    @Test
+    public void testPropertiesAreReadOnce() {
+        var reading = new Reading("value");
+        var readingSame = new Reading("value");
+        var readingNull = new Reading(null);
+
+        Reading.READS.set(0);
+        assertEquals(reading, readingSame);
+        assertEquals(2, Reading.READS.get());
+
+        Reading.READS.set(0);
+        assertNotEquals(readingNull, reading);
+        assertEquals(2, Reading.READS.get());
+
+        Reading.READS.set(0);
+        assertEquals("value".hashCode(), reading.hashCode());
+        assertEquals(1, Reading.READS.get());
+    }
+
+    @Test
+    public void testAppendTo() {
+        var person = new Person4(123L, Person4.Title.MR, "Cédric", new byte[]{1, 2, 3});
+        var builder = new StringBuilder("person: ");
+        Person4Object.appendTo(person, builder);
+        assertEquals("person: " + person, builder.toString());
+
+        var first = new Chain("first");
+        var second = new Chain("second");
+        first.setNext(second);
+        builder = new StringBuilder();
+        ChainObject.appendTo(first, builder);
+        assertEquals("Chain[name=first, next=Chain[name=second, next=null]]", builder.toString());
+
+        second.setNext(first);
+        builder = new StringBuilder();
+        ChainObject.appendTo(first, builder, 3);
+        assertEquals("Chain[name=first, next=Chain[name=second, next=Chain[name=first, next=Chain[...]]]]", builder.toString());
+    }
+
+    @Test
+    public void testWriteOnlyLastProperty() {
+        var account = new Account("admin");
+        account.setPassword("secret");
+        assertEquals("Account[name=admin]", account.toString());
+
+        var builder = new StringBuilder();
+        AccountObject.appendTo(account, builder);
+        assertEquals(account.toString(), builder.toString());
+    }
 }
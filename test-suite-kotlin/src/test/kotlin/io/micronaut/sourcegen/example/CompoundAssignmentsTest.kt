@@ -0,0 +1,45 @@
+/*
+ * Copyright 2003-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.sourcegen.example
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+internal class CompoundAssignmentsTest {
+    @Test
+    fun ints() {
+        val compoundAssignments = CompoundAssignments()
+        assertEquals(145, compoundAssignments.ints(5, 7))
+        assertEquals(40, compoundAssignments.ints(-40000, 3))
+    }
+
+    @Test
+    fun longs() {
+        val compoundAssignments = CompoundAssignments()
+        assertEquals(5909874999296L, compoundAssignments.longs(3L, 40))
+        assertEquals(2305843009213693935L, compoundAssignments.longs(-1L, 5))
+    }
+
+    @Test
+    fun bytesAndShorts() {
+        val compoundAssignments = CompoundAssignments()
+        assertEquals(76.toByte(), compoundAssignments.bytes(5))
+        assertEquals(64.toByte(), compoundAssignments.bytes(127))
+        assertEquals(122.toByte(), compoundAssignments.bytes(-100))
+        assertEquals(1826.toShort(), compoundAssignments.shorts(7))
+        assertEquals((-32521).toShort(), compoundAssignments.shorts(1000))
+    }
+}